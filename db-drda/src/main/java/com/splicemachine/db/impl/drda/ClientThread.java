@@ -39,7 +39,6 @@ final class ClientThread extends Thread {
 
 	NetworkServerControlImpl parent;
 	ServerSocket serverSocket;
-	private int timeSlice;
 	private int connNum;
     
     ClientThread (NetworkServerControlImpl nsi, ServerSocket ss) {
@@ -50,7 +49,6 @@ final class ClientThread extends Thread {
         
         parent=nsi;
         serverSocket=ss;
-        timeSlice=nsi.getTimeSlice();
     }
 	
     public void run() 
@@ -82,9 +80,11 @@ final class ClientThread extends Thread {
                         clientSocket.setKeepAlive(parent.getKeepAlive());
                         
                         // Set time out: Stops DDMReader.fill() from
-                        // waiting indefinitely when timeSlice is set.
-                        if (timeSlice > 0)
-                            clientSocket.setSoTimeout(timeSlice);
+                        // waiting indefinitely when timeSlice is set, or
+                        // when idle sessions are parked.
+                        int timeout = parent.getSessionReadTimeout(clientSocket);
+                        if (timeout > 0)
+                            clientSocket.setSoTimeout(timeout);
                         
                         //create a new Session for this socket
                         parent.addSession(clientSocket);
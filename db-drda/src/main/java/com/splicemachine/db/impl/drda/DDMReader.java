@@ -149,6 +149,16 @@ class DDMReader
 
 	// next DSS in the chain has a different correlator
 	private boolean dssIsChainedWithDiffID;
+
+	// waiting for the first bytes of a new request chain, with nothing of it
+	// buffered yet
+	private boolean awaitingRequest;
+
+	// whether a read may only time out while awaitingRequest; set for the
+	// sessions which are parked when idle, since a parked session must not
+	// have part of a request buffered. Otherwise (timeSlice) any read may
+	// time out.
+	private boolean timeoutOnlyBetweenRequests;
 	
 	// correlation id for the current DSS
 	private int dssCorrelationID;
@@ -195,6 +205,18 @@ class DDMReader
 		initialize(null, null);
 	}
 
+	/**
+	 * Set whether reads may only time out between requests, which is the
+	 * case for the sessions that are parked when idle.
+	 *
+	 * @param timeoutOnlyBetweenRequests true to keep waiting for the rest of
+	 * a request which has been partly read
+	 */
+	void setTimeoutOnlyBetweenRequests(boolean timeoutOnlyBetweenRequests)
+	{
+		this.timeoutOnlyBetweenRequests = timeoutOnlyBetweenRequests;
+	}
+
 	/**
 	 * Initialize values for this session, the reader is reused so we need to
 	 * set null and 0 values
@@ -343,7 +365,13 @@ class DDMReader
 	 */
 	protected int readDssHeader () throws DRDAProtocolException
 	{
-		ensureALayerDataInBuffer (6);
+		awaitingRequest = (pos == count) &&
+			!dssIsChainedWithSameID && !dssIsChainedWithDiffID;
+		try {
+			ensureALayerDataInBuffer (6);
+		} finally {
+			awaitingRequest = false;
+		}
 
 		// read out the DSS length
 		dssLength = ((buffer[pos] & 0xff) << 8) +
@@ -1921,6 +1949,16 @@ class DDMReader
 				  buffer, count, buffer.length - count);
 			} catch (java.net.SocketTimeoutException ste) {
 
+                // Once part of a request has been read, the rest of it has
+                // to be waited for if the session could be parked: the
+                // connection thread could not pick up the request where it
+                // left off.
+                if (timeoutOnlyBetweenRequests &&
+                        (!awaitingRequest || count > pos)) {
+                    actualBytesRead = 0;
+                    continue;
+                }
+
                 // Transport the timeout out through the layers. This
                 // exception is caught in DRDAConnThread.run();
                 throw new DRDASocketTimeoutException(agent);
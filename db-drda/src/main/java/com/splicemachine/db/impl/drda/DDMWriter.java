@@ -736,17 +736,21 @@ class DDMWriter
 
 	    
 
+		// The DSSes before the stream and the stream itself go through
+		// the same buffer, so that they are coalesced into as few writes
+		// as possible.
+		OutputStream out = 
+		    placeLayerBStreamingBuffer( agent.getOutputStream() );
+
 		// Stream equivalent of "beginDss"...
 	    int spareDssLength = prepScalarStream( chainedWithSameCorrelator,
 											codePoint,
-											writeNullByte);
+											writeNullByte,
+											out);
 	    
 		// write the data
 				try {
 				    
-		OutputStream out = 
-		    placeLayerBStreamingBuffer( agent.getOutputStream() );
-		
 		boolean isLastSegment = false;
 		
 		while( !isLastSegment ){
@@ -819,7 +823,7 @@ class DDMWriter
 
     /**
      * prepScalarStream does the following prep for writing stream data:
-     * 1.  Flushes an existing DSS segment, if necessary
+     * 1.  Writes an existing DSS segment to the stream's output, if necessary
      * 2.  Determines if extended length bytes are needed
      * 3.  Creates a new DSS/DDM header and a null byte indicator, if applicable
      *
@@ -829,7 +833,8 @@ class DDMWriter
      */
   private int prepScalarStream( boolean chainedWithSameCorrelator,
                                    int codePoint,
-                                   boolean writeNullByte) throws DRDAProtocolException
+                                   boolean writeNullByte,
+                                   OutputStream out) throws DRDAProtocolException
   {
 
       ensureLength( DEFAULT_BUFFER_SIZE - buffer.position() );
@@ -844,8 +849,9 @@ class DDMWriter
 
       try {
 	    // The existing DSS segment was finalized by endDss; all
-	    // we have to do is send it across the wire.
-        sendBytes(agent.getOutputStream());
+	    // we have to do is send it across the wire. It is flushed
+	    // along with the stream which follows it.
+        sendBytes(out, false);
       }
       catch (java.io.IOException e) {
          agent.markCommunicationsFailure ("DDMWriter.writeScalarStream()",
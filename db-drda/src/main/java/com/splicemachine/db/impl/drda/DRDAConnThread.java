@@ -347,10 +347,19 @@ class DRDAConnThread extends Thread {
                             try {
                                 processCommands();
                             } catch (DRDASocketTimeoutException ste) {
-                                // Just ignore the exception. This was
-                                // a timeout on the read call in
+                                // This was a timeout on the read call in
                                 // DDMReader.fill(), which will happen
-                                // only when timeSlice is set.
+                                // only when timeSlice is set or idle
+                                // sessions are parked. A session which can
+                                // be parked only times out before the
+                                // client has started its next request; if
+                                // the server can watch the session until
+                                // the client does, let go of it.
+                                if (isBetweenRequests() &&
+                                        server.parkIdleSession(session)) {
+                                    session = null;
+                                    break;
+                                }
                             }
 							currentTimeSlice = getTimeSlice();
 						} while ((currentTimeSlice <= 0)  || 
@@ -672,6 +681,7 @@ class DRDAConnThread extends Thread {
 		sockos = session.sessionOutput;
 
 		reader = new DDMReader(this, session.dssTrace);
+		reader.setTimeoutOnlyBetweenRequests(server.canParkIdleSessions(session));
 		writer = new DDMWriter(this, session.dssTrace);
 		
 		/* At this stage we can initialize the strings as we have
@@ -693,6 +703,7 @@ class DRDAConnThread extends Thread {
 
 		// intialize reader and writer
 		reader.initialize(this, session.dssTrace);
+		reader.setTimeoutOnlyBetweenRequests(server.canParkIdleSessions(session));
 		writer.reset(session.dssTrace);
 
 		// initialize local pointers to session info
@@ -9073,6 +9084,17 @@ class DRDAConnThread extends Thread {
     boolean hasSession() {
         return session != null;
     }
+
+    /**
+     * Whether the session could be picked up by another thread: it has been
+     * through security and attached to a database, and no state carried from
+     * one request to the next is held by this thread.
+     */
+    private boolean isBetweenRequests() {
+        return session.state == Session.ATTEXC &&
+                pendingStatementTimeout < 0 &&
+                !deferredReset;
+    }
     
     long getBytesRead() {
         return reader.totalByteCount;
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.db.impl.drda;
+
+import java.io.IOException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Watches the connections of idle sessions, so that they do not each hold a
+ * {@link DRDAConnThread}.
+ *
+ * A connection thread which has waited <code>derby.drda.idleSessionTimeout</code>
+ * milliseconds for the next request of its session parks the session here and
+ * goes on to serve other sessions. The session's channel is switched to
+ * non-blocking mode and registered with a selector; as soon as the client sends
+ * its next request (or closes the connection) the channel is switched back to
+ * blocking mode and the session is handed back to the server, which gives it to
+ * a free connection thread. A small pool of threads can then serve a large
+ * number of mostly idle connections.
+ *
+ * Only the sessions of connections accepted through a
+ * {@link java.nio.channels.ServerSocketChannel} can be parked, which excludes
+ * SSL connections.
+ */
+final class IdleSessionMultiplexer extends Thread {
+
+    private final NetworkServerControlImpl server;
+    private final Selector selector;
+    private final ConcurrentLinkedQueue<Session> toRegister =
+            new ConcurrentLinkedQueue<Session>();
+    private final AtomicInteger parkedSessions = new AtomicInteger();
+    private volatile boolean closed;
+
+    IdleSessionMultiplexer(NetworkServerControlImpl server) throws IOException {
+        NetworkServerControlImpl.setUniqueThreadName(this, "NetworkServerIdleSessions");
+        setDaemon(true);
+        this.server = server;
+        this.selector = Selector.open();
+    }
+
+    /**
+     * @return whether the session's connection can be watched by a selector
+     */
+    static boolean canPark(Session session) {
+        return session.clientSocket.getChannel() != null;
+    }
+
+    /**
+     * Park a session which has no pending request. The caller must not touch
+     * the session again; it is handed back to the server once the client
+     * sends something.
+     */
+    void park(Session session) {
+        parkedSessions.incrementAndGet();
+        toRegister.add(session);
+        if (closed) {
+            // the selector thread may already be past closing the sessions
+            closeQueuedSessions();
+            return;
+        }
+        selector.wakeup();
+    }
+
+    /**
+     * @return the number of sessions currently parked
+     */
+    int getParkedSessionCount() {
+        return parkedSessions.get();
+    }
+
+    void shutdown() {
+        closed = true;
+        selector.wakeup();
+    }
+
+    public void run() {
+        List<Session> ready = new ArrayList<Session>();
+        try {
+            while (!closed) {
+                registerParkedSessions();
+                selector.select();
+                Set<SelectionKey> selected = selector.selectedKeys();
+                if (closed || selected.isEmpty())
+                    continue;
+
+                for (SelectionKey key : selected) {
+                    key.cancel();
+                    ready.add((Session) key.attachment());
+                }
+                selected.clear();
+                // A channel cannot go back to blocking mode until its
+                // cancelled key has been deregistered by the next selection.
+                // Keys which become ready in the meantime stay ready, so
+                // they are selected again by the next select().
+                selector.selectNow();
+                selector.selectedKeys().clear();
+
+                for (Session session : ready) {
+                    resume(session);
+                }
+                ready.clear();
+            }
+        } catch (IOException ioe) {
+            server.consoleExceptionPrintTrace(ioe);
+        } catch (ClosedSelectorException cse) {
+            // shut down
+        } finally {
+            closeParkedSessions();
+            try {
+                selector.close();
+            } catch (IOException ioe) {
+                server.consoleExceptionPrintTrace(ioe);
+            }
+        }
+    }
+
+    /**
+     * Close the sessions still parked when the multiplexer stops, since no
+     * connection thread will pick them up again.
+     */
+    private void closeParkedSessions() {
+        closeQueuedSessions();
+        try {
+            for (SelectionKey key : selector.keys()) {
+                key.cancel();
+                parkedSessions.decrementAndGet();
+                server.closeParkedSession((Session) key.attachment());
+            }
+        } catch (ClosedSelectorException cse) {
+            // nothing left to close
+        }
+    }
+
+    private void closeQueuedSessions() {
+        Session session;
+        while ((session = toRegister.poll()) != null) {
+            parkedSessions.decrementAndGet();
+            server.closeParkedSession(session);
+        }
+    }
+
+    private void registerParkedSessions() {
+        Session session;
+        while ((session = toRegister.poll()) != null) {
+            SocketChannel channel = session.clientSocket.getChannel();
+            try {
+                channel.configureBlocking(false);
+                channel.register(selector, SelectionKey.OP_READ, session);
+            } catch (IOException ioe) {
+                // The connection is gone; let a connection thread find
+                // that out and clean up the session.
+                resume(session);
+            }
+        }
+    }
+
+    private void resume(Session session) {
+        parkedSessions.decrementAndGet();
+        try {
+            session.clientSocket.getChannel().configureBlocking(true);
+        } catch (IOException ioe) {
+            // The connection has been closed. The connection thread fails
+            // to read from it and closes the session.
+        }
+        server.resumeSession(session);
+    }
+}
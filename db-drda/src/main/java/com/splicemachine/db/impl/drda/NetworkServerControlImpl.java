@@ -62,9 +62,11 @@ import javax.net.ssl.SSLSocket;
 import javax.net.ssl.SSLSocketFactory;
 import java.io.*;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.UnknownHostException;
+import java.nio.channels.ServerSocketChannel;
 import java.nio.charset.Charset;
 import java.security.*;
 import java.sql.Connection;
@@ -145,6 +147,7 @@ public final class NetworkServerControlImpl {
 	private final static int USE_DEFAULT = -1;
 	private final static int DEFAULT_MAXTHREADS = 0; //for now create whenever needed
 	private final static int DEFAULT_TIMESLICE = 0;	//for now never yield
+	private final static int DEFAULT_IDLE_SESSION_TIMEOUT = 100;
 
 	private final static String DEFAULT_HOST = "localhost";
 	private final static String DRDA_MSG_PREFIX = "DRDA_";
@@ -260,6 +263,12 @@ public final class NetworkServerControlImpl {
 										// and changing timeSlice
 
 	private boolean keepAlive = true;   // keepAlive value for client socket 
+	private boolean multiplexIdleSessions;	// park idle sessions instead of
+										// blocking a thread on each of them
+	private int idleSessionTimeout = DEFAULT_IDLE_SESSION_TIMEOUT;
+										// how long a thread waits for the next
+										// request before parking the session
+	private IdleSessionMultiplexer idleSessionMultiplexer;
 	private int minPoolSize;			//minimum pool size for pooled connections
 	private int maxPoolSize;			//maximum pool size for pooled connections
 	private Object poolSync = new Object();	// object to use for syning reading
@@ -283,7 +292,7 @@ public final class NetworkServerControlImpl {
 	private DataOutputStream commandOs = new DataOutputStream(byteArrayOs);
 	
 	private Object shutdownSync = new Object();
-	private boolean shutdown;
+	private volatile boolean shutdown;
 	private int connNum;		// number of connections since server started
 	private ServerSocket serverSocket;
 	private NetworkServerControlImpl serverInstance;
@@ -652,6 +661,14 @@ public final class NetworkServerControlImpl {
 		switch (getSSLMode()) {
 		case SSL_OFF:
 		default:
+			if (multiplexIdleSessions) {
+				// Sockets accepted through a channel can be handed to a
+				// selector while their sessions are idle.
+				ServerSocket ss = ServerSocketChannel.open().socket();
+				ss.setReuseAddress(true);
+				ss.bind(new InetSocketAddress(hostAddress, portNumber));
+				return ss;
+			}
 			ServerSocketFactory sf =
 				ServerSocketFactory.getDefault();
 			return sf.createServerSocket(portNumber
@@ -770,6 +787,19 @@ public final class NetworkServerControlImpl {
                             NetworkServerMBean.class,
                             "type=NetworkServer");
 
+		if (multiplexIdleSessions && serverSocket.getChannel() != null) {
+			idleSessionMultiplexer =
+				(IdleSessionMultiplexer) AccessController.doPrivileged(
+								new PrivilegedExceptionAction() {
+									public Object run() throws Exception
+									{
+										return new IdleSessionMultiplexer(thisControl);
+									}
+								}
+							);
+			idleSessionMultiplexer.start();
+		}
+
 		// We accept clients on a separate thread so we don't run into a problem
 		// blocking on the accept when trying to process a shutdown
 		final ClientThread clientThread =	 
@@ -829,6 +859,9 @@ public final class NetworkServerControlImpl {
 	 			}
 	 		}
 
+			if (idleSessionMultiplexer != null)
+				idleSessionMultiplexer.shutdown();
+
 			synchronized (threadList)
 			{
 	 			//interupt any connection threads still active
@@ -3055,6 +3088,20 @@ public final class NetworkServerControlImpl {
 		if (propval != null && 
 			StringUtil.SQLEqualsIgnoreCase(propval,"false"))
 			keepAlive = false;
+
+		propval = PropertyUtil.getSystemProperty(
+			Property.DRDA_PROP_MULTIPLEX_IDLE_SESSIONS);
+		if (propval != null &&
+			StringUtil.SQLEqualsIgnoreCase(propval,"true"))
+			multiplexIdleSessions = true;
+
+		propval = PropertyUtil.getSystemProperty(
+			Property.DRDA_PROP_IDLE_SESSION_TIMEOUT);
+		if (propval != null && !propval.isEmpty()) {
+			idleSessionTimeout = getIntPropVal(Property.DRDA_PROP_IDLE_SESSION_TIMEOUT, propval);
+			if (idleSessionTimeout <= 0)
+				idleSessionTimeout = DEFAULT_IDLE_SESSION_TIMEOUT;
+		}
 		
 		propval = PropertyUtil.getSystemProperty( 
 			Property.DRDA_PROP_HOSTNAME);
@@ -3863,6 +3910,8 @@ public final class NetworkServerControlImpl {
 		retval.put(Property.DRDA_PROP_PORTNUMBER, new Integer(portNumber).toString());
 		retval.put(Property.DRDA_PROP_HOSTNAME, hostArg);
 		retval.put(Property.DRDA_PROP_KEEPALIVE, new Boolean(keepAlive).toString());
+		retval.put(Property.DRDA_PROP_MULTIPLEX_IDLE_SESSIONS, Boolean.toString(multiplexIdleSessions));
+		retval.put(Property.DRDA_PROP_IDLE_SESSION_TIMEOUT, Integer.toString(idleSessionTimeout));
 
 		String tracedir = getTraceDirectory();
 		if (tracedir != null)
@@ -3936,34 +3985,43 @@ public final class NetworkServerControlImpl {
 
 		sessionTable.put(new Integer(connectionNumber), session);
 
-		// Check whether there are enough free threads to service all the
-		// threads in the run queue in addition to the newly added session.
-		boolean enoughThreads;
+		startSession(session);
+	}
+
+	/**
+	 * Hand a session which has something to do to a connection thread,
+	 * starting a new thread if there is no free one and the maximum number of
+	 * threads has not been reached, or queueing the session otherwise.
+	 *
+	 * @param session the session
+	 */
+	private void startSession(Session session)
+	{
+		// If there are enough free threads to service all the sessions in
+		// the run queue in addition to this one, just queue it. Parked
+		// sessions are resumed concurrently with new sessions being added,
+		// so the check and the queueing must be atomic.
 		synchronized (runQueue) {
-			enoughThreads = (runQueue.size() < freeThreads);
+			if (runQueue.size() < freeThreads) {
+				runQueueAdd(session);
+				return;
+			}
 		}
-		// No need to hold the synchronization on runQueue any longer than
-		// this. Since no other threads can make runQueue grow, and no other
-		// threads will reduce the number of free threads without removing
-		// sessions from runQueue, (runQueue.size() < freeThreads) cannot go
-		// from true to false until addSession() returns.
 
 		DRDAConnThread thread = null;
 
-		// try to start a new thread if we don't have enough free threads
-		if (!enoughThreads) {
-			// Synchronize on threadsSync to ensure that the value of
-			// maxThreads doesn't change until the new thread is added to
-			// threadList.
-			synchronized (threadsSync) {
-				// only start a new thread if we have no maximum number of
-				// threads or the maximum number of threads is not exceeded
-				if ((maxThreads == 0) || (threadList.size() < maxThreads)) {
-					thread = new DRDAConnThread(session, this, getTimeSlice(),
-												getLogConnections());
-					threadList.add(thread);
-					thread.start();
-				}
+		// try to start a new thread, since we don't have enough free threads.
+		// Synchronize on threadsSync to ensure that the value of
+		// maxThreads doesn't change until the new thread is added to
+		// threadList.
+		synchronized (threadsSync) {
+			// only start a new thread if we have no maximum number of
+			// threads or the maximum number of threads is not exceeded
+			if ((maxThreads == 0) || (threadList.size() < maxThreads)) {
+				thread = new DRDAConnThread(session, this, getTimeSlice(),
+											getLogConnections());
+				threadList.add(thread);
+				thread.start();
 			}
 		}
 
@@ -3973,6 +4031,77 @@ public final class NetworkServerControlImpl {
 		}
 	}
 
+	/**
+	 * Park a session which is waiting for its next request, so that its
+	 * thread can serve other sessions. Called from DRDAConnThread when a read
+	 * times out before any of the next request has arrived.
+	 *
+	 * @param session the idle session
+	 * @return true if the session was parked, in which case the calling
+	 * thread must let go of it; false if the thread should keep waiting
+	 */
+	boolean parkIdleSession(Session session) {
+		if (shutdown || !canParkIdleSessions(session))
+			return false;
+		idleSessionMultiplexer.park(session);
+		return true;
+	}
+
+	/**
+	 * @param session a session
+	 * @return whether the session is parked when it is idle
+	 */
+	boolean canParkIdleSessions(Session session) {
+		return idleSessionMultiplexer != null &&
+				IdleSessionMultiplexer.canPark(session);
+	}
+
+	/**
+	 * Give a parked session back to the connection threads, once its client
+	 * has sent something. Once the server is shut down, no thread picks it
+	 * up any more, so it is closed instead.
+	 *
+	 * @param session the session
+	 */
+	void resumeSession(Session session) {
+		if (shutdown) {
+			closeParkedSession(session);
+			return;
+		}
+		startSession(session);
+	}
+
+	/**
+	 * Close a session which no connection thread holds.
+	 *
+	 * @param session the session
+	 */
+	void closeParkedSession(Session session) {
+		try {
+			session.close();
+		} catch (Exception exception) {
+			consolePrintAndIgnore("DRDA_UnexpectedException.S", exception, true);
+		}
+		removeFromSessionTable(session.getConnNum());
+	}
+
+	/**
+	 * Get the read timeout for the socket of a new session: the time slice,
+	 * or the idle session timeout if it is shorter and idle sessions of this
+	 * socket can be parked.
+	 *
+	 * @param clientSocket the socket of the session
+	 * @return the read timeout in milliseconds, 0 for none
+	 */
+	int getSessionReadTimeout(Socket clientSocket) {
+		int timeout = getTimeSlice();
+		if (idleSessionMultiplexer != null && clientSocket.getChannel() != null) {
+			if (timeout <= 0 || timeout > idleSessionTimeout)
+				timeout = idleSessionTimeout;
+		}
+		return timeout;
+	}
+
 	/**
 	 * Remove a thread from the thread list. Should be called when a
 	 * <code>DRDAConnThread</code> has been closed.
@@ -4058,6 +4187,11 @@ public final class NetworkServerControlImpl {
     int getRunQueueSize() {
         return runQueue.size();
     }
+
+    int getIdleSessions() {
+        return idleSessionMultiplexer == null ? 0 :
+                idleSessionMultiplexer.getParkedSessionCount();
+    }
     
     int getThreadListSize() {
         return threadList.size();
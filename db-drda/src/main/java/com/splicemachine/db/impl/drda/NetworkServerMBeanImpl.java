@@ -281,7 +281,8 @@ class NetworkServerMBeanImpl implements NetworkServerMBean {
     public int getConnectionCount() {
         checkMonitor();
         
-        return getActiveConnectionCount() + getWaitingConnectionCount();
+        return getActiveConnectionCount() + getWaitingConnectionCount() +
+                getIdleConnectionCount();
     }
     
     public int getActiveConnectionCount() {
@@ -295,6 +296,12 @@ class NetworkServerMBeanImpl implements NetworkServerMBean {
         
         return server.getRunQueueSize();
     }
+
+    public int getIdleConnectionCount() {
+        checkMonitor();
+
+        return server.getIdleSessions();
+    }
     
     public int getConnectionThreadPoolSize() {
         checkMonitor();
@@ -276,7 +276,7 @@ public interface NetworkServerMBean {
     
     /**
      * <p>
-     * Gets the total number of current connections (waiting or active) to the
+     * Gets the total number of current connections (waiting, active or idle) to the
      * Network Server.</p>
      * <p>
      * Requires <code>SystemPermission("server", "monitor")</code> if a security
@@ -285,6 +285,7 @@ public interface NetworkServerMBean {
      * @return the number of current connections
      * @see #getActiveConnectionCount()
      * @see #getWaitingConnectionCount()
+     * @see #getIdleConnectionCount()
      */
     int getConnectionCount();
 
@@ -330,6 +331,22 @@ public interface NetworkServerMBean {
      * @see #getDrdaTimeSlice()
      */
     int getWaitingConnectionCount();
+
+    /**
+     * <p>
+     * Gets the number of connections which are waiting for their client's
+     * next request without holding a connection thread. This number is always
+     * 0 unless idle sessions are multiplexed
+     * (<code>db.drda.multiplexIdleSessions</code> property).</p>
+     * <p>
+     * Requires <code>SystemPermission("server", "monitor")</code> if a security
+     * manager is installed.</p>
+     *
+     * @return the number of idle connections
+     * @see #getActiveConnectionCount()
+     * @see #getWaitingConnectionCount()
+     */
+    int getIdleConnectionCount();
     
     /**
      * <p>
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.db.impl.drda;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.LinkedList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests when a read timeout surfaces from {@link DDMReader}: always with the time slice
+ * alone, and only between requests for the sessions which are parked when idle.
+ */
+public class DDMReaderTest {
+
+    /** the header of a 10 byte request DSS, unchained, with correlation id 1 */
+    private static final byte[] HEADER = {0x00, 0x0A, (byte) 0xD0, 0x01, 0x00, 0x01};
+
+    @Test
+    public void testTimeoutBetweenRequestsSurfaces() throws Exception {
+        assertTimesOut(reader(false, (byte[]) null));
+        assertTimesOut(reader(true, (byte[]) null));
+    }
+
+    @Test
+    public void testTimeoutInHeaderKeepsWaitingWhenParkable() throws Exception {
+        DDMReader reader = reader(true, Arrays.copyOfRange(HEADER, 0, 1), null,
+                Arrays.copyOfRange(HEADER, 1, HEADER.length));
+        assertEquals(1, reader.readDssHeader());
+    }
+
+    @Test
+    public void testTimeoutInHeaderSurfacesWithTimeSlice() throws Exception {
+        assertTimesOut(reader(false, Arrays.copyOfRange(HEADER, 0, 1), null,
+                Arrays.copyOfRange(HEADER, 1, HEADER.length)));
+    }
+
+    @Test
+    public void testTimeoutInBodyKeepsWaitingWhenParkable() throws Exception {
+        DDMReader reader = reader(true, HEADER, new byte[]{0x12}, null, new byte[]{0x34, 0, 0, 0});
+        assertEquals(1, reader.readDssHeader());
+        assertEquals(0x1234, reader.readNetworkShort());
+    }
+
+    @Test
+    public void testTimeoutInBodySurfacesWithTimeSlice() throws Exception {
+        DDMReader reader = reader(false, HEADER, new byte[]{0x12}, null, new byte[]{0x34, 0, 0, 0});
+        assertEquals(1, reader.readDssHeader());
+        try {
+            reader.readNetworkShort();
+            fail("Expected the read to time out");
+        } catch (DRDASocketTimeoutException expected) {
+        }
+    }
+
+    private static void assertTimesOut(DDMReader reader) throws DRDAProtocolException {
+        try {
+            reader.readDssHeader();
+            fail("Expected the read to time out");
+        } catch (DRDASocketTimeoutException expected) {
+        }
+    }
+
+    /**
+     * @param chunks what each read returns, null for a read which times out
+     */
+    private static DDMReader reader(boolean timeoutOnlyBetweenRequests, byte[]... chunks) {
+        DDMReader reader = new DDMReader(new ScriptedInputStream(chunks));
+        reader.setTimeoutOnlyBetweenRequests(timeoutOnlyBetweenRequests);
+        return reader;
+    }
+
+    private static class ScriptedInputStream extends InputStream {
+        private final LinkedList<byte[]> chunks = new LinkedList<byte[]>();
+
+        ScriptedInputStream(byte[]... chunks) {
+            this.chunks.addAll(Arrays.asList(chunks));
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (chunks.isEmpty()) {
+                return -1;
+            }
+            byte[] chunk = chunks.removeFirst();
+            if (chunk == null) {
+                throw new SocketTimeoutException();
+            }
+            System.arraycopy(chunk, 0, b, off, chunk.length);
+            return chunk.length;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.db.impl.drda;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Tests that the sessions parked in an {@link IdleSessionMultiplexer} are not leaked when it stops.
+ */
+public class IdleSessionMultiplexerTest {
+
+    private ServerSocketChannel serverChannel;
+    private IdleSessionMultiplexer multiplexer;
+    private int connNum;
+
+    @Before
+    public void setUp() throws Exception {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.socket().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        multiplexer = new IdleSessionMultiplexer(new NetworkServerControlImpl());
+        multiplexer.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (multiplexer.isAlive()) {
+            multiplexer.shutdown();
+            multiplexer.join(10000);
+        }
+        serverChannel.close();
+    }
+
+    @Test
+    public void testParkedSessionsAreClosedAtShutdown() throws Exception {
+        Socket first = connect();
+        Socket second = connect();
+        Session firstSession = accept();
+        Session secondSession = accept();
+        multiplexer.park(firstSession);
+        multiplexer.park(secondSession);
+
+        multiplexer.shutdown();
+        multiplexer.join(10000);
+        assertFalse("The multiplexer did not stop", multiplexer.isAlive());
+
+        assertEquals(0, multiplexer.getParkedSessionCount());
+        assertEquals(Session.CLOSED, firstSession.state);
+        assertEquals(Session.CLOSED, secondSession.state);
+        assertEquals("The client should see its connection closed", -1, first.getInputStream().read());
+        assertEquals("The client should see its connection closed", -1, second.getInputStream().read());
+        first.close();
+        second.close();
+    }
+
+    @Test
+    public void testSessionParkedAfterShutdownIsClosed() throws Exception {
+        Socket client = connect();
+        Session session = accept();
+        multiplexer.shutdown();
+        multiplexer.join(10000);
+
+        multiplexer.park(session);
+        assertEquals(0, multiplexer.getParkedSessionCount());
+        assertEquals(Session.CLOSED, session.state);
+        assertEquals("The client should see its connection closed", -1, client.getInputStream().read());
+        client.close();
+    }
+
+    private Socket connect() throws Exception {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), serverChannel.socket().getLocalPort());
+        socket.setSoTimeout(10000);
+        return socket;
+    }
+
+    private Session accept() throws Exception {
+        Socket socket = serverChannel.accept().socket();
+        return new Session(null, ++connNum, socket, null, false);
+    }
+}
@@ -293,4 +293,11 @@ public interface PreparedStatement
     boolean hasXPlainTableOrProcedure();
 
     void setXPlainTableOrProcedure(boolean val);
+
+    /**
+     * @return true if the statement compares a parameter with a column which has statistics, so that
+     * its plan may be worse than the plan for a literal value. Only computed when literals are
+     * auto-parameterized.
+     */
+    boolean comparesParametersToColumnStatistics();
 }
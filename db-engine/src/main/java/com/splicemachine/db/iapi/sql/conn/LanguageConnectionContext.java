@@ -1413,4 +1413,22 @@ public interface LanguageConnectionContext extends Context {
 	CommentStripper getCommentStripper();
 	boolean getIgnoreCommentOptEnabled();
 
+	/**
+	 * @return true if the literals of DML statements are replaced by parameters before the
+	 * statement cache lookup
+	 */
+	boolean getAutoParameterizeEnabled();
+
+	/**
+	 * Prepares the statement with its literals replaced by parameters, and returns an activation
+	 * with the literal values set into the parameters.
+	 *
+	 * @return the activation, or null if the statement could not be auto-parameterized, in which
+	 * case it should be prepared as it is
+	 * @exception StandardException thrown if the failure is not limited to the statement
+	 */
+	Activation getAutoParameterizedActivation(SchemaDescriptor compilationSchema, String sqlText,
+											  boolean isForReadOnly, boolean scrollInsensitive)
+			throws StandardException;
+
 }
@@ -614,14 +614,19 @@ public class EmbedStatement extends ConnectionChild implements EngineStatement {
             SQLText = sql;
 
             try {
-                Activation activation;
+                Activation activation = null;
                 try {
-                    PreparedStatement preparedStatement = lcc.prepareInternalStatement
-                            (lcc.getDefaultSchema(), sql, resultSetConcurrency ==
-                                    java.sql.ResultSet.CONCUR_READ_ONLY, false);
-                    activation =
-                            preparedStatement.getActivation(lcc, resultSetType ==
-                                    java.sql.ResultSet.TYPE_SCROLL_INSENSITIVE);
+                    boolean isForReadOnly = resultSetConcurrency == java.sql.ResultSet.CONCUR_READ_ONLY;
+                    boolean scrollInsensitive = resultSetType == java.sql.ResultSet.TYPE_SCROLL_INSENSITIVE;
+                    // try the plan shared by the statements which only differ by their literals first
+                    if (lcc.getAutoParameterizeEnabled())
+                        activation = lcc.getAutoParameterizedActivation(lcc.getDefaultSchema(), sql,
+                                isForReadOnly, scrollInsensitive);
+                    if (activation == null) {
+                        PreparedStatement preparedStatement = lcc.prepareInternalStatement
+                                (lcc.getDefaultSchema(), sql, isForReadOnly, false);
+                        activation = preparedStatement.getActivation(lcc, scrollInsensitive);
+                    }
                     checkRequiresCallableStatement(activation);
                     InterruptStatus.restoreIntrFlagIfSeen(lcc);
                 } catch (Throwable t) {
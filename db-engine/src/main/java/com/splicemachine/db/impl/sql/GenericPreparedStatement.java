@@ -158,6 +158,8 @@ public class GenericPreparedStatement implements ExecPreparedStatement {
 
     private boolean hasXPlainTableOrProcedure;
 
+    private boolean comparesParametersToColumnStatistics;
+
     private CompilerContext.DataSetProcessorType datasetProcessorType;
     //
     // constructors
@@ -1120,6 +1122,15 @@ public class GenericPreparedStatement implements ExecPreparedStatement {
         hasXPlainTableOrProcedure = val;
     }
 
+    @Override
+    public boolean comparesParametersToColumnStatistics() {
+        return comparesParametersToColumnStatistics;
+    }
+
+    public void setComparesParametersToColumnStatistics(boolean val) {
+        comparesParametersToColumnStatistics = val;
+    }
+
 
     public CompilerContext.DataSetProcessorType datasetProcessorType() {
         return datasetProcessorType;
@@ -49,6 +49,8 @@ import com.splicemachine.db.iapi.sql.execute.ExecutionContext;
 import com.splicemachine.db.iapi.util.ByteArray;
 import com.splicemachine.db.iapi.util.InterruptStatus;
 import com.splicemachine.db.impl.ast.JsonTreeBuilderVisitor;
+import com.splicemachine.db.impl.sql.compile.BinaryRelationalOperatorNode;
+import com.splicemachine.db.impl.sql.compile.CollectNodesVisitor;
 import com.splicemachine.db.impl.sql.compile.ExplainNode;
 import com.splicemachine.db.impl.sql.compile.StatementNode;
 import com.splicemachine.db.impl.sql.conn.GenericLanguageConnectionContext;
@@ -521,7 +523,9 @@ public class GenericStatement implements Statement{
 
             saveTree(qt, CompilationPhase.AFTER_GENERATE);
 
-            lcc.logEndCompiling(getSource(), System.nanoTime() - startTime);
+            long compileTime = System.nanoTime() - startTime;
+            lcc.logEndCompiling(getSource(), compileTime);
+            dataDictionary.getDataDictionaryCache().statementCacheRecordCompile(compileTime);
         } catch (StandardException e) {
             lcc.logErrorCompiling(getSource(), e, System.nanoTime() - startTime);
             throw e;
@@ -574,6 +578,11 @@ public class GenericStatement implements Statement{
 
             dumpBoundTree(lcc,qt);
 
+            // the statement may be the auto-parameterized form of a statement with literals, which
+            // should keep its literals if a parameter hides the value the statistics estimate it by
+            if(lcc.getAutoParameterizeEnabled())
+                preparedStmt.setComparesParametersToColumnStatistics(comparesParametersToColumnStatistics(qt));
+
             //Derby424 - In order to avoid caching select statements referencing
             // any SESSION schema objects (including statements referencing views
             // in SESSION schema), we need to do the SESSION schema object check
@@ -746,6 +755,16 @@ public class GenericStatement implements Statement{
         }
     }
 
+    private static boolean comparesParametersToColumnStatistics(StatementNode qt) throws StandardException{
+        CollectNodesVisitor visitor=new CollectNodesVisitor(BinaryRelationalOperatorNode.class);
+        qt.accept(visitor);
+        for(Object node : visitor.getList()){
+            if(((BinaryRelationalOperatorNode)node).comparesParameterToColumnWithStatistics())
+                return true;
+        }
+        return false;
+    }
+
     /**
      * Saves AST tree as JSON in files (in working directory for now) for each phase.  This is of course intended to be
      * used only by splice developers.
@@ -76,7 +76,7 @@ public class DataDictionaryCache {
     private ManagedCache<UUID, SPSDescriptor> storedPreparedStatementCache;
     private ManagedCache<Long,Conglomerate> conglomerateCache;
     private ManagedCache<Long,ConglomerateDescriptor> conglomerateDescriptorCache;
-    private ManagedCache<GenericStatement,GenericStorablePreparedStatement> statementCache;
+    private ManagedStatementCache<GenericStatement,GenericStorablePreparedStatement> statementCache;
     private ManagedCache<String,SchemaDescriptor> schemaCache;
     private ManagedCache<UUID, SchemaDescriptor> oidSchemaCache;
     private ManagedCache<String,AliasDescriptor> aliasDescriptorCache;
@@ -160,8 +160,8 @@ public class DataDictionaryCache {
                 .maximumSize(conglomerateCacheSize).build());
         conglomerateDescriptorCache = new ManagedCache<>(CacheBuilder.newBuilder().recordStats()
                 .maximumSize(conglomerateDescriptorCacheSize).build());
-        statementCache = new ManagedCache<>(CacheBuilder.newBuilder().recordStats().maximumSize
-                (statementCacheSize).removalListener(dependentInvalidator).build());
+        statementCache = new ManagedStatementCache<>(CacheBuilder.newBuilder().recordStats().maximumSize
+                (statementCacheSize).removalListener(dependentInvalidator).build(), statementCacheSize);
         schemaCache = new ManagedCache<>(CacheBuilder.newBuilder().recordStats().maximumSize(
                 schemaCacheSize).build());
         oidSchemaCache = new ManagedCache<>(CacheBuilder.newBuilder().recordStats().maximumSize(
@@ -509,6 +509,34 @@ public class DataDictionaryCache {
         return gsps;
     }
 
+    public void statementCacheRecordCompile(long nanos) {
+        statementCache.recordCompile(nanos);
+    }
+
+    public boolean statementCacheIsAutoParameterizable(String normalizedText) {
+        return statementCache.isAutoParameterizable(normalizedText);
+    }
+
+    public void statementCacheRecordAutoParameterized() {
+        statementCache.recordAutoParameterized();
+    }
+
+    public void statementCacheRecordNotAutoParameterized() {
+        statementCache.recordNotAutoParameterized();
+    }
+
+    /**
+     * Remembers that a statement could not be compiled once its literals were replaced by parameters,
+     * or that its plan would depend on their values, so that statements of the same shape are compiled
+     * as they are.
+     */
+    public void statementCacheSetNotAutoParameterizable(String normalizedText) {
+        if (LOG.isDebugEnabled())
+            LOG.debug("statementCacheSetNotAutoParameterizable " + normalizedText);
+        statementCache.recordNotAutoParameterized();
+        statementCache.setNotAutoParameterizable(normalizedText);
+    }
+
     public void roleCacheAdd(String roleName, Optional<RoleGrantDescriptor> optional) throws StandardException {
         if (!dd.canWriteCache(null))
             return;
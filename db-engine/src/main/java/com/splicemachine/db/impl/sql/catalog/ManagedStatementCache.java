@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.splicemachine.db.impl.sql.catalog;
+
+import org.spark_project.guava.cache.Cache;
+import org.spark_project.guava.cache.CacheBuilder;
+
+import java.beans.ConstructorProperties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The statement cache, which keeps track of statement compilations and of literal auto-parameterization
+ * on top of the cache statistics.
+ *
+ * It also remembers the auto-parameterized statement texts which failed to compile, so that statements
+ * sharing the same shape go straight to compiling their original text.
+ */
+public class ManagedStatementCache<K, V> extends ManagedCache<K, V> implements ManagedStatementCacheMBean {
+
+    private final Cache<String,Boolean> notAutoParameterizable;
+    private final AtomicLong compileCount = new AtomicLong();
+    private final AtomicLong compileNanos = new AtomicLong();
+    private final AtomicLong autoParameterizedCount = new AtomicLong();
+    private final AtomicLong notAutoParameterizedCount = new AtomicLong();
+
+    @ConstructorProperties({"managedCache", "maximumSize"})
+    public ManagedStatementCache(Cache<K, V> managedCache, long maximumSize){
+        super(managedCache);
+        this.notAutoParameterizable = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+    }
+
+    @Override public long getCompileCount(){ return compileCount.get(); }
+    @Override public double getTotalCompileTimeMillis(){ return compileNanos.get()/(double)TimeUnit.MILLISECONDS.toNanos(1); }
+    @Override public double getAverageCompileTimeMillis(){
+        long count = compileCount.get();
+        return count>0?getTotalCompileTimeMillis()/count:0;
+    }
+    @Override public long getAutoParameterizedCount(){ return autoParameterizedCount.get(); }
+    @Override public long getNotAutoParameterizedCount(){ return notAutoParameterizedCount.get(); }
+
+    @Override
+    public void invalidateAll(){
+        super.invalidateAll();
+        notAutoParameterizable.invalidateAll();
+    }
+
+    public void recordCompile(long nanos){
+        compileCount.incrementAndGet();
+        compileNanos.addAndGet(nanos);
+    }
+
+    public void recordAutoParameterized(){
+        autoParameterizedCount.incrementAndGet();
+    }
+
+    public void recordNotAutoParameterized(){
+        notAutoParameterizedCount.incrementAndGet();
+    }
+
+    public boolean isAutoParameterizable(String normalizedText){
+        return notAutoParameterizable.getIfPresent(normalizedText)==null;
+    }
+
+    public void setNotAutoParameterizable(String normalizedText){
+        notAutoParameterizable.put(normalizedText,Boolean.TRUE);
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.splicemachine.db.impl.sql.catalog;
+
+import javax.management.MXBean;
+
+/**
+ *
+ * The MXBean IFace for the statement cache: the cache statistics, plus what it takes to
+ * fill the cache.
+ *
+ */
+
+@MXBean
+public interface ManagedStatementCacheMBean extends ManagedCacheMBean {
+
+    /**
+     * @return the number of statements compiled
+     */
+    long getCompileCount();
+
+    /**
+     * @return the time spent compiling statements, in milliseconds
+     */
+    double getTotalCompileTimeMillis();
+
+    /**
+     * @return the average time it took to compile a statement, in milliseconds
+     */
+    double getAverageCompileTimeMillis();
+
+    /**
+     * @return the number of statements executed with their literals replaced by parameters
+     */
+    long getAutoParameterizedCount();
+
+    /**
+     * @return the number of statements which had literals to replace, but had to be compiled as they are
+     */
+    long getNotAutoParameterizedCount();
+
+}
@@ -1416,6 +1416,37 @@ public class BinaryRelationalOperatorNode
         return -1.0d;
     }
 
+    /**
+     * Whether this compares a parameter with a base table column which has statistics, using = or &lt;&gt;.
+     * The selectivity of such a comparison is the column's average one, while with a literal it is
+     * estimated from the value, which matters for skewed columns.
+     *
+     * @return true if the plan may depend on the value of the parameter
+     * @throws StandardException
+     */
+    public boolean comparesParameterToColumnWithStatistics() throws StandardException {
+        if (operatorType != EQUALS_RELOP && operatorType != NOT_EQUALS_RELOP)
+            return false;
+        ColumnReference column;
+        ValueNode value;
+        if (leftOperand instanceof ColumnReference) {
+            column = (ColumnReference) leftOperand;
+            value = rightOperand;
+        } else if (rightOperand instanceof ColumnReference) {
+            column = (ColumnReference) rightOperand;
+            value = leftOperand;
+        } else {
+            return false;
+        }
+        if (value instanceof CastNode)
+            value = ((CastNode) value).castOperand;
+        if (!(value instanceof ParameterNode) || column.getSource() == null)
+            return false;
+        StoreCostController scc = column.getStoreCostController();
+        // fake statistics have no cardinality
+        return scc != null && scc.cardinality(column.getSource().getColumnPosition()) > 0;
+    }
+
     /**
      * return the selectivity of this predicate.
      */
@@ -548,7 +548,11 @@ public class FromBaseTable extends FromTable {
 
     @Override
     public void verifyProperties(DataDictionary dDictionary) throws StandardException{
-        if (tableDescriptor.getStoredAs()!=null) {
+        /*
+         * ORC files can be read on the control side, so for those we let the row estimate (from the statistics,
+         * or from the size of the files when there are none) decide, like we do for any other table
+         */
+        if (tableDescriptor.getStoredAs()!=null && !tableDescriptor.getStoredAs().equals("O")) {
             dataSetProcessorType = CompilerContext.DataSetProcessorType.FORCED_SPARK;
         }
 
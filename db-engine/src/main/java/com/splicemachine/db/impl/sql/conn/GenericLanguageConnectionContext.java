@@ -60,14 +60,18 @@ import com.splicemachine.db.iapi.sql.execute.*;
 import com.splicemachine.db.iapi.sql.execute.CursorActivation;
 import com.splicemachine.db.iapi.store.access.TransactionController;
 import com.splicemachine.db.iapi.store.access.XATransactionController;
+import com.splicemachine.db.iapi.types.DataTypeDescriptor;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import com.splicemachine.db.iapi.types.DataValueFactory;
 import com.splicemachine.db.iapi.util.IdUtil;
 import com.splicemachine.db.iapi.util.InterruptStatus;
 import com.splicemachine.db.impl.sql.GenericStatement;
 import com.splicemachine.db.impl.sql.GenericStorablePreparedStatement;
+import com.splicemachine.db.impl.sql.catalog.DataDictionaryCache;
 import com.splicemachine.db.impl.sql.compile.CompilerContextImpl;
 import com.splicemachine.db.impl.sql.execute.*;
 import com.splicemachine.db.impl.sql.misc.CommentStripper;
+import com.splicemachine.db.impl.sql.misc.LiteralNormalizer;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
 
@@ -77,6 +81,7 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.*;
 
+import static com.splicemachine.db.iapi.reference.Property.AUTO_PARAMETERIZE_LITERALS_ENABLED;
 import static com.splicemachine.db.iapi.reference.Property.MATCHING_STATEMENT_CACHE_IGNORING_COMMENT_OPTIMIZATION_ENABLED;
 
 /**
@@ -330,6 +335,7 @@ public class GenericLanguageConnectionContext extends ContextImpl implements Lan
     private SessionPropertiesImpl sessionProperties;
     private final CommentStripper commentStripper;
     private boolean ignoreCommentOptEnabled = false;
+    private boolean autoParameterizeEnabled = false;
     private String origStmtTxt;
 
     /* constructor */
@@ -397,6 +403,8 @@ public class GenericLanguageConnectionContext extends ContextImpl implements Lan
 
         String ignoreCommentOptEnabledStr = PropertyUtil.getCachedDatabaseProperty(getTransactionCompile(), MATCHING_STATEMENT_CACHE_IGNORING_COMMENT_OPTIMIZATION_ENABLED);
         ignoreCommentOptEnabled = Boolean.valueOf(ignoreCommentOptEnabledStr);
+        String autoParameterizeEnabledStr = PropertyUtil.getCachedDatabaseProperty(getTransactionCompile(), AUTO_PARAMETERIZE_LITERALS_ENABLED);
+        autoParameterizeEnabled = Boolean.valueOf(autoParameterizeEnabledStr);
 
     }
 
@@ -848,6 +856,8 @@ public class GenericLanguageConnectionContext extends ContextImpl implements Lan
         // read again the property in case it is changed
         String ignoreCommentOptEnabledStr = PropertyUtil.getCachedDatabaseProperty(getTransactionCompile(), MATCHING_STATEMENT_CACHE_IGNORING_COMMENT_OPTIMIZATION_ENABLED);
         ignoreCommentOptEnabled = Boolean.valueOf(ignoreCommentOptEnabledStr);
+        String autoParameterizeEnabledStr = PropertyUtil.getCachedDatabaseProperty(getTransactionCompile(), AUTO_PARAMETERIZE_LITERALS_ENABLED);
+        autoParameterizeEnabled = Boolean.valueOf(autoParameterizeEnabledStr);
         origStmtTxt = null;
     }
 
@@ -1187,6 +1197,76 @@ public class GenericLanguageConnectionContext extends ContextImpl implements Lan
         return connFactory.getStatement(getDefaultSchema(),sqlText,true, this).prepare(this);
     }
 
+    @Override
+    public Activation getAutoParameterizedActivation(SchemaDescriptor compilationSchema,
+                                                     String sqlText,
+                                                     boolean isForReadOnly,
+                                                     boolean scrollInsensitive) throws StandardException{
+        LiteralNormalizer.NormalizedStatement normalized=LiteralNormalizer.normalize(sqlText);
+        if(normalized==null)
+            return null;
+        DataDictionaryCache cache=getDataDictionary().getDataDictionaryCache();
+        String shape=compilationSchema.getSchemaName()+":"+normalized.getText();
+        if(!cache.statementCacheIsAutoParameterizable(shape))
+            return null;
+
+        int depth=getStatementDepth();
+        Activation activation=null;
+        try{
+            PreparedStatement ps=prepareInternalStatement(compilationSchema,normalized.getText(),isForReadOnly,false);
+            if(ps.comparesParametersToColumnStatistics()){
+                // the statistics would estimate the selectivity of the literals by their values,
+                // which a shared plan would lose, e.g. for a lookup of a skewed value
+                cache.statementCacheSetNotAutoParameterizable(shape);
+                return null;
+            }
+            activation=ps.getActivation(this,scrollInsensitive);
+            if(!setLiterals(ps.getParameterTypes(),activation.getParameterValueSet(),normalized.getLiterals())){
+                // the literals do not fit the types inferred for the parameters, e.g. a string
+                // longer than the column it is compared to, so this statement keeps its own plan
+                activation.close();
+                cache.statementCacheRecordNotAutoParameterized();
+                return null;
+            }
+            cache.statementCacheRecordAutoParameterized();
+            return activation;
+        }catch(StandardException se){
+            if(se.getSeverity()>ExceptionSeverity.STATEMENT_SEVERITY)
+                throw se;
+            while(getStatementDepth()>depth)
+                popStatementContext(getStatementContext(),null);
+            if(activation!=null && !activation.isClosed())
+                activation.close();
+            cache.statementCacheSetNotAutoParameterizable(shape);
+            return null;
+        }
+    }
+
+    /**
+     * Sets the literals into the parameters, provided each of them converts to the type of its
+     * parameter without losing its value.
+     */
+    private static boolean setLiterals(DataTypeDescriptor[] types,
+                                       ParameterValueSet pvs,
+                                       List<DataValueDescriptor> literals) throws StandardException{
+        if(types==null || types.length!=literals.size() || pvs.getParameterCount()!=literals.size())
+            return false;
+        for(int i=0;i<literals.size();i++){
+            DataValueDescriptor literal=literals.get(i);
+            DataValueDescriptor param=pvs.getParameterForSet(i);
+            try{
+                types[i].normalize(literal,param);
+            }catch(StandardException se){
+                if(se.getSeverity()>ExceptionSeverity.STATEMENT_SEVERITY)
+                    throw se;
+                return false;
+            }
+            if(param.compare(literal)!=0)
+                return false;
+        }
+        return true;
+    }
+
     /**
      * Remove the activation to those known about by this connection.
      */
@@ -3785,4 +3865,8 @@ public class GenericLanguageConnectionContext extends ContextImpl implements Lan
     public boolean getIgnoreCommentOptEnabled() {
         return ignoreCommentOptEnabled;
     }
+
+    public boolean getAutoParameterizeEnabled() {
+        return autoParameterizeEnabled;
+    }
 }
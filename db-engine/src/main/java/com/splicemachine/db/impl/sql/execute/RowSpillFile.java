@@ -0,0 +1,276 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.db.impl.sql.execute;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.reference.Property;
+import com.splicemachine.db.iapi.services.io.ArrayInputStream;
+import com.splicemachine.db.iapi.services.io.DynamicByteArrayOutputStream;
+import com.splicemachine.db.iapi.services.io.FormatIdInputStream;
+import com.splicemachine.db.iapi.services.io.FormatIdOutputStream;
+import com.splicemachine.db.iapi.services.property.PropertyUtil;
+import com.splicemachine.db.iapi.services.sanity.SanityManager;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * An append-only file of rows on the local disk, which holds the rows of a
+ * {@link TemporaryRowHolderImpl} that do not fit in its array.
+ * <p>
+ * Each row is written as its length followed by its columns, each one as a
+ * byte telling whether the row has the column and whether it is null, and the
+ * external form of the columns which are not null. The offset of every row is kept, so that a {@link Reader} can start at
+ * any row, and a reader also returns the rows appended after it was opened.
+ * Rows can be marked deleted, and are then skipped by the readers.
+ * <p>
+ * The file lives in <code>derby.storage.tempDirectory</code>, or the JVM's
+ * temporary directory. It is unlinked as soon as it is opened where the
+ * platform allows it, so that it does not outlive the spill even if the
+ * server dies, and is deleted by {@link #close()} otherwise.
+ */
+final class RowSpillFile {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final byte NO_COLUMN = 0;
+    private static final byte NULL_COLUMN = 1;
+    private static final byte VALUE_COLUMN = 2;
+
+    private final File file;
+    private final RandomAccessFile data;
+    private final boolean deleteOnClose;
+
+    // rows not written to the file yet
+    private final DynamicByteArrayOutputStream pending = new DynamicByteArrayOutputStream(BUFFER_SIZE);
+    private final FormatIdOutputStream pendingOut = new FormatIdOutputStream(pending);
+    private final DynamicByteArrayOutputStream rowBytes = new DynamicByteArrayOutputStream();
+    private final FormatIdOutputStream rowOut = new FormatIdOutputStream(rowBytes);
+
+    private long[] offsets = new long[16];
+    private int rowCount;
+    private long length;
+    private long writtenLength;
+    private final BitSet deleted = new BitSet();
+    private boolean closed;
+
+    RowSpillFile() throws StandardException {
+        String directory = PropertyUtil.getSystemProperty(Property.STORAGE_TEMP_DIRECTORY);
+        try {
+            file = File.createTempFile("rowholder", ".spill",
+                    directory == null ? null : new File(directory));
+            data = new RandomAccessFile(file, "rw");
+        } catch (IOException ioe) {
+            throw StandardException.plainWrapException(ioe);
+        }
+        deleteOnClose = !file.delete();
+        TemporaryRowSpill.instance().opened();
+    }
+
+    /**
+     * Append a row.
+     *
+     * @param row the row to append
+     * @return the position of the row, counting from 0
+     * @exception StandardException on error
+     */
+    int append(ExecRow row) throws StandardException {
+        if (SanityManager.DEBUG) {
+            SanityManager.ASSERT(!closed, "row spill file is closed");
+        }
+        long rowSize;
+        try {
+            rowBytes.reset();
+            for (DataValueDescriptor column : row.getRowArray()) {
+                if (column == null) {
+                    rowOut.writeByte(NO_COLUMN);
+                } else if (column.isNull()) {
+                    rowOut.writeByte(NULL_COLUMN);
+                } else {
+                    rowOut.writeByte(VALUE_COLUMN);
+                    column.writeExternal(rowOut);
+                }
+            }
+            int rowLength = rowBytes.getUsed();
+            pendingOut.writeInt(rowLength);
+            pendingOut.write(rowBytes.getByteArray(), 0, rowLength);
+            rowSize = 4 + rowLength;
+            if (pending.getUsed() >= BUFFER_SIZE)
+                writePending();
+        } catch (IOException ioe) {
+            throw StandardException.plainWrapException(ioe);
+        }
+
+        if (rowCount == offsets.length)
+            offsets = Arrays.copyOf(offsets, rowCount * 2);
+        offsets[rowCount] = length;
+        length += rowSize;
+        TemporaryRowSpill.instance().spilled(rowSize);
+        return rowCount++;
+    }
+
+    /**
+     * Mark a row deleted, so that readers skip it.
+     *
+     * @param position the position of the row
+     */
+    void delete(int position) {
+        deleted.set(position);
+    }
+
+    /**
+     * @return the number of rows appended, including the deleted ones
+     */
+    int size() {
+        return rowCount;
+    }
+
+    /**
+     * @return the bytes appended so far
+     */
+    long length() {
+        return length;
+    }
+
+    /**
+     * Open a reader at the given row.
+     *
+     * @param position the position of the first row to read
+     * @return the reader
+     */
+    Reader openReader(int position) {
+        return new Reader(position);
+    }
+
+    private void writePending() throws IOException {
+        if (pending.getUsed() == 0)
+            return;
+        data.seek(writtenLength);
+        data.write(pending.getByteArray(), 0, pending.getUsed());
+        writtenLength += pending.getUsed();
+        pending.reset();
+    }
+
+    /**
+     * Close the file and remove it. Does nothing if it is already closed.
+     *
+     * @exception StandardException on error
+     */
+    void close() throws StandardException {
+        if (closed)
+            return;
+        closed = true;
+        TemporaryRowSpill.instance().closed(length);
+        pending.reset();
+        try {
+            data.close();
+        } catch (IOException ioe) {
+            throw StandardException.plainWrapException(ioe);
+        } finally {
+            if (deleteOnClose)
+                file.delete();
+        }
+    }
+
+    /**
+     * Reads the rows of the file in the order they were appended, skipping the
+     * deleted ones.
+     */
+    final class Reader {
+        private int position;
+        private int lastPosition = -1;
+        private byte[] buffer = new byte[BUFFER_SIZE];
+        private long bufferStart;
+        private int bufferLength;
+        private final ArrayInputStream bufferIn = new ArrayInputStream();
+        private final FormatIdInputStream rowIn = new FormatIdInputStream(bufferIn);
+
+        private Reader(int position) {
+            this.position = position;
+        }
+
+        /**
+         * Read the next row into the given row, whose columns must be of the
+         * types of the appended rows.
+         *
+         * @param row the row to read into
+         * @return false if there are no more rows
+         * @exception StandardException on error
+         */
+        boolean next(ExecRow row) throws StandardException {
+            while (position < rowCount) {
+                int current = position++;
+                if (deleted.get(current))
+                    continue;
+                read(current, row);
+                lastPosition = current;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * @return the position of the row last returned by {@link #next(ExecRow)}
+         */
+        int getLastPosition() {
+            return lastPosition;
+        }
+
+        private void read(int current, ExecRow row) throws StandardException {
+            if (SanityManager.DEBUG) {
+                SanityManager.ASSERT(!closed, "row spill file is closed");
+            }
+            try {
+                writePending();
+                long offset = offsets[current];
+                fill(offset, 4);
+                bufferIn.setData(buffer);
+                bufferIn.setPosition((int) (offset - bufferStart));
+                int rowLength = bufferIn.readInt();
+                fill(offset + 4, rowLength);
+                bufferIn.setData(buffer);
+                bufferIn.setLimit((int) (offset + 4 - bufferStart), rowLength);
+
+                DataValueDescriptor[] columns = row.getRowArray();
+                for (DataValueDescriptor column : columns) {
+                    byte kind = rowIn.readByte();
+                    if (kind == VALUE_COLUMN)
+                        column.readExternal(rowIn);
+                    else if (kind == NULL_COLUMN)
+                        column.restoreToNull();
+                }
+            } catch (IOException | ClassNotFoundException e) {
+                throw StandardException.plainWrapException(e);
+            }
+        }
+
+        // make sure the buffer holds the bytes of the file from offset to offset + size
+        private void fill(long offset, int size) throws IOException {
+            if (offset >= bufferStart && offset + size <= bufferStart + bufferLength)
+                return;
+            if (buffer.length < size)
+                buffer = new byte[size];
+            int readLength = (int) Math.min(buffer.length, writtenLength - offset);
+            data.seek(offset);
+            data.readFully(buffer, 0, readLength);
+            bufferStart = offset;
+            bufferLength = readLength;
+        }
+    }
+}
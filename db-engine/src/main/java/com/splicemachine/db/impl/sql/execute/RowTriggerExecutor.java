@@ -37,6 +37,9 @@ import com.splicemachine.db.iapi.sql.dictionary.TriggerDescriptor;
 import com.splicemachine.db.iapi.sql.conn.LanguageConnectionContext;
 import com.splicemachine.db.iapi.sql.Activation;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * A row trigger executor is an object that executes a row trigger.  It is instantiated at execution time.
  * There is one per row trigger.
@@ -63,31 +66,44 @@ public class RowTriggerExecutor extends GenericTriggerExecutor {
      */
     @Override
     void fireTrigger(TriggerEvent event, CursorResultSet rs, int[] colsReadFromTable) throws StandardException {
+        fireTrigger(event, Collections.singletonList(rs));
+    }
+
+    /**
+     * Fire the trigger for each of a chunk of rows.  This is equivalent to firing it for each row in turn,
+     * except that the trigger action is prepared once for the whole chunk rather than once per row.
+     *
+     * @param event the trigger event
+     * @param rows  the triggering result sets, one per row
+     */
+    void fireTrigger(TriggerEvent event, List<? extends CursorResultSet> rows) throws StandardException {
         tec.setTrigger(triggerd);
         tec.setCurrentTriggerEvent(event);
 
         try {
-            tec.setTriggeringResultSet(rs);
+            for (CursorResultSet rs : rows) {
+                tec.setTriggeringResultSet(rs);
 
-            /*
-                This is the key to handling autoincrement values that might
-                be seen by insert triggers. For an AFTER ROW trigger, update
-                the autoincrement counters before executing the SPS for the
-                trigger.
-            */
-            if (event.isAfter()) {
-                tec.updateAICounters();
-            }
+                /*
+                    This is the key to handling autoincrement values that might
+                    be seen by insert triggers. For an AFTER ROW trigger, update
+                    the autoincrement counters before executing the SPS for the
+                    trigger.
+                */
+                if (event.isAfter()) {
+                    tec.updateAICounters();
+                }
 
-            executeSPS(getAction());
+                executeSPS(getAction());
 
                 /*
                   For BEFORE ROW triggers, update the ai values after the SPS
                   has been executed. This way the SPS will see ai values from
                   the previous row.
                 */
-            if (event.isBefore()) {
-                tec.updateAICounters();
+                if (event.isBefore()) {
+                    tec.updateAICounters();
+                }
             }
         } finally {
             clearSPS();
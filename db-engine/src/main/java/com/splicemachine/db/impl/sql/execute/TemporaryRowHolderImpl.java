@@ -38,26 +38,28 @@ import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.db.iapi.sql.execute.TemporaryRowHolder;
 import com.splicemachine.db.iapi.sql.Activation;
 import com.splicemachine.db.iapi.sql.ResultDescription;
-import com.splicemachine.db.iapi.store.access.ConglomerateController;
-import com.splicemachine.db.iapi.store.access.ScanController;
-import com.splicemachine.db.iapi.store.access.TransactionController;
 
 import com.splicemachine.db.iapi.types.RowLocation;
 import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import com.splicemachine.db.iapi.types.SQLRef;
-import com.splicemachine.db.iapi.types.SQLLongint;
 
 
+import java.util.HashSet;
 import java.util.Properties;
+import java.util.Set;
 
 /**
  * This is a class that is used to temporarily
  * (non-persistently) hold rows that are used in
  * language execution.  It will store them in an
- * array, or a temporary conglomerate, depending
- * on the number of rows.  
+ * array, or a {@link RowSpillFile} on the local disk,
+ * depending on the number of rows.
  * <p>
- * It is used for deferred DML processing.
+ * It is used for deferred DML processing.  The rows
+ * used to go to a temporary conglomerate, which costs
+ * a table and, for unique streams, two indexes in the
+ * store for every statement that overflows the array;
+ * the spill file only costs a local file.
  *
  */
 class TemporaryRowHolderImpl implements TemporaryRowHolder
@@ -74,11 +76,7 @@ class TemporaryRowHolderImpl implements TemporaryRowHolder
 	private int			numRowsIn;
 	protected int		state = STATE_UNINIT;
 
-	private	long				    CID;
-	private boolean					conglomCreated;
-	private ConglomerateController	cc;
-	private Properties				properties;
-	private ScanController			scan;
+	private RowSpillFile			spill;
 	private	ResultDescription		resultDescription;
 	/** Activation object with local state information. */
 	Activation						activation;
@@ -91,16 +89,8 @@ class TemporaryRowHolderImpl implements TemporaryRowHolder
 	 * Could be used for other things too.
 	 */
 	private boolean     isVirtualMemHeap;
-	private boolean     uniqueIndexCreated;
-	private boolean     positionIndexCreated;
-	private long        uniqueIndexConglomId;
-	private long        positionIndexConglomId;
-	private ConglomerateController uniqueIndex_cc;
-	private ConglomerateController positionIndex_cc;
-	private DataValueDescriptor[]  uniqueIndexRow = null;
-	private DataValueDescriptor[]  positionIndexRow = null;
-	private RowLocation            destRowLocation; //row location in the temporary conglomerate
-	private SQLLongint             position_sqllong;
+	// base table row locations of the rows of a unique stream, so that we don't spill duplicates
+	private Set<RowLocation> spilledRowLocations;
 	
 
 	/**
@@ -108,8 +98,8 @@ class TemporaryRowHolderImpl implements TemporaryRowHolder
  	 * a conglomerate threshold (5).
 	 *
 	 * @param activation the activation
-	 * @param properties the properties of the original table.  Used
-	 *		to help the store use optimal page size, etc.
+	 * @param properties the properties of the original table.  Not
+	 *		used, the rows overflow to a local file.
 	 * @param resultDescription the result description.  Relevant for the getResultDescription
 	 * 		call on the result set returned by getResultSet.  May be null
 	 */
@@ -129,8 +119,8 @@ class TemporaryRowHolderImpl implements TemporaryRowHolder
  	 * a conglomerate threshold (5).
 	 *
 	 * @param activation the activation
-	 * @param properties the properties of the original table.  Used
-	 *		to help the store use optimal page size, etc.
+	 * @param properties the properties of the original table.  Not
+	 *		used, the rows overflow to a local file.
 	 * @param resultDescription the result description.  Relevant for the getResultDescription
 	 * 		call on the result set returned by getResultSet.  May be null
 	 * @param isUniqueStream - true , if it has to be temporary row holder unique stream
@@ -152,13 +142,13 @@ class TemporaryRowHolderImpl implements TemporaryRowHolder
 	 * Create a temporary row holder with the defined overflow to conglom
 	 *
 	 * @param activation the activation
-	 * @param properties the properties of the original table.  Used
-	 *		to help the store use optimal page size, etc.
+	 * @param properties the properties of the original table.  Not
+	 *		used, the rows overflow to a local file.
 	 * @param resultDescription the result description.  Relevant for the getResultDescription
 	 * 		call on the result set returned by getResultSet.  May be null
 	 * @param overflowToConglomThreshold on an attempt to insert
 	 * 		this number of rows, the rows will be put
- 	 *		into a temporary conglomerate.
+ 	 *		into a spill file.
 	 */
 	public TemporaryRowHolderImpl
 	(
@@ -182,7 +172,6 @@ class TemporaryRowHolderImpl implements TemporaryRowHolder
 		}
 
 		this.activation = activation;
-		this.properties = properties;
 		this.resultDescription = resultDescription;
 		this.isUniqueStream = isUniqueStream;
 		this.isVirtualMemHeap = isVirtualMemHeap;
@@ -247,7 +236,7 @@ class TemporaryRowHolderImpl implements TemporaryRowHolder
 		if (! isVirtualMemHeap)
 			state = STATE_INSERT;
 
-		if(uniqueIndexCreated)
+		if(spilledRowLocations != null)
 		{
 			if(isRowAlreadyExist(inputRow))
 				return;
@@ -260,108 +249,36 @@ class TemporaryRowHolderImpl implements TemporaryRowHolder
 			rowArray[++lastArraySlot] = cloneRow(inputRow);
 			
 			//In case of unique stream we push every thing into the
-			// conglomerates for time being, we keep one row in the array for
+			// spill file for time being, we keep one row in the array for
 			// the template.
             if (!isUniqueStream) {
 				return;  
             }
 		}
 			
-		if (!conglomCreated)
+		if (spill == null)
 		{
-			TransactionController tc = activation.getTransactionController();
-
-            // TODO-COLLATE, I think collation needs to get set always correctly
-            // but did see what to get collate id when there was no result
-            // description.  The problem comes if row holder is used to stream
-            // row to temp disk, then row is read from disk using an interface
-            // where store creates the DataValueDescriptor template itself, 
-            // and subsquently the returned column is used for some sort of
-            // comparison.  Also could be a problem is reader of tempoary 
-            // table uses qualifiers, that would result in comparisons internal
-            // to store.  I believe the below impl is incomplete - either
-            // it should always be default, or real collate_ids should be 
-            // passed in.
-
-            // null collate_ids in createConglomerate call indicates to use all
-            // default collate ids.
-            int collation_ids[] = null;
-
-            /*
-            TODO-COLLATE - if we could count on resultDescription I think the
-            following would work.
-
-            if (resultDescription != null)
-            {
-                // init collation id info from resultDescription for create call
-                collation_ids = new int[resultDescription.getColumnCount()];
-
-                for (int i = 0; i < collation_ids.length; i++)
-                {
-                    collation_ids[i] = 
-                        resultDescription.getColumnDescriptor(
-                            i + 1).getType().getCollationType();
-                }
-            }
-            */
-
-
-			/*
-			** Create the conglomerate with the template row.
-			*/
-			CID = 
-                tc.createConglomerate(false,
-                    "heap",
-                    inputRow.getRowArray(),
-                    null, //column sort order - not required for heap
-                    collation_ids,
-                    properties,
-                    TransactionController.IS_TEMPORARY | 
-                    TransactionController.IS_KEPT);
-
-			conglomCreated = true;
-
-			cc = tc.openConglomerate(CID, 
-                                false,
-                                TransactionController.OPENMODE_FORUPDATE,
-                                TransactionController.MODE_TABLE,
-                                TransactionController.ISOLATION_SERIALIZABLE);
-			if(isUniqueStream)
-			   destRowLocation = cc.newRowLocationTemplate();
-
+			spill = new RowSpillFile();
 		}
 
-		int status = 0;
+		spill.append(inputRow);
 		if(isUniqueStream)
 		{
-			cc.insertAndFetchLocation(inputRow, destRowLocation);
-			insertToPositionIndex(numRowsIn -1, destRowLocation);
-			//create the unique index based on input row ROW Location
-			if(!uniqueIndexCreated)
+			//start tracking the input rows' ROW Locations
+			if(spilledRowLocations == null)
 				isRowAlreadyExist(inputRow);
 
 		}else
 		{
-			status = cc.insert(inputRow);
 			if (isVirtualMemHeap)
 				state = STATE_INSERT;
 		}
-
-		if (SanityManager.DEBUG)
-		{
-			if (status != 0)
-			{
-				SanityManager.THROWASSERT("got funky status ("+status+") back from "+
-						"ConglomerateConstroller.insert()");
-			}
-		}
 	}
 
 
 	/**
-	 * Maintain an unique index based on the input row's row location in the
-	 * base table, this index make sures that we don't insert duplicate rows 
-	 * into the temporary heap.
+	 * Track the input row's row location in the base table, so that
+	 * we don't insert duplicate rows into the spill file.
 	 * @param inputRow  the row we are inserting to temporary row holder 
 	 * @exception StandardException on error
  	 */
@@ -373,118 +290,25 @@ class TemporaryRowHolderImpl implements TemporaryRowHolder
 		RowLocation	baseRowLocation;
 		rlColumn = inputRow.getColumn(inputRow.nColumns());
 
-		if(CID!=0 && rlColumn instanceof SQLRef)
+		if(spill != null && rlColumn instanceof SQLRef)
 		{
 			baseRowLocation = 
 				(RowLocation) (rlColumn).getObject();
 		
-			if(!uniqueIndexCreated)
+			if(spilledRowLocations == null)
 			{
-				TransactionController tc =
-					activation.getTransactionController();
-				int numKeys = 2;
-				uniqueIndexRow = new DataValueDescriptor[numKeys];
-				uniqueIndexRow[0] = baseRowLocation;
-				uniqueIndexRow[1] = baseRowLocation;
-				Properties props = makeIndexProperties(uniqueIndexRow, CID);
-				uniqueIndexConglomId =
-					tc.createConglomerate(false,
-	                    "BTREE",
-                        uniqueIndexRow, 
-                        null,  
-                        null, // no collation needed for index on row locations.
-                        props, 
-                        (TransactionController.IS_TEMPORARY | 
-                         TransactionController.IS_KEPT));
-
-				uniqueIndex_cc = tc.openConglomerate(
-								uniqueIndexConglomId, 
-								false,
-								TransactionController.OPENMODE_FORUPDATE,
-								TransactionController.MODE_TABLE,
-								TransactionController.ISOLATION_SERIALIZABLE);
-				uniqueIndexCreated = true;
+				spilledRowLocations = new HashSet<>();
 			}
-			ValueRow row = new ValueRow();
-			row.setRowArray(uniqueIndexRow);
-			uniqueIndexRow[0] = baseRowLocation;
-			uniqueIndexRow[1] = baseRowLocation;
-			// Insert the row into the secondary index.
-			int status;
-			if ((status = uniqueIndex_cc.insert(row))!= 0)
+			if(spilledRowLocations.contains(baseRowLocation))
 			{
-				if(status == ConglomerateController.ROWISDUPLICATE)
-				{
-					return true ; // okay; we don't insert duplicates
-				}
-				else
-				{
-					if (SanityManager.DEBUG)
-					{
-						if (status != 0)
-						{
-							SanityManager.THROWASSERT("got funky status ("+status+") back from "+
-													  "Unique Index insert()");
-						}
-					}
-				}
+				return true ; // okay; we don't insert duplicates
 			}
+			spilledRowLocations.add((RowLocation) baseRowLocation.cloneValue(false));
 		}
 
 		return false;
 	}
 
-
-	/**
-	 * Maintain an index that will allow us to read  from the 
-	 * temporary heap in the order we inserted.
-	 * @param position - the number of the row we are inserting into heap
-	 * @param rl the row to Location in the temporary heap 
-	 * @exception StandardException on error
- 	 */
-
-	private void insertToPositionIndex(int position, RowLocation rl ) throws  StandardException
-	{
-		if(!positionIndexCreated)
-		{
-			TransactionController tc = activation.getTransactionController();
-			int numKeys = 2;
-			position_sqllong = new SQLLongint();
-			positionIndexRow = new DataValueDescriptor[numKeys];
-			positionIndexRow[0] = position_sqllong;
-			positionIndexRow[1] = rl;				
-			Properties props = makeIndexProperties(positionIndexRow, CID);
-			positionIndexConglomId =
-                tc.createConglomerate(
-						false,
-                    "BTREE",
-                    positionIndexRow, 
-                    null,  
-                    null, // no collation needed for index on row locations.
-                    props, 
-                    (TransactionController.IS_TEMPORARY | 
-                     TransactionController.IS_KEPT));
-
-			positionIndex_cc = 
-                tc.openConglomerate(
-                    positionIndexConglomId, 
-                    false,
-                    TransactionController.OPENMODE_FORUPDATE,
-                    TransactionController.MODE_TABLE,
-                    TransactionController.ISOLATION_SERIALIZABLE);
-
-			positionIndexCreated = true;
-		}
-		
-		position_sqllong.setValue(position);
-		positionIndexRow[0] = position_sqllong;
-		positionIndexRow[1] = rl;
-		//insert the row location to position index
-		ValueRow row = new ValueRow();
-		row.setRowArray(positionIndexRow);
-		positionIndex_cc.insert(row);
-	}
-
 	/**
 	 * Get a result set for scanning what has been inserted
  	 * so far.
@@ -494,16 +318,15 @@ class TemporaryRowHolderImpl implements TemporaryRowHolder
 	public CursorResultSet getResultSet()
 	{
 		state = STATE_DRAIN;
-		TransactionController tc = activation.getTransactionController();
 		if(isUniqueStream)
 		{
-			return new TemporaryRowHolderResultSet(tc, rowArray,
+			return new TemporaryRowHolderResultSet(rowArray,
 												   resultDescription, isVirtualMemHeap,
-												   true, positionIndexConglomId, this);
+												   true, this);
 		}
 		else
 		{
-			return new TemporaryRowHolderResultSet(tc, rowArray, resultDescription, isVirtualMemHeap, this);
+			return new TemporaryRowHolderResultSet(rowArray, resultDescription, isVirtualMemHeap, this);
 
 		}
 	}
@@ -522,8 +345,7 @@ class TemporaryRowHolderImpl implements TemporaryRowHolder
         if (SanityManager.DEBUG) {
             SanityManager.ASSERT(lastArraySlot == -1);
             SanityManager.ASSERT(state == STATE_UNINIT);
-            SanityManager.ASSERT(!conglomCreated);
-            SanityManager.ASSERT(CID == 0);
+            SanityManager.ASSERT(spill == null);
         }
 		for (int i = 0; i < rowArray.length; i++)
 		{
@@ -534,38 +356,27 @@ class TemporaryRowHolderImpl implements TemporaryRowHolder
 	}
 
     /**
-     * Accessor to get the id of the temporary conglomerate. Temporary 
-     * conglomerates have negative ids. An id equal to zero means that no 
-     * temporary conglomerate has been created.
-     * @return Conglomerate ID of temporary conglomerate
+     * The rows no longer go to a temporary conglomerate, so there is
+     * none to return.
+     * @return 0
      */
 	public long getTemporaryConglomId()
 	{
-        if (SanityManager.DEBUG) {
-            SanityManager.ASSERT(CID == 0 && !conglomCreated || 
-                    CID < 0 && conglomCreated);
-        }
-		return CID;
+		return 0;
 	}
 
 	public long getPositionIndexConglomId()
 	{
-		return positionIndexConglomId;
+		return 0;
 	}
 
-
-
-	private Properties makeIndexProperties(DataValueDescriptor[]
-											   indexRowArray, long conglomId ) throws StandardException {
-		int nCols = indexRowArray.length;
-		Properties props = new Properties();
-		props.put("allowDuplicates", "false");
-		// all columns form the key, (currently) required
-		props.put("nKeyFields", String.valueOf(nCols));
-		props.put("nUniqueColumns", String.valueOf(nCols-1));
-		props.put("rowLocationColumn", String.valueOf(nCols-1));
-		props.put("baseConglomerateId", String.valueOf(conglomId));
-		return props;
+	/**
+	 * @return the file holding the rows which did not fit in the array,
+	 * or null if no row overflowed yet
+	 */
+	RowSpillFile getSpill()
+	{
+		return spill;
 	}
 
 	public void setRowHolderTypeToUniqueStream()
@@ -580,56 +391,13 @@ class TemporaryRowHolderImpl implements TemporaryRowHolder
 	 */
 	public void close() throws StandardException
 	{
-		if (scan != null)
-		{
-			scan.close();
-			scan = null;
-		}
-
-		if (cc != null)
-		{
-			cc.close();
-			cc = null;
-		}
-
-		if (uniqueIndex_cc != null)
-		{
-			uniqueIndex_cc.close();
-			uniqueIndex_cc = null;
-		}
-
-		if (positionIndex_cc != null)
+		spilledRowLocations = null;
+		if (spill != null)
 		{
-			positionIndex_cc.close();
-			positionIndex_cc = null;
+			RowSpillFile toClose = spill;
+			spill = null;
+			toClose.close();
 		}
-
-		TransactionController tc = activation.getTransactionController();
-
-		if (uniqueIndexCreated)
-		{
-			tc.dropConglomerate(uniqueIndexConglomId);
-			uniqueIndexCreated = false;
-		}
-
-		if (positionIndexCreated)
-		{
-			tc.dropConglomerate(positionIndexConglomId);
-			positionIndexCreated = false;
-		}
-
-		if (conglomCreated)
-		{
-			tc.dropConglomerate(CID);
-			conglomCreated = false;
-            CID = 0;
-		} 
-        else 
-        {
-            if (SanityManager.DEBUG) {
-                SanityManager.ASSERT(CID == 0, "CID(" + CID + ")==0");
-            }
-        }
 		state = STATE_UNINIT;
 		lastArraySlot = -1;
 	}
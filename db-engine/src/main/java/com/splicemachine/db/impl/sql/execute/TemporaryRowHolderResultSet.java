@@ -48,12 +48,9 @@ import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.db.iapi.sql.execute.NoPutResultSet;
 import com.splicemachine.db.iapi.sql.execute.RowChanger;
 import com.splicemachine.db.iapi.sql.execute.TargetResultSet;
-import com.splicemachine.db.iapi.store.access.ConglomerateController;
-import com.splicemachine.db.iapi.store.access.ScanController;
 import com.splicemachine.db.iapi.store.access.TransactionController;
 import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import com.splicemachine.db.iapi.types.RowLocation;
-import com.splicemachine.db.iapi.types.SQLLongint;
 
 /**
  * A result set to scan temporary row holders.  Ultimately, this may be returned to users, hence the extra junk from
@@ -63,61 +60,46 @@ class TemporaryRowHolderResultSet implements CursorResultSet, NoPutResultSet, Cl
 
     private ExecRow[] rowArray;
     private int numRowsOut;
-    private ScanController scan;
-    private TransactionController tc;
+    private RowSpillFile.Reader spillReader;
     private boolean isOpen;
     private ExecRow currentRow;
     private ResultDescription resultDescription;
     private boolean isAppendable;
-    private long positionIndexConglomId;
     private boolean isVirtualMemHeap;
     private boolean currRowFromMem;
     private TemporaryRowHolderImpl holder;
 
-    // the following is used by position based scan, as well as virtual memory style heap
-    ConglomerateController heapCC;
-    private RowLocation baseRowLocation;
-
     /**
      * Constructor
      *
-     * @param tc                the xact controller
      * @param rowArray          the row array
      * @param resultDescription value returned by getResultDescription()
      */
-    public TemporaryRowHolderResultSet(TransactionController tc,
-                                       ExecRow[] rowArray,
+    public TemporaryRowHolderResultSet(ExecRow[] rowArray,
                                        ResultDescription resultDescription,
                                        boolean isVirtualMemHeap,
                                        TemporaryRowHolderImpl holder) {
-        this(tc, rowArray, resultDescription, isVirtualMemHeap, false, 0, holder);
+        this(rowArray, resultDescription, isVirtualMemHeap, false, holder);
     }
 
     /**
      * Constructor
      *
-     * @param tc                     the xact controller
-     * @param rowArray               the row array
-     * @param resultDescription      value returned by getResultDescription()
-     * @param isAppendable           true,if we can insert rows after this result is created
-     * @param positionIndexConglomId conglomId of the index which has order rows
-     *                               are inserted and their row location
+     * @param rowArray          the row array
+     * @param resultDescription value returned by getResultDescription()
+     * @param isAppendable      true,if we can insert rows after this result is created
      */
-    public TemporaryRowHolderResultSet(TransactionController tc,
-                                       ExecRow[] rowArray,
+    public TemporaryRowHolderResultSet(ExecRow[] rowArray,
                                        ResultDescription resultDescription,
                                        boolean isVirtualMemHeap,
                                        boolean isAppendable,
-                                       long positionIndexConglomId,
                                        TemporaryRowHolderImpl holder) {
-        this.tc = tc;
         this.rowArray = rowArray;
         this.resultDescription = resultDescription;
         this.numRowsOut = 0;
         this.isOpen = false;
         this.isVirtualMemHeap = isVirtualMemHeap;
         this.isAppendable = isAppendable;
-        this.positionIndexConglomId = positionIndexConglomId;
 
         if (SanityManager.DEBUG) {
             SanityManager.ASSERT(rowArray != null, "rowArray is null");
@@ -145,15 +127,8 @@ class TemporaryRowHolderResultSet implements CursorResultSet, NoPutResultSet, Cl
     /**
      * postion scan to start from after where we stopped earlier
      */
-    public void reStartScan(long currentConglomId, long pconglomId) throws StandardException {
+    public void reStartScan() throws StandardException {
         if (isAppendable) {
-            if (SanityManager.DEBUG) {
-                SanityManager.ASSERT(currentConglomId == holder.getTemporaryConglomId(),
-                        "currentConglomId(" + currentConglomId +
-                                ") == holder.getTemporaryConglomeateId (" +
-                                holder.getTemporaryConglomId() + ")");
-            }
-            positionIndexConglomId = pconglomId;
             setupPositionBasedScan(numRowsOut);
         } else {
             numRowsOut--;
@@ -370,13 +345,8 @@ class TemporaryRowHolderResultSet implements CursorResultSet, NoPutResultSet, Cl
             return;
         }
 
-        if (scan != null) {
-            scan.reopenScan(
-                    (DataValueDescriptor[]) null,        // start key value
-                    0,                                   // start operator
-                    null,                                // qualifier
-                    (DataValueDescriptor[]) null,        // stop key value
-                    0);                                  // stop operator
+        if (spillReader != null) {
+            spillReader = holder.getSpill().openReader(0);
         }
     }
 
@@ -406,40 +376,23 @@ class TemporaryRowHolderResultSet implements CursorResultSet, NoPutResultSet, Cl
             return currentRow;
         }
 
-        if (holder.getTemporaryConglomId() == 0) {
+        if (holder.getSpill() == null) {
             return null;
         }
 
         /*
-        ** Advance in the temporary conglomerate
+        ** Advance in the spill file
         */
-        if (scan == null) {
-            scan =
-                    tc.openScan(
-                            holder.getTemporaryConglomId(),
-                            false,                    // hold
-                            0,                         // open read only
-                            TransactionController.MODE_TABLE,
-                            TransactionController.ISOLATION_SERIALIZABLE,
-                            (FormatableBitSet) null,
-                            (DataValueDescriptor[]) null,        // start key value
-                            0,                                   // start operator
-                            null,                                // qualifier
-                            (DataValueDescriptor[]) null,        // stop key value
-                            0);                                  // stop operator
+        if (spillReader == null) {
+            spillReader = holder.getSpill().openReader(0);
         } else if (isVirtualMemHeap && holder.state == TemporaryRowHolderImpl.STATE_INSERT) {
             holder.state = TemporaryRowHolderImpl.STATE_DRAIN;
-            scan.reopenScan(
-                    (DataValueDescriptor[]) null,   // start key value
-                    0,                              // start operator
-                    null,                           // qualifier
-                    (DataValueDescriptor[]) null,   // stop key value
-                    0);                             // stop operator
+            spillReader = holder.getSpill().openReader(0);
         }
 
-        if (scan.next()) {
-            currentRow = rowArray[0].getNewNullRow();
-            scan.fetch(currentRow.getRowArray());
+        ExecRow row = rowArray[0].getNewNullRow();
+        if (spillReader.next(row)) {
+            currentRow = row;
             currRowFromMem = false;
             return currentRow;
         }
@@ -456,87 +409,28 @@ class TemporaryRowHolderResultSet implements CursorResultSet, NoPutResultSet, Cl
                 rowArray[holder.lastArraySlot] = null;  // erase reference
             holder.lastArraySlot--;
         } else {
-            if (baseRowLocation == null)
-                baseRowLocation = scan.newRowLocationTemplate();
-            scan.fetchLocation(baseRowLocation);
-            if (heapCC == null) {
-                heapCC = tc.openConglomerate(holder.getTemporaryConglomId(),
-                        false,
-                        TransactionController.OPENMODE_FORUPDATE,
-                        TransactionController.MODE_TABLE,
-                        TransactionController.ISOLATION_SERIALIZABLE);
-            }
-            heapCC.delete(baseRowLocation);
+            holder.getSpill().delete(spillReader.getLastPosition());
         }
     }
 
 
-    //following variables are specific to the position based scans.
-    DataValueDescriptor[] indexRow;
-    ScanController indexsc;
-
-    //open the scan of the temporary heap and the position index
-    private void setupPositionBasedScan(long position) throws StandardException {
+    //open a reader of the spill file at the given row, which also returns the rows appended later
+    private void setupPositionBasedScan(int position) throws StandardException {
 
         //incase nothing is inserted yet into the temporary row holder
-        if (holder.getTemporaryConglomId() == 0)
+        if (holder.getSpill() == null)
             return;
-        if (heapCC == null) {
-            heapCC = tc.openConglomerate(holder.getTemporaryConglomId(),
-                    false,
-                    0,
-                    TransactionController.MODE_TABLE,
-                    TransactionController.ISOLATION_SERIALIZABLE);
-        }
 
         currentRow = rowArray[0].getNewNullRow();
-        indexRow = new DataValueDescriptor[2];
-        indexRow[0] = new SQLLongint(position);
-        indexRow[1] = heapCC.newRowLocationTemplate();
-
-        DataValueDescriptor[] searchRow = new DataValueDescriptor[1];
-        searchRow[0] = new SQLLongint(position);
-
-        if (indexsc == null) {
-            indexsc = tc.openScan(positionIndexConglomId,
-                    false,                           // don't hold open across commit
-                    0,                               // for read
-                    TransactionController.MODE_TABLE,
-                    TransactionController.ISOLATION_SERIALIZABLE,
-                    null,                               // all fields as objects
-                    searchRow,                          // start position - first row
-                    ScanController.GE,                  // startSearchOperation
-                    null,                               //scanQualifier,
-                    null,                               // stop position - through last row
-                    ScanController.GT);                 // stopSearchOperation
-        } else {
-
-            indexsc.reopenScan(
-                    searchRow,                        // startKeyValue
-                    ScanController.GE,                // startSearchOp
-                    null,                             // qualifier
-                    null,                             // stopKeyValue
-                    ScanController.GT                 // stopSearchOp
-            );
-        }
-
+        spillReader = holder.getSpill().openReader(position);
     }
 
     //get the next row inserted into the temporary holder
     private ExecRow getNextAppendedRow() throws StandardException {
-        if (indexsc == null) return null;
-        if (!indexsc.fetchNext(indexRow)) {
+        if (spillReader == null) return null;
+        if (!spillReader.next(currentRow)) {
             return null;
         }
-
-        RowLocation baseRowLocation = (RowLocation) indexRow[1];
-        boolean base_row_exists =
-                heapCC.fetch(
-                        baseRowLocation, currentRow, (FormatableBitSet) null);
-
-        if (SanityManager.DEBUG) {
-            SanityManager.ASSERT(base_row_exists, "base row disappeared.");
-        }
         numRowsOut++;
         return currentRow;
     }
@@ -659,10 +553,7 @@ class TemporaryRowHolderResultSet implements CursorResultSet, NoPutResultSet, Cl
         isOpen = false;
         numRowsOut = 0;
         currentRow = null;
-        if (scan != null) {
-            scan.close();
-            scan = null;
-        }
+        spillReader = null;
     }
 
 
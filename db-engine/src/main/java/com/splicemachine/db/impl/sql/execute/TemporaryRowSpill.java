@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.db.impl.sql.execute;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accounts for the rows which temporary row holders spill to local files.
+ */
+public class TemporaryRowSpill implements TemporaryRowSpillManagement{
+    private static final TemporaryRowSpill INSTANCE = new TemporaryRowSpill();
+
+    private final AtomicLong totalFilesCreated = new AtomicLong(0L);
+    private final AtomicLong totalRowsSpilled = new AtomicLong(0L);
+    private final AtomicLong totalBytesSpilled = new AtomicLong(0L);
+    private final AtomicLong openFiles = new AtomicLong(0L);
+    private final AtomicLong openBytes = new AtomicLong(0L);
+
+    public static TemporaryRowSpill instance(){
+        return INSTANCE;
+    }
+
+    public static void registerJMX(MBeanServer mbs) throws MalformedObjectNameException,
+            NotCompliantMBeanException,
+            InstanceAlreadyExistsException,
+            MBeanRegistrationException{
+        mbs.registerMBean(INSTANCE,new ObjectName("com.splicemachine.db.impl.sql.execute:type=TemporaryRowSpill"));
+    }
+
+    void opened(){
+        totalFilesCreated.incrementAndGet();
+        openFiles.incrementAndGet();
+    }
+
+    void spilled(long bytes){
+        totalRowsSpilled.incrementAndGet();
+        totalBytesSpilled.addAndGet(bytes);
+        openBytes.addAndGet(bytes);
+    }
+
+    void closed(long bytes){
+        openFiles.decrementAndGet();
+        openBytes.addAndGet(-bytes);
+    }
+
+    @Override
+    public long getTotalFilesCreated(){
+        return totalFilesCreated.get();
+    }
+
+    @Override
+    public long getTotalRowsSpilled(){
+        return totalRowsSpilled.get();
+    }
+
+    @Override
+    public long getTotalBytesSpilled(){
+        return totalBytesSpilled.get();
+    }
+
+    @Override
+    public long getOpenFiles(){
+        return openFiles.get();
+    }
+
+    @Override
+    public long getOpenBytes(){
+        return openBytes.get();
+    }
+}
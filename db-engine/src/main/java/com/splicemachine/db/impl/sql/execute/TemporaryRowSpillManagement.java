@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.db.impl.sql.execute;
+import javax.management.MXBean;
+
+/**
+ * JMX Hook for monitoring the rows which temporary row holders spill to local files on this server.
+ */
+@MXBean
+public interface TemporaryRowSpillManagement {
+
+    /**
+     * @return the number of spill files created since the server started
+     */
+    long getTotalFilesCreated();
+
+    /**
+     * @return the number of rows spilled since the server started
+     */
+    long getTotalRowsSpilled();
+
+    /**
+     * @return the bytes spilled since the server started
+     */
+    long getTotalBytesSpilled();
+
+    /**
+     * @return the number of spill files which are still open
+     */
+    long getOpenFiles();
+
+    /**
+     * @return the bytes held by the spill files which are still open
+     */
+    long getOpenBytes();
+}
@@ -190,6 +190,57 @@ public class TriggerEventActivator {
         }
     }
 
+    /**
+     * Handle the given row event for a chunk of rows.
+     * <p>
+     * When the chunk can be handled as a set (see {@link #canFireRowsTogether}), the row trigger is fired once
+     * for the whole chunk, preparing its action a single time rather than once per row.  Otherwise each row is
+     * handled in turn, as by {@link #notifyRowEvent}.
+     *
+     * @param event a trigger event
+     * @param rows  the triggering result sets, one per row
+     */
+    public void notifyRowEvents(TriggerEvent event,
+                                List<? extends CursorResultSet> rows) throws StandardException {
+        if (rowExecutorsMap.isEmpty()) {
+            return;
+        }
+        List<GenericTriggerExecutor> triggerExecutors = rowExecutorsMap.get(event);
+        if (triggerExecutors == null || triggerExecutors.isEmpty()) {
+            return;
+        }
+        if (!canFireRowsTogether(event, triggerExecutors.size(), tec.hasAICounters())) {
+            for (CursorResultSet rs : rows) {
+                notifyRowEvent(event, rs, null);
+            }
+            return;
+        }
+        try {
+            lcc.pushExecutionStmtValidator(tec);
+            if (! tecPushed) {
+                lcc.pushTriggerExecutionContext(tec);
+                tecPushed = true;
+            }
+            tec.resetAICounters(true);
+            ((RowTriggerExecutor) triggerExecutors.get(0)).fireTrigger(event, rows);
+        } finally {
+            lcc.popExecutionStmtValidator(tec);
+        }
+    }
+
+    /*
+     * A chunk of rows can only be handed to the row trigger together when that can't change what the trigger
+     * actions see, or the order in which they take effect:
+     *
+     * - the rows must already have been written, so only AFTER events qualify.
+     * - there must be a single row trigger for the event. Firing several triggers a chunk at a time would
+     *   interleave their actions differently than firing all of them for one row at a time.
+     * - no autoincrement counters are maintained, since those are reset before each row is handled.
+     */
+    static boolean canFireRowsTogether(TriggerEvent event, int rowTriggers, boolean hasAICounters) {
+        return event.isAfter() && rowTriggers == 1 && !hasAICounters;
+    }
+
     /**
      * Clean up and release resources.
      */
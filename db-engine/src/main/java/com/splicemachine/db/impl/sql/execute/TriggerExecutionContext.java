@@ -410,6 +410,13 @@ public class TriggerExecutionContext implements ExecutionStmtValidator, External
         }
     }
 
+    /**
+     * @return true if the triggering statement maintains autoincrement counters for the triggers.
+     */
+    boolean hasAICounters() {
+        return aiCounters != null;
+    }
+
     /**
      * Update Autoincrement Counters from the last row inserted.
      */
@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.splicemachine.db.impl.sql.misc;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.SQLChar;
+import com.splicemachine.db.iapi.types.SQLDecimal;
+import com.splicemachine.db.iapi.types.SQLDouble;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLLongint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Replaces the literals of a DML statement by parameters, so that statements which only differ by
+ * their literals share one statement cache entry.
+ *
+ * Only literals whose value should not change the plan are replaced: operands of equality and
+ * inequality comparisons, IN lists, function arguments, INSERT values and UPDATE assignments.
+ * Operands of range comparisons, LIKE and BETWEEN are kept, because their selectivity depends on the
+ * value, and so are ORDER BY/GROUP BY positions, row limits and type lengths, where a parameter would
+ * change the meaning of the statement. Comments are kept as they are, with the hints they may hold.
+ *
+ * Equality literals are only known to be safe to replace once the statement is bound: if one of them
+ * is compared with a column which has statistics, its plan is estimated from the value, e.g. for a
+ * skewed column, so the compiled statement reports it and the caller runs the original text instead.
+ *
+ * The replacement is lexical, so it may produce a statement which does not compile, e.g. with a
+ * parameter in the select list; the caller is expected to fall back to the original text then.
+ */
+public class LiteralNormalizer {
+    private static final Set<String> STATEMENT_KEYWORDS = new HashSet<>(Arrays.asList(
+            "SELECT", "INSERT", "UPDATE", "DELETE", "VALUES", "WITH"));
+    /* tokens after which a literal can become a parameter */
+    private static final Set<String> PARAMETER_CONTEXTS = new HashSet<>(Arrays.asList(
+            "=", "<>", "!=", "(", ","));
+    /* types whose parenthesized arguments are lengths, precisions and scales */
+    private static final Set<String> TYPE_NAMES = new HashSet<>(Arrays.asList(
+            "CHAR", "CHARACTER", "VARCHAR", "VARYING", "DECIMAL", "DEC", "NUMERIC", "FLOAT",
+            "CLOB", "BLOB", "VARBINARY", "BINARY", "LONG"));
+
+    private LiteralNormalizer(){ }
+
+    /**
+     * @param sqlText the text of the statement
+     * @return the statement with its literals replaced, or null if there was no literal to replace or
+     * the statement is not a DML statement, or already has parameters
+     */
+    public static NormalizedStatement normalize(String sqlText) throws StandardException {
+        StringBuilder text = new StringBuilder(sqlText.length());
+        List<DataValueDescriptor> literals = new ArrayList<>();
+        // for each open parenthesis, whether it holds the arguments of a type
+        List<Boolean> parentheses = new ArrayList<>();
+        int frozenDepth = Integer.MAX_VALUE;
+        String previous = null;
+        int length = sqlText.length();
+        int i = 0;
+        while (i < length) {
+            char c = sqlText.charAt(i);
+            int end;
+            if (Character.isWhitespace(c)) {
+                text.append(c);
+                i++;
+                continue;
+            } else if (c == '-' && i + 1 < length && sqlText.charAt(i + 1) == '-') {
+                end = sqlText.indexOf('\n', i);
+                end = end < 0 ? length : end;
+                text.append(sqlText, i, end);
+                i = end;
+                continue;
+            } else if (c == '/' && i + 1 < length && sqlText.charAt(i + 1) == '*') {
+                end = endOfComment(sqlText, i);
+                text.append(sqlText, i, end);
+                i = end;
+                continue;
+            }
+
+            String token;
+            DataValueDescriptor literal = null;
+            if (c == '\'') {
+                end = endOfQuoted(sqlText, i, '\'');
+                token = sqlText.substring(i, end);
+                if (token.length() < 2 || token.charAt(token.length() - 1) != '\'')
+                    return null; // unterminated, leave it to the parser
+                literal = new SQLChar(token.substring(1, token.length() - 1).replace("''", "'"));
+            } else if (c == '"') {
+                end = endOfQuoted(sqlText, i, '"');
+                token = sqlText.substring(i, end);
+            } else if (isDigit(c) || (c == '.' && i + 1 < length && isDigit(sqlText.charAt(i + 1)))) {
+                end = endOfNumber(sqlText, i);
+                token = sqlText.substring(i, end);
+                if (end < length && isIdentifierPart(sqlText.charAt(end)))
+                    return null; // something like 1abc, leave it to the parser
+                literal = numericLiteral(token);
+            } else if (isIdentifierStart(c)) {
+                end = i + 1;
+                while (end < length && isIdentifierPart(sqlText.charAt(end)))
+                    end++;
+                token = sqlText.substring(i, end).toUpperCase();
+                if (previous == null && !STATEMENT_KEYWORDS.contains(token))
+                    return null;
+                if (token.equals("BY") && ("ORDER".equals(previous) || "GROUP".equals(previous)))
+                    frozenDepth = Math.min(frozenDepth, parentheses.size());
+                text.append(sqlText, i, end);
+                previous = token;
+                i = end;
+                continue;
+            } else if (c == '?') {
+                return null;
+            } else {
+                end = i + 1;
+                if (end < length && isOperatorPair(c, sqlText.charAt(end)))
+                    end++;
+                token = sqlText.substring(i, end);
+                if (c == '(') {
+                    parentheses.add(TYPE_NAMES.contains(previous));
+                } else if (c == ')' && !parentheses.isEmpty()) {
+                    parentheses.remove(parentheses.size() - 1);
+                    if (parentheses.size() < frozenDepth)
+                        frozenDepth = Integer.MAX_VALUE;
+                }
+            }
+
+            if (previous == null)
+                return null;
+            if (literal != null
+                    && PARAMETER_CONTEXTS.contains(previous)
+                    && parentheses.size() < frozenDepth
+                    && (parentheses.isEmpty() || !parentheses.get(parentheses.size() - 1))
+                    && !followedByRangeOperator(sqlText, end)) {
+                text.append('?');
+                literals.add(literal);
+            } else {
+                text.append(token);
+            }
+            previous = token;
+            i = end;
+        }
+        if (literals.isEmpty())
+            return null;
+        return new NormalizedStatement(text.toString(), literals);
+    }
+
+    private static DataValueDescriptor numericLiteral(String token) throws StandardException {
+        if (token.indexOf('e') >= 0 || token.indexOf('E') >= 0)
+            return new SQLDouble(Double.parseDouble(token));
+        if (token.indexOf('.') >= 0)
+            return new SQLDecimal(token);
+        try {
+            long value = Long.parseLong(token);
+            if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE)
+                return new SQLInteger((int) value);
+            return new SQLLongint(value);
+        } catch (NumberFormatException tooLarge) {
+            return new SQLDecimal(token);
+        }
+    }
+
+    private static boolean followedByRangeOperator(String sqlText, int position) {
+        int length = sqlText.length();
+        while (position < length && Character.isWhitespace(sqlText.charAt(position)))
+            position++;
+        if (position >= length)
+            return false;
+        char c = sqlText.charAt(position);
+        if (c == '<')
+            return position + 1 >= length || sqlText.charAt(position + 1) != '>';
+        if (c == '>')
+            return true;
+        return startsWithWord(sqlText, position, "LIKE") || startsWithWord(sqlText, position, "BETWEEN")
+                || startsWithWord(sqlText, position, "NOT");
+    }
+
+    private static boolean startsWithWord(String sqlText, int position, String word) {
+        int end = position + word.length();
+        return sqlText.regionMatches(true, position, word, 0, word.length())
+                && (end >= sqlText.length() || !isIdentifierPart(sqlText.charAt(end)));
+    }
+
+    private static int endOfComment(String sqlText, int start) {
+        int depth = 0;
+        int i = start;
+        while (i + 1 < sqlText.length()) {
+            if (sqlText.charAt(i) == '/' && sqlText.charAt(i + 1) == '*') {
+                depth++;
+                i += 2;
+            } else if (sqlText.charAt(i) == '*' && sqlText.charAt(i + 1) == '/') {
+                i += 2;
+                if (--depth == 0)
+                    return i;
+            } else {
+                i++;
+            }
+        }
+        return sqlText.length();
+    }
+
+    private static int endOfQuoted(String sqlText, int start, char quote) {
+        int i = start + 1;
+        while (i < sqlText.length()) {
+            if (sqlText.charAt(i) == quote) {
+                if (i + 1 < sqlText.length() && sqlText.charAt(i + 1) == quote) {
+                    i += 2; // escaped quote
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return sqlText.length();
+    }
+
+    private static int endOfNumber(String sqlText, int start) {
+        int length = sqlText.length();
+        int i = start;
+        while (i < length && isDigit(sqlText.charAt(i)))
+            i++;
+        if (i < length && sqlText.charAt(i) == '.') {
+            i++;
+            while (i < length && isDigit(sqlText.charAt(i)))
+                i++;
+        }
+        if (i < length && (sqlText.charAt(i) == 'e' || sqlText.charAt(i) == 'E')) {
+            int exponent = i + 1;
+            if (exponent < length && (sqlText.charAt(exponent) == '+' || sqlText.charAt(exponent) == '-'))
+                exponent++;
+            if (exponent < length && isDigit(sqlText.charAt(exponent))) {
+                i = exponent;
+                while (i < length && isDigit(sqlText.charAt(i)))
+                    i++;
+            }
+        }
+        return i;
+    }
+
+    private static boolean isOperatorPair(char first, char second) {
+        return (first == '<' && (second == '=' || second == '>'))
+                || (first == '>' && second == '=')
+                || (first == '!' && second == '=')
+                || (first == '|' && second == '|');
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isIdentifierStart(char c) {
+        return Character.isLetter(c) || c == '_';
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '#' || c == '@';
+    }
+
+    /**
+     * A statement with its literals replaced by parameters.
+     */
+    public static class NormalizedStatement {
+        private final String text;
+        private final List<DataValueDescriptor> literals;
+
+        NormalizedStatement(String text, List<DataValueDescriptor> literals) {
+            this.text = text;
+            this.literals = Collections.unmodifiableList(literals);
+        }
+
+        /**
+         * @return the text of the statement, with a parameter in place of each replaced literal
+         */
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * @return the values of the replaced literals, in the order of their parameters
+         */
+        public List<DataValueDescriptor> getLiterals() {
+            return literals;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.db.impl.sql.compile;
+
+import com.splicemachine.db.iapi.sql.compile.C_NodeTypes;
+import com.splicemachine.db.iapi.store.access.StoreCostController;
+import org.junit.Assert;
+import org.junit.Test;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests which comparisons make an auto-parameterized statement keep its literals.
+ */
+public class BinaryRelationalOperatorNodeTest {
+
+    @Test
+    public void equalityOfAParameterWithAColumnWithStatisticsMustKeepItsLiteral() throws Exception {
+        Assert.assertTrue(relop(C_NodeTypes.BINARY_EQUALS_OPERATOR_NODE, column(100), new ParameterNode())
+                .comparesParameterToColumnWithStatistics());
+        Assert.assertTrue("The column may be on either side",
+                relop(C_NodeTypes.BINARY_EQUALS_OPERATOR_NODE, new ParameterNode(), column(100))
+                        .comparesParameterToColumnWithStatistics());
+        Assert.assertTrue(relop(C_NodeTypes.BINARY_NOT_EQUALS_OPERATOR_NODE, column(100), new ParameterNode())
+                .comparesParameterToColumnWithStatistics());
+
+        CastNode cast = new CastNode();
+        cast.castOperand = new ParameterNode();
+        Assert.assertTrue("A cast parameter is still a parameter",
+                relop(C_NodeTypes.BINARY_EQUALS_OPERATOR_NODE, column(100), cast)
+                        .comparesParameterToColumnWithStatistics());
+    }
+
+    @Test
+    public void otherComparisonsMayShareAPlan() throws Exception {
+        Assert.assertFalse("Fake statistics have no cardinality",
+                relop(C_NodeTypes.BINARY_EQUALS_OPERATOR_NODE, column(0), new ParameterNode())
+                        .comparesParameterToColumnWithStatistics());
+        Assert.assertFalse("Not a parameter",
+                relop(C_NodeTypes.BINARY_EQUALS_OPERATOR_NODE, column(100), mock(ValueNode.class))
+                        .comparesParameterToColumnWithStatistics());
+        Assert.assertFalse("Range literals are never replaced",
+                relop(C_NodeTypes.BINARY_LESS_THAN_OPERATOR_NODE, column(100), new ParameterNode())
+                        .comparesParameterToColumnWithStatistics());
+    }
+
+    private static BinaryRelationalOperatorNode relop(int nodeType, ValueNode left, ValueNode right) {
+        BinaryRelationalOperatorNode relop = new BinaryRelationalOperatorNode();
+        relop.setNodeType(nodeType);
+        relop.init(left, right);
+        return relop;
+    }
+
+    private static ColumnReference column(long cardinality) throws Exception {
+        ResultColumn source = mock(ResultColumn.class);
+        when(source.getColumnPosition()).thenReturn(2);
+        StoreCostController scc = mock(StoreCostController.class);
+        when(scc.cardinality(2)).thenReturn(cardinality);
+        ColumnReference column = mock(ColumnReference.class);
+        when(column.getSource()).thenReturn(source);
+        when(column.getStoreCostController()).thenReturn(scc);
+        return column;
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.db.impl.sql.execute;
+import com.splicemachine.db.iapi.reference.Property;
+import com.splicemachine.db.iapi.sql.Activation;
+import com.splicemachine.db.iapi.sql.execute.CursorResultSet;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.HBaseRowLocation;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLRef;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the file temporary row holders spill their rows to, and the holders reading them back.
+ */
+public class RowSpillFileTest {
+
+    @Rule
+    public TemporaryFolder tempDirectory = new TemporaryFolder();
+
+    private String previousTempDirectory;
+
+    @Before
+    public void setUp() {
+        previousTempDirectory = System.setProperty(Property.STORAGE_TEMP_DIRECTORY, tempDirectory.getRoot().getPath());
+    }
+
+    @After
+    public void tearDown() {
+        if (previousTempDirectory == null)
+            System.clearProperty(Property.STORAGE_TEMP_DIRECTORY);
+        else
+            System.setProperty(Property.STORAGE_TEMP_DIRECTORY, previousTempDirectory);
+    }
+
+    @Test
+    public void readsTheRowsBackInOrder() throws Exception {
+        RowSpillFile spill = new RowSpillFile();
+        try {
+            // more rows than fit in the write buffer
+            for (int i = 0; i < 10000; i++) {
+                Assert.assertEquals(i, spill.append(row(i, i % 10 == 0 ? null : "row " + i)));
+            }
+            Assert.assertEquals(10000, spill.size());
+
+            Assert.assertEquals(range(0, 10000), read(spill.openReader(0)));
+            Assert.assertEquals("A reader can start at any row", range(9990, 10000), read(spill.openReader(9990)));
+        } finally {
+            spill.close();
+        }
+    }
+
+    @Test
+    public void readsNullValuesIntoAReusedRow() throws Exception {
+        RowSpillFile spill = new RowSpillFile();
+        try {
+            spill.append(row(1, "one"));
+            spill.append(row(2, null));
+
+            RowSpillFile.Reader reader = spill.openReader(0);
+            ExecRow row = row(0, "");
+            Assert.assertTrue(reader.next(row));
+            Assert.assertEquals("one", row.getColumn(2).getString());
+            Assert.assertTrue(reader.next(row));
+            Assert.assertTrue("A null value should not leave the previous one in place", row.getColumn(2).isNull());
+            Assert.assertFalse(reader.next(row));
+        } finally {
+            spill.close();
+        }
+    }
+
+    @Test
+    public void readerReturnsRowsAppendedAfterItWasOpened() throws Exception {
+        RowSpillFile spill = new RowSpillFile();
+        try {
+            spill.append(row(0, "row 0"));
+            RowSpillFile.Reader reader = spill.openReader(0);
+            ExecRow row = row(0, "");
+            Assert.assertTrue(reader.next(row));
+            Assert.assertFalse(reader.next(row));
+
+            spill.append(row(1, "row 1"));
+            Assert.assertTrue(reader.next(row));
+            Assert.assertEquals(1, row.getColumn(1).getInt());
+            Assert.assertFalse(reader.next(row));
+        } finally {
+            spill.close();
+        }
+    }
+
+    @Test
+    public void readersSkipDeletedRows() throws Exception {
+        RowSpillFile spill = new RowSpillFile();
+        try {
+            for (int i = 0; i < 4; i++) {
+                spill.append(row(i, "row " + i));
+            }
+            RowSpillFile.Reader reader = spill.openReader(0);
+            ExecRow row = row(0, "");
+            Assert.assertTrue(reader.next(row));
+            Assert.assertTrue(reader.next(row));
+            spill.delete(reader.getLastPosition());
+
+            Assert.assertEquals(Arrays.asList(0, 2, 3), read(spill.openReader(0)));
+        } finally {
+            spill.close();
+        }
+    }
+
+    @Test
+    public void closeRemovesTheFileAndUpdatesTheCounters() throws Exception {
+        TemporaryRowSpill counters = TemporaryRowSpill.instance();
+        long filesCreated = counters.getTotalFilesCreated();
+        long rowsSpilled = counters.getTotalRowsSpilled();
+        long bytesSpilled = counters.getTotalBytesSpilled();
+        long openFiles = counters.getOpenFiles();
+
+        RowSpillFile spill = new RowSpillFile();
+        spill.append(row(1, "one"));
+        spill.append(row(2, "two"));
+        Assert.assertEquals(filesCreated + 1, counters.getTotalFilesCreated());
+        Assert.assertEquals(rowsSpilled + 2, counters.getTotalRowsSpilled());
+        Assert.assertEquals(bytesSpilled + spill.length(), counters.getTotalBytesSpilled());
+        Assert.assertEquals(openFiles + 1, counters.getOpenFiles());
+
+        spill.close();
+        spill.close();
+        Assert.assertEquals(openFiles, counters.getOpenFiles());
+        Assert.assertEquals("The spill file should be removed", 0, tempDirectory.getRoot().list().length);
+    }
+
+    @Test
+    public void holderReadsRowsBeyondItsArrayFromTheSpillFile() throws Exception {
+        TemporaryRowHolderImpl holder = new TemporaryRowHolderImpl(mock(Activation.class), null, null);
+        for (int i = 0; i < 12; i++) {
+            holder.insert(row(i, "row " + i));
+        }
+        Assert.assertNotNull(holder.getSpill());
+        Assert.assertEquals(0, holder.getTemporaryConglomId());
+
+        CursorResultSet rs = holder.getResultSet();
+        rs.open();
+        Assert.assertEquals(range(0, 12), read(rs));
+        rs.close();
+
+        holder.close();
+        Assert.assertNull(holder.getSpill());
+        Assert.assertEquals(0, tempDirectory.getRoot().list().length);
+    }
+
+    @Test
+    public void uniqueStreamDropsRowsOfTheSameBaseRow() throws Exception {
+        TemporaryRowHolderImpl holder = new TemporaryRowHolderImpl(mock(Activation.class), null, null, true);
+        for (int i = 0; i < 6; i++) {
+            holder.insert(refRow(i, i % 3));
+        }
+
+        CursorResultSet rs = holder.getResultSet();
+        rs.open();
+        Assert.assertEquals(range(0, 3), read(rs));
+
+        // a unique stream can still take rows once it is being read
+        holder.insert(refRow(6, 6));
+        holder.insert(refRow(7, 1));
+        Assert.assertEquals(Arrays.asList(6), read(rs));
+        rs.close();
+        holder.close();
+    }
+
+    private static ExecRow row(int id, String name) {
+        ExecRow row = new ValueRow(2);
+        row.setColumn(1, new SQLInteger(id));
+        row.setColumn(2, new SQLVarchar(name));
+        return row;
+    }
+
+    private static ExecRow refRow(int id, int baseRow) {
+        ExecRow row = new ValueRow(2);
+        row.setColumn(1, new SQLInteger(id));
+        row.setColumn(2, new SQLRef(new HBaseRowLocation(new byte[]{(byte) baseRow})));
+        return row;
+    }
+
+    private static List<Integer> range(int from, int to) {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            ids.add(i);
+        }
+        return ids;
+    }
+
+    private static List<Integer> read(RowSpillFile.Reader reader) throws Exception {
+        List<Integer> ids = new ArrayList<>();
+        ExecRow row = row(0, "");
+        while (reader.next(row)) {
+            ids.add(row.getColumn(1).getInt());
+        }
+        return ids;
+    }
+
+    private static List<Integer> read(CursorResultSet rs) throws Exception {
+        List<Integer> ids = new ArrayList<>();
+        ExecRow row;
+        while ((row = rs.getNextRow()) != null) {
+            ids.add(row.getColumn(1).getInt());
+        }
+        return ids;
+    }
+}
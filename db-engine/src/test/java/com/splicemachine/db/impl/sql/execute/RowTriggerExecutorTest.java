@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.db.impl.sql.execute;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.dictionary.SPSDescriptor;
+import com.splicemachine.db.iapi.sql.dictionary.TriggerDescriptor;
+import com.splicemachine.db.iapi.sql.execute.CursorResultSet;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests firing a row trigger for a chunk of rows, and which chunks may be fired together.
+ */
+public class RowTriggerExecutorTest {
+
+    @Test
+    public void onlyASingleAfterTriggerWithoutAICountersFiresRowsTogether() {
+        Assert.assertTrue(TriggerEventActivator.canFireRowsTogether(TriggerEvent.AFTER_INSERT, 1, false));
+        Assert.assertTrue(TriggerEventActivator.canFireRowsTogether(TriggerEvent.AFTER_UPDATE, 1, false));
+        Assert.assertTrue(TriggerEventActivator.canFireRowsTogether(TriggerEvent.AFTER_DELETE, 1, false));
+
+        Assert.assertFalse("Before triggers run before the rows are written",
+                TriggerEventActivator.canFireRowsTogether(TriggerEvent.BEFORE_INSERT, 1, false));
+        Assert.assertFalse("Before triggers run before the rows are written",
+                TriggerEventActivator.canFireRowsTogether(TriggerEvent.BEFORE_UPDATE, 1, false));
+        Assert.assertFalse("Several triggers would interleave differently",
+                TriggerEventActivator.canFireRowsTogether(TriggerEvent.AFTER_INSERT, 2, false));
+        Assert.assertFalse("AI counters are reset for each row",
+                TriggerEventActivator.canFireRowsTogether(TriggerEvent.AFTER_INSERT, 1, true));
+    }
+
+    @Test
+    public void chunkFiresTheActionForEachRowInOrderAndPreparesItOnce() throws Exception {
+        List<String> log = new ArrayList<>();
+        RecordingExecutor executor = new RecordingExecutor(recordingContext(log), log);
+        CursorResultSet[] rows = rows(3);
+
+        executor.fireTrigger(TriggerEvent.AFTER_INSERT, Arrays.asList(rows));
+
+        Assert.assertEquals(Arrays.asList(
+                "row 0", "ai", "execute",
+                "row 1", "ai", "execute",
+                "row 2", "ai", "execute",
+                "clear"), log);
+    }
+
+    @Test
+    public void firingRowsOneAtATimePreparesTheActionForEachRow() throws Exception {
+        List<String> log = new ArrayList<>();
+        RecordingExecutor executor = new RecordingExecutor(recordingContext(log), log);
+        CursorResultSet[] rows = rows(3);
+
+        for (CursorResultSet row : rows) {
+            executor.fireTrigger(TriggerEvent.AFTER_INSERT, row, null);
+        }
+
+        Assert.assertEquals("The action should be prepared again after each row", 3, count(log, "clear"));
+        Assert.assertEquals(3, count(log, "execute"));
+    }
+
+    @Test
+    public void beforeTriggerUpdatesAICountersAfterEachAction() throws Exception {
+        List<String> log = new ArrayList<>();
+        RecordingExecutor executor = new RecordingExecutor(recordingContext(log), log);
+
+        executor.fireTrigger(TriggerEvent.BEFORE_INSERT, Arrays.asList(rows(2)));
+
+        Assert.assertEquals(Arrays.asList(
+                "row 0", "execute", "ai",
+                "row 1", "execute", "ai",
+                "clear"), log);
+    }
+
+    @Test
+    public void failingActionStillClearsTheStatement() throws Exception {
+        List<String> log = new ArrayList<>();
+        RecordingExecutor executor = new RecordingExecutor(recordingContext(log), log);
+        executor.failOnExecution = 1;
+
+        try {
+            executor.fireTrigger(TriggerEvent.AFTER_INSERT, Arrays.asList(rows(3)));
+            Assert.fail("Expected the trigger action to fail");
+        } catch (StandardException expected) {
+            // expected
+        }
+        Assert.assertEquals(Arrays.asList(
+                "row 0", "ai", "execute",
+                "row 1", "ai",
+                "clear"), log);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods and classes*/
+
+    private static TriggerExecutionContext recordingContext(final List<String> log) throws StandardException {
+        TriggerExecutionContext tec = mock(TriggerExecutionContext.class);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                log.add(invocation.getArguments()[0].toString());
+                return null;
+            }
+        }).when(tec).setTriggeringResultSet(any(CursorResultSet.class));
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                log.add("ai");
+                return null;
+            }
+        }).when(tec).updateAICounters();
+        return tec;
+    }
+
+    private static CursorResultSet[] rows(int count) {
+        CursorResultSet[] rows = new CursorResultSet[count];
+        for (int i = 0; i < count; i++) {
+            rows[i] = mock(CursorResultSet.class, "row " + i);
+        }
+        return rows;
+    }
+
+    private static int count(List<String> log, String entry) {
+        int count = 0;
+        for (String e : log) {
+            if (e.equals(entry)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Records the execution and clearing of the trigger action instead of compiling and running it.
+     */
+    private static class RecordingExecutor extends RowTriggerExecutor {
+        private final List<String> log;
+        private int failOnExecution = -1;
+        private int executions;
+
+        RecordingExecutor(TriggerExecutionContext tec, List<String> log) {
+            super(tec, mock(TriggerDescriptor.class), null, null);
+            this.log = log;
+        }
+
+        @Override
+        protected SPSDescriptor getAction() {
+            return null;
+        }
+
+        @Override
+        protected void executeSPS(SPSDescriptor sps) throws StandardException {
+            if (executions++ == failOnExecution) {
+                throw StandardException.plainWrapException(new RuntimeException("action failed"));
+            }
+            log.add("execute");
+        }
+
+        @Override
+        protected void clearSPS() {
+            log.add("clear");
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.splicemachine.db.impl.sql.misc;
+
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.SQLChar;
+import com.splicemachine.db.iapi.types.SQLDecimal;
+import com.splicemachine.db.iapi.types.SQLDouble;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLLongint;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+public class LiteralNormalizerTest {
+
+    @Test
+    public void replacesEqualityAndInListLiterals() throws Exception {
+        LiteralNormalizer.NormalizedStatement normalized =
+                LiteralNormalizer.normalize("select * from t where a = 1 and b IN ('x', 'it''s') and c <> 2.5");
+        Assert.assertEquals("select * from t where a = ? and b IN (?, ?) and c <> ?", normalized.getText());
+        List<DataValueDescriptor> literals = normalized.getLiterals();
+        Assert.assertEquals(4, literals.size());
+        Assert.assertTrue(literals.get(0) instanceof SQLInteger);
+        Assert.assertEquals(1, literals.get(0).getInt());
+        Assert.assertTrue(literals.get(1) instanceof SQLChar);
+        Assert.assertEquals("x", literals.get(1).getString());
+        Assert.assertEquals("it's", literals.get(2).getString());
+        Assert.assertTrue(literals.get(3) instanceof SQLDecimal);
+    }
+
+    @Test
+    public void statementsDifferingByLiteralsShareTheirText() throws Exception {
+        Assert.assertEquals(LiteralNormalizer.normalize("INSERT INTO t VALUES (1, 'a', 3000000000)").getText(),
+                LiteralNormalizer.normalize("INSERT INTO t VALUES (2, 'bcd', 1e3)").getText());
+        Assert.assertEquals(LiteralNormalizer.normalize("update t set a = 1 where id = 10").getText(),
+                LiteralNormalizer.normalize("update t set a = 7 where id = 11").getText());
+    }
+
+    @Test
+    public void typesNumbersLikeTheParser() throws Exception {
+        List<DataValueDescriptor> literals =
+                LiteralNormalizer.normalize("values (1, 3000000000, 99999999999999999999, 1.5, 1e3)").getLiterals();
+        Assert.assertTrue(literals.get(0) instanceof SQLInteger);
+        Assert.assertTrue(literals.get(1) instanceof SQLLongint);
+        Assert.assertTrue(literals.get(2) instanceof SQLDecimal);
+        Assert.assertTrue(literals.get(3) instanceof SQLDecimal);
+        Assert.assertTrue(literals.get(4) instanceof SQLDouble);
+    }
+
+    @Test
+    public void keepsValueSensitiveLiterals() throws Exception {
+        String sql = "select * from t where a < 10 and b >= 'x' and c like 'ab%' and d between 1 and 5 and (3 > e)";
+        Assert.assertNull("Nothing should have been replaced", LiteralNormalizer.normalize(sql));
+        Assert.assertEquals("select * from t where a = ? and b > 10",
+                LiteralNormalizer.normalize("select * from t where a = 1 and b > 10").getText());
+    }
+
+    @Test
+    public void keepsLiteralsWhichChangeTheMeaning() throws Exception {
+        Assert.assertEquals("select a, count(*) from t where b = ? group by 1 order by 2, a fetch first 10 rows only",
+                LiteralNormalizer.normalize("select a, count(*) from t where b = 5 group by 1 order by 2, a fetch first 10 rows only").getText());
+        Assert.assertEquals("select cast(a as decimal(10, 2)) from t where b = ?",
+                LiteralNormalizer.normalize("select cast(a as decimal(10, 2)) from t where b = 3").getText());
+        Assert.assertEquals("select * from (select a from t order by 1) x where a = ?",
+                LiteralNormalizer.normalize("select * from (select a from t order by 1) x where a = 4").getText());
+        Assert.assertEquals("select * from t where x = X'0A' and e = -1 and f = ?",
+                LiteralNormalizer.normalize("select * from t where x = X'0A' and e = -1 and f = 'y'").getText());
+    }
+
+    @Test
+    public void keepsCommentsQuotedIdentifiersAndHints() throws Exception {
+        String sql = "-- a comment with 1 = 1\nselect \"a = 1\" from t --splice-properties index=IX_1\n where /* b = 2 /* nested */ */ b = 2";
+        Assert.assertEquals("-- a comment with 1 = 1\nselect \"a = 1\" from t --splice-properties index=IX_1\n where /* b = 2 /* nested */ */ b = ?",
+                LiteralNormalizer.normalize(sql).getText());
+    }
+
+    @Test
+    public void skipsStatementsWhichAreNotCandidates() throws Exception {
+        Assert.assertNull("Already has parameters", LiteralNormalizer.normalize("select * from t where a = ? and b = 1"));
+        Assert.assertNull("Not DML", LiteralNormalizer.normalize("create table t (a int default 1)"));
+        Assert.assertNull("Not DML", LiteralNormalizer.normalize("call syscs_util.foo(1)"));
+        Assert.assertNull("No literal", LiteralNormalizer.normalize("select * from t"));
+        Assert.assertNull("Unterminated string", LiteralNormalizer.normalize("select * from t where a = 'x"));
+    }
+}
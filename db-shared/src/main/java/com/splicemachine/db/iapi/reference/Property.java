@@ -1204,6 +1204,24 @@ public interface Property {
      */
 	String DRDA_PROP_STREAMOUTBUFFERSIZE = "derby.drda.streamOutBufferSize";
 
+	/**
+	 * db.drda.multiplexIdleSessions
+	 *<BR>
+	 * Hand the sessions which have no pending request to a selector instead of
+	 * keeping a connection thread blocked on each of them. Does not apply to
+	 * SSL connections. Defaults to false.
+	 */
+	String DRDA_PROP_MULTIPLEX_IDLE_SESSIONS = "derby.drda.multiplexIdleSessions";
+
+	/**
+	 * db.drda.idleSessionTimeout
+	 *<BR>
+	 * How long (in milliseconds) a connection thread waits for the next request
+	 * of a session before handing the session to the selector, when idle
+	 * sessions are multiplexed. Defaults to 100.
+	 */
+	String DRDA_PROP_IDLE_SESSION_TIMEOUT = "derby.drda.idleSessionTimeout";
+
 	/*
 	** Internal properties, mainly used by Monitor.
 	*/
@@ -1349,4 +1367,11 @@ public interface Property {
 	String MATCHING_STATEMENT_CACHE_IGNORING_COMMENT_OPTIMIZATION_ENABLED =
 			"derby.database.matchStmtCacheIgnoreCommentOptimizationEnabled";
 
+	/**
+	 * If true, replace the literals of DML statements by parameters before looking them up in the
+	 * statement cache, so that statements which only differ by their literals share one plan
+	 */
+	String AUTO_PARAMETERIZE_LITERALS_ENABLED =
+			"derby.database.autoParameterizeLiteralsEnabled";
+
 }
@@ -39,12 +39,18 @@ public class PipelineKryoRegistry implements KryoPool.KryoRegistry{
             @Override
             public void write(Kryo kryo,Output output,BulkWritesResult object){
                 kryo.writeClassAndObject(output,object.getBulkWriteResults());
+                output.writeInt(object.getWriteCredits());
             }
 
             @Override
             public BulkWritesResult read(Kryo kryo,Input input,Class type){
                 Collection<BulkWriteResult> results=(Collection<BulkWriteResult>)kryo.readClassAndObject(input);
-                return new BulkWritesResult(results);
+                /*
+                 * Servers of older releases don't send write credits. Their results may be followed by
+                 * the zero padding of the output buffer, which reads as no credits (i.e. a plain backoff).
+                 */
+                int writeCredits=input.eof()?-1:input.readInt();
+                return new BulkWritesResult(results,writeCredits);
             }
         },11);
 
@@ -65,6 +65,7 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
     private static final boolean allowSpark = true;
     private static final Logger LOG = Logger.getLogger(SpliceDefaultCompactor.class);
     private long smallestReadPoint;
+    private long gcWatermark;
     private String conglomId;
     private String tableDisplayName;
     private String indexDisplayName;
@@ -90,6 +91,11 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
         this.smallestReadPoint = smallestReadPoint;
     }
 
+    public SpliceDefaultCompactor(final Configuration conf, final Store store, long smallestReadPoint, long gcWatermark) {
+        this(conf, store, smallestReadPoint);
+        this.gcWatermark = gcWatermark;
+    }
+
     @Override
     public List<Path> compact(CompactionRequest request, CompactionThroughputController throughputController, User user) throws IOException {
         if(!allowSpark || store.getRegionInfo().isSystemTable())
@@ -117,7 +123,7 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
 
         SConfiguration config = HConfiguration.getConfiguration();
         DistributedCompaction jobRequest=new DistributedCompaction(
-                getCompactionFunction(request.isMajor(), getFavoredNodes()),
+                getCompactionFunction(request.isMajor(), getFavoredNodes(), SpliceCompactionUtils.gcWatermark()),
                 files,
                 getJobDetails(request),
                 getJobGroup(request,hostName),
@@ -169,14 +175,14 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
         return paths;
     }
 
-    private SparkCompactionFunction getCompactionFunction(boolean isMajor, InetSocketAddress[] favoredNodes) {
+    private SparkCompactionFunction getCompactionFunction(boolean isMajor, InetSocketAddress[] favoredNodes, long gcWatermark) {
         return new SparkCompactionFunction(
                 smallestReadPoint,
                 store.getTableName().getNamespace(),
                 store.getTableName().getQualifier(),
                 store.getRegionInfo(),
                 store.getFamily().getName(),
-                isMajor, favoredNodes);
+                isMajor, favoredNodes, gcWatermark);
     }
 
     private String getScope(CompactionRequest request) {
@@ -290,7 +296,8 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
                     int bufferSize = HConfiguration.getConfiguration().getOlapCompactionResolutionBufferSize();
                     boolean blocking = HConfiguration.getConfiguration().getOlapCompactionBlocking();
                     SICompactionState state = new SICompactionState(driver.getTxnSupplier(),
-                            driver.getConfiguration().getActiveTransactionCacheSize(), context, blocking ? driver.getExecutorService() : driver.getRejectingExecutorService());
+                            driver.getConfiguration().getActiveTransactionCacheSize(), context, blocking ? driver.getExecutorService() : driver.getRejectingExecutorService(),
+                            gcWatermark, request.isAllFiles());
                     boolean purgeDeletedRows = request.isMajor() ? SpliceCompactionUtils.shouldPurge(store) : false;
 
                     SICompactionScanner siScanner = new SICompactionScanner(state, scanner, purgeDeletedRows, resolutionShare, bufferSize, context);
@@ -67,6 +67,7 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
     private static final boolean allowSpark = true;
     private static final Logger LOG = Logger.getLogger(SpliceDefaultCompactor.class);
     private long smallestReadPoint;
+    private long gcWatermark;
     private String conglomId;
     private String tableDisplayName;
     private String indexDisplayName;
@@ -92,6 +93,11 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
         this.smallestReadPoint = smallestReadPoint;
     }
 
+    public SpliceDefaultCompactor(final Configuration conf, final Store store, long smallestReadPoint, long gcWatermark) {
+        this(conf, store, smallestReadPoint);
+        this.gcWatermark = gcWatermark;
+    }
+
     @Override
     public List<Path> compact(CompactionRequest request, CompactionThroughputController throughputController, User user) throws IOException {
         if(!allowSpark || store.getRegionInfo().isSystemTable())
@@ -119,7 +125,7 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
             hostName = RSRpcServices.getHostname(conf,false);
         SConfiguration config = HConfiguration.getConfiguration();
         DistributedCompaction jobRequest=new DistributedCompaction(
-                getCompactionFunction(request.isMajor(), getFavoredNodes()),
+                getCompactionFunction(request.isMajor(), getFavoredNodes(), SpliceCompactionUtils.gcWatermark()),
                 files,
                 getJobDetails(request),
                 getJobGroup(request,hostName),
@@ -171,7 +177,7 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
         return paths;
     }
 
-    private SparkCompactionFunction getCompactionFunction(boolean isMajor, InetSocketAddress[] favoredNodes) {
+    private SparkCompactionFunction getCompactionFunction(boolean isMajor, InetSocketAddress[] favoredNodes, long gcWatermark) {
         return new SparkCompactionFunction(
                 smallestReadPoint,
                 store.getTableName().getNamespace(),
@@ -179,7 +185,8 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
                 store.getRegionInfo(),
                 store.getFamily().getName(),
                 isMajor,
-                favoredNodes);
+                favoredNodes,
+                gcWatermark);
     }
 
     private String getScope(CompactionRequest request) {
@@ -283,7 +290,8 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
                     int bufferSize = HConfiguration.getConfiguration().getOlapCompactionResolutionBufferSize();
                     boolean blocking = HConfiguration.getConfiguration().getOlapCompactionBlocking();
                     SICompactionState state = new SICompactionState(driver.getTxnSupplier(),
-                            driver.getConfiguration().getActiveTransactionCacheSize(), context, blocking ? driver.getExecutorService() : driver.getRejectingExecutorService());
+                            driver.getConfiguration().getActiveTransactionCacheSize(), context, blocking ? driver.getExecutorService() : driver.getRejectingExecutorService(),
+                            gcWatermark, request.isAllFiles());
                     boolean purgeDeletedRows = request.isMajor() ? SpliceCompactionUtils.shouldPurge(store) : false;
 
                     SICompactionScanner siScanner = new SICompactionScanner(state, scanner, purgeDeletedRows, resolutionShare, bufferSize, context);
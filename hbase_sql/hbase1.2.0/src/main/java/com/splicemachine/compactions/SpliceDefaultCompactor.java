@@ -26,6 +26,7 @@ import com.splicemachine.db.iapi.sql.dictionary.TableDescriptor;
 import com.splicemachine.derby.jdbc.SpliceTransactionResourceImpl;
 import com.splicemachine.derby.stream.compaction.SparkCompactionFunction;
 import com.splicemachine.hbase.SICompactionScanner;
+import com.splicemachine.hbase.SpliceCompactionUtils;
 import com.splicemachine.olap.DistributedCompaction;
 import com.splicemachine.pipeline.Exceptions;
 import com.splicemachine.si.api.txn.Txn;
@@ -86,6 +87,7 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
     private static final boolean allowSpark = true;
     private static final Logger LOG = Logger.getLogger(SpliceDefaultCompactor.class);
     private long smallestReadPoint;
+    private long gcWatermark;
     private String conglomId;
     private String tableDisplayName;
     private String indexDisplayName;
@@ -111,6 +113,11 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
         this.smallestReadPoint = smallestReadPoint;
     }
 
+    public SpliceDefaultCompactor(final Configuration conf, final Store store, long smallestReadPoint, long gcWatermark) {
+        this(conf, store, smallestReadPoint);
+        this.gcWatermark = gcWatermark;
+    }
+
     @Override
     public List<Path> compact(CompactionRequest request, CompactionThroughputController throughputController, User user) throws IOException {
         if(!allowSpark || store.getRegionInfo().isSystemTable())
@@ -140,7 +147,7 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
 
         SConfiguration config = HConfiguration.getConfiguration();
         DistributedCompaction jobRequest=new DistributedCompaction(
-                getCompactionFunction(request.isMajor(),getFavoredNodes()),
+                getCompactionFunction(request.isMajor(),getFavoredNodes(),SpliceCompactionUtils.gcWatermark()),
                 files,
                 getJobDetails(request),
                 getJobGroup(request,hostName),
@@ -193,7 +200,7 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
         return paths;
     }
 
-    private SparkCompactionFunction getCompactionFunction(boolean isMajor, InetSocketAddress[] favoredNodes) {
+    private SparkCompactionFunction getCompactionFunction(boolean isMajor, InetSocketAddress[] favoredNodes, long gcWatermark) {
         return new SparkCompactionFunction(
                 smallestReadPoint,
                 store.getTableName().getNamespace(),
@@ -201,7 +208,8 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
                 store.getRegionInfo(),
                 store.getFamily().getName(),
                 isMajor,
-                favoredNodes);
+                favoredNodes,
+                gcWatermark);
     }
 
     private String getScope(CompactionRequest request) {
@@ -317,7 +325,8 @@ public class SpliceDefaultCompactor extends DefaultCompactor {
                     int bufferSize = HConfiguration.getConfiguration().getOlapCompactionResolutionBufferSize();
                     boolean blocking = HConfiguration.getConfiguration().getOlapCompactionBlocking();
                     SICompactionState state = new SICompactionState(driver.getTxnSupplier(),
-                            driver.getConfiguration().getActiveTransactionCacheSize(), context, blocking ? driver.getExecutorService() : driver.getRejectingExecutorService());
+                            driver.getConfiguration().getActiveTransactionCacheSize(), context, blocking ? driver.getExecutorService() : driver.getRejectingExecutorService(),
+                            gcWatermark, request.isAllFiles());
                     boolean purgeDeletedRows = request.isMajor() && shouldPurge();
 
                     SICompactionScanner siScanner = new SICompactionScanner(state, scanner, purgeDeletedRows, resolutionShare, bufferSize, context);
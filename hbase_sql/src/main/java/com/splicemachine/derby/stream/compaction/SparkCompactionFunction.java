@@ -62,13 +62,15 @@ public class SparkCompactionFunction extends SpliceFlatMapFunction<SpliceOperati
     private boolean isMajor;
     private SparkCompactionContext context;
     private InetSocketAddress[] favoredNodes;
+    private long gcWatermark;
 
     public SparkCompactionFunction() {
 
     }
 
     public SparkCompactionFunction(long smallestReadPoint, byte[] namespace,
-                                   byte[] tableName, HRegionInfo hri, byte[] storeColumn, boolean isMajor, InetSocketAddress[] favoredNodes) {
+                                   byte[] tableName, HRegionInfo hri, byte[] storeColumn, boolean isMajor, InetSocketAddress[] favoredNodes,
+                                   long gcWatermark) {
         this.smallestReadPoint = smallestReadPoint;
         this.namespace = namespace;
         this.tableName = tableName;
@@ -76,6 +78,7 @@ public class SparkCompactionFunction extends SpliceFlatMapFunction<SpliceOperati
         this.storeColumn = storeColumn;
         this.isMajor = isMajor;
         this.favoredNodes = favoredNodes;
+        this.gcWatermark = gcWatermark;
     }
 
     @Override
@@ -99,6 +102,7 @@ public class SparkCompactionFunction extends SpliceFlatMapFunction<SpliceOperati
                 out.writeObject(favoredNodes[i]);
             }
         }
+        out.writeLong(gcWatermark);
     }
 
     @Override
@@ -124,6 +128,7 @@ public class SparkCompactionFunction extends SpliceFlatMapFunction<SpliceOperati
         for (int i = 0; i< favoredNodes.length; i++) {
             favoredNodes[i] = (InetSocketAddress) in.readObject();
         }
+        gcWatermark = in.readLong();
         SpliceSpark.setupSpliceStaticComponents();
     }
 
@@ -166,7 +171,7 @@ public class SparkCompactionFunction extends SpliceFlatMapFunction<SpliceOperati
             );
         }
 
-        SpliceDefaultCompactor sdc = new SpliceDefaultCompactor(conf, store, smallestReadPoint);
+        SpliceDefaultCompactor sdc = new SpliceDefaultCompactor(conf, store, smallestReadPoint, gcWatermark);
         CompactionRequest compactionRequest = new CompactionRequest(readersToClose);
         compactionRequest.setIsMajor(isMajor, isMajor);
         List<Path> paths = sdc.sparkCompact(compactionRequest, context, favoredNodes);
@@ -34,6 +34,7 @@ import com.splicemachine.derby.impl.SpliceSpark;
 import com.splicemachine.derby.impl.load.ImportUtils;
 import com.splicemachine.derby.impl.spark.WholeTextInputFormat;
 import com.splicemachine.derby.impl.store.access.BaseSpliceTransaction;
+import com.splicemachine.derby.stream.control.ControlDataSet;
 import com.splicemachine.derby.stream.function.Partitioner;
 import com.splicemachine.derby.stream.function.RowToLocatedRowAvroFunction;
 import com.splicemachine.derby.stream.function.RowToLocatedRowFunction;
@@ -42,6 +43,7 @@ import com.splicemachine.derby.stream.utils.ExternalTableUtils;
 import com.splicemachine.derby.stream.utils.StreamUtils;
 import com.splicemachine.derby.utils.marshall.KeyHashDecoder;
 import com.splicemachine.mrio.api.core.SMTextInputFormat;
+import com.splicemachine.orc.input.OrcLocalReader;
 import com.splicemachine.orc.input.SpliceOrcNewInputFormat;
 import com.splicemachine.orc.predicate.SpliceORCPredicate;
 import com.splicemachine.si.api.txn.TxnView;
@@ -619,14 +621,7 @@ public class SparkDataSetProcessor implements DistributedDataSetProcessor, Seria
             if (ExternalTableUtils.isEmptyDirectory(location)) // Handle Empty Directory
                 return getEmpty();
 
-            SpliceORCPredicate predicate = new SpliceORCPredicate(qualifiers,baseColumnMap,execRow.createStructType(baseColumnMap));
-            Configuration configuration = new Configuration(HConfiguration.unwrapDelegate());
-            configuration.set(SpliceOrcNewInputFormat.SPLICE_PREDICATE,predicate.serialize());
-            configuration.set(SpliceOrcNewInputFormat.SPARK_STRUCT,execRow.createStructType(baseColumnMap).json());
-            configuration.set(SpliceOrcNewInputFormat.SPLICE_COLUMNS,intArrayToString(baseColumnMap));
-            configuration.set(SpliceOrcNewInputFormat.SPLICE_PARTITIONS,intArrayToString(partitionColumnMap));
-            if (statsjob)
-                configuration.set(SpliceOrcNewInputFormat.SPLICE_COLLECTSTATS, "true");
+            Configuration configuration = orcConfiguration(baseColumnMap,partitionColumnMap,qualifiers,execRow,statsjob);
 
             JavaRDD<Row> rows = SpliceSpark.getContext().newAPIHadoopFile(
                     location,
@@ -647,6 +642,66 @@ public class SparkDataSetProcessor implements DistributedDataSetProcessor, Seria
         }
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public <V> DataSet<V> readORCFileLocally(int[] baseColumnMap,int[] partitionColumnMap, String location,
+                                             OperationContext context, Qualifier[][] qualifiers,
+                                             DataValueDescriptor probeValue, ExecRow execRow) throws StandardException {
+        assert baseColumnMap != null:"baseColumnMap Null";
+        assert partitionColumnMap != null:"partitionColumnMap Null";
+        try {
+            if (!ExternalTableUtils.isExisting(location))
+                throw StandardException.newException(SQLState.EXTERNAL_TABLES_LOCATION_NOT_EXIST, location);
+
+            if (ExternalTableUtils.isEmptyDirectory(location)) // Handle Empty Directory
+                return new ControlDataSet<>(Collections.<V>emptyIterator());
+
+            final OrcLocalReader reader = new OrcLocalReader(orcConfiguration(baseColumnMap,partitionColumnMap,qualifiers,execRow,false),location);
+            if (context != null && context.getOperation() != null)
+                context.getOperation().registerCloseable(reader);
+            final RowToLocatedRowFunction toExecRow = new RowToLocatedRowFunction(context, execRow);
+            Iterator<ExecRow> rows = new Iterator<ExecRow>() {
+                @Override
+                public boolean hasNext() {
+                    return reader.hasNext();
+                }
+
+                @Override
+                public ExecRow next() {
+                    try {
+                        return toExecRow.call(reader.next());
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+            return new ControlDataSet(rows);
+        } catch (StandardException se) {
+            throw se;
+        } catch (Exception e) {
+            throw StandardException.newException(
+                    SQLState.EXTERNAL_TABLES_READ_FAILURE,e.getMessage());
+        }
+    }
+
+    private Configuration orcConfiguration(int[] baseColumnMap,int[] partitionColumnMap,Qualifier[][] qualifiers,
+                                           ExecRow execRow,boolean statsjob) throws IOException {
+        SpliceORCPredicate predicate = new SpliceORCPredicate(qualifiers,baseColumnMap,execRow.createStructType(baseColumnMap));
+        Configuration configuration = new Configuration(HConfiguration.unwrapDelegate());
+        configuration.set(SpliceOrcNewInputFormat.SPLICE_PREDICATE,predicate.serialize());
+        configuration.set(SpliceOrcNewInputFormat.SPARK_STRUCT,execRow.createStructType(baseColumnMap).json());
+        configuration.set(SpliceOrcNewInputFormat.SPLICE_COLUMNS,intArrayToString(baseColumnMap));
+        configuration.set(SpliceOrcNewInputFormat.SPLICE_PARTITIONS,intArrayToString(partitionColumnMap));
+        if (statsjob)
+            configuration.set(SpliceOrcNewInputFormat.SPLICE_COLLECTSTATS, "true");
+        return configuration;
+    }
+
     private String intArrayToString(int[] ints) {
         StringBuilder sb = new StringBuilder();
         boolean first = true;
@@ -14,22 +14,37 @@
 
 package com.splicemachine.hbase;
 
+import com.splicemachine.EngineDriver;
+import com.splicemachine.access.api.SConfiguration;
 import com.splicemachine.db.catalog.UUID;
 import com.splicemachine.db.iapi.sql.conn.LanguageConnectionContext;
 import com.splicemachine.db.iapi.sql.dictionary.ConglomerateDescriptor;
 import com.splicemachine.db.iapi.sql.dictionary.DataDictionary;
 import com.splicemachine.db.iapi.sql.dictionary.TableDescriptor;
+import com.splicemachine.db.impl.drda.RemoteUser;
 import com.splicemachine.derby.jdbc.SpliceTransactionResourceImpl;
 import com.splicemachine.si.api.txn.Txn;
 import com.splicemachine.si.impl.driver.SIDriver;
 import org.apache.hadoop.hbase.regionserver.Store;
+import org.apache.log4j.Logger;
+import org.spark_project.guava.net.HostAndPort;
 
 import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
 
 /**
  * Created by jyuan on 5/29/17.
  */
 public class SpliceCompactionUtils {
+    private static final Logger LOG = Logger.getLogger(SpliceCompactionUtils.class);
+
+    /*watermark state, protected by synchronizing on the class*/
+    private static volatile long gcWatermark = 0L;
+    private static volatile long gcWatermarkRefreshed = Long.MIN_VALUE;
+    private static long nextWatermarkBound = 0L;
 
     public static boolean shouldPurge(Store store) throws IOException {
 
@@ -71,4 +86,68 @@ public class SpliceCompactionUtils {
 
         return false;
     }
+
+    /**
+     * The low watermark for the garbage collection of versions: no transaction active on the cluster began before
+     * it, so a version committed before it is visible to every current and future transaction. The watermark is
+     * computed the way VACUUM computes it, from the oldest active transaction of every server, and reused for
+     * {@link SConfiguration#getCompactionWatermarkRefreshInterval()} milliseconds.
+     *
+     * @return the watermark, or 0 if versions shouldn't be garbage collected
+     */
+    public static long gcWatermark() {
+        SConfiguration config = SIDriver.driver().getConfiguration();
+        if (!config.isCompactionVersionGC())
+            return 0L;
+        long interval = config.getCompactionWatermarkRefreshInterval();
+        if (System.currentTimeMillis() - gcWatermarkRefreshed < interval)
+            return gcWatermark;
+        synchronized (SpliceCompactionUtils.class) {
+            long now = System.currentTimeMillis();
+            if (now - gcWatermarkRefreshed < interval)
+                return gcWatermark;
+            long watermark;
+            try {
+                watermark = computeWatermark();
+            } catch (Exception e) {
+                LOG.warn("Could not get the oldest active transaction of the cluster, versions won't be garbage collected", e);
+                watermark = 0L;
+            }
+            gcWatermark = watermark;
+            gcWatermarkRefreshed = now;
+            return watermark;
+        }
+    }
+
+    private static long computeWatermark() throws Exception {
+        /*
+         * A transaction gets its begin timestamp before it registers as active, so a transaction which just began
+         * might not show up in the servers' answers yet. The watermark is therefore bounded by a timestamp taken on
+         * the previous refresh: any transaction which began before it has long been registered.
+         */
+        long bound = nextWatermarkBound;
+        nextWatermarkBound = SIDriver.driver().getTimestampSource().nextTimestamp();
+        if (bound == 0L)
+            return 0L;
+
+        List<HostAndPort> servers = EngineDriver.driver().getServiceDiscovery().listServers();
+        if (servers.isEmpty())
+            return 0L;
+        long watermark = bound;
+        for (HostAndPort server : servers) {
+            try (Connection connection = RemoteUser.getConnection(server.toString());
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("call SYSCS_UTIL.SYSCS_GET_OLDEST_ACTIVE_TRANSACTION()")) {
+                if (!rs.next())
+                    return 0L;
+                long oldestActive = rs.getLong(1);
+                if (rs.wasNull())
+                    return 0L;
+                watermark = Math.min(watermark, oldestActive);
+            }
+        }
+        if (LOG.isDebugEnabled())
+            LOG.debug("Garbage collection watermark " + watermark);
+        return watermark;
+    }
 }
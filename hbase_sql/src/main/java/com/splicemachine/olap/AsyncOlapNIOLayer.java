@@ -198,8 +198,8 @@ public class AsyncOlapNIOLayer implements JobExecutor{
         private volatile int notFound;
         private volatile Throwable cause=null;
         private volatile long tickTimeNanos=TimeUnit.MILLISECONDS.toNanos(1000L);
-        private volatile long waitTimeMillis = 1000;
-        private ScheduledFuture<?> keepAlive;
+        private final long createdNanos=System.nanoTime();
+        private volatile long submittedNanos;
         private final ByteString data;
 
         OlapFuture(DistributedJob job) throws IOException {
@@ -290,16 +290,15 @@ public class AsyncOlapNIOLayer implements JobExecutor{
             }
             this.cause=cause;
             this.failed=true;
-            if (this.keepAlive != null)
-                this.keepAlive.cancel(false);
             this.executionList.execute();
         }
 
         void success(OlapResult result) {
-            if (LOG.isTraceEnabled())
-                LOG.trace("Successful job "+ job.getUniqueName());
+            if (LOG.isDebugEnabled())
+                LOG.debug("Successful job "+ job.getUniqueName() + ", submitted in " +
+                        TimeUnit.NANOSECONDS.toMillis(submittedNanos - createdNanos) + " ms, completed in " +
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - createdNanos) + " ms");
             this.finalResult = result;
-            this.keepAlive.cancel(false);
             this.executionList.execute();
         }
 
@@ -346,8 +345,19 @@ public class AsyncOlapNIOLayer implements JobExecutor{
             executionList.add(runnable, executor);
         }
 
-        public void scheduleStatusCheck() {
-            this.keepAlive = executorService.scheduleWithFixedDelay(this, 0, tickTimeNanos, TimeUnit.NANOSECONDS);
+        /**
+         * Sends the next status check right away. The server holds it until the job is done or a tick
+         * has passed, so completion is pushed to us while the checks keep the job alive.
+         */
+        void checkStatus() {
+            executorService.execute(this);
+        }
+
+        /**
+         * Sends the next status check after a tick, for when the server could not hold the previous one.
+         */
+        void checkStatusLater() {
+            executorService.schedule(this, tickTimeNanos, TimeUnit.NANOSECONDS);
         }
     }
 
@@ -408,11 +418,8 @@ public class AsyncOlapNIOLayer implements JobExecutor{
                 LOG.trace("Status check job " + olapFuture.job.getUniqueName());
             }
 
-            OlapMessage.Status.Builder status=OlapMessage.Status.newBuilder();
-            if (olapFuture.waitTimeMillis > 0) {
-                status.setWaitTimeMillis(olapFuture.waitTimeMillis);
-                olapFuture.waitTimeMillis = 0;
-            }
+            OlapMessage.Status.Builder status=OlapMessage.Status.newBuilder()
+                    .setWaitTimeMillis(TimeUnit.NANOSECONDS.toMillis(olapFuture.tickTimeNanos));
             OlapMessage.Command cmd=OlapMessage.Command.newBuilder()
                     .setUniqueName(olapFuture.job.getUniqueName())
                     .setType(OlapMessage.Command.Type.STATUS)
@@ -490,10 +497,12 @@ public class AsyncOlapNIOLayer implements JobExecutor{
                 LOG.trace("Received " + or);
             }
             //TODO -sf- deal with a OlapServer failover here (i.e. a move to NOT_SUBMITTED from any other state
+            boolean answeredRightAway=false;
             if(or instanceof SubmittedResult) {
                 future.tickTimeNanos = TimeUnit.MILLISECONDS.toNanos(((SubmittedResult) or).getTickTime());
                 future.lastStatus = System.currentTimeMillis();
             } else if(future.submitted && !future.isDone() && or instanceof NotSubmittedResult) {
+                answeredRightAway=true;
                 // Server says the job is no longer submitted, give it a couple of tries in case messages are out of order
                 long millisSinceLastStatus = System.currentTimeMillis() - future.lastStatus;
                 LOG.warn("Status not available for job " + future.job.getUniqueName() +
@@ -518,6 +527,12 @@ public class AsyncOlapNIOLayer implements JobExecutor{
             ctx.pipeline().remove(this); //we don't want this in the pipeline anymore
             Channel channel=ctx.channel();
             channelPool.release(channel); //release the underlying channel back to the pool cause we're done
+            if(!future.isDone()){
+                if(answeredRightAway)
+                    future.checkStatusLater();
+                else
+                    future.checkStatus();
+            }
             future.signal();
         }
 
@@ -544,6 +559,7 @@ public class AsyncOlapNIOLayer implements JobExecutor{
             if(or instanceof SubmittedResult) {
                 future.tickTimeNanos = TimeUnit.MILLISECONDS.toNanos(((SubmittedResult) or).getTickTime());
                 future.submitted = true;
+                future.submittedNanos = System.nanoTime();
             }else{
                 Throwable t=or.getThrowable();
                 LOG.error("Job wasn't submitted, result: " + or);
@@ -556,7 +572,7 @@ public class AsyncOlapNIOLayer implements JobExecutor{
             ctx.pipeline().remove(this); //we don't want this in the pipeline anymore
             Channel channel=ctx.channel();
             channelPool.release(channel); //release the underlying channel back to the pool cause we're done
-            future.scheduleStatusCheck();
+            future.checkStatus();
             future.signal();
         }
 
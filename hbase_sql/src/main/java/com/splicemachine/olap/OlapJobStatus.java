@@ -23,6 +23,7 @@ import org.apache.log4j.Logger;
 import scala.concurrent.duration.FiniteDuration;
 
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
@@ -40,6 +41,7 @@ public class OlapJobStatus implements OlapStatus{
     private volatile AtomicReference<OlapStatus.State> currentState = new AtomicReference<>(State.NOT_SUBMITTED);
     private ArrayBlockingQueue<OlapResult> results;
     private volatile OlapResult cachedResult;
+    private final CopyOnWriteArrayList<Runnable> completionListeners = new CopyOnWriteArrayList<>();
 
     public OlapJobStatus(long tickTime,int numTicks){
         //TODO -sf- remove the constants
@@ -95,6 +97,7 @@ public class OlapJobStatus implements OlapStatus{
             shouldContinue = !currentState.compareAndSet(currState,State.CANCELED);
         }while(shouldContinue);
         results.offer(new CancelledResult());
+        notifyCompletion();
     }
 
     public boolean isAvailable(){
@@ -134,6 +137,7 @@ public class OlapJobStatus implements OlapStatus{
             shouldContinue = !currentState.compareAndSet(currState,State.COMPLETE);
         }while(shouldContinue);
         results.offer(result);
+        notifyCompletion();
     }
 
     public boolean markRunning(){
@@ -169,6 +173,23 @@ public class OlapJobStatus implements OlapStatus{
         return cachedResult != null;
     }
 
+    /**
+     * Registers a listener to run once, when the job is completed, cancelled or failed. If the job
+     * is already done, the listener runs right away.
+     */
+    public void addCompletionListener(Runnable listener){
+        completionListeners.add(listener);
+        if(isDone())
+            notifyCompletion(); // we may have missed the transition
+    }
+
+    /**
+     * @return true if the listener was removed before it ran
+     */
+    public boolean removeCompletionListener(Runnable listener){
+        return completionListeners.remove(listener);
+    }
+
     /*package-private methods*/
     /* ****************************************************************************************************************/
     State currentState(){
@@ -182,6 +203,25 @@ public class OlapJobStatus implements OlapStatus{
     /*private helper methods*/
     /* ****************************************************************************************************************/
 
+    private boolean isDone(){
+        switch(currentState.get()){
+            case CANCELED:
+            case FAILED:
+            case COMPLETE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void notifyCompletion(){
+        for(Runnable listener : completionListeners){
+            // whoever removes the listener runs it, so it runs only once
+            if(completionListeners.remove(listener))
+                listener.run();
+        }
+    }
+
     private State checkFailed(){
         /*
          * Checks whether the current state is failed or not. Used by internal compaction checking to determine
@@ -197,6 +237,7 @@ public class OlapJobStatus implements OlapStatus{
                 results.offer(new FailedOlapResult(new TimeoutException("Client timed out response, assuming it died")));
                 currentState.compareAndSet(curState,State.FAILED); //all other states don't have to be marked failed
                 curState=State.FAILED;
+                notifyCompletion();
             }
         }
         return curState;
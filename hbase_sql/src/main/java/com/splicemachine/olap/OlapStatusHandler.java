@@ -18,7 +18,10 @@ import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import org.apache.log4j.Logger;
 
+import java.io.IOException;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * @author Scott Fines
@@ -49,7 +52,8 @@ public class OlapStatusHandler extends AbstractOlapHandler{
             switch (status.checkState()) {
                 case SUBMITTED:
                 case RUNNING:
-                    status.wait(waitTime, TimeUnit.MILLISECONDS);
+                    respondOnCompletion(ctx, cmd.getUniqueName(), status, waitTime);
+                    return;
                 default:
                     // fall-through, send response without blocking
             }
@@ -63,4 +67,66 @@ public class OlapStatusHandler extends AbstractOlapHandler{
         }
 
     }
+
+    /**
+     * Holds the status request until the job is done or the wait time expires, whichever comes first, so
+     * the client learns about the completion as soon as it happens instead of on its next status check.
+     * The event loop is not blocked in the meantime.
+     */
+    private void respondOnCompletion(ChannelHandlerContext ctx, String uniqueName, OlapJobStatus status, long waitTime) {
+        if (LOG.isTraceEnabled()) {
+            LOG.trace("Holding status request for job " + uniqueName + " up to " + waitTime + " ms");
+        }
+        PendingStatus pending = new PendingStatus(ctx, uniqueName, status);
+        pending.timeout = ctx.executor().schedule(new Runnable() {
+            @Override
+            public void run() {
+                pending.expire();
+            }
+        }, waitTime, TimeUnit.MILLISECONDS);
+        status.addCompletionListener(pending);
+    }
+
+    private class PendingStatus implements Runnable {
+        private final ChannelHandlerContext ctx;
+        private final String uniqueName;
+        private final OlapJobStatus status;
+        private final AtomicBoolean responded = new AtomicBoolean(false);
+        private volatile ScheduledFuture<?> timeout;
+
+        PendingStatus(ChannelHandlerContext ctx, String uniqueName, OlapJobStatus status) {
+            this.ctx = ctx;
+            this.uniqueName = uniqueName;
+            this.status = status;
+        }
+
+        @Override
+        public void run() {
+            // the job completes on a worker thread, write from the channel's event loop
+            ScheduledFuture<?> t = timeout;
+            if (t != null)
+                t.cancel(false);
+            ctx.executor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    respond();
+                }
+            });
+        }
+
+        void expire() {
+            status.removeCompletionListener(this);
+            respond();
+        }
+
+        private void respond() {
+            if (!responded.compareAndSet(false, true))
+                return;
+            try {
+                writeResponse(ctx.channel(), uniqueName, status);
+            } catch (IOException e) {
+                LOG.warn("Unable to respond to status request for job " + uniqueName, e);
+            }
+        }
+    }
 }
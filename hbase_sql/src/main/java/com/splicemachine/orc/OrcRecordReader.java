@@ -68,6 +68,7 @@ public class OrcRecordReader
     private AggregatedMemoryContext currentStripeSystemMemoryContext;
 
     private final long fileRowCount;
+    private final int stripesExcluded;
     private final List<Long> stripeFilePositions;
     private long filePosition;
 
@@ -157,21 +158,28 @@ public class OrcRecordReader
 
         long totalRowCount = 0;
         long fileRowCount = 0;
+        int stripesExcluded = 0;
         ImmutableList.Builder<StripeInformation> stripes = ImmutableList.builder();
         ImmutableList.Builder<Long> stripeFilePositions = ImmutableList.builder();
         if (predicate.matches(numberOfRows, getStatisticsByColumnOrdinal(root, partitionIds, fileStats))) {
             // select stripes that start within the specified split
             for (StripeInfo info : stripeInfos) {
                 StripeInformation stripe = info.getStripe();
-                if (splitContainsStripe(splitOffset, splitLength, stripe) && isStripeIncluded(root, stripe, info.getStats(), predicate, partitionIds)) {
-                    stripes.add(stripe);
-                    stripeFilePositions.add(fileRowCount);
-                    totalRowCount += stripe.getNumberOfRows();
+                if (splitContainsStripe(splitOffset, splitLength, stripe)) {
+                    if (isStripeIncluded(root, stripe, info.getStats(), predicate, partitionIds)) {
+                        stripes.add(stripe);
+                        stripeFilePositions.add(fileRowCount);
+                        totalRowCount += stripe.getNumberOfRows();
+                    }
+                    else {
+                        stripesExcluded++;
+                    }
                 }
                 fileRowCount += stripe.getNumberOfRows();
             }
         }
         this.totalRowCount = totalRowCount;
+        this.stripesExcluded = stripesExcluded;
         this.stripes = stripes.build();
         this.stripeFilePositions = stripeFilePositions.build();
 
@@ -276,6 +284,34 @@ public class OrcRecordReader
         return totalRowCount;
     }
 
+    /**
+     * Returns the number of stripes of the split which were not read because of
+     * their stripe statistics, or because all of their row groups were excluded.
+     */
+    public long getStripesSkipped()
+    {
+        return stripesExcluded + stripeReader.getStripesSkipped();
+    }
+
+    /**
+     * Returns the number of row groups read so far, including the remaining
+     * row groups of the current stripe.
+     */
+    public long getRowGroupsRead()
+    {
+        return stripeReader.getRowGroupsRead();
+    }
+
+    /**
+     * Returns the number of row groups which were not read because of their
+     * row group statistics or bloom filters. Row groups of stripes excluded
+     * by stripe statistics are not counted.
+     */
+    public long getRowGroupsSkipped()
+    {
+        return stripeReader.getRowGroupsSkipped();
+    }
+
     public float getProgress()
     {
         return ((float) currentPosition) / totalRowCount;
@@ -58,6 +58,11 @@ public class StripeReader
     private final OrcPredicate predicate;
     private final MetadataReader metadataReader;
 
+    // counters for the segments excluded by the row group statistics and bloom filters
+    private long rowGroupsRead;
+    private long rowGroupsSkipped;
+    private long stripesSkipped;
+
     public StripeReader(OrcDataSource orcDataSource,
             CompressionKind compressionKind,
             List<OrcType> types,
@@ -106,8 +111,10 @@ public class StripeReader
             Map<StreamId, DiskRange> diskRanges = getDiskRanges(stripeFooter.getStreams());
             diskRanges = Maps.filterKeys(diskRanges, Predicates.in(streams.keySet()));
 
-            // read the file regions
-            Map<StreamId, OrcInputStream> streamsData = readDiskRanges(stripe.getOffset(), diskRanges, systemMemoryUsage);
+            // read the index streams first, so that a stripe whose row groups are all excluded
+            // is skipped without reading any of its data
+            Map<StreamId, OrcInputStream> streamsData = readDiskRanges(stripe.getOffset(),
+                    Maps.filterKeys(diskRanges, streamId -> isIndexStream(streams.get(streamId))), systemMemoryUsage);
 
             // read the bloom filter for each column
             Map<Integer, List<HiveBloomFilter>> bloomFilterIndexes = readBloomFilterIndexes(streams, streamsData);
@@ -120,11 +127,19 @@ public class StripeReader
 
             // if all row groups are skipped, return null
             if (selectedRowGroups.isEmpty()) {
+                stripesSkipped++;
                 // set accounted memory usage to zero
                 systemMemoryUsage.close();
                 return null;
             }
 
+            // now read the data of the selected stripe
+            streamsData = ImmutableMap.<StreamId, OrcInputStream>builder()
+                    .putAll(streamsData)
+                    .putAll(readDiskRanges(stripe.getOffset(),
+                            Maps.filterKeys(diskRanges, streamId -> !isIndexStream(streams.get(streamId))), systemMemoryUsage))
+                    .build();
+
             // value streams
             Map<StreamId, ValueStream<?>> valueStreams = createValueStreams(streams, streamsData, columnEncodings);
 
@@ -153,11 +168,27 @@ public class StripeReader
             }
         }
 
-        // stripe only has one row group and no dictionary
+        // stripe only has one row group and no dictionary; the stripe statistics have already been
+        // checked, but if there are bloom filters they might still exclude it
+        if (predicate != OrcPredicate.TRUE && hasBloomFilters(streams)) {
+            Map<StreamId, DiskRange> indexRanges = Maps.filterKeys(getDiskRanges(stripeFooter.getStreams()),
+                    streamId -> streams.containsKey(streamId) && isIndexStream(streams.get(streamId)));
+            Map<StreamId, OrcInputStream> indexData = readDiskRanges(stripe.getOffset(), indexRanges, systemMemoryUsage);
+            Map<Integer, List<RowGroupIndex>> columnIndexes = readColumnIndexes(streams, indexData, readBloomFilterIndexes(streams, indexData));
+            if (selectRowGroups(stripe, columnIndexes).isEmpty()) {
+                stripesSkipped++;
+                systemMemoryUsage.close();
+                return null;
+            }
+        }
+        else {
+            rowGroupsRead++;
+        }
+
         ImmutableMap.Builder<StreamId, DiskRange> diskRangesBuilder = ImmutableMap.builder();
         for (Entry<StreamId, DiskRange> entry : getDiskRanges(stripeFooter.getStreams()).entrySet()) {
             StreamId streamId = entry.getKey();
-            if (streamId.getStreamKind() != ROW_INDEX && streams.keySet().contains(streamId)) {
+            if (streamId.getStreamKind() != ROW_INDEX && streamId.getStreamKind() != BLOOM_FILTER && streams.keySet().contains(streamId)) {
                 diskRangesBuilder.put(entry);
             }
         }
@@ -366,6 +397,10 @@ public class StripeReader
             Map<Integer, ColumnStatistics> statistics = getRowGroupStatistics(types.get(0), columnIndexes, rowGroup);
             if (predicate.matches(rows, statistics)) {
                 selectedRowGroups.add(rowGroup);
+                rowGroupsRead++;
+            }
+            else {
+                rowGroupsSkipped++;
             }
             remainingRows -= rows;
         }
@@ -389,6 +424,40 @@ public class StripeReader
         return statistics.build();
     }
 
+    /**
+     * @return the number of row groups which have been read, or will be read from the current stripe
+     */
+    public long getRowGroupsRead()
+    {
+        return rowGroupsRead;
+    }
+
+    /**
+     * @return the number of row groups excluded by their statistics or bloom filters
+     */
+    public long getRowGroupsSkipped()
+    {
+        return rowGroupsSkipped;
+    }
+
+    /**
+     * @return the number of stripes which were not read because none of their row groups matched
+     */
+    public long getStripesSkipped()
+    {
+        return stripesSkipped;
+    }
+
+    private static boolean hasBloomFilters(Map<StreamId, Stream> streams)
+    {
+        for (Stream stream : streams.values()) {
+            if (stream.getStreamKind() == BLOOM_FILTER) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private static boolean isIndexStream(Stream stream)
     {
         return stream.getStreamKind() == ROW_INDEX || stream.getStreamKind() == DICTIONARY_COUNT || stream.getStreamKind() == BLOOM_FILTER;
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.orc.input;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptID;
+import org.apache.hadoop.mapreduce.TaskType;
+import org.apache.hadoop.mapreduce.lib.input.FileInputFormat;
+import org.apache.hadoop.mapreduce.task.TaskAttemptContextImpl;
+import org.apache.spark.sql.Row;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the rows of an ORC location in the calling JVM, one split after the other.
+ *
+ * The splits and readers come from {@link SpliceOrcNewInputFormat}, so the location is pruned by partition
+ * and by stripe/row group statistics exactly as it is when Spark reads it, but without scheduling a job.
+ * Meant for external tables small enough that the job would cost more than the read.
+ */
+public class OrcLocalReader implements Iterator<Row>, Closeable {
+    private final SpliceOrcNewInputFormat inputFormat = new SpliceOrcNewInputFormat();
+    private final Configuration configuration;
+    private final List<InputSplit> splits;
+    private int nextSplit;
+    private RecordReader<NullWritable,Row> reader;
+    private Row next;
+
+    /**
+     * @param configuration the predicate, struct and column settings of {@link SpliceOrcNewInputFormat}
+     * @param location the file or directory to read
+     */
+    public OrcLocalReader(Configuration configuration,String location) throws IOException {
+        Job job = Job.getInstance(configuration);
+        FileInputFormat.setInputPaths(job,location);
+        this.configuration = job.getConfiguration();
+        try {
+            this.splits = inputFormat.getSplits(job);
+        } catch (InterruptedException e) {
+            throw interrupted(e);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null)
+            return true;
+        try {
+            while (true) {
+                if (reader != null) {
+                    if (reader.nextKeyValue()) {
+                        next = reader.getCurrentValue();
+                        return true;
+                    }
+                    reader.close();
+                    reader = null;
+                }
+                if (nextSplit >= splits.size())
+                    return false;
+                TaskAttemptID attemptId = new TaskAttemptID("local",0,TaskType.MAP,nextSplit,0);
+                reader = inputFormat.createRecordReader(splits.get(nextSplit++),new TaskAttemptContextImpl(configuration,attemptId));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(interrupted(e));
+        }
+    }
+
+    @Override
+    public Row next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        Row row = next;
+        next = null;
+        return row;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() throws IOException {
+        nextSplit = splits.size();
+        if (reader != null) {
+            reader.close();
+            reader = null;
+        }
+    }
+
+    private static IOException interrupted(InterruptedException e) {
+        Thread.currentThread().interrupt();
+        InterruptedIOException iioe = new InterruptedIOException();
+        iioe.initCause(e);
+        return iioe;
+    }
+}
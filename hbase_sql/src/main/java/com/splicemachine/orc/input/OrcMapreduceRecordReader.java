@@ -17,6 +17,7 @@ import com.splicemachine.orc.*;
 import com.splicemachine.orc.memory.AggregatedMemoryContext;
 import com.splicemachine.orc.metadata.OrcMetadataReader;
 import com.splicemachine.orc.predicate.SpliceORCPredicate;
+import com.splicemachine.utils.SpliceLogUtils;
 import io.airlift.units.DataSize;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
@@ -30,6 +31,7 @@ import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.log4j.Logger;
 import org.apache.spark.sql.Row;
 import org.apache.spark.sql.execution.vectorized.ColumnarBatch;
 import org.apache.spark.sql.types.StructType;
@@ -41,6 +43,7 @@ import java.util.*;
  *
  */
 public class OrcMapreduceRecordReader extends RecordReader<NullWritable,Row> {
+    private static final Logger LOG = Logger.getLogger(OrcMapreduceRecordReader.class);
     OrcRecordReader orcRecordReader;
     private ColumnarBatch columnarBatch;
     private Iterator<ColumnarBatch.Row> currentIterator;
@@ -108,6 +111,9 @@ public class OrcMapreduceRecordReader extends RecordReader<NullWritable,Row> {
 
     @Override
     public void close() throws IOException {
+        if (LOG.isDebugEnabled())
+            SpliceLogUtils.debug(LOG, "Read %d row groups, skipped %d row groups and %d stripes",
+                    orcRecordReader.getRowGroupsRead(), orcRecordReader.getRowGroupsSkipped(), orcRecordReader.getStripesSkipped());
         orcRecordReader.close();
     }
 
@@ -15,11 +15,164 @@ package com.splicemachine.orc.metadata;
 
 import java.util.List;
 
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Read-only view of a bloom filter written by the Hive ORC writer (stream kind BLOOM_FILTER).
+ * <p>
+ * The writer hashes integral values (and dates, as days since the epoch) with a 64 bit integer hash,
+ * floating point values as the bits of their double representation and strings as their UTF-8 bytes
+ * with 64 bit Murmur3; the probe methods here must hash exactly the same way, otherwise row groups
+ * which contain the value would be skipped.
+ */
 public class HiveBloomFilter
 {
+    private static final long NULL_HASHCODE = 2862933555777941757L;
+
+    private final long[] bits;
+    private final int numBits;
+    private final int numHashFunctions;
+
     // constructor that allows deserialization of a long list into the actual hive bloom filter
     public HiveBloomFilter(List<Long> bits, int numBits, int numHashFunctions)
     {
-        // This is a stub
+        requireNonNull(bits, "bits is null");
+        this.bits = new long[bits.size()];
+        for (int i = 0; i < this.bits.length; i++) {
+            this.bits[i] = bits.get(i);
+        }
+        this.numBits = numBits;
+        this.numHashFunctions = numHashFunctions;
+    }
+
+    public boolean testLong(long value)
+    {
+        return testHash(getLongHash(value));
+    }
+
+    public boolean testDouble(double value)
+    {
+        return testLong(Double.doubleToLongBits(value));
+    }
+
+    public boolean testBytes(byte[] value, int offset, int length)
+    {
+        return testHash(value == null ? NULL_HASHCODE : Murmur3.hash64(value, offset, length));
+    }
+
+    private boolean testHash(long hash64)
+    {
+        if (numBits <= 0) {
+            // nothing we can interpret, so it might contain anything
+            return true;
+        }
+        int hash1 = (int) hash64;
+        int hash2 = (int) (hash64 >>> 32);
+        for (int i = 1; i <= numHashFunctions; i++) {
+            int combinedHash = hash1 + (i * hash2);
+            // hashcode should be positive, flip all the bits if it's negative
+            if (combinedHash < 0) {
+                combinedHash = ~combinedHash;
+            }
+            int position = combinedHash % numBits;
+            if ((bits[position >>> 6] & (1L << position)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Thomas Wang's integer hash function, as used by the writer
+    static long getLongHash(long key)
+    {
+        key = (~key) + (key << 21); // key = (key << 21) - key - 1;
+        key = key ^ (key >> 24);
+        key = (key + (key << 3)) + (key << 8); // key * 265
+        key = key ^ (key >> 14);
+        key = (key + (key << 2)) + (key << 4); // key * 21
+        key = key ^ (key >> 28);
+        key = key + (key << 31);
+        return key;
+    }
+
+    /**
+     * The 64 bit variant of Murmur3 used by the writer (the first half of the 128 bit x64 hash).
+     */
+    static final class Murmur3
+    {
+        private static final long C1 = 0x87c37b91114253d5L;
+        private static final long C2 = 0x4cf5ad432745937fL;
+        private static final int R1 = 31;
+        private static final int R2 = 27;
+        private static final int M = 5;
+        private static final int N1 = 0x52dce729;
+        private static final int DEFAULT_SEED = 104729;
+
+        private Murmur3()
+        {
+        }
+
+        static long hash64(byte[] data, int offset, int length)
+        {
+            long hash = DEFAULT_SEED;
+            final int nblocks = length >> 3;
+
+            // body
+            for (int i = 0; i < nblocks; i++) {
+                final int i8 = offset + (i << 3);
+                long k = ((long) data[i8] & 0xff)
+                        | (((long) data[i8 + 1] & 0xff) << 8)
+                        | (((long) data[i8 + 2] & 0xff) << 16)
+                        | (((long) data[i8 + 3] & 0xff) << 24)
+                        | (((long) data[i8 + 4] & 0xff) << 32)
+                        | (((long) data[i8 + 5] & 0xff) << 40)
+                        | (((long) data[i8 + 6] & 0xff) << 48)
+                        | (((long) data[i8 + 7] & 0xff) << 56);
+
+                k *= C1;
+                k = Long.rotateLeft(k, R1);
+                k *= C2;
+                hash ^= k;
+                hash = Long.rotateLeft(hash, R2) * M + N1;
+            }
+
+            // tail
+            long k1 = 0;
+            int tailStart = offset + (nblocks << 3);
+            switch (length - (nblocks << 3)) {
+                case 7:
+                    k1 ^= ((long) data[tailStart + 6] & 0xff) << 48;
+                case 6:
+                    k1 ^= ((long) data[tailStart + 5] & 0xff) << 40;
+                case 5:
+                    k1 ^= ((long) data[tailStart + 4] & 0xff) << 32;
+                case 4:
+                    k1 ^= ((long) data[tailStart + 3] & 0xff) << 24;
+                case 3:
+                    k1 ^= ((long) data[tailStart + 2] & 0xff) << 16;
+                case 2:
+                    k1 ^= ((long) data[tailStart + 1] & 0xff) << 8;
+                case 1:
+                    k1 ^= ((long) data[tailStart] & 0xff);
+                    k1 *= C1;
+                    k1 = Long.rotateLeft(k1, R1);
+                    k1 *= C2;
+                    hash ^= k1;
+            }
+
+            // finalization
+            hash ^= length;
+            return fmix64(hash);
+        }
+
+        private static long fmix64(long h)
+        {
+            h ^= (h >>> 33);
+            h *= 0xff51afd7ed558ccdL;
+            h ^= (h >>> 33);
+            h *= 0xc4ceb2e63b9aca7bL;
+            h ^= (h >>> 33);
+            return h;
+        }
     }
 }
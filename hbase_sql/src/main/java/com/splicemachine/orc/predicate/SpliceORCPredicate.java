@@ -15,6 +15,7 @@ package com.splicemachine.orc.predicate;
 
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.services.io.ArrayUtil;
+import com.splicemachine.db.iapi.services.io.StoredFormatIds;
 import com.splicemachine.db.iapi.store.access.Qualifier;
 import com.splicemachine.db.iapi.types.*;
 import com.splicemachine.orc.OrcPredicate;
@@ -29,7 +30,9 @@ import java.io.Externalizable;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.nio.charset.StandardCharsets;
 import java.sql.Date;
+import java.util.GregorianCalendar;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -99,144 +102,164 @@ public class SpliceORCPredicate implements OrcPredicate, Externalizable {
     @Override
     public boolean matches(long numberOfRows, Map<Integer, ColumnStatistics> statisticsByColumnIndex) {
         try {
-            boolean row_qualifies = true;
             if (qualifiers == null)
                 return numberOfRows > 0;
             for (int i = 0; i < qualifiers[0].length; i++) {
-                Qualifier q = qualifiers[0][i];
-                if (q.getVariantType() == Qualifier.VARIANT)
-                    continue; // Cannot Push Down Qualifier
-                StatsEval statsEval = statsEval(numberOfRows, statisticsByColumnIndex.get(q.getStoragePosition()),
-                        structType.fields()[baseColumnMap[q.getStoragePosition()]].dataType());
-                if (statsEval == null || statsEval.maximumDVD == null || statsEval.minimumDVD == null) {
-                    // predicate on non-partitioning column or no stats info, continue to evaluate other predicates
-                    continue;
+                if (!mayMatch(qualifiers[0][i], numberOfRows, statisticsByColumnIndex))
+                    return false;
+            }
+            // all the qual[0] and terms passed, now process the OR clauses (IN lists end up here): a clause
+            // only excludes the segment when none of its terms can match
+            for (int and_idx = 1; and_idx < qualifiers.length; and_idx++) {
+                boolean orQualifies = qualifiers[and_idx].length == 0;
+                for (int or_idx = 0; or_idx < qualifiers[and_idx].length && !orQualifies; or_idx++) {
+                    orQualifies = mayMatch(qualifiers[and_idx][or_idx], numberOfRows, statisticsByColumnIndex);
                 }
+                if (!orQualifies)
+                    return false;
+            }
+            return true;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
 
-                if (q.getOrderable() == null || q.getOrderable().isNull()) {
-                    if (!statsEval.hasNulls)
-                        return false;
-                    continue;
-                }
+    /**
+     * @return false if the statistics prove that no row of the segment satisfies the qualifier
+     */
+    private boolean mayMatch(Qualifier q, long numberOfRows, Map<Integer, ColumnStatistics> statisticsByColumnIndex) throws StandardException {
+        if (q.getVariantType() == Qualifier.VARIANT)
+            return true; // Cannot Push Down Qualifier
+        ColumnStatistics columnStatistics = statisticsByColumnIndex.get(q.getStoragePosition());
+        DataType dataType = structType.fields()[baseColumnMap[q.getStoragePosition()]].dataType();
+        StatsEval statsEval = statsEval(numberOfRows, columnStatistics, dataType);
+        if (statsEval == null || statsEval.maximumDVD == null || statsEval.minimumDVD == null) {
+            // predicate on non-partitioning column or no stats info
+            return true;
+        }
+
+        if (q.getOrderable() == null || q.getOrderable().isNull()) {
+            return statsEval.hasNulls;
+        }
 
-                /* min/max value in Date column stats are stored as days from 1970-01-01, while predicate is a date
-                   string, so need to convert the date string to days also
-                 */
-                DataValueDescriptor orderable = q.getOrderable();
-                switch (q.getOperator()) {
-                    case com.splicemachine.db.iapi.types.DataType.ORDER_OP_LESSTHAN:
-                    case com.splicemachine.db.iapi.types.DataType.ORDER_OP_LESSOREQUALS:
-                        if (q.negateCompareResult()) {
-                            row_qualifies =
+        /* min/max value in Date column stats are stored as days from 1970-01-01, while predicate is a date
+           string, so need to convert the date string to days also
+         */
+        boolean row_qualifies = true;
+        DataValueDescriptor orderable = q.getOrderable();
+        switch (q.getOperator()) {
+            case com.splicemachine.db.iapi.types.DataType.ORDER_OP_LESSTHAN:
+            case com.splicemachine.db.iapi.types.DataType.ORDER_OP_LESSOREQUALS:
+                if (q.negateCompareResult()) {
+                    row_qualifies =
+                            statsEval.maximumDVD.compare(
+                                    q.getOperator(),
+                                    orderable,
+                                    q.getOrderedNulls(),
+                                    q.getUnknownRV());
+                } else {
+                    row_qualifies =
+                            statsEval.minimumDVD.compare(
+                                    q.getOperator(),
+                                    orderable,
+                                    q.getOrderedNulls(),
+                                    q.getUnknownRV());
+                }
+                break;
+            case com.splicemachine.db.iapi.types.DataType.ORDER_OP_GREATERTHAN:
+            case com.splicemachine.db.iapi.types.DataType.ORDER_OP_GREATEROREQUALS:
+                if (q.negateCompareResult()) {
+                    row_qualifies =
+                            statsEval.minimumDVD.compare(
+                                    q.getOperator(),
+                                    orderable,
+                                    q.getOrderedNulls(),
+                                    q.getUnknownRV());
+                } else {
+                    row_qualifies =
+                            statsEval.maximumDVD.compare(
+                                    q.getOperator(),
+                                    orderable,
+                                    q.getOrderedNulls(),
+                                    q.getUnknownRV());
+                }
+                break;
+            case com.splicemachine.db.iapi.types.DataType.ORDER_OP_EQUALS:
+                if (q.negateCompareResult()) {
+                    row_qualifies =
+                            statsEval.minimumDVD.compare(
+                                    com.splicemachine.db.iapi.types.DataType.ORDER_OP_EQUALS,
+                                    orderable,
+                                    q.getOrderedNulls(),
+                                    q.getUnknownRV())
+                                    &&
                                     statsEval.maximumDVD.compare(
-                                            q.getOperator(),
-                                            orderable,
-                                            q.getOrderedNulls(),
-                                            q.getUnknownRV());
-                        } else {
-                            row_qualifies =
-                                    statsEval.minimumDVD.compare(
-                                            q.getOperator(),
-                                            orderable,
-                                            q.getOrderedNulls(),
-                                            q.getUnknownRV());
-                        }
-                        break;
-                    case com.splicemachine.db.iapi.types.DataType.ORDER_OP_GREATERTHAN:
-                    case com.splicemachine.db.iapi.types.DataType.ORDER_OP_GREATEROREQUALS:
-                        if (q.negateCompareResult()) {
-                            row_qualifies =
-                                    statsEval.minimumDVD.compare(
-                                            q.getOperator(),
+                                            com.splicemachine.db.iapi.types.DataType.ORDER_OP_EQUALS,
                                             orderable,
                                             q.getOrderedNulls(),
                                             q.getUnknownRV());
-                        } else {
-                            row_qualifies =
+                } else {
+                    row_qualifies =
+                            statsEval.minimumDVD.compare(
+                                    com.splicemachine.db.iapi.types.DataType.ORDER_OP_LESSOREQUALS,
+                                    orderable,
+                                    q.getOrderedNulls(),
+                                    q.getUnknownRV())
+                                    &&
                                     statsEval.maximumDVD.compare(
-                                            q.getOperator(),
+                                            com.splicemachine.db.iapi.types.DataType.ORDER_OP_GREATEROREQUALS,
                                             orderable,
                                             q.getOrderedNulls(),
                                             q.getUnknownRV());
-                        }
-                        break;
-                    case com.splicemachine.db.iapi.types.DataType.ORDER_OP_EQUALS:
-                        if (q.negateCompareResult()) {
-                            row_qualifies =
-                                    statsEval.minimumDVD.compare(
-                                            com.splicemachine.db.iapi.types.DataType.ORDER_OP_EQUALS,
-                                            orderable,
-                                            q.getOrderedNulls(),
-                                            q.getUnknownRV())
-                                            &&
-                                            statsEval.maximumDVD.compare(
-                                                    com.splicemachine.db.iapi.types.DataType.ORDER_OP_EQUALS,
-                                                    orderable,
-                                                    q.getOrderedNulls(),
-                                                    q.getUnknownRV());
-                        } else {
-                            row_qualifies =
-                                    statsEval.minimumDVD.compare(
-                                            com.splicemachine.db.iapi.types.DataType.ORDER_OP_LESSOREQUALS,
-                                            orderable,
-                                            q.getOrderedNulls(),
-                                            q.getUnknownRV())
-                                            &&
-                                            statsEval.maximumDVD.compare(
-                                                    com.splicemachine.db.iapi.types.DataType.ORDER_OP_GREATEROREQUALS,
-                                                    orderable,
-                                                    q.getOrderedNulls(),
-                                                    q.getUnknownRV());
-                        }
-                        break;
                 }
-                if (q.negateCompareResult())
-                    row_qualifies = !row_qualifies;
-                if (!row_qualifies)
-                    return (false);
-            }
-            return true;
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+                break;
         }
-            /*
-            // all the qual[0] and terms passed, now process the OR clauses
-            for (int and_idx = 1; and_idx < qual_list.length; and_idx++) {
-                Column orCols = null;
-                for (int or_idx = 0; or_idx < qual_list[and_idx].length; or_idx++) {
-                    Qualifier q = qual_list[and_idx][or_idx];
-                    if (q.getVariantType() == Qualifier.VARIANT)
-                        continue; // Cannot Push Down Qualifier
-                    q.clearOrderableCache();
-                    Column orCol = dataset.col(allColIdInSpark[(baseColumnMap != null ? baseColumnMap[q.getStoragePosition()] : q.getStoragePosition())]);
-                    Object value = q.getOrderable().getObject();
-                    switch (q.getOperator()) {
-                        case DataType.ORDER_OP_LESSTHAN:
-                            orCol = q.negateCompareResult() ? orCol.geq(value) : orCol.lt(value);
-                            break;
-                        case DataType.ORDER_OP_LESSOREQUALS:
-                            orCol = q.negateCompareResult() ? orCol.gt(value) : orCol.leq(value);
-                            break;
-                        case DataType.ORDER_OP_GREATERTHAN:
-                            orCol = q.negateCompareResult() ? orCol.leq(value) : orCol.gt(value);
-                            break;
-                        case DataType.ORDER_OP_GREATEROREQUALS:
-                            orCol = q.negateCompareResult() ? orCol.lt(value) : orCol.geq(value);
-                            break;
-                        case DataType.ORDER_OP_EQUALS:
-                            orCol = q.negateCompareResult() ? orCol.notEqual(value) : orCol.equalTo(value);
-                            break;
-                    }
-                    if (orCols == null)
-                        orCols = orCol;
-                    else
-                        orCols = orCols.or(orCol);
-                }
+        if (q.negateCompareResult())
+            row_qualifies = !row_qualifies;
+        if (!row_qualifies)
+            return false;
+
+        // the range covers the value, but the bloom filter may still rule it out
+        if (q.getOperator() == com.splicemachine.db.iapi.types.DataType.ORDER_OP_EQUALS && !q.negateCompareResult())
+            return bloomFilterMayContain(columnStatistics.getBloomFilter(), dataType, orderable);
+        return true;
+    }
+
+    /**
+     * Probe the bloom filter of a segment with the value of an equality qualifier, hashing the value the
+     * way the ORC writer hashes values of the column's type.
+     *
+     * @return false only if the value is definitely not in the segment
+     */
+    static boolean bloomFilterMayContain(HiveBloomFilter bloomFilter, DataType dataType, DataValueDescriptor value) {
+        if (bloomFilter == null)
+            return true;
+        try {
+            if (dataType instanceof IntegerType || dataType instanceof LongType
+                    || dataType instanceof ShortType || dataType instanceof ByteType) {
+                return bloomFilter.testLong(value.getLong());
+            }
+            else if (dataType instanceof DoubleType) {
+                return bloomFilter.testDouble(value.getDouble());
+            }
+            else if (dataType instanceof FloatType) {
+                // the writer widens floats to doubles before hashing them
+                return bloomFilter.testDouble(value.getFloat());
+            }
+            else if (dataType instanceof DateType) {
+                return bloomFilter.testLong(DateWritable.dateToDays(value.getDate(new GregorianCalendar())));
+            }
+            else if (dataType instanceof StringType && value.getTypeFormatId() != StoredFormatIds.SQL_CHAR_ID) {
+                // CHAR values are compared blank padded, which may not be how they were written
+                byte[] bytes = value.getString().getBytes(StandardCharsets.UTF_8);
+                return bloomFilter.testBytes(bytes, 0, bytes.length);
             }
         } catch (Exception e) {
-            throw new RuntimeException(e);
+            // the value cannot be represented in the column's type, let the scan sort it out
+            return true;
         }
-        */
+        // decimals are hashed through their Hive string representation, which we cannot reproduce reliably
+        return true;
     }
 
     public String serialize() throws IOException {
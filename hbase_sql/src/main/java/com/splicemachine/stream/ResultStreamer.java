@@ -74,7 +74,8 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
         this.numPartitions = numPartitions;
         this.batches = batches;
         this.batchSize = batchSize;
-        this.permits = new Semaphore(batches - 1); // we start with one permit taken
+        // one permit per message the client has room for, it returns them as it consumes messages
+        this.permits = new Semaphore(batches * batchSize);
     }
 
     @Override
@@ -87,6 +88,7 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
             private long consumed;
             private long sent;
             private int currentBatch;
+            private long stallNanos;
 
             @Override
             public Long call() throws InterruptedException {
@@ -103,12 +105,16 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
                         T lr = locatedRowIterator.next();
                         consumed++;
 
+                        getPermit();
 
                         ctx.write(lr, ctx.voidPromise());
                         currentBatch++;
                         sent++;
 
-                        flushAndGetPermit();
+                        if (currentBatch >= batchSize) {
+                            ctx.flush();
+                            currentBatch = 0;
+                        }
 
                         if (checkLimit()) {
                             return consumed;
@@ -117,7 +123,10 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
                         consumeOffset();
                     }
                     // Data has been written, request close
-                    ctx.writeAndFlush(new StreamProtocol.RequestClose());
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("Partition " + partition + " sent " + sent + " messages, stalled for " +
+                                TimeUnit.NANOSECONDS.toMillis(stallNanos) + " ms waiting for the client");
+                    ctx.writeAndFlush(new StreamProtocol.RequestClose(stallNanos));
 
                     return consumed;
                 } finally {
@@ -127,17 +136,20 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
             }
 
             /**
-             * If the current batch exceeds the batch size, flush the connection and take a new permit, blocking if the client
-             * hasn't had time yet to process previous messages
+             * Take a permit for the next message. If the client has no room left, flush what we have written so far
+             * and block until it has consumed some of it. The client returns permits in amounts sized by how fast it
+             * consumes them, so the size of what we write between stalls adapts to the client.
              */
-            private void flushAndGetPermit() throws InterruptedException {
-                if (currentBatch >= batchSize) {
-                    ctx.flush();
-                    currentBatch = 0;
-                    permits.acquire();
-                    if (taskContext.isInterrupted())
-                        throw new TaskKilledException();
-                }
+            private void getPermit() throws InterruptedException {
+                if (permits.tryAcquire())
+                    return;
+                ctx.flush();
+                currentBatch = 0;
+                long start = System.nanoTime();
+                permits.acquire();
+                stallNanos += System.nanoTime() - start;
+                if (taskContext.isInterrupted())
+                    throw new TaskKilledException();
             }
 
             /**
@@ -176,7 +188,7 @@ public class ResultStreamer<T> extends ChannelInboundHandlerAdapter implements F
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
         if (msg instanceof StreamProtocol.Continue) {
-            permits.release();
+            permits.release(((StreamProtocol.Continue) msg).count);
         } else if (msg instanceof StreamProtocol.ConfirmClose) {
             ctx.close().sync();
         } else if (msg instanceof StreamProtocol.RequestClose) {
@@ -32,6 +32,7 @@ public class SparkCompactionContext implements CompactionContext, Serializable {
     private final LongAccumulator resolutionRejected;
     private final LongAccumulator rpc;
     private final LongAccumulator timeBlocked;
+    private final LongAccumulator versionsPurged;
 
     public SparkCompactionContext() {
         this.rowsRead= SpliceSpark.getContext().sc().longAccumulator("rows read");
@@ -48,6 +49,7 @@ public class SparkCompactionContext implements CompactionContext, Serializable {
 
         this.rpc = SpliceSpark.getContext().sc().longAccumulator("rpcs");
         this.timeBlocked = SpliceSpark.getContext().sc().longAccumulator("time blocked");
+        this.versionsPurged = SpliceSpark.getContext().sc().longAccumulator("versions purged");
     }
 
     @Override
@@ -95,6 +97,11 @@ public class SparkCompactionContext implements CompactionContext, Serializable {
         timeBlocked.add(duration);
     }
 
+    @Override
+    public void recordVersionsPurged(long cells) {
+        versionsPurged.add(cells);
+    }
+
     @Override
     public void recordResolutionScheduled() {
         resolutionScheduled.add(1l);
@@ -26,12 +26,21 @@ import java.util.*;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 /**
  * This class handles connections from Spark tasks streaming data to the query client. One connection is created from
  * each task, it handles failures and recovery in case the task is retried.
  *
+ * Tasks may have up to batches * batchSize messages in flight, and we grant them credit back as we consume messages.
+ * Credit is returned in chunks: when we run out of messages to consume we return it in smaller chunks, so the task
+ * rarely waits for it, and when we keep up we return it in bigger chunks, up to batchSize, to save on messages.
+ *
+ * It also keeps the metrics of the query: how long it waited for the first task to connect, how long the data took
+ * to transfer, and how long we and the tasks stalled waiting for each other.
+ *
  * Created by dgomezferro on 5/20/16.
  */
 @ChannelHandler.Sharable
@@ -59,6 +68,12 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
     private volatile boolean canBlock = true;
     private volatile boolean stopped = false;
 
+    private final long createdNanos = System.nanoTime();
+    private volatile long firstConnectionNanos;
+    private volatile long closedNanos;
+    private volatile long stallNanos;
+    private final AtomicLong producerStallNanos = new AtomicLong();
+
     StreamListener() {
         this(-1, 0);
     }
@@ -73,7 +88,7 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
         this.batchSize = batchSize;
         this.queueSize = batches*batchSize;
         // start with this to force a channel advancement
-        PartitionState first = new PartitionState(0, 0);
+        PartitionState first = new PartitionState(0, 0, batchSize);
         first.messages.add(SENTINEL);
         first.initialized = true;
         this.partitionStateMap.put(-1, first);
@@ -82,7 +97,7 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
 
     public Iterator<T> getIterator() {
         // Initialize first partition
-        PartitionState ps = partitionStateMap.putIfAbsent(0, new PartitionState(1, queueSize));
+        PartitionState ps = partitionStateMap.putIfAbsent(0, new PartitionState(1, queueSize, batchSize));
         if (failure != null) {
             ps.messages.add(FAILURE);
         }
@@ -109,6 +124,7 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
             return;
         }
         if (msg instanceof StreamProtocol.RequestClose) {
+            producerStallNanos.addAndGet(((StreamProtocol.RequestClose) msg).stallNanos);
             // We can't block here, we negotiate throughput with the server to guarantee it
             state.messages.add(SENTINEL);
             // Let server know it can close the connection
@@ -151,7 +167,7 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
             while (next == null) {
                 PartitionState state = partitionStateMap.get(currentQueue);
                 // We take a message first to make sure we have a connection
-                Object msg = canBlock ? state.messages.take() : state.messages.remove();
+                Object msg = canBlock ? take(state) : state.messages.remove();
                 if (msg == FAILURE) {
                     // The olap job failed, return right away
                     currentResult = null;
@@ -200,7 +216,7 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
                     }
 
                     // Set the partitionState so we can block on the queue in case the connection hasn't opened yet
-                    PartitionState ps = partitionStateMap.putIfAbsent(currentQueue, new PartitionState(currentQueue, queueSize));
+                    PartitionState ps = partitionStateMap.putIfAbsent(currentQueue, new PartitionState(currentQueue, queueSize, batchSize));
                     if (failure != null) {
                         ps.messages.add(FAILURE);
                     }
@@ -228,11 +244,8 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
                         }
                     }
 
-                    if (state.consumed > batchSize) {
-                        if (LOG.isTraceEnabled())
-                            LOG.trace("Writing CONT");
-                        state.channel.writeAndFlush(new StreamProtocol.Continue());
-                        state.consumed -= batchSize;
+                    if (state.consumed >= state.creditSize) {
+                        returnCredit(state);
                     }
                 }
             }
@@ -242,6 +255,37 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
         }
     }
 
+    private Object take(PartitionState state) throws InterruptedException {
+        Object msg = state.messages.poll();
+        if (msg != null)
+            return msg;
+        long start = System.nanoTime();
+        msg = state.messages.take();
+        if (firstConnectionNanos != 0) {
+            // before the first connection we are waiting for the job to be scheduled, not for data
+            stallNanos += System.nanoTime() - start;
+            state.stalled = true;
+        }
+        return msg;
+    }
+
+    private void returnCredit(PartitionState state) {
+        if (LOG.isTraceEnabled())
+            LOG.trace("Writing CONT " + state.consumed);
+        state.channel.writeAndFlush(new StreamProtocol.Continue((int) state.consumed));
+        state.consumed = 0;
+        if (state.stalled) {
+            state.creditSize = Math.max(state.creditSize / 2, minCreditSize());
+        } else {
+            state.creditSize = Math.min(state.creditSize * 2, batchSize);
+        }
+        state.stalled = false;
+    }
+
+    private int minCreditSize() {
+        return Math.max(batchSize / 16, 1);
+    }
+
     private void clearCurrentQueue() {
         PartitionState ps = partitionStateMap.remove(currentQueue);
         if (ps != null && ps.channel != null)
@@ -269,7 +313,7 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
         }
         // create fake queue with finish message so the next call to next() returns null
         currentQueue = (int) numPartitions + 1;
-        PartitionState ps = new PartitionState(currentQueue, 0);
+        PartitionState ps = new PartitionState(currentQueue, 0, batchSize);
         ps.messages.add(SENTINEL);
         partitionStateMap.putIfAbsent(currentQueue, ps);
         ps = partitionStateMap.get(currentQueue);
@@ -289,8 +333,10 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
         LOG.info(String.format("Accepting connection from partition %d out of %d", partition, numPartitions));
         Channel channel = ctx.channel();
         this.numPartitions = numPartitions;
+        if (firstConnectionNanos == 0)
+            firstConnectionNanos = System.nanoTime();
 
-        PartitionState ps = new PartitionState(partition, queueSize);
+        PartitionState ps = new PartitionState(partition, queueSize, batchSize);
         PartitionState old = partitionStateMap.putIfAbsent(partition, ps);
         ps = old != null ? old : ps;
 
@@ -300,7 +346,7 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
         Channel previousChannel = ps.channel;
         if (previousChannel != null) {
             LOG.info("Received connection from retried task, current state " + ps);
-            PartitionState nextState = new PartitionState(partition, queueSize);
+            PartitionState nextState = new PartitionState(partition, queueSize, batchSize);
             nextState.channel = channel;
             ps.next = nextState;
             partitionMap.put(channel, ps.next);
@@ -325,6 +371,13 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
             return;
         }
         closed = true;
+        closedNanos = System.nanoTime();
+        if (LOG.isDebugEnabled())
+            LOG.debug("Stream " + uuid + " closed: queued " + TimeUnit.NANOSECONDS.toMillis(getQueueTimeNanos()) +
+                    " ms, transferred in " + TimeUnit.NANOSECONDS.toMillis(getTransferTimeNanos()) +
+                    " ms, stalled " + TimeUnit.NANOSECONDS.toMillis(getStallTimeNanos()) +
+                    " ms waiting for data, tasks stalled " + TimeUnit.NANOSECONDS.toMillis(getProducerStallTimeNanos()) +
+                    " ms waiting for credit");
         for (Channel channel : partitionMap.keySet()) {
             channel.closeFuture(); // don't wait synchronously, no need
         }
@@ -353,6 +406,40 @@ public class StreamListener<T> extends ChannelInboundHandlerAdapter implements I
         return uuid;
     }
 
+    /**
+     * @return the time from the creation of this listener, when the job is submitted, until the first task connected
+     */
+    public long getQueueTimeNanos() {
+        long first = firstConnectionNanos;
+        if (first == 0)
+            first = closed ? closedNanos : System.nanoTime();
+        return first - createdNanos;
+    }
+
+    /**
+     * @return the time from the first task connecting until the stream was closed, or until now if it is still open
+     */
+    public long getTransferTimeNanos() {
+        long first = firstConnectionNanos;
+        if (first == 0)
+            return 0;
+        return (closed ? closedNanos : System.nanoTime()) - first;
+    }
+
+    /**
+     * @return the time the consumer of this iterator spent waiting for data once the first task connected
+     */
+    public long getStallTimeNanos() {
+        return stallNanos;
+    }
+
+    /**
+     * @return the time the tasks which finished spent waiting for us to grant them credit
+     */
+    public long getProducerStallTimeNanos() {
+        return producerStallNanos.get();
+    }
+
     public void addCloseable(AutoCloseable autoCloseable) {
         synchronized (closeables) {
             if (closed) {
@@ -392,11 +479,14 @@ class PartitionState {
     long consumed;
     long readTotal;
     boolean initialized;
+    int creditSize;
+    boolean stalled;
     volatile PartitionState next = null; // used when a task is retried after a failure
 
-    PartitionState(int partition, int queueSize) {
+    PartitionState(int partition, int queueSize, int creditSize) {
         this.partition = partition;
         this.messages = new ArrayBlockingQueue<>(queueSize + 4);  // Extra to account for out of band messages
+        this.creditSize = creditSize;
     }
 
     @Override
@@ -406,6 +496,7 @@ class PartitionState {
                 ", channel=" + channel +
                 ", messages=" + messages.size() +
                 ", consumed=" + consumed +
+                ", creditSize=" + creditSize +
                 ", initialized=" + initialized +
                 ", next=" + next +
                 '}';
@@ -146,24 +146,56 @@ public class StreamProtocol implements Serializable {
         }
     }
 
+    /**
+     * Grants the sender credit for 'count' more messages, as the client has consumed that many.
+     */
     public static class Continue implements Serializable, Externalizable {
+        public int count;
+
         public Continue() {}
+
+        public Continue(int count) {
+            this.count = count;
+        }
+
         @Override
         public void writeExternal(ObjectOutput out) throws IOException {
+            out.writeInt(count);
         }
 
         @Override
         public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+            count = in.readInt();
+        }
+
+        @Override
+        public String toString() {
+            return "Continue{" +
+                    "count=" + count +
+                    '}';
         }
     }
 
+    /**
+     * Sent by the streaming task once it has written all its data, with the time it spent waiting for
+     * credit from the client, and by the client when it doesn't want more data.
+     */
     public static class RequestClose implements Serializable, Externalizable {
+        public long stallNanos;
+
         public RequestClose() {}
+
+        public RequestClose(long stallNanos) {
+            this.stallNanos = stallNanos;
+        }
+
         public void writeExternal(ObjectOutput out) throws IOException {
+            out.writeLong(stallNanos);
         }
 
         @Override
         public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+            stallNanos = in.readLong();
         }
     }
     public static class ConfirmClose implements Serializable, Externalizable {
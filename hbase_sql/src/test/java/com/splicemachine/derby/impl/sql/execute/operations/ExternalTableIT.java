@@ -862,6 +862,33 @@ public class ExternalTableIT extends SpliceUnitTest{
                 "  3  |ZZZZ |12345 |",TestUtils.FormattedResult.ResultFactory.toString(rs));
     }
 
+    @Test
+    public void testReadORCExternalTableOnControl() throws Exception {
+        methodWatcher.executeUpdate(String.format("create external table control_orc (col1 int, col2 varchar(24), col3 int)" +
+                "partitioned by (col3) STORED AS ORC LOCATION '%s'", getExternalResourceDirectory()+"control_orc"));
+        int insertCount = methodWatcher.executeUpdate("insert into control_orc values (1,'XXXX',10)," +
+                "(2,'YYYY',10)," +
+                "(3,'ZZZZ',20)," +
+                "(4,null,20)");
+        Assert.assertEquals("insertCount is wrong",4,insertCount);
+        String expected = "COL1 |COL2 |COL3 |\n" +
+                "------------------\n" +
+                "  2  |YYYY | 10  |\n" +
+                "  3  |ZZZZ | 20  |";
+        for (String useSpark : new String[]{"false","true"}) {
+            ResultSet rs = methodWatcher.executeQuery("select * from control_orc --splice-properties useSpark=" + useSpark + "\n" +
+                    "where col1 > 1 and col2 is not null order by col1");
+            Assert.assertEquals("useSpark="+useSpark,expected,TestUtils.FormattedResult.ResultFactory.toString(rs));
+            rs.close();
+            rs = methodWatcher.executeQuery("select count(*) from control_orc --splice-properties useSpark=" + useSpark + "\n" +
+                    "where col3 = 20");
+            Assert.assertEquals("useSpark="+useSpark,"1 |\n" +
+                    "----\n" +
+                    " 2 |",TestUtils.FormattedResult.ResultFactory.toString(rs));
+            rs.close();
+        }
+    }
+
     @Test
     public void testWriteReadFromPartitionedORCExternalTable() throws Exception {
         methodWatcher.executeUpdate(String.format("create external table partitioned_orc (col1 int, col2 varchar(24))" +
@@ -84,6 +84,18 @@ public class OlapClientTest {
         Assert.assertEquals(13, result.order);
     }
 
+    @Test
+    public void completionIsPushedBeforeNextTick() throws Exception {
+        // the job outlives the first status check, which the server holds until the job completes
+        int sleep = 1200;
+        long start = System.currentTimeMillis();
+        DumbOlapResult result = olapClient.execute(new DumbDistributedJob(sleep,13));
+        long elapsed = System.currentTimeMillis() - start;
+        Assert.assertNotNull(result);
+        Assert.assertEquals(13, result.order);
+        Assert.assertTrue("Completion took " + elapsed + " ms to reach the client", elapsed < sleep + 500);
+    }
+
     @Test
     public void manyFastJobsTest() throws Exception {
         int sleep = 0;
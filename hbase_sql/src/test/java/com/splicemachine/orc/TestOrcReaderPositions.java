@@ -13,10 +13,17 @@
  */
 package com.splicemachine.orc;
 
+import com.splicemachine.db.iapi.store.access.Qualifier;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.SQLDouble;
+import com.splicemachine.db.iapi.types.SQLLongint;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.db.impl.sql.execute.GenericScanQualifier;
 import com.splicemachine.orc.OrcTester.*;
 import com.splicemachine.orc.metadata.Footer;
 import com.splicemachine.orc.metadata.IntegerStatistics;
 import com.splicemachine.orc.metadata.OrcMetadataReader;
+import com.splicemachine.orc.predicate.SpliceORCPredicate;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import io.airlift.slice.Slice;
@@ -27,23 +34,32 @@ import org.apache.hadoop.hive.ql.exec.FileSinkOperator;
 import org.apache.hadoop.hive.ql.io.orc.*;
 import org.apache.hadoop.hive.serde2.SerDeException;
 import org.apache.hadoop.hive.serde2.Serializer;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.SettableStructObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.StructField;
 import org.apache.hadoop.io.Writable;
 import org.apache.spark.sql.execution.vectorized.ColumnVector;
+import org.apache.spark.sql.types.DataType;
 import org.apache.spark.sql.types.DataTypes;
+import org.apache.spark.sql.types.StructType;
 import org.junit.Test;
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.function.IntFunction;
 import static com.splicemachine.orc.OrcTester.Format.ORC_12;
 import static com.splicemachine.orc.OrcTester.*;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.apache.hadoop.hive.ql.io.orc.CompressionKind.SNAPPY;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaDoubleObjectInspector;
 import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaLongObjectInspector;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaStringObjectInspector;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class TestOrcReaderPositions
 {
@@ -165,6 +181,161 @@ public class TestOrcReaderPositions
         }
     }
 
+    @Test
+    public void testBloomFilterRowGroupSkipping()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile()) {
+            // create single stripe file with multiple row groups, holding only even values
+            int rowCount = 100_000;
+            createBloomFilterFile(tempFile.getFile(), javaLongObjectInspector, rowCount, i -> (long) i * 2);
+
+            // an odd value is within the range of every row group, but not in any bloom filter
+            OrcRecordReader reader = createCustomOrcRecordReader(tempFile, new OrcMetadataReader(),
+                    equalsPredicate(DataTypes.LongType, new SQLLongint(100_001)), DataTypes.LongType);
+            assertEquals(reader.nextBatch(), -1);
+            assertEquals(reader.getRowGroupsRead(), 0);
+            assertEquals(reader.getRowGroupsSkipped(), 10);
+            assertEquals(reader.getStripesSkipped(), 1);
+            reader.close();
+
+            // an even value is only in the row group that holds it
+            reader = createCustomOrcRecordReader(tempFile, new OrcMetadataReader(),
+                    equalsPredicate(DataTypes.LongType, new SQLLongint(100_000)), DataTypes.LongType);
+            assertTrue("value not found", readLongs(reader).contains(100_000L));
+            assertEquals(reader.getRowGroupsRead(), 1);
+            assertEquals(reader.getRowGroupsSkipped(), 9);
+            assertEquals(reader.getStripesSkipped(), 0);
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testBloomFilterInListRowGroupSkipping()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile()) {
+            int rowCount = 100_000;
+            createBloomFilterFile(tempFile.getFile(), javaLongObjectInspector, rowCount, i -> (long) i * 2);
+
+            // an IN list is an OR clause: a row group is read if any of its values may be in it
+            OrcRecordReader reader = createCustomOrcRecordReader(tempFile, new OrcMetadataReader(),
+                    inListPredicate(DataTypes.LongType, new SQLLongint(100_001), new SQLLongint(100_000), new SQLLongint(150_000)),
+                    DataTypes.LongType);
+            List<Long> values = readLongs(reader);
+            assertTrue("value not found", values.contains(100_000L));
+            assertTrue("value not found", values.contains(150_000L));
+            assertEquals(reader.getRowGroupsRead(), 2);
+            assertEquals(reader.getRowGroupsSkipped(), 8);
+            reader.close();
+
+            // none of the values is in the file, whether by range or by bloom filter
+            reader = createCustomOrcRecordReader(tempFile, new OrcMetadataReader(),
+                    inListPredicate(DataTypes.LongType, new SQLLongint(1), new SQLLongint(100_001), new SQLLongint(500_000)),
+                    DataTypes.LongType);
+            assertEquals(reader.nextBatch(), -1);
+            assertEquals(reader.getRowGroupsRead(), 0);
+            assertEquals(reader.getRowGroupsSkipped(), 10);
+            assertEquals(reader.getStripesSkipped(), 1);
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testBloomFilterStringRowGroupSkipping()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile()) {
+            int rowCount = 100_000;
+            createBloomFilterFile(tempFile.getFile(), javaStringObjectInspector, rowCount, i -> "v" + (i * 2));
+
+            OrcRecordReader reader = createCustomOrcRecordReader(tempFile, new OrcMetadataReader(),
+                    equalsPredicate(DataTypes.StringType, new SQLVarchar("v100001")), DataTypes.StringType);
+            assertEquals(reader.nextBatch(), -1);
+            assertEquals(reader.getRowGroupsRead(), 0);
+            assertEquals(reader.getRowGroupsSkipped(), 10);
+            reader.close();
+
+            reader = createCustomOrcRecordReader(tempFile, new OrcMetadataReader(),
+                    equalsPredicate(DataTypes.StringType, new SQLVarchar("v100000")), DataTypes.StringType);
+            while (reader.nextBatch() != -1) {
+                // read every selected row group
+            }
+            assertEquals(reader.getRowGroupsRead(), 1);
+            assertEquals(reader.getRowGroupsSkipped(), 9);
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testBloomFilterDoubleRowGroupSkipping()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile()) {
+            int rowCount = 100_000;
+            createBloomFilterFile(tempFile.getFile(), javaDoubleObjectInspector, rowCount, i -> i * 2.0d);
+
+            OrcRecordReader reader = createCustomOrcRecordReader(tempFile, new OrcMetadataReader(),
+                    equalsPredicate(DataTypes.DoubleType, new SQLDouble(100_001.0d)), DataTypes.DoubleType);
+            assertEquals(reader.nextBatch(), -1);
+            assertEquals(reader.getRowGroupsRead(), 0);
+            assertEquals(reader.getRowGroupsSkipped(), 10);
+            reader.close();
+
+            reader = createCustomOrcRecordReader(tempFile, new OrcMetadataReader(),
+                    equalsPredicate(DataTypes.DoubleType, new SQLDouble(100_000.0d)), DataTypes.DoubleType);
+            while (reader.nextBatch() != -1) {
+                // read every selected row group
+            }
+            assertEquals(reader.getRowGroupsRead(), 1);
+            assertEquals(reader.getRowGroupsSkipped(), 9);
+            reader.close();
+        }
+    }
+
+    /**
+     * A predicate of a single AND clause, column = value.
+     */
+    private static SpliceORCPredicate equalsPredicate(DataType type, DataValueDescriptor value)
+    {
+        return new SpliceORCPredicate(new Qualifier[][]{{equalsQualifier(value)}}, new int[]{0}, new StructType().add("test", type));
+    }
+
+    /**
+     * A predicate of a single OR clause, the way IN lists reach the reader.
+     */
+    private static SpliceORCPredicate inListPredicate(DataType type, DataValueDescriptor... values)
+    {
+        Qualifier[] orClause = new Qualifier[values.length];
+        for (int i = 0; i < values.length; i++) {
+            orClause[i] = equalsQualifier(values[i]);
+        }
+        return new SpliceORCPredicate(new Qualifier[][]{{}, orClause}, new int[]{0}, new StructType().add("test", type));
+    }
+
+    private static Qualifier equalsQualifier(DataValueDescriptor value)
+    {
+        GenericScanQualifier qualifier = new GenericScanQualifier();
+        qualifier.setQualifier(0, value, com.splicemachine.db.iapi.types.DataType.ORDER_OP_EQUALS, false, false, false);
+        return qualifier;
+    }
+
+    private static List<Long> readLongs(OrcRecordReader reader)
+            throws IOException
+    {
+        List<Long> values = new ArrayList<>();
+        while (true) {
+            int batchSize = reader.nextBatch();
+            if (batchSize == -1) {
+                return values;
+            }
+            ColumnVector block = reader.readBlock(DataTypes.LongType, 0);
+            for (int i = 0; i < batchSize; i++) {
+                values.add(block.getLong(i));
+            }
+        }
+    }
+
     @Test
     public void testReadUserMetadata()
             throws Exception
@@ -232,6 +403,27 @@ public class TestOrcReaderPositions
         writer.close();
     }
 
+    private static void createBloomFilterFile(File file, ObjectInspector columnObjectInspector, int count, IntFunction<Object> value)
+            throws IOException
+    {
+        Configuration conf = new Configuration();
+        SettableStructObjectInspector objectInspector = createSettableStructObjectInspector("test", columnObjectInspector);
+        OrcFile.WriterOptions writerOptions = new OrcWriterOptions(conf)
+                .memory(new NullMemoryManager(conf))
+                .inspector(objectInspector)
+                .compress(SNAPPY)
+                .bloomFilterColumns("test")
+                .bloomFilterFpp(0.0001);
+        Writer writer = OrcFile.createWriter(new Path(file.toURI()), writerOptions);
+        Object row = objectInspector.create();
+        StructField field = objectInspector.getAllStructFieldRefs().get(0);
+        for (int i = 0; i < count; i++) {
+            objectInspector.setStructFieldData(row, field, value.apply(i));
+            writer.addRow(row);
+        }
+        writer.close();
+    }
+
     private static void flushWriter(FileSinkOperator.RecordWriter writer)
             throws IOException, ReflectiveOperationException
     {
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.splicemachine.orc.predicate;
+
+import com.splicemachine.db.iapi.types.SQLChar;
+import com.splicemachine.db.iapi.types.SQLDate;
+import com.splicemachine.db.iapi.types.SQLDecimal;
+import com.splicemachine.db.iapi.types.SQLDouble;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLLongint;
+import com.splicemachine.db.iapi.types.SQLReal;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.orc.metadata.HiveBloomFilter;
+import org.apache.spark.sql.types.DataTypes;
+import org.apache.spark.sql.types.DecimalType;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.util.Collections;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests probing bloom filters with the values of equality qualifiers. Pruning through actual ORC files is
+ * covered by TestOrcReaderPositions.
+ */
+public class SpliceORCPredicateTest
+{
+    // a bloom filter with no bits set, which contains no value at all
+    private static final HiveBloomFilter EMPTY = new HiveBloomFilter(Collections.nCopies(16, 0L), 1024, 3);
+
+    @Test
+    public void supportedTypesAreRuledOutByAnEmptyFilter()
+            throws Exception
+    {
+        assertFalse(SpliceORCPredicate.bloomFilterMayContain(EMPTY, DataTypes.LongType, new SQLLongint(7L)));
+        assertFalse(SpliceORCPredicate.bloomFilterMayContain(EMPTY, DataTypes.IntegerType, new SQLInteger(7)));
+        assertFalse(SpliceORCPredicate.bloomFilterMayContain(EMPTY, DataTypes.DoubleType, new SQLDouble(7.5d)));
+        assertFalse(SpliceORCPredicate.bloomFilterMayContain(EMPTY, DataTypes.FloatType, new SQLReal(7.5f)));
+        assertFalse(SpliceORCPredicate.bloomFilterMayContain(EMPTY, DataTypes.StringType, new SQLVarchar("seven")));
+        assertFalse(SpliceORCPredicate.bloomFilterMayContain(EMPTY, DataTypes.DateType, new SQLDate(Date.valueOf("2017-07-07"))));
+    }
+
+    @Test
+    public void unreproducibleHashesAreNeverRuledOut()
+            throws Exception
+    {
+        assertTrue("decimals are hashed through their Hive string form",
+                SpliceORCPredicate.bloomFilterMayContain(EMPTY, new DecimalType(10, 2), new SQLDecimal(new BigDecimal("7.50"))));
+        assertTrue("CHAR values may have been written unpadded",
+                SpliceORCPredicate.bloomFilterMayContain(EMPTY, DataTypes.StringType, new SQLChar("seven")));
+    }
+
+    @Test
+    public void missingOrEmptyFiltersMayContainAnything()
+    {
+        assertTrue(SpliceORCPredicate.bloomFilterMayContain(null, DataTypes.LongType, new SQLLongint(7L)));
+        HiveBloomFilter noBits = new HiveBloomFilter(Collections.<Long>emptyList(), 0, 3);
+        assertTrue(SpliceORCPredicate.bloomFilterMayContain(noBits, DataTypes.LongType, new SQLLongint(7L)));
+    }
+
+    @Test
+    public void valuesOfAnotherTypeAreNotRuledOut()
+    {
+        // the value cannot be read as a long, so the scan has to decide
+        assertTrue(SpliceORCPredicate.bloomFilterMayContain(EMPTY, DataTypes.LongType, new SQLVarchar("not a number")));
+    }
+}
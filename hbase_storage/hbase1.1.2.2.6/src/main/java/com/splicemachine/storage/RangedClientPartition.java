@@ -260,6 +260,11 @@ public class RangedClientPartition implements Partition, Comparable<RangedClient
         return delegate.getLatest(key, previous);
     }
 
+    @Override
+    public DataResult[] getLatest(byte[][] sortedKeys) throws IOException {
+        return delegate.getLatest(sortedKeys);
+    }
+
     @Override
     public DataResult getLatest(byte[] rowKey, byte[] family, DataResult previous) throws IOException {
         return delegate.getLatest(rowKey, family, previous);
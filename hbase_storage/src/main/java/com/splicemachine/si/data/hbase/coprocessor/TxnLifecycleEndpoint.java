@@ -39,6 +39,7 @@ import com.splicemachine.hbase.ZkUtils;
 import com.splicemachine.si.api.txn.lifecycle.TxnLifecycleStore;
 import com.splicemachine.si.api.txn.lifecycle.TxnPartition;
 import com.splicemachine.si.coprocessor.TxnMessage;
+import com.splicemachine.si.impl.HTransactionTimeout;
 import com.splicemachine.si.impl.data.StripedTxnLifecycleStore;
 import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.si.impl.region.RegionServerControl;
@@ -194,6 +195,46 @@ public class TxnLifecycleEndpoint extends TxnMessage.TxnLifecycleService impleme
         }
     }
 
+    @Override
+    public void getTransactions(RpcController controller,TxnMessage.TxnsRequest request,RpcCallback<TxnMessage.TxnsResponse> done){
+        try (RpcUtils.RootEnv env = RpcUtils.getRootEnv()) {
+            boolean isOld = request.hasIsOld() && request.getIsOld();
+            int count=request.getTxnIdsCount();
+            TxnMessage.TxnsResponse.Builder response=TxnMessage.TxnsResponse.newBuilder();
+            for(int i=0;i<count;i++){
+                long txnId=request.getTxnIds(i);
+                if (isOld) {
+                    response.addTxns(lifecycleStore.getOldTransaction(txnId));
+                } else {
+                    response.addTxns(lifecycleStore.getTransaction(txnId));
+                }
+            }
+            done.run(response.build());
+        }catch(IOException ioe){
+            ResponseConverter.setControllerException(controller,ioe);
+        }
+    }
+
+    @Override
+    public void keepAliveTransactions(RpcController controller,TxnMessage.KeepAliveRequest request,RpcCallback<TxnMessage.KeepAliveResponse> done){
+        try (RpcUtils.RootEnv env = RpcUtils.getRootEnv()) {
+            int count=request.getTxnIdsCount();
+            TxnMessage.KeepAliveResponse.Builder response=TxnMessage.KeepAliveResponse.newBuilder();
+            for(int i=0;i<count;i++){
+                long txnId=request.getTxnIds(i);
+                try{
+                    if(lifecycleStore.keepAlive(txnId))
+                        response.addActiveTxnIds(txnId);
+                }catch(HTransactionTimeout tte){
+                    response.addTimedOutTxnIds(txnId);
+                }
+            }
+            done.run(response.build());
+        }catch(IOException ioe){
+            ResponseConverter.setControllerException(controller,ioe);
+        }
+    }
+
     @Override
     public void getTaskId(RpcController controller,TxnMessage.TxnRequest request,RpcCallback<TxnMessage.TaskId> done){
         try (RpcUtils.RootEnv env = RpcUtils.getRootEnv()) {
@@ -14,6 +14,8 @@
 
 package com.splicemachine.si.impl;
 
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.LongArrayList;
 import com.carrotsearch.hppc.LongHashSet;
 import com.splicemachine.access.HConfiguration;
 import com.splicemachine.si.api.txn.ActiveTxnTracker;
@@ -34,6 +36,7 @@ import com.splicemachine.si.api.txn.Txn;
 import com.splicemachine.si.api.txn.TxnStore;
 import com.splicemachine.si.api.txn.TxnSupplier;
 import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.constants.SIConstants;
 import com.splicemachine.si.coprocessor.TxnMessage;
 import com.splicemachine.si.impl.txn.InheritingTxnView;
 import com.splicemachine.timestamp.api.TimestampSource;
@@ -194,6 +197,67 @@ public class CoprocessorTxnStore implements TxnStore {
         }
     }
 
+    @Override
+    public long[] keepAlive(long[] txnIds,LongHashSet timedOut) throws IOException{
+        /*
+         * As with lookups, each bucket of the transaction table is held by its own region, so refresh
+         * the transactions of each bucket with a single call.
+         */
+        Map<Integer,LongArrayList> buckets=new HashMap<>();
+        for(long txnId:txnIds){
+            int bucket=getTransactionRowKey(txnId)[0];
+            LongArrayList bucketTxnIds=buckets.get(bucket);
+            if(bucketTxnIds==null){
+                bucketTxnIds=new LongArrayList();
+                buckets.put(bucket,bucketTxnIds);
+            }
+            bucketTxnIds.add(txnId);
+        }
+
+        LongArrayList active=new LongArrayList(txnIds.length);
+        try(TxnNetworkLayer table = tableFactory.accessTxnNetwork()){
+            for(LongArrayList bucketTxnIds:buckets.values()){
+                keepAlive(table,bucketTxnIds,active,timedOut);
+            }
+        }
+        return active.toArray();
+    }
+
+    private void keepAlive(TxnNetworkLayer table,LongArrayList txnIds,LongArrayList active,LongHashSet timedOut) throws IOException{
+        TxnMessage.KeepAliveRequest.Builder request=TxnMessage.KeepAliveRequest.newBuilder();
+        int size=txnIds.size();
+        for(int i=0;i<size;i++){
+            request.addTxnIds(txnIds.get(i));
+        }
+        TxnMessage.KeepAliveResponse response;
+        try{
+            response=table.keepAlive(getTransactionRowKey(txnIds.get(0)),request.build());
+        }catch(IOException e){
+            /*
+             * The bucket may be split over several regions, in which case the region we asked doesn't hold
+             * all of the transactions. Keep them alive one at a time, so each call goes to the right region
+             */
+            for(int i=0;i<size;i++){
+                long txnId=txnIds.get(i);
+                try{
+                    if(keepAlive(txnId))
+                        active.add(txnId);
+                }catch(HTransactionTimeout tte){
+                    timedOut.add(txnId);
+                }
+            }
+            return;
+        }
+        int activeCount=response.getActiveTxnIdsCount();
+        for(int i=0;i<activeCount;i++){
+            active.add(response.getActiveTxnIds(i));
+        }
+        int timedOutCount=response.getTimedOutTxnIdsCount();
+        for(int i=0;i<timedOutCount;i++){
+            timedOut.add(response.getTimedOutTxnIds(i));
+        }
+    }
+
     @Override
     public void elevateTransaction(Txn txn,byte[] newDestinationTable) throws IOException{
         byte[] rowKey=getTransactionRowKey(txn.getTxnId());
@@ -308,6 +372,71 @@ public class CoprocessorTxnStore implements TxnStore {
         }
     }
 
+    @Override
+    public TxnView[] getTransactions(long[] txnIds) throws IOException{
+        /*
+         * Each bucket of the transaction table is held by its own region, so group the ids
+         * by the bucket of their row key, and look up each group with a single call.
+         */
+        Map<Integer,IntArrayList> buckets=new HashMap<>();
+        for(int i=0;i<txnIds.length;i++){
+            long txnId=txnIds[i];
+            int bucket=txnId<oldTransactions?
+                    SIConstants.TRANSACTION_TABLE_BUCKET_COUNT+getOldTransactionRowKey(txnId)[0]:
+                    getTransactionRowKey(txnId)[0];
+            IntArrayList positions=buckets.get(bucket);
+            if(positions==null){
+                positions=new IntArrayList();
+                buckets.put(bucket,positions);
+            }
+            positions.add(i);
+        }
+
+        TxnView[] txns=new TxnView[txnIds.length];
+        try(TxnNetworkLayer table = tableFactory.accessTxnNetwork()){
+            for(Map.Entry<Integer,IntArrayList> bucket:buckets.entrySet()){
+                boolean isOld=bucket.getKey()>=SIConstants.TRANSACTION_TABLE_BUCKET_COUNT;
+                getTransactions(table,txnIds,bucket.getValue(),isOld,txns);
+            }
+        }
+        return txns;
+    }
+
+    private void getTransactions(TxnNetworkLayer table,long[] txnIds,IntArrayList positions,boolean isOld,TxnView[] txns) throws IOException{
+        int size=positions.size();
+        long firstTxnId=txnIds[positions.get(0)];
+        if(size==1){
+            txns[positions.get(0)]=isOld?getOldTransaction(firstTxnId,false):getTransaction(firstTxnId,false);
+            return;
+        }
+        lookups.addAndGet(size);
+        TxnMessage.TxnsRequest.Builder request=TxnMessage.TxnsRequest.newBuilder().setIsOld(isOld);
+        for(int i=0;i<size;i++){
+            request.addTxnIds(txnIds[positions.get(i)]);
+        }
+        byte[] rowKey=isOld?getOldTransactionRowKey(firstTxnId):getTransactionRowKey(firstTxnId);
+        TxnMessage.TxnsResponse response;
+        try{
+            response=table.getTxns(rowKey,request.build());
+        }catch(IOException e){
+            /*
+             * The bucket may be split over several regions, in which case the region we asked doesn't hold
+             * all of the transactions. Look them up one at a time, so each call goes to the right region
+             */
+            for(int i=0;i<size;i++){
+                int position=positions.get(i);
+                txns[position]=isOld?getOldTransaction(txnIds[position],false):getTransaction(txnIds[position],false);
+            }
+            return;
+        }
+        if(response.getTxnsCount()!=size)
+            throw new IOException("Expected "+size+" transactions, but got "+response.getTxnsCount());
+        for(int i=0;i<size;i++){
+            int position=positions.get(i);
+            txns[position]=decode(txnIds[position],response.getTxns(i));
+        }
+    }
+
     private static byte[] getOldTransactionRowKey(long txnId){
         return TxnUtils.getOldRowKey(txnId);
     }
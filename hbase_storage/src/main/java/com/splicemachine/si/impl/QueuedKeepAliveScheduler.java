@@ -14,30 +14,41 @@
 
 package com.splicemachine.si.impl;
 
+import com.carrotsearch.hppc.LongArrayList;
+import com.carrotsearch.hppc.LongHashSet;
 import org.spark_project.guava.util.concurrent.ThreadFactoryBuilder;
 import com.splicemachine.annotations.ThreadSafe;
-import com.splicemachine.concurrent.ThreadLocalRandom;
 import com.splicemachine.si.api.txn.KeepAliveScheduler;
 import com.splicemachine.si.api.txn.Txn;
 import com.splicemachine.si.api.txn.TxnStore;
+import com.splicemachine.si.constants.SIConstants;
 import com.splicemachine.utils.SpliceLogUtils;
 import org.apache.log4j.Logger;
 import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 /**
+ * Keeps the transactions created on this node alive.
+ *
+ * Rather than keeping each transaction alive on its own, the live transactions are grouped by the
+ * bucket of the transaction table which holds them, and once every interval each bucket refreshes
+ * all of its transactions with a single call. The latency of each bucket's heartbeat is recorded,
+ * and logged when it becomes a significant part of the keep alive interval.
+ *
  * @author Scott Fines
  *         Date: 6/25/14
  */
 public class QueuedKeepAliveScheduler implements KeepAliveScheduler{
     private static final Logger LOG=Logger.getLogger(QueuedKeepAliveScheduler.class);
-    private final long maxWaitIntervalMs;
     private final long maxKeepAliveIntervalMs;
     private final ScheduledExecutorService threadPool;
-    private final com.splicemachine.concurrent.ThreadLocalRandom random;
+    private final Heartbeat[] heartbeats;
 
     private final
     @ThreadSafe
@@ -48,21 +59,26 @@ public class QueuedKeepAliveScheduler implements KeepAliveScheduler{
 
     public QueuedKeepAliveScheduler(long maxWaitIntervalMs,long maxKeepAliveIntervalMs,
                                     int numKeepers,TxnStore txnStore){
-        this.maxWaitIntervalMs=maxWaitIntervalMs;
         ThreadFactory factory=new ThreadFactoryBuilder().setNameFormat("keepAlive-thread-%d").setDaemon(true).build();
 
         this.threadPool=Executors.newScheduledThreadPool(numKeepers,factory);
-        this.random=ThreadLocalRandom.current();
         this.txnStore=txnStore;
         this.maxKeepAliveIntervalMs=maxKeepAliveIntervalMs;
+        this.heartbeats=new Heartbeat[SIConstants.TRANSACTION_TABLE_BUCKET_COUNT];
+        for(int i=0;i<heartbeats.length;i++){
+            heartbeats[i]=new Heartbeat(i);
+            //spread the buckets over the interval, so that we don't send all of our heartbeats at once
+            long initialDelay=maxWaitIntervalMs*(i+1)/heartbeats.length;
+            threadPool.scheduleWithFixedDelay(heartbeats[i],initialDelay,maxWaitIntervalMs,TimeUnit.MILLISECONDS);
+        }
     }
 
     @Override
     public void scheduleKeepAlive(Txn txn){
         if(shutdown) return;
 
-//				activeTxns.add(txn);
-        threadPool.schedule(new KeepAlive(txn),random.nextLong(maxWaitIntervalMs),TimeUnit.MILLISECONDS);
+        long txnId=txn.getTxnId();
+        heartbeats[TxnUtils.getRowKey(txnId)[0]].txns.put(txnId,new KeepAlive(txn));
     }
 
     @Override
@@ -75,76 +91,151 @@ public class QueuedKeepAliveScheduler implements KeepAliveScheduler{
         threadPool.shutdownNow();
     }
 
-    private class KeepAlive implements Runnable{
+    /**
+     * @param bucket the bucket of the transaction table
+     * @return the number of transactions currently kept alive by the heartbeat of {@code bucket}
+     */
+    public int getLiveTransactionCount(int bucket){
+        return heartbeats[bucket].txns.size();
+    }
+
+    /**
+     * @param bucket the bucket of the transaction table
+     * @return the time (in ms) taken by the most recent heartbeat of {@code bucket}
+     */
+    public long getLastHeartbeatLatency(int bucket){
+        return heartbeats[bucket].lastLatency;
+    }
+
+    /**
+     * @param bucket the bucket of the transaction table
+     * @return the longest time (in ms) taken by a heartbeat of {@code bucket}
+     */
+    public long getMaxHeartbeatLatency(int bucket){
+        return heartbeats[bucket].maxLatency;
+    }
+
+    /* ***************************************************************************************************************/
+    /*private helper methods and classes*/
+    private static class KeepAlive{
         private final Txn txn;
-        private long lastKeepAliveTime;
+        private volatile long lastKeepAliveTime;
 
-        public KeepAlive(Txn txn){
+        KeepAlive(Txn txn){
             this.txn=txn;
             this.lastKeepAliveTime=System.currentTimeMillis();
         }
+    }
+
+    private class Heartbeat implements Runnable{
+        private final int bucket;
+        private final ConcurrentMap<Long,KeepAlive> txns=new ConcurrentHashMap<>();
+        private volatile long lastLatency;
+        private volatile long maxLatency;
+
+        Heartbeat(int bucket){
+            this.bucket=bucket;
+        }
 
         @Override
         public void run(){
-            if(txn.getEffectiveState()!=Txn.State.ACTIVE){
-                return; //nothing to do, we no longer need to keep anything alive
+            if(shutdown || txns.isEmpty()) return;
+            try{
+                beat();
+            }catch(Throwable t){
+                //never let an error escape, or we will never be scheduled again
+                LOG.error("Unexpected error keeping the transactions of bucket "+bucket+" alive",t);
             }
-            long keepAliveTime=System.currentTimeMillis()-lastKeepAliveTime;
-
-            if(keepAliveTime>2*maxKeepAliveIntervalMs){
-                SpliceLogUtils.warn(LOG,"It has been %d ms since the last time we tried to perform"+
-                        "a keep alive, which is longer than the maximum interval");
-                                /*
-								 * We are the only ones trying to keep this transaction alive. If we know
-								 * for a fact that we had to wait longer than the transaction timeout, then
-								 * we don't need to keep trying--just roll back the transaction and return.
-								 *
-								 * However, we want to leave some room for network slop here, so we err
-								 * on the side of caution, and only use this if we exceed twice the actual
-								 * keep alive window. That way, we probably never need this, but it's available
-								 * if we do.
-								 */
-                try{
-                    txn.rollback();
-                }catch(IOException e){
-                    LOG.info("Unable to roll back transaction "+txn.getTxnId()
-                            +" but nothing to be concerned with, since it has already timed out",e);
+        }
+
+        private void beat(){
+            long now=System.currentTimeMillis();
+            LongArrayList txnIds=new LongArrayList(txns.size());
+            Iterator<KeepAlive> keepAlives=txns.values().iterator();
+            while(keepAlives.hasNext()){
+                KeepAlive keepAlive=keepAlives.next();
+                Txn txn=keepAlive.txn;
+                if(txn.getEffectiveState()!=Txn.State.ACTIVE){
+                    keepAlives.remove(); //nothing to do, we no longer need to keep it alive
+                    continue;
                 }
-                return;
+                long keepAliveTime=now-keepAlive.lastKeepAliveTime;
+                if(keepAliveTime>2*maxKeepAliveIntervalMs){
+                    SpliceLogUtils.warn(LOG,"It has been %d ms since the last time we kept transaction %d alive, "+
+                            "which is longer than the maximum interval",keepAliveTime,txn.getTxnId());
+                    /*
+                     * We are the only ones trying to keep this transaction alive. If we know
+                     * for a fact that we had to wait longer than the transaction timeout, then
+                     * we don't need to keep trying--just roll back the transaction.
+                     *
+                     * However, we want to leave some room for network slop here, so we err
+                     * on the side of caution, and only use this if we exceed twice the actual
+                     * keep alive window. That way, we probably never need this, but it's available
+                     * if we do.
+                     */
+                    keepAlives.remove();
+                    rollback(txn);
+                    continue;
+                }
+                txnIds.add(txn.getTxnId());
             }
+            if(txnIds.isEmpty()) return;
 
+            LongHashSet timedOut=new LongHashSet();
+            long[] active;
+            long time=System.currentTimeMillis();
             try{
-                long time=System.currentTimeMillis();
-                boolean reschedule=txnStore.keepAlive(txn.getTxnId());
-                time=System.currentTimeMillis()-time; //measure our latency
-                if(reschedule){
-                    //use a random slop factor to load-balance our keep alive requests.
-                    threadPool.schedule(this,random.nextLong(maxWaitIntervalMs),TimeUnit.MILLISECONDS);
-                    lastKeepAliveTime=System.currentTimeMillis(); //include network latency in our wait period
+                active=txnStore.keepAlive(txnIds.toArray(),timedOut);
+            }catch(IOException e){
+                /*
+                 * This could be a real problem, but we don't have anything that we can really do about this,
+                 * so we just log the error and hope it resolves itself by the next heartbeat.
+                 */
+                LOG.error("Unable to keep the "+txnIds.size()+" transactions of bucket "+bucket+" alive. Will try again in a bit",e);
+                return;
+            }
+            long keptAliveAt=System.currentTimeMillis(); //include network latency in our wait period
+            time=keptAliveAt-time; //measure our latency
+            lastLatency=time;
+            if(time>maxLatency)
+                maxLatency=time;
+            if(time>0.1*maxKeepAliveIntervalMs)
+                SpliceLogUtils.warn(LOG,"It took longer than 10%% of the keep-alive interval (%d ms) to keep "+
+                        "the %d transactions of bucket %d alive. This may be a sign that load will begin interfering "+
+                        "with the transaction system",time,txnIds.size(),bucket);
+            else
+                SpliceLogUtils.trace(LOG,"Kept the %d transactions of bucket %d alive in %d ms",txnIds.size(),bucket,time);
+
+            LongHashSet continuing=new LongHashSet(active.length);
+            for(long txnId:active){
+                continuing.add(txnId);
+            }
+            for(int i=0;i<txnIds.size();i++){
+                long txnId=txnIds.get(i);
+                if(continuing.contains(txnId)){
+                    KeepAlive keepAlive=txns.get(txnId);
+                    if(keepAlive!=null)
+                        keepAlive.lastKeepAliveTime=keptAliveAt;
+                    continue;
                 }
-                if(time>0.1*maxKeepAliveIntervalMs)
-                    SpliceLogUtils.warn(LOG,"It took longer than 10% of the keep-alive interval to perform"+
-                            "keep alive for transaction %d. This may be a sign that load will begin interfering"+
-                            "with the transaction system",txn.getTxnId());
-            }catch(HTransactionTimeout tte){
-                LOG.error("Transaction "+txn.getTxnId()+" has timed out");
-									/*
-									 * We attempted to keep alive a transaction that has already timed out for a different
-									 * reason. Ensure that the transaction is rolled back
-									 */
-                try{
-                    txn.rollback();
-                }catch(IOException e){
-                    LOG.info("Unable to roll back transaction "+
-                            txn.getTxnId()+" but nothing to be concerned with, since it has already timed out",e);
+                KeepAlive keepAlive=txns.remove(txnId);
+                if(keepAlive!=null && timedOut.contains(txnId)){
+                    LOG.error("Transaction "+txnId+" has timed out");
+                    /*
+                     * We attempted to keep alive a transaction that has already timed out for a different
+                     * reason. Ensure that the transaction is rolled back
+                     */
+                    rollback(keepAlive.txn);
                 }
+            }
+        }
+
+        private void rollback(Txn txn){
+            try{
+                txn.rollback();
             }catch(IOException e){
-								/*
-								 * This could be a real problem, but we don't have anything that we can really do about this,
-								 * so we just log the error and hope it resolves itself.
-								 */
-                LOG.error("Unable to keep transaction "+txn.getTxnId()+" alive. Will try again in a bit",e);
-                threadPool.schedule(this,random.nextLong(maxWaitIntervalMs),TimeUnit.MILLISECONDS);
+                LOG.info("Unable to roll back transaction "+txn.getTxnId()
+                        +" but nothing to be concerned with, since it has already timed out",e);
             }
         }
     }
@@ -116,6 +116,26 @@ public abstract class SkeletonTxnNetworkLayer implements TxnNetworkLayer{
         return done.get();
     }
 
+    @Override
+    public TxnMessage.TxnsResponse getTxns(byte[] rowKey,TxnMessage.TxnsRequest request) throws IOException{
+        TxnMessage.TxnLifecycleService service=getLifecycleService(rowKey);
+        ServerRpcController controller=new ServerRpcController();
+        BlockingRpcCallback<TxnMessage.TxnsResponse> done=new BlockingRpcCallback<>();
+        service.getTransactions(controller,request,done);
+        dealWithError(controller);
+        return done.get();
+    }
+
+    @Override
+    public TxnMessage.KeepAliveResponse keepAlive(byte[] rowKey,TxnMessage.KeepAliveRequest request) throws IOException{
+        TxnMessage.TxnLifecycleService service=getLifecycleService(rowKey);
+        ServerRpcController controller=new ServerRpcController();
+        BlockingRpcCallback<TxnMessage.KeepAliveResponse> done=new BlockingRpcCallback<>();
+        service.keepAliveTransactions(controller,request,done);
+        dealWithError(controller);
+        return done.get();
+    }
+
     @Override
     public TxnMessage.TaskId getTaskId(byte[] rowKey,TxnMessage.TxnRequest request) throws IOException{
         TxnMessage.TxnLifecycleService service=getLifecycleService(rowKey);
@@ -26,16 +26,20 @@ import com.splicemachine.storage.Partition;
 import com.splicemachine.storage.RegionPartition;
 import com.splicemachine.utils.ByteSlice;
 import com.splicemachine.utils.TrafficControl;
+import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.NotServingRegionException;
 import org.apache.hadoop.hbase.RegionTooBusyException;
 import org.apache.hadoop.hbase.client.Delete;
 import org.apache.hadoop.hbase.client.Durability;
+import org.apache.hadoop.hbase.client.Mutation;
 import org.apache.hadoop.hbase.client.Put;
 import org.apache.hadoop.hbase.exceptions.ConnectionClosingException;
+import org.apache.hadoop.hbase.regionserver.OperationStatus;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 /**
  * Read-Resolver which resolves elements synchronously on the calling thread.
@@ -96,11 +100,7 @@ public class SynchronousReadResolver implements KeyedReadResolver{
                     trafficControl.release(1);
                 }
             }else{
-                TxnView t=transaction;
-                while(t.getState()==Txn.State.COMMITTED){
-                    t=t.getParentTxnView();
-                }
-                if(t==Txn.ROOT_TRANSACTION){
+                if(isCommittedToRoot(transaction)){
                     trafficControl.acquire(1);
                     try{
                         SynchronousReadResolver.INSTANCE.resolveCommitted(region,rowKey,txnId,transaction.getEffectiveCommitTimestamp(),failOnError);
@@ -110,7 +110,8 @@ public class SynchronousReadResolver implements KeyedReadResolver{
                     }
                 }
             }
-            status.rowResolved();
+            if(resolved)
+                status.rowResolved();
             return resolved;
         }catch(IOException e){
             LOG.info("Unable to fetch transaction for id "+txnId+", will not resolve",e);
@@ -124,6 +125,73 @@ public class SynchronousReadResolver implements KeyedReadResolver{
         }
     }
 
+    @Override
+    public boolean[] resolveBatch(Partition region,ByteSlice[] rowKeys,long[] txnIds,TxnSupplier supplier,RollForwardStatus status,boolean failOnError,TrafficControl trafficControl){
+        assert region instanceof RegionPartition: "Not on a region!";
+        boolean[] resolved=new boolean[rowKeys.length];
+        if(DISABLED_ROLLFORWARD || region.isClosed() || region.isClosing())
+            return resolved; //do nothing if we are closing or rollforward is disabled
+
+        Mutation[] mutations=new Mutation[rowKeys.length];
+        int[] positions=new int[rowKeys.length];
+        int size=0;
+        TxnView transaction=null;
+        for(int i=0;i<rowKeys.length;i++){
+            try{
+                //rows of the same transaction are often adjacent, so avoid looking it up again
+                if(transaction==null || transaction.getTxnId()!=txnIds[i])
+                    transaction=supplier.getTransaction(txnIds[i]);
+            }catch(IOException e){
+                LOG.info("Unable to fetch transaction for id "+txnIds[i]+", will not resolve",e);
+                if(failOnError)
+                    throw new RuntimeException(e);
+                transaction=null;
+                continue;
+            }
+            Mutation mutation=null;
+            if(transaction.getEffectiveState()==Txn.State.ROLLEDBACK)
+                mutation=rolledBackDelete(rowKeys[i],txnIds[i]);
+            else if(isCommittedToRoot(transaction))
+                mutation=committedPut(rowKeys[i],txnIds[i],transaction.getEffectiveCommitTimestamp());
+            if(mutation!=null){
+                mutations[size]=mutation;
+                positions[size]=i;
+                size++;
+            }
+        }
+        if(size==0)
+            return resolved;
+        if(size<mutations.length)
+            mutations=Arrays.copyOf(mutations,size);
+
+        try{
+            trafficControl.acquire(size);
+        }catch(InterruptedException e){
+            LOG.debug("Interrupted which performing read resolution, will not resolve");
+            Thread.currentThread().interrupt();
+            return resolved;
+        }
+        try{
+            OperationStatus[] statuses=((RegionPartition)region).unwrapDelegate().batchMutate(mutations);
+            for(int i=0;i<size;i++){
+                if(statuses[i].getOperationStatusCode()==HConstants.OperationStatusCode.SUCCESS){
+                    resolved[positions[i]]=true;
+                    status.rowResolved();
+                }
+            }
+        }catch(IOException e){
+            if(!(e instanceof RegionTooBusyException) && !(e instanceof NotServingRegionException)
+                    &&  !(e instanceof ConnectionClosingException)){
+                LOG.info("Exception encountered when attempting to resolve a batch of rows",e);
+                if(failOnError)
+                    throw new RuntimeException(e);
+            }
+        }finally{
+            trafficControl.release(size);
+        }
+        return resolved;
+    }
+
     /******************************************************************************************************************/
     /*private helper methods */
     private void resolveCommitted(Partition region,ByteSlice rowKey,long txnId,long commitTimestamp,boolean failOnError){
@@ -136,13 +204,7 @@ public class SynchronousReadResolver implements KeyedReadResolver{
         if(DISABLED_ROLLFORWARD || region.isClosed() || region.isClosing())
             return; //do nothing if we are closing or rollforward is disabled
 
-        Put put=new Put(rowKey.getByteCopy());
-        put.addColumn(SIConstants.DEFAULT_FAMILY_BYTES,
-                SIConstants.SNAPSHOT_ISOLATION_COMMIT_TIMESTAMP_COLUMN_BYTES,txnId,
-                Bytes.toBytes(commitTimestamp));
-        put.setAttribute(SIConstants.SI_EXEMPT,SIConstants.TRUE_BYTES);
-        put.setAttribute(SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_NAME,SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_VALUE);
-        put.setDurability(Durability.SKIP_WAL);
+        Put put=committedPut(rowKey,txnId,commitTimestamp);
         try{
             ((RegionPartition)region).unwrapDelegate().put(put);
         }catch(IOException e){
@@ -165,12 +227,7 @@ public class SynchronousReadResolver implements KeyedReadResolver{
         if(DISABLED_ROLLFORWARD || region.isClosed() || region.isClosing())
             return; //do nothing if we are closing
 
-        Delete delete=new Delete(rowKey.getByteCopy(),txnId)
-                .addColumn(SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.PACKED_COLUMN_BYTES,txnId) //delete all the columns for our family only
-                .addColumn(SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.SNAPSHOT_ISOLATION_TOMBSTONE_COLUMN_BYTES,txnId) //delete all the columns for our family only
-                .addColumn(SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.SNAPSHOT_ISOLATION_ANTI_TOMBSTONE_VALUE_BYTES,txnId); //delete all the columns for our family only
-        delete.setDurability(Durability.SKIP_WAL);
-        delete.setAttribute(SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_NAME,SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_VALUE);
+        Delete delete=rolledBackDelete(rowKey,txnId);
         try{
             ((RegionPartition)region).unwrapDelegate().delete(delete);
         }catch(IOException ioe){
@@ -179,4 +236,37 @@ public class SynchronousReadResolver implements KeyedReadResolver{
                 throw new RuntimeException(ioe);
         }
     }
+
+    /**
+     * @return true if the transaction and all of its ancestors have committed, so that its effective
+     * commit timestamp is final
+     */
+    private static boolean isCommittedToRoot(TxnView transaction){
+        TxnView t=transaction;
+        while(t.getState()==Txn.State.COMMITTED){
+            t=t.getParentTxnView();
+        }
+        return t==Txn.ROOT_TRANSACTION;
+    }
+
+    private static Put committedPut(ByteSlice rowKey,long txnId,long commitTimestamp){
+        Put put=new Put(rowKey.getByteCopy());
+        put.addColumn(SIConstants.DEFAULT_FAMILY_BYTES,
+                SIConstants.SNAPSHOT_ISOLATION_COMMIT_TIMESTAMP_COLUMN_BYTES,txnId,
+                Bytes.toBytes(commitTimestamp));
+        put.setAttribute(SIConstants.SI_EXEMPT,SIConstants.TRUE_BYTES);
+        put.setAttribute(SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_NAME,SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_VALUE);
+        put.setDurability(Durability.SKIP_WAL);
+        return put;
+    }
+
+    private static Delete rolledBackDelete(ByteSlice rowKey,long txnId){
+        Delete delete=new Delete(rowKey.getByteCopy(),txnId)
+                .addColumn(SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.PACKED_COLUMN_BYTES,txnId) //delete all the columns for our family only
+                .addColumn(SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.SNAPSHOT_ISOLATION_TOMBSTONE_COLUMN_BYTES,txnId) //delete all the columns for our family only
+                .addColumn(SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.SNAPSHOT_ISOLATION_ANTI_TOMBSTONE_VALUE_BYTES,txnId); //delete all the columns for our family only
+        delete.setDurability(Durability.SKIP_WAL);
+        delete.setAttribute(SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_NAME,SIConstants.SUPPRESS_INDEXING_ATTRIBUTE_VALUE);
+        return delete;
+    }
 }
@@ -37,4 +37,6 @@ public interface CompactionContext {
     void close();
 
     void timeBlocked(long duration);
+
+    void recordVersionsPurged(long cells);
 }
@@ -14,6 +14,9 @@
 
 package com.splicemachine.si.impl.server;
 
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.LongArrayList;
+import com.carrotsearch.hppc.LongHashSet;
 import org.spark_project.guava.util.concurrent.Futures;
 import com.splicemachine.hbase.CellUtils;
 import com.splicemachine.primitives.Bytes;
@@ -27,18 +30,23 @@ import com.splicemachine.si.impl.store.ActiveTxnCacheSupplier;
 import com.splicemachine.si.impl.txn.CommittedTxn;
 import com.splicemachine.si.impl.txn.RolledBackTxn;
 import com.splicemachine.storage.CellType;
+import com.splicemachine.storage.EntryAccumulator;
+import com.splicemachine.storage.EntryDecoder;
+import com.splicemachine.storage.EntryPredicateFilter;
 import com.splicemachine.utils.ByteSlice;
 import com.splicemachine.utils.SpliceLogUtils;
 import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
 import org.apache.hadoop.hbase.KeyValue;
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
-import java.util.SortedSet;
-import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
@@ -49,75 +57,301 @@ import java.util.concurrent.RejectedExecutionException;
  * guts for SICompactionScanner.
  * <p/>
  * It is handed key-values and can change them.
+ * <p/>
+ * When given a garbage collection watermark (a timestamp no older than the begin timestamp of every transaction
+ * active on the cluster), it also drops the versions of a row which no current or future transaction can see:
+ * <ul>
+ *     <li>data, tombstones and anti-tombstones hidden behind a tombstone or anti-tombstone committed before the
+ *     watermark</li>
+ *     <li>on major compactions, partial versions committed before the watermark, which are collapsed into
+ *     their newest version</li>
+ * </ul>
  */
 public class SICompactionState {
     private static final Logger LOG = Logger.getLogger(SICompactionState.class);
+    private static final Comparator<Cell> NEWEST_FIRST = (left, right) -> Long.compare(right.getTimestamp(), left.getTimestamp());
+    /*
+     * Versions which set columns past this position are never collapsed, since the accumulator doesn't collect them
+     */
+    private static final int MAX_COLLAPSIBLE_COLUMNS = 1024;
     private final TxnSupplier transactionStore;
     private final CompactionContext context;
     private final ExecutorService executorService;
+    private final long gcWatermark;
+    private final boolean collapseVersions;
     private ConcurrentHashMap<Long, Future<TxnView>> futuresCache;
-    private SortedSet<Cell> dataToReturn;
+
+    /*per-row state, reused across rows*/
+    private final List<Cell> commitTimestamps = new ArrayList<>();
+    private final List<Cell> newCommitTimestamps = new ArrayList<>();
+    private final List<Cell> cells = new ArrayList<>();
+    private final List<TxnView> cellTxns = new ArrayList<>();
+    private final BitSet purged = new BitSet();
+    private final LongArrayList markers = new LongArrayList();
+    private final IntArrayList collapsible = new IntArrayList();
+    private final LongHashSet purgedTimestamps = new LongHashSet();
+    private final LongHashSet keptTimestamps = new LongHashSet();
+    private final EntryDecoder decoder = new EntryDecoder();
+    private final EntryAccumulator accumulator = EntryPredicateFilter.emptyPredicate().newAccumulator();
 
     public SICompactionState(TxnSupplier transactionStore, int activeTransactionCacheSize, CompactionContext context, ExecutorService executorService) {
+        this(transactionStore, activeTransactionCacheSize, context, executorService, 0L, false);
+    }
+
+    /**
+     * @param gcWatermark no transaction active on the cluster began before this timestamp, or 0 to keep every
+     *                    committed version
+     * @param collapseVersions whether partial versions committed before the watermark can be collapsed, which is
+     *                         only safe when every file of the store is compacted
+     */
+    public SICompactionState(TxnSupplier transactionStore, int activeTransactionCacheSize, CompactionContext context, ExecutorService executorService,
+                             long gcWatermark, boolean collapseVersions) {
         this.transactionStore = new ActiveTxnCacheSupplier(transactionStore,activeTransactionCacheSize,true);
-        this.dataToReturn  =new TreeSet<>(KeyValue.COMPARATOR);
         this.context = context;
         this.futuresCache = new ConcurrentHashMap<>(1<<19, 0.75f, 64);
         this.executorService = executorService;
+        this.gcWatermark = gcWatermark;
+        this.collapseVersions = collapseVersions;
     }
 
     /**
      * Given a list of key-values, populate the results list with possibly mutated values.
      *
+     * The key-values of a row arrive sorted, each column from its newest version to its oldest, so the row is
+     * filtered in place and written out in a single pass.
+     *
      * @param rawList - the input of key values to process
      * @param results - the output key values
      */
     public void mutate(List<Cell> rawList, List<TxnView> txns, List<Cell> results, boolean purgeDeletedRows) throws IOException {
-        dataToReturn.clear();
+        commitTimestamps.clear();
+        newCommitTimestamps.clear();
+        cells.clear();
+        cellTxns.clear();
+        purged.clear();
         long maxTombstone = 0;
+        long visibleTombstone = 0;
+        long visibleAntiTombstone = 0;
         Iterator<TxnView> it = txns.iterator();
-        for (Cell aRawList : rawList) {
+        for (Cell element : rawList) {
             TxnView txn = it.next();
-            long t = mutate(aRawList, txn);
-            if (t > maxTombstone) {
-                maxTombstone = t;
+            final CellType cellType = getKeyValueType(element);
+            if (cellType == CellType.COMMIT_TIMESTAMP) {
+                commitTimestamps.add(element);
+                continue;
+            }
+            if (!mutateCommitTimestamp(element, txn))
+                continue;
+            cells.add(element);
+            cellTxns.add(txn);
+            long timestamp = element.getTimestamp();
+            if (cellType == CellType.TOMBSTONE) {
+                maxTombstone = Math.max(maxTombstone, timestamp);
+                if (isVisibleToAll(txn))
+                    visibleTombstone = Math.max(visibleTombstone, timestamp);
+            } else if (cellType == CellType.ANTI_TOMBSTONE && isVisibleToAll(txn)) {
+                visibleAntiTombstone = Math.max(visibleAntiTombstone, timestamp);
             }
         }
         if (purgeDeletedRows && maxTombstone > 0) {
             removeTombStone(maxTombstone);
+        } else if (gcWatermark > 0) {
+            collectGarbage(visibleTombstone, visibleAntiTombstone);
         }
-        results.addAll(dataToReturn);
+        write(results);
     }
 
     private void removeTombStone(long maxTombstone) {
-        SortedSet<Cell> cp = (SortedSet<Cell>)((TreeSet<Cell>)dataToReturn).clone();
-        for (Cell element : cp) {
+        for (int i = 0; i < cells.size(); i++) {
+            if (cells.get(i).getTimestamp() <= maxTombstone)
+                purged.set(i);
+        }
+        commitTimestamps.removeIf(element -> element.getTimestamp() <= maxTombstone);
+        newCommitTimestamps.removeIf(element -> element.getTimestamp() <= maxTombstone);
+    }
+
+    /**
+     * Mark the versions of the row which no transaction can see any more.
+     *
+     * Readers ignore data at or below the newest tombstone they can see, and below the newest anti-tombstone they
+     * can see; a (anti-)tombstone committed before the watermark is seen by every transaction, so everything it
+     * hides can go, along with the older (anti-)tombstones. It stays itself, since older data may still live in
+     * files which aren't part of this compaction.
+     */
+    private void collectGarbage(long visibleTombstone, long visibleAntiTombstone) throws IOException {
+        long newestMarker = Math.max(visibleTombstone, visibleAntiTombstone);
+        markers.clear();
+        collapsible.clear();
+        boolean collapsing = collapseVersions;
+        for (int i = 0; i < cells.size(); i++) {
+            Cell element = cells.get(i);
             long timestamp = element.getTimestamp();
-            if (timestamp <= maxTombstone) {
-                dataToReturn.remove(element);
+            switch (getKeyValueType(element)) {
+                case TOMBSTONE:
+                case ANTI_TOMBSTONE:
+                    if (timestamp < newestMarker)
+                        purged.set(i);
+                    else
+                        markers.add(timestamp);
+                    break;
+                case USER_DATA:
+                    if (timestamp <= visibleTombstone || timestamp < visibleAntiTombstone) {
+                        purged.set(i);
+                    } else if (collapsing) {
+                        /*
+                         * Collapse the newest run of versions which everyone sees, as long as no (anti-)tombstone
+                         * falls between two of them
+                         */
+                        boolean visible = isVisibleToAll(cellTxns.get(i)) && element.getValueLength() > 0;
+                        if (visible && (collapsible.isEmpty() || !hasMarkerBetween(timestamp, cells.get(collapsible.get(collapsible.size() - 1)).getTimestamp()))) {
+                            collapsible.add(i);
+                        } else if (!collapsible.isEmpty()) {
+                            collapsing = false;
+                        }
+                    }
+                    break;
+                default:
+                    // foreign key counters and unknown columns are always kept
+            }
+        }
+        if (collapsible.size() > 1)
+            collapse();
+
+        /*
+         * Commit timestamps are only a cache of the transaction table, so the ones left without any version
+         * can go too
+         */
+        purgedTimestamps.clear();
+        keptTimestamps.clear();
+        int count = 0;
+        for (int i = 0; i < cells.size(); i++) {
+            long timestamp = cells.get(i).getTimestamp();
+            if (purged.get(i)) {
+                purgedTimestamps.add(timestamp);
+                count++;
+            } else
+                keptTimestamps.add(timestamp);
+        }
+        if (count > 0) {
+            commitTimestamps.removeIf(element -> purgedTimestamps.contains(element.getTimestamp()) && !keptTimestamps.contains(element.getTimestamp()));
+            newCommitTimestamps.removeIf(element -> purgedTimestamps.contains(element.getTimestamp()) && !keptTimestamps.contains(element.getTimestamp()));
+            context.recordVersionsPurged(count);
+        }
+    }
+
+    private boolean hasMarkerBetween(long older, long newer) {
+        for (int i = 0; i < markers.size(); i++) {
+            long marker = markers.get(i);
+            if (marker >= older && marker <= newer)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Merge the collapsible versions into the newest of them, the same way readers merge them: the newest value of
+     * each column wins.
+     */
+    private void collapse() throws IOException {
+        for (int i = 0; i < collapsible.size(); i++) {
+            Cell version = cells.get(collapsible.get(i));
+            decoder.set(version.getValueArray(), version.getValueOffset(), version.getValueLength());
+            if (decoder.getCurrentIndex().length() > MAX_COLLAPSIBLE_COLUMNS) {
+                accumulator.reset();
+                return;
             }
+            EntryPredicateFilter.emptyPredicate().match(decoder, accumulator);
+        }
+        byte[] value = accumulator.finish();
+        accumulator.reset();
+
+        int newest = collapsible.get(0);
+        Cell element = cells.get(newest);
+        cells.set(newest, new KeyValue(element.getRowArray(),
+                element.getRowOffset(),
+                element.getRowLength(),
+                element.getFamilyArray(),element.getFamilyOffset(),element.getFamilyLength(),
+                element.getQualifierArray(),element.getQualifierOffset(),element.getQualifierLength(),
+                element.getTimestamp(),KeyValue.Type.Put,
+                value,0,value.length));
+        for (int i = 1; i < collapsible.size(); i++) {
+            purged.set(collapsible.get(i));
         }
     }
+
     /**
-     * Apply SI mutation logic to an individual key-value. Return the "new" key-value.
+     * Write out the row: the commit timestamp column, the existing commit timestamps winning over the ones we
+     * added, in its sorted position among the remaining cells.
      */
-    private long mutate(Cell element, TxnView txn) throws IOException {
-        final CellType cellType= getKeyValueType(element);
-        long timestamp = element.getTimestamp();
-        switch (cellType) {
-            case COMMIT_TIMESTAMP:
-                dataToReturn.add(element);
-                return 0;
-            default:
-                if(mutateCommitTimestamp(element,txn))
-                    dataToReturn.add(element);
-                if (cellType == CellType.TOMBSTONE) {
-                    return timestamp;
-                }
-                else {
-                    return 0;
-                }
+    private void write(List<Cell> results) {
+        Collections.sort(newCommitTimestamps, NEWEST_FIRST);
+        Cell firstCommit = null;
+        if (!commitTimestamps.isEmpty())
+            firstCommit = commitTimestamps.get(0);
+        if (!newCommitTimestamps.isEmpty() && (firstCommit == null || newCommitTimestamps.get(0).getTimestamp() > firstCommit.getTimestamp()))
+            firstCommit = newCommitTimestamps.get(0);
+
+        boolean commitsWritten = firstCommit == null;
+        for (int i = 0; i < cells.size(); i++) {
+            if (purged.get(i))
+                continue;
+            Cell element = cells.get(i);
+            if (!commitsWritten && KeyValue.COMPARATOR.compare(firstCommit, element) < 0) {
+                writeCommitTimestamps(results);
+                commitsWritten = true;
+            }
+            results.add(element);
         }
+        if (!commitsWritten)
+            writeCommitTimestamps(results);
+    }
+
+    private void writeCommitTimestamps(List<Cell> results) {
+        int existing = 0;
+        int added = 0;
+        while (existing < commitTimestamps.size() || added < newCommitTimestamps.size()) {
+            if (added == newCommitTimestamps.size()) {
+                results.add(commitTimestamps.get(existing++));
+                continue;
+            }
+            Cell newCommit = newCommitTimestamps.get(added);
+            if (existing == commitTimestamps.size()) {
+                added++;
+                addCommitTimestamp(newCommit, results);
+                continue;
+            }
+            Cell existingCommit = commitTimestamps.get(existing);
+            if (existingCommit.getTimestamp() >= newCommit.getTimestamp()) {
+                if (existingCommit.getTimestamp() == newCommit.getTimestamp())
+                    added++;
+                results.add(existingCommit);
+                existing++;
+            } else {
+                added++;
+                addCommitTimestamp(newCommit, results);
+            }
+        }
+    }
+
+    private void addCommitTimestamp(Cell commit, List<Cell> results) {
+        // the same transaction may have written several columns of the row
+        if (!results.isEmpty()) {
+            Cell last = results.get(results.size() - 1);
+            if (last.getTimestamp() == commit.getTimestamp() && getKeyValueType(last) == CellType.COMMIT_TIMESTAMP && CellUtil.matchingRow(last, commit))
+                return;
+        }
+        results.add(commit);
+    }
+
+    /**
+     * @return whether every transaction active on the cluster, and every one to come, sees the writes of the
+     * transaction
+     */
+    private boolean isVisibleToAll(TxnView txn) {
+        if (txn == null || txn.getState() != Txn.State.COMMITTED || txn.getParentTxnView() != Txn.ROOT_TRANSACTION)
+            return false;
+        long commitTimestamp = txn.getEffectiveCommitTimestamp();
+        return commitTimestamp > 0 && commitTimestamp < gcWatermark;
     }
 
     private void ensureTransactionCached(long timestamp,Cell element) {
@@ -150,7 +384,7 @@ public class SICompactionState {
              * commit timestamp can be placed on it.
              */
             long globalCommitTimestamp = txn.getEffectiveCommitTimestamp();
-            dataToReturn.add(newTransactionTimeStampKeyValue(element, Bytes.toBytes(globalCommitTimestamp)));
+            newCommitTimestamps.add(newTransactionTimeStampKeyValue(element, Bytes.toBytes(globalCommitTimestamp)));
         }
         // Committed or active, return the original data too
         return true;
@@ -32,6 +32,7 @@ public class SimpleCompactionContext implements CompactionContext {
     private AtomicLong recordResolutionRejected = new AtomicLong();
     private AtomicLong recordRPC = new AtomicLong();
     private AtomicLong timeBlocked = new AtomicLong();
+    private AtomicLong versionsPurged = new AtomicLong();
 
     @Override
     public void readData() {
@@ -88,6 +89,11 @@ public class SimpleCompactionContext implements CompactionContext {
         timeBlocked.addAndGet(duration);
     }
 
+    @Override
+    public void recordVersionsPurged(long cells) {
+        versionsPurged.addAndGet(cells);
+    }
+
     @Override
     public String toString() {
         return "SimpleCompactionContext{" +
@@ -101,6 +107,7 @@ public class SimpleCompactionContext implements CompactionContext {
                 ", recordResolutionRejected=" + recordResolutionRejected +
                 ", recordRPC=" + recordRPC +
                 ", timeBlocked(ms)=" + timeBlocked +
+                ", versionsPurged=" + versionsPurged +
                 '}';
     }
 }
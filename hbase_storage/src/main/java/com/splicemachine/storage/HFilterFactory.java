@@ -15,9 +15,15 @@
 package com.splicemachine.storage;
 
 import com.splicemachine.derby.hbase.AllocatedFilter;
+import com.splicemachine.utils.Pair;
 import org.apache.hadoop.hbase.filter.CompareFilter;
+import org.apache.hadoop.hbase.filter.MultiRowRangeFilter;
 import org.apache.hadoop.hbase.filter.SingleColumnValueFilter;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * @author Scott Fines
  *         Date: 12/18/15
@@ -38,4 +44,13 @@ public class HFilterFactory implements DataFilterFactory{
     public DataFilter allocatedFilter(byte[] localAddress){
         return new HFilterWrapper(new AllocatedFilter(localAddress));
     }
+
+    @Override
+    public DataFilter rowRangesFilter(List<Pair<byte[],byte[]>> ranges) throws IOException{
+        List<MultiRowRangeFilter.RowRange> rowRanges = new ArrayList<>(ranges.size());
+        for(Pair<byte[],byte[]> range:ranges){
+            rowRanges.add(new MultiRowRangeFilter.RowRange(range.getFirst(),true,range.getSecond(),false));
+        }
+        return new HFilterWrapper(new MultiRowRangeFilter(rowRanges));
+    }
 }
@@ -18,6 +18,7 @@ import org.apache.hadoop.hbase.exceptions.ConnectionClosingException;
 import org.spark_project.guava.base.Function;
 import com.splicemachine.si.impl.HRegionTooBusy;
 
+import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.DroppedSnapshotException;
 import org.spark_project.guava.collect.Iterators;
 import com.splicemachine.kvpair.KVPair;
@@ -195,6 +196,46 @@ public class RegionPartition implements Partition{
         }
     }
 
+    @Override
+    public DataResult[] getLatest(byte[][] sortedKeys) throws IOException{
+        DataResult[] results=new DataResult[sortedKeys.length];
+        if(sortedKeys.length==0) return results;
+        /*
+         * A Get is a single-row scan, so fetching each row separately positions a new scanner over every
+         * store file for every row. Instead, open a single scanner over the range of the keys, and seek it
+         * forward from one key to the next.
+         */
+        Scan s=new Scan(sortedKeys[0],Bytes.add(sortedKeys[sortedKeys.length-1],new byte[]{0}));
+        s.setMaxVersions(1);
+
+        try(RegionScanner scanner=region.getScanner(s)){
+            List<Cell> row=new ArrayList<>();
+            boolean moreRows=true;
+            for(int i=0;i<sortedKeys.length;i++){
+                byte[] key=sortedKeys[i];
+                int compare=row.isEmpty()?-1:compareRow(row.get(0),key);
+                if(compare<0 && moreRows){
+                    //the scanner is behind this key, so move it forward
+                    row=new ArrayList<>();
+                    if(i>0)
+                        scanner.reseek(key);
+                    moreRows=scanner.next(row);
+                    compare=row.isEmpty()?1:compareRow(row.get(0),key);
+                }
+                results[i]=new HResult(compare==0?Result.create(row):Result.create(Collections.<Cell>emptyList()));
+            }
+            return results;
+        }catch(NotServingRegionException | ConnectionClosingException | AssertionError | NullPointerException nsre){
+            throw new HNotServingRegion(nsre.getMessage());
+        }catch(WrongRegionException wre){
+            throw new HWrongRegion(wre.getMessage());
+        }
+    }
+
+    private static int compareRow(Cell cell,byte[] key){
+        return Bytes.compareTo(cell.getRowArray(),cell.getRowOffset(),cell.getRowLength(),key,0,key.length);
+    }
+
     @Override
     public DataResult getLatest(byte[] rowKey,byte[] family,DataResult previous) throws IOException{
         Get g=new Get(rowKey);
@@ -89,6 +89,15 @@ public abstract class SkeletonHBaseClientPartition implements Partition{
         return previous;
     }
 
+    @Override
+    public DataResult[] getLatest(byte[][] sortedKeys) throws IOException{
+        DataResult[] results=new DataResult[sortedKeys.length];
+        for(int i=0;i<sortedKeys.length;i++){
+            results[i]=getLatest(sortedKeys[i],null);
+        }
+        return results;
+    }
+
     @Override
     public DataResult getLatest(byte[] rowKey,byte[] family,DataResult previous) throws IOException{
         Get g = new Get(rowKey);
@@ -60,7 +60,9 @@ public class ZkTimestampSource implements TimestampSource {
 		    	LOG.info("Creating the TimestampClient...");
                 HBaseConnectionFactory hbcf = HBaseConnectionFactory.getInstance(config);
                 _tc = new TimestampClient(timeout,
-                        new HBaseTimestampHostProvider(hbcf,timestampPort));
+                        new HBaseTimestampHostProvider(hbcf,timestampPort),
+                        config.getTimestampClientBatchSize(),
+                        config.getTimestampClientMaxInFlight());
     		}
     	}
     }
@@ -23,6 +23,7 @@ import org.apache.hadoop.hbase.HRegionInfo;
 import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.client.*;
 import org.apache.hadoop.hbase.regionserver.HRegion;
+import org.apache.hadoop.hbase.regionserver.OperationStatus;
 import org.apache.hadoop.hbase.regionserver.RegionScanner;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.mockito.invocation.InvocationOnMock;
@@ -46,7 +47,7 @@ public class MockRegionUtils{
 
     public static HRegion getMockRegion() throws IOException{
         final Map<byte[], Set<Cell>> rowMap = new TreeMap(Bytes.BYTES_COMPARATOR);
-        HRegion fakeRegion=mock(HRegion.class);
+        final HRegion fakeRegion=mock(HRegion.class);
         HRegionInfo fakeInfo=mock(HRegionInfo.class);
         when(fakeInfo.getStartKey()).thenReturn(HConstants.EMPTY_BYTE_ARRAY);
         when(fakeInfo.getEndKey()).thenReturn(HConstants.EMPTY_BYTE_ARRAY);
@@ -151,6 +152,22 @@ public class MockRegionUtils{
         };
         doAnswer(deleteAnswer).when(fakeRegion).delete(any(Delete.class));
 
+        when(fakeRegion.batchMutate(any(Mutation[].class))).thenAnswer(new Answer<OperationStatus[]>(){
+            @Override
+            public OperationStatus[] answer(InvocationOnMock invocationOnMock) throws Throwable{
+                Mutation[] mutations=(Mutation[])invocationOnMock.getArguments()[0];
+                OperationStatus[] statuses=new OperationStatus[mutations.length];
+                for(int i=0;i<mutations.length;i++){
+                    if(mutations[i] instanceof Put)
+                        fakeRegion.put((Put)mutations[i]);
+                    else
+                        fakeRegion.delete((Delete)mutations[i]);
+                    statuses[i]=OperationStatus.SUCCESS;
+                }
+                return statuses;
+            }
+        });
+
         when(fakeRegion.getScanner(any(Scan.class))).thenAnswer(new Answer<RegionScanner>(){
 
             @Override
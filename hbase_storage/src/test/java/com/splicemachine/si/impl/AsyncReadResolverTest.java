@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.si.impl;
+
+import com.splicemachine.encoding.Encoding;
+import com.splicemachine.si.api.readresolve.AsyncReadResolver;
+import com.splicemachine.si.api.readresolve.KeyedReadResolver;
+import com.splicemachine.si.api.readresolve.ReadResolver;
+import com.splicemachine.si.api.readresolve.RollForward;
+import com.splicemachine.si.api.txn.TxnSupplier;
+import com.splicemachine.si.impl.rollforward.RollForwardStatus;
+import com.splicemachine.storage.Partition;
+import com.splicemachine.utils.ByteSlice;
+import com.splicemachine.utils.GreenLight;
+import com.splicemachine.utils.TrafficControl;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the batching of the asynchronous read resolver. Read resolution is only batched when it is
+ * enabled with a positive {@code splice.txn.readresolver.queueSize}; otherwise reads are not resolved at all.
+ */
+public class AsyncReadResolverTest{
+
+    @Test
+    public void testRowsOfARegionAreResolvedWithOneSortedBatch() throws Exception{
+        RecordingResolver keyed=new RecordingResolver();
+        AsyncReadResolver asyncResolver=new AsyncReadResolver(1,16,1024,0,
+                mock(TxnSupplier.class),new RollForwardStatus(),GreenLight.INSTANCE,keyed);
+        ReadResolver resolver=asyncResolver.getResolver(mock(Partition.class),mock(RollForward.class));
+        try{
+            //submitted before the handler starts, so they are all handled as a single disruptor batch
+            resolver.resolve(ByteSlice.wrap(Encoding.encode("row2")),0x200L);
+            resolver.resolve(ByteSlice.wrap(Encoding.encode("row1")),0x100L);
+            resolver.resolve(ByteSlice.wrap(Encoding.encode("row2")),0x200L);
+            asyncResolver.start();
+            long deadline=System.currentTimeMillis()+10000L;
+            while(asyncResolver.getResolvedRows()<2 && System.currentTimeMillis()<deadline)
+                Thread.sleep(10L);
+        }finally{
+            asyncResolver.shutdown();
+        }
+
+        Assert.assertEquals("Incorrect resolved count!",2,asyncResolver.getResolvedRows());
+        Assert.assertEquals("Incorrect number of batches!",1,keyed.batches.size());
+        ByteSlice[] batch=keyed.batches.get(0);
+        Assert.assertEquals("Duplicate rows should be written once!",2,batch.length);
+        Assert.assertArrayEquals("Rows should be sorted!",Encoding.encode("row1"),batch[0].getByteCopy());
+        Assert.assertArrayEquals("Rows should be sorted!",Encoding.encode("row2"),batch[1].getByteCopy());
+        Assert.assertEquals("Incorrect duplicate count!",1,asyncResolver.getDuplicateResolutions());
+    }
+
+    private static class RecordingResolver implements KeyedReadResolver{
+        private final List<ByteSlice[]> batches=new ArrayList<>();
+
+        @Override
+        public boolean resolve(Partition region,ByteSlice rowKey,long txnId,TxnSupplier txnSupplier,
+                               RollForwardStatus status,boolean failOnError,TrafficControl trafficControl){
+            throw new UnsupportedOperationException("rows should be resolved in batches");
+        }
+
+        @Override
+        public boolean[] resolveBatch(Partition region,ByteSlice[] rowKeys,long[] txnIds,TxnSupplier txnSupplier,
+                                      RollForwardStatus status,boolean failOnError,TrafficControl trafficControl){
+            synchronized(batches){
+                batches.add(rowKeys);
+            }
+            boolean[] resolved=new boolean[rowKeys.length];
+            Arrays.fill(resolved,true);
+            return resolved;
+        }
+    }
+}
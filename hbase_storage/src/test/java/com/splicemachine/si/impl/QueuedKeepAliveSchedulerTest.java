@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2012 - 2017 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.si.impl;
+
+import com.carrotsearch.hppc.LongHashSet;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnStore;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.Arrays;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests that the QueuedKeepAliveScheduler refreshes the transactions of a bucket together.
+ */
+public class QueuedKeepAliveSchedulerTest{
+
+    @Test
+    public void testTransactionsOfABucketAreKeptAliveTogether() throws Exception{
+        TxnStore store=mock(TxnStore.class);
+        when(store.keepAlive(any(long[].class),any(LongHashSet.class))).thenAnswer(new Answer<long[]>(){
+            @Override
+            public long[] answer(InvocationOnMock invocation) throws Throwable{
+                return (long[])invocation.getArguments()[0];
+            }
+        });
+
+        QueuedKeepAliveScheduler scheduler=new QueuedKeepAliveScheduler(1000l,100000l,1,store);
+        try{
+            //all three transactions live in the first bucket of the transaction table
+            scheduler.scheduleKeepAlive(activeTxn(0x1000l));
+            scheduler.scheduleKeepAlive(activeTxn(0x2000l));
+            scheduler.scheduleKeepAlive(activeTxn(0x3000l));
+            Assert.assertEquals("Incorrect number of live transactions!",3,scheduler.getLiveTransactionCount(0));
+
+            ArgumentCaptor<long[]> txnIds=ArgumentCaptor.forClass(long[].class);
+            verify(store,timeout(5000).atLeastOnce()).keepAlive(txnIds.capture(),any(LongHashSet.class));
+            long[] keptAlive=txnIds.getAllValues().get(0);
+            Arrays.sort(keptAlive);
+            Assert.assertArrayEquals("Transactions were not kept alive together!",new long[]{0x1000l,0x2000l,0x3000l},keptAlive);
+        }finally{
+            scheduler.stop();
+        }
+    }
+
+    @Test
+    public void testTimedOutTransactionIsRolledBack() throws Exception{
+        TxnStore store=mock(TxnStore.class);
+        when(store.keepAlive(any(long[].class),any(LongHashSet.class))).thenAnswer(new Answer<long[]>(){
+            @Override
+            public long[] answer(InvocationOnMock invocation) throws Throwable{
+                LongHashSet timedOut=(LongHashSet)invocation.getArguments()[1];
+                timedOut.add(0x1000l);
+                return new long[]{0x2000l};
+            }
+        });
+
+        QueuedKeepAliveScheduler scheduler=new QueuedKeepAliveScheduler(1000l,100000l,1,store);
+        try{
+            Txn timedOut=activeTxn(0x1000l);
+            Txn active=activeTxn(0x2000l);
+            scheduler.scheduleKeepAlive(timedOut);
+            scheduler.scheduleKeepAlive(active);
+
+            verify(timedOut,timeout(5000)).rollback();
+            Assert.assertEquals("Timed out transaction is still kept alive!",1,scheduler.getLiveTransactionCount(0));
+        }finally{
+            scheduler.stop();
+        }
+    }
+
+    private static Txn activeTxn(long txnId){
+        Txn txn=mock(Txn.class);
+        when(txn.getTxnId()).thenReturn(txnId);
+        when(txn.getEffectiveState()).thenReturn(Txn.State.ACTIVE);
+        return txn;
+    }
+}
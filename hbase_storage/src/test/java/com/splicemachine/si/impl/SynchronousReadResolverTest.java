@@ -33,6 +33,7 @@ import com.splicemachine.si.impl.txn.WritableTxn;
 import com.splicemachine.storage.DataFilter;
 import com.splicemachine.storage.HCell;
 import com.splicemachine.storage.RegionPartition;
+import com.splicemachine.utils.ByteSlice;
 import com.splicemachine.utils.GreenLight;
 import com.splicemachine.utils.TrafficControl;
 import org.apache.hadoop.hbase.Cell;
@@ -219,4 +220,55 @@ public class SynchronousReadResolverTest {
         Assert.assertEquals("Incorrect committed txnId", childTxn.getTxnId(), commitTs.getTimestamp());
         Assert.assertEquals("Incorrect commit timestamp!", childTxn.getEffectiveCommitTimestamp(), Bytes.toLong(CellUtil.cloneValue(commitTs)));
     }
+
+    @Test
+    public void testResolveBatchWritesEachResolvableRow() throws Exception {
+        HRegion region = MockRegionUtils.getMockRegion();
+        RegionPartition rp = new RegionPartition(region);
+
+        TestingTimestampSource timestampSource = new TestingTimestampSource();
+        TxnStore store = new TestingTxnStore(new IncrementingClock(),timestampSource,HExceptionFactory.INSTANCE,Long.MAX_VALUE);
+        ClientTxnLifecycleManager tc = new ClientTxnLifecycleManager(timestampSource,HExceptionFactory.INSTANCE);
+        tc.setTxnStore(store);
+        tc.setKeepAliveScheduler(new ManualKeepAliveScheduler(store));
+
+        Txn committedTxn = tc.beginTransaction(Bytes.toBytes("1184"));
+        Txn rolledBackTxn = tc.beginTransaction(Bytes.toBytes("1184"));
+        Txn activeTxn = tc.beginTransaction(Bytes.toBytes("1184"));
+        Txn[] writers = new Txn[]{committedTxn, rolledBackTxn, activeTxn};
+        ByteSlice[] rowKeys = new ByteSlice[writers.length];
+        long[] txnIds = new long[writers.length];
+        for (int i = 0; i < writers.length; i++) {
+            byte[] rowKey = Encoding.encode("row" + i);
+            Put testPut = new Put(rowKey);
+            testPut.addColumn(SIConstants.DEFAULT_FAMILY_BYTES,
+                    SIConstants.PACKED_COLUMN_BYTES,
+                    writers[i].getTxnId(), Encoding.encode("value" + i));
+            region.put(testPut);
+            rowKeys[i] = ByteSlice.wrap(rowKey);
+            txnIds[i] = writers[i].getTxnId();
+        }
+        committedTxn.commit();
+        rolledBackTxn.rollback();
+
+        RollForwardStatus status = new RollForwardStatus();
+        for (int i = 0; i < writers.length; i++) {
+            status.rowWritten();
+        }
+        boolean[] resolved = SynchronousReadResolver.INSTANCE.resolveBatch(rp, rowKeys, txnIds, store,
+                status, true, GreenLight.INSTANCE);
+        Assert.assertArrayEquals("Incorrect rows resolved!", new boolean[]{true, true, false}, resolved);
+        Assert.assertEquals("Only resolved rows should be counted!", 1, status.getTotalRowsToResolve());
+
+        Result result = region.get(new Get(rowKeys[0].getByteCopy()));
+        Cell commitTs = result.getColumnLatestCell(SIConstants.DEFAULT_FAMILY_BYTES, SIConstants.SNAPSHOT_ISOLATION_COMMIT_TIMESTAMP_COLUMN_BYTES);
+        Assert.assertNotNull("No Commit TS column found!", commitTs);
+        Assert.assertEquals("Incorrect commit timestamp!", committedTxn.getEffectiveCommitTimestamp(), Bytes.toLong(CellUtil.cloneValue(commitTs)));
+
+        result = region.get(new Get(rowKeys[1].getByteCopy()));
+        Assert.assertEquals("Rolled back row was not removed!", 0, result.size());
+
+        result = region.get(new Get(rowKeys[2].getByteCopy()));
+        Assert.assertEquals("Active row should not be resolved!", 1, result.size());
+    }
 }
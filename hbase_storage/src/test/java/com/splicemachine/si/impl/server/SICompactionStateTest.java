@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.si.impl.server;
+
+import com.carrotsearch.hppc.BitSet;
+import com.splicemachine.encoding.MultiFieldDecoder;
+import com.splicemachine.encoding.MultiFieldEncoder;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnSupplier;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.si.impl.txn.ActiveWriteTxn;
+import com.splicemachine.si.impl.txn.CommittedTxn;
+import com.splicemachine.si.impl.txn.RolledBackTxn;
+import com.splicemachine.storage.CellType;
+import com.splicemachine.storage.EntryDecoder;
+import com.splicemachine.storage.EntryEncoder;
+import com.splicemachine.utils.kryo.KryoPool;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Test;
+import org.spark_project.guava.collect.Ordering;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for the garbage collection of versions in SICompactionState.
+ */
+public class SICompactionStateTest {
+    private static final KryoPool kp = new KryoPool(1);
+    private static final byte[] ROW = Bytes.toBytes("row");
+    private static final long WATERMARK = 1000L;
+
+    private final List<Cell> cells = new ArrayList<>();
+    private final List<TxnView> txns = new ArrayList<>();
+
+    @Test
+    public void keepsEveryCommittedVersionWithoutAWatermark() throws IOException {
+        data(200, new CommittedTxn(200, 210), null, "b");
+        data(100, new CommittedTxn(100, 110), "a", "x");
+
+        List<Cell> results = mutate(state(0L, true), false);
+        assertEquals("[COMMIT_TIMESTAMP@200, COMMIT_TIMESTAMP@100, USER_DATA@200, USER_DATA@100]", describe(results));
+    }
+
+    @Test
+    public void purgesVersionsHiddenBehindAVisibleTombstone() throws IOException {
+        commit(100, 110);
+        tombstone(300, new CommittedTxn(300, 310));
+        tombstone(150, new CommittedTxn(150, 160));
+        data(200, new CommittedTxn(200, 210), "b", null);
+        data(100, null, "a", "x");
+
+        List<Cell> results = mutate(state(WATERMARK, false), false);
+        assertEquals("[COMMIT_TIMESTAMP@300, TOMBSTONE@300]", describe(results));
+    }
+
+    @Test
+    public void keepsVersionsHiddenBehindATombstoneSomeoneCannotSee() throws IOException {
+        tombstone(300, new CommittedTxn(300, WATERMARK + 10));
+        data(200, new CommittedTxn(200, 210), "b", null);
+
+        List<Cell> results = mutate(state(WATERMARK, true), false);
+        assertEquals("[COMMIT_TIMESTAMP@300, COMMIT_TIMESTAMP@200, TOMBSTONE@300, USER_DATA@200]", describe(results));
+    }
+
+    @Test
+    public void purgesVersionsBelowAVisibleAntiTombstone() throws IOException {
+        antiTombstone(300, new CommittedTxn(300, 310));
+        tombstone(200, new CommittedTxn(200, 210));
+        data(300, new CommittedTxn(300, 310), "c", "d");
+        data(100, new CommittedTxn(100, 110), "a", "x");
+
+        List<Cell> results = mutate(state(WATERMARK, true), false);
+        assertEquals("[COMMIT_TIMESTAMP@300, ANTI_TOMBSTONE@300, USER_DATA@300]", describe(results));
+    }
+
+    @Test
+    public void collapsesVersionsEveryoneSeesOnMajorCompactions() throws IOException {
+        data(1200, active(1200), "new", null);
+        data(300, new CommittedTxn(300, 310), null, "c");
+        data(200, new CommittedTxn(200, 210), "b", null);
+        data(100, new CommittedTxn(100, 110), "a", "x");
+
+        List<Cell> results = mutate(state(WATERMARK, true), false);
+        assertEquals("[COMMIT_TIMESTAMP@300, USER_DATA@1200, USER_DATA@300]", describe(results));
+        assertArrayEquals(new String[]{"b", "c"}, columns(results.get(2)));
+        assertArrayEquals(new String[]{"new", null}, columns(results.get(1)));
+    }
+
+    @Test
+    public void doesNotCollapseAcrossAnUnresolvedVersion() throws IOException {
+        data(300, new CommittedTxn(300, 310), null, "c");
+        data(200, null, "b", null);
+        data(100, new CommittedTxn(100, 110), "a", "x");
+
+        List<Cell> results = mutate(state(WATERMARK, true), false);
+        assertEquals("[COMMIT_TIMESTAMP@300, COMMIT_TIMESTAMP@100, USER_DATA@300, USER_DATA@200, USER_DATA@100]", describe(results));
+    }
+
+    @Test
+    public void doesNotCollapseOnMinorCompactions() throws IOException {
+        data(200, new CommittedTxn(200, 210), "b", null);
+        data(100, new CommittedTxn(100, 110), "a", "x");
+
+        List<Cell> results = mutate(state(WATERMARK, false), false);
+        assertEquals("[COMMIT_TIMESTAMP@200, COMMIT_TIMESTAMP@100, USER_DATA@200, USER_DATA@100]", describe(results));
+    }
+
+    @Test
+    public void dropsRolledBackVersionsAndKeepsExistingCommitTimestamps() throws IOException {
+        commit(100, 110);
+        tombstone(100, null);
+        data(300, new RolledBackTxn(300), "c", null);
+        data(200, new CommittedTxn(200, 210), "b", null);
+        data(100, new CommittedTxn(100, 120), "a", "x");
+
+        List<Cell> results = mutate(state(0L, false), false);
+        assertEquals("[COMMIT_TIMESTAMP@200, COMMIT_TIMESTAMP@100, TOMBSTONE@100, USER_DATA@200, USER_DATA@100]", describe(results));
+        assertEquals("The existing commit timestamp should be kept", 110L, Bytes.toLong(cellValue(results.get(1))));
+    }
+
+    @Test
+    public void purgesDeletedRows() throws IOException {
+        commit(100, 110);
+        tombstone(200, new CommittedTxn(200, 210));
+        data(300, active(300), "c", null);
+        data(100, new CommittedTxn(100, 110), "a", "x");
+
+        List<Cell> results = mutate(state(WATERMARK, true), true);
+        assertEquals("[USER_DATA@300]", describe(results));
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private SICompactionState state(long watermark, boolean collapseVersions) {
+        return new SICompactionState(mock(TxnSupplier.class), 1024, new SimpleCompactionContext(), null, watermark, collapseVersions);
+    }
+
+    private static TxnView active(long txnId) {
+        return new ActiveWriteTxn(txnId, txnId, Txn.ROOT_TRANSACTION, false, Txn.IsolationLevel.SNAPSHOT_ISOLATION);
+    }
+
+    private List<Cell> mutate(SICompactionState state, boolean purgeDeletedRows) throws IOException {
+        List<Cell> input = new ArrayList<>(cells);
+        List<TxnView> inputTxns = new ArrayList<>(txns);
+        // sort the row the way HBase hands it over, keeping each cell with its transaction
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < input.size(); i++)
+            order.add(i);
+        order.sort((left, right) -> KeyValue.COMPARATOR.compare(input.get(left), input.get(right)));
+        cells.clear();
+        txns.clear();
+        for (int i : order) {
+            cells.add(input.get(i));
+            txns.add(inputTxns.get(i));
+        }
+
+        List<Cell> results = new ArrayList<>();
+        state.mutate(cells, txns, results, purgeDeletedRows);
+        assertTrue("Results are not ordered", Ordering.from(KeyValue.COMPARATOR).isOrdered(results));
+        return results;
+    }
+
+    private String describe(List<Cell> results) {
+        SICompactionState state = state(0L, false);
+        List<String> description = new ArrayList<>();
+        for (Cell cell : results) {
+            CellType type = state.getKeyValueType(cell);
+            description.add(type + "@" + cell.getTimestamp());
+        }
+        return description.toString();
+    }
+
+    private void commit(long timestamp, long commitTimestamp) {
+        add(SIConstants.SNAPSHOT_ISOLATION_COMMIT_TIMESTAMP_COLUMN_BYTES, timestamp, Bytes.toBytes(commitTimestamp), null);
+    }
+
+    private void tombstone(long timestamp, TxnView txn) {
+        add(SIConstants.SNAPSHOT_ISOLATION_TOMBSTONE_COLUMN_BYTES, timestamp, SIConstants.EMPTY_BYTE_ARRAY, txn);
+    }
+
+    private void antiTombstone(long timestamp, TxnView txn) {
+        add(SIConstants.SNAPSHOT_ISOLATION_TOMBSTONE_COLUMN_BYTES, timestamp, SIConstants.SNAPSHOT_ISOLATION_ANTI_TOMBSTONE_VALUE_BYTES, txn);
+    }
+
+    private void data(long timestamp, TxnView txn, String... columns) throws IOException {
+        BitSet setCols = new BitSet();
+        BitSet empty = new BitSet();
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i] != null)
+                setCols.set(i);
+        }
+        EntryEncoder ee = EntryEncoder.create(kp, columns.length, setCols, empty, empty, empty);
+        MultiFieldEncoder encoder = ee.getEntryEncoder();
+        for (String column : columns) {
+            if (column != null)
+                encoder.encodeNext(column);
+        }
+        add(SIConstants.PACKED_COLUMN_BYTES, timestamp, ee.encode(), txn);
+    }
+
+    private void add(byte[] qualifier, long timestamp, byte[] value, TxnView txn) {
+        cells.add(new KeyValue(ROW, SIConstants.DEFAULT_FAMILY_BYTES, qualifier, timestamp, value));
+        txns.add(txn);
+    }
+
+    private static byte[] cellValue(Cell cell) {
+        byte[] value = new byte[cell.getValueLength()];
+        System.arraycopy(cell.getValueArray(), cell.getValueOffset(), value, 0, value.length);
+        return value;
+    }
+
+    private static String[] columns(Cell cell) throws IOException {
+        EntryDecoder decoder = new EntryDecoder();
+        decoder.set(cell.getValueArray(), cell.getValueOffset(), cell.getValueLength());
+        MultiFieldDecoder fields = decoder.getEntryDecoder();
+        String[] columns = new String[2];
+        for (int i = 0; i < columns.length; i++) {
+            if (decoder.isSet(i))
+                columns[i] = fields.decodeNextString();
+        }
+        return columns;
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.storage;
+
+import com.splicemachine.si.constants.SIConstants;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.regionserver.HRegion;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests reading the latest version of several sorted rows of a region at once, against a local region.
+ */
+public class RegionPartitionTest{
+    private final HBaseTestingUtility testUtil=new HBaseTestingUtility();
+    private HRegion region;
+    private RegionPartition partition;
+
+    @Before
+    public void setUp() throws Exception{
+        HTableDescriptor desc=new HTableDescriptor(TableName.valueOf("regionPartitionTest"));
+        desc.addFamily(new HColumnDescriptor(SIConstants.DEFAULT_FAMILY_BYTES));
+        region=testUtil.createLocalHRegion(desc,null,null);
+        partition=new RegionPartition(region);
+        put("b",1L,"b1");
+        put("b",2L,"b2");
+        put("d",1L,"d1");
+        put("f",1L,"f1");
+    }
+
+    @After
+    public void tearDown() throws Exception{
+        HBaseTestingUtility.closeRegionAndWAL(region);
+        testUtil.cleanupTestDir();
+    }
+
+    @Test
+    public void readsExistingAndMissingRows() throws Exception{
+        DataResult[] results=partition.getLatest(keys("a","b","c","d","e","f"));
+        assertMissing(results[0]);
+        assertRow("b","b2",results[1]);
+        assertMissing(results[2]);
+        assertRow("d","d1",results[3]);
+        assertMissing(results[4]);
+        assertRow("f","f1",results[5]);
+    }
+
+    @Test
+    public void readsDuplicateKeys() throws Exception{
+        DataResult[] results=partition.getLatest(keys("b","b","c","c","d","d"));
+        assertRow("b","b2",results[0]);
+        assertRow("b","b2",results[1]);
+        assertMissing(results[2]);
+        assertMissing(results[3]);
+        assertRow("d","d1",results[4]);
+        assertRow("d","d1",results[5]);
+    }
+
+    @Test
+    public void readsKeysPastTheLastRow() throws Exception{
+        DataResult[] results=partition.getLatest(keys("f","g","h"));
+        assertRow("f","f1",results[0]);
+        assertMissing(results[1]);
+        assertMissing(results[2]);
+
+        results=partition.getLatest(keys("x","y"));
+        assertMissing(results[0]);
+        assertMissing(results[1]);
+    }
+
+    @Test
+    public void readsTheSameRowsAsSingleReads() throws Exception{
+        byte[][] keys=keys("a","b","c","d","d","e","f","g");
+        DataResult[] results=partition.getLatest(keys);
+        Assert.assertEquals(keys.length,results.length);
+        for(int i=0;i<keys.length;i++){
+            DataResult single=partition.getLatest(keys[i],null);
+            Assert.assertEquals("Incorrect size for row "+Bytes.toString(keys[i]),single.size(),results[i].size());
+        }
+    }
+
+    @Test
+    public void readsNoKeys() throws Exception{
+        Assert.assertEquals(0,partition.getLatest(new byte[0][]).length);
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private void put(String row,long timestamp,String value) throws Exception{
+        Put put=new Put(Bytes.toBytes(row));
+        put.addColumn(SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.PACKED_COLUMN_BYTES,timestamp,Bytes.toBytes(value));
+        region.put(put);
+    }
+
+    private static byte[][] keys(String... rows){
+        byte[][] keys=new byte[rows.length][];
+        for(int i=0;i<rows.length;i++){
+            keys[i]=Bytes.toBytes(rows[i]);
+        }
+        return keys;
+    }
+
+    private static void assertRow(String row,String value,DataResult result){
+        Assert.assertEquals("Incorrect number of cells for row "+row,1,result.size());
+        Assert.assertArrayEquals("Incorrect row",Bytes.toBytes(row),result.key());
+        DataCell cell=result.latestCell(SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.PACKED_COLUMN_BYTES);
+        Assert.assertNotNull("Missing cell for row "+row,cell);
+        Assert.assertArrayEquals("Incorrect value for row "+row,Bytes.toBytes(value),cell.value());
+    }
+
+    private static void assertMissing(DataResult result){
+        Assert.assertEquals("Row should be missing",0,result.size());
+    }
+}
@@ -103,7 +103,8 @@ public class MSynchronousReadResolver implements KeyedReadResolver{
                     }
                 }
             }
-            status.rowResolved();
+            if(resolved)
+                status.rowResolved();
             return resolved;
         }catch(IOException e){
             LOG.info("Unable to fetch transaction for id "+txnId+", will not resolve",e);
@@ -117,6 +118,16 @@ public class MSynchronousReadResolver implements KeyedReadResolver{
         }
     }
 
+    @Override
+    public boolean[] resolveBatch(Partition region,ByteSlice[] rowKeys,long[] txnIds,TxnSupplier supplier,RollForwardStatus status,boolean failOnError,TrafficControl trafficControl){
+        //the in-memory store has no cheaper batched write, so resolve the rows one at a time
+        boolean[] resolved=new boolean[rowKeys.length];
+        for(int i=0;i<rowKeys.length;i++){
+            resolved[i]=resolve(region,rowKeys[i],txnIds[i],supplier,status,failOnError,trafficControl);
+        }
+        return resolved;
+    }
+
     /******************************************************************************************************************/
     /*private helper methods */
     private void resolveCommitted(Partition region,ByteSlice rowKey,long txnId,long commitTimestamp,boolean failOnError){
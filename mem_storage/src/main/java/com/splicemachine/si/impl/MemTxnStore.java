@@ -101,6 +101,15 @@ public class MemTxnStore implements TxnStore{
         return getTransaction(txnId);
     }
 
+    @Override
+    public TxnView[] getTransactions(long[] txnIds) throws IOException{
+        TxnView[] txns=new TxnView[txnIds.length];
+        for(int i=0;i<txnIds.length;i++){
+            txns[i]=getTransaction(txnIds[i]);
+        }
+        return txns;
+    }
+
 
     @Override
     public boolean transactionCached(long txnId){
@@ -317,6 +326,20 @@ public class MemTxnStore implements TxnStore{
         }
     }
 
+    @Override
+    public long[] keepAlive(long[] txnIds,LongHashSet timedOut) throws IOException{
+        LongArrayList active=new LongArrayList(txnIds.length);
+        for(long txnId:txnIds){
+            try{
+                if(keepAlive(txnId))
+                    active.add(txnId);
+            }catch(MTransactionTimeout tte){
+                timedOut.add(txnId);
+            }
+        }
+        return active.toArray();
+    }
+
     //		@Override
     public void timeout(long txnId) throws IOException{
         rollback(txnId);
@@ -177,6 +177,11 @@ public class TxnPartition implements Partition{
         return basePartition.getLatest(key,previous);
     }
 
+    @Override
+    public DataResult[] getLatest(byte[][] sortedKeys) throws IOException{
+        return basePartition.getLatest(sortedKeys);
+    }
+
     @Override
     public Lock getRowLock(byte[] key,int keyOff,int keyLen) throws IOException{
         return basePartition.getRowLock(key,keyOff,keyLen);
@@ -14,7 +14,11 @@
 
 package com.splicemachine.storage;
 
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.utils.Pair;
+
 import java.io.IOException;
+import java.util.List;
 
 /**
  * @author Scott Fines
@@ -50,4 +54,33 @@ public class MFilterFactory implements DataFilterFactory{
             }
         };
     }
+
+    @Override
+    public DataFilter rowRangesFilter(final List<Pair<byte[],byte[]>> ranges) throws IOException{
+        return new DataFilter(){
+            @Override
+            public ReturnCode filterCell(DataCell keyValue) throws IOException{
+                for(Pair<byte[],byte[]> range:ranges){
+                    if(Bytes.BASE_COMPARATOR.compare(keyValue.keyArray(),keyValue.keyOffset(),keyValue.keyLength(),
+                            range.getSecond(),0,range.getSecond().length)>=0)
+                        continue;
+                    if(Bytes.BASE_COMPARATOR.compare(keyValue.keyArray(),keyValue.keyOffset(),keyValue.keyLength(),
+                            range.getFirst(),0,range.getFirst().length)>=0)
+                        return ReturnCode.INCLUDE;
+                    break;
+                }
+                return ReturnCode.NEXT_ROW;
+            }
+
+            @Override
+            public boolean filterRow() throws IOException{
+                return false;
+            }
+
+            @Override
+            public void reset() throws IOException{
+
+            }
+        };
+    }
 }
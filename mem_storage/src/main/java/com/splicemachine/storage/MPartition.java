@@ -290,6 +290,15 @@ public class MPartition implements Partition{
         return new MResult(results);
     }
 
+    @Override
+    public DataResult[] getLatest(byte[][] sortedKeys) throws IOException{
+        DataResult[] results=new DataResult[sortedKeys.length];
+        for(int i=0;i<sortedKeys.length;i++){
+            results[i]=getLatest(sortedKeys[i],null);
+        }
+        return results;
+    }
+
     @Override
     public Lock getRowLock(byte[] key,int keyOff,int keyLen) throws IOException{
         final ByteBuffer wrap=ByteBuffer.wrap(key,keyOff,keyLen);
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.storage;
+
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.utils.Pair;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Tests the in-memory row ranges filter.
+ */
+public class MFilterFactoryTest{
+    private static final byte[] FAMILY=Bytes.toBytes("V");
+    private static final byte[] QUALIFIER=Bytes.toBytes("7");
+
+    @Test
+    public void includesOnlyRowsInsideARange() throws Exception{
+        DataFilter filter=MFilterFactory.INSTANCE.rowRangesFilter(Arrays.asList(
+                Pair.newPair(Bytes.toBytes("b"),Bytes.toBytes("d")),
+                Pair.newPair(Bytes.toBytes("f"),Bytes.toBytes("g"))));
+
+        assertExcluded(filter,"a");
+        assertIncluded(filter,"b");
+        assertIncluded(filter,"c");
+        assertIncluded(filter,"cz");
+        assertExcluded(filter,"d");
+        assertExcluded(filter,"e");
+        assertIncluded(filter,"f");
+        assertIncluded(filter,"f1");
+        assertExcluded(filter,"g");
+        assertExcluded(filter,"z");
+    }
+
+    @Test
+    public void rangeIncludesItsStartAndExcludesItsStop() throws Exception{
+        DataFilter filter=MFilterFactory.INSTANCE.rowRangesFilter(Collections.singletonList(
+                Pair.newPair(Bytes.toBytes("ab"),Bytes.toBytes("ac"))));
+
+        assertExcluded(filter,"a");
+        assertExcluded(filter,"aa");
+        assertIncluded(filter,"ab");
+        assertIncluded(filter,"ab\u0000");
+        assertIncluded(filter,"abzzz");
+        assertExcluded(filter,"ac");
+    }
+
+    @Test
+    public void neverFiltersAWholeRow() throws Exception{
+        DataFilter filter=MFilterFactory.INSTANCE.rowRangesFilter(Collections.singletonList(
+                Pair.newPair(Bytes.toBytes("b"),Bytes.toBytes("c"))));
+        Assert.assertFalse(filter.filterRow());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private static void assertIncluded(DataFilter filter,String rowKey) throws Exception{
+        Assert.assertEquals("Row "+rowKey+" should be included",DataFilter.ReturnCode.INCLUDE,filter.filterCell(cell(rowKey)));
+    }
+
+    private static void assertExcluded(DataFilter filter,String rowKey) throws Exception{
+        Assert.assertEquals("Row "+rowKey+" should be excluded",DataFilter.ReturnCode.NEXT_ROW,filter.filterCell(cell(rowKey)));
+    }
+
+    private static DataCell cell(String rowKey){
+        return new MCell(Bytes.toBytes(rowKey),FAMILY,QUALIFIER,1L,Bytes.toBytes("v"),CellType.USER_DATA);
+    }
+}
@@ -35,6 +35,7 @@ import com.splicemachine.pipeline.client.WriteCoordinator;
 import com.splicemachine.pipeline.contextfactory.ContextFactoryDriver;
 import com.splicemachine.pipeline.contextfactory.ContextFactoryLoader;
 import com.splicemachine.pipeline.security.AclChecker;
+import com.splicemachine.pipeline.traffic.AdaptiveWriteControl;
 import com.splicemachine.pipeline.traffic.SpliceWriteControl;
 import com.splicemachine.pipeline.traffic.SynchronousWriteControl;
 import com.splicemachine.pipeline.utils.PipelineCompressor;
@@ -88,11 +89,18 @@ public class PipelineDriver{
         this.compressor = compressor;
         this.pipelineMeter= meter;
         this.writePipelineFactory = writePipelineFactory;
-        this.writeControl= new SynchronousWriteControl(
-                config.getMaxDependentWriteThreads(),
-                config.getMaxIndependentWriteThreads(),
-                config.getMaxIndependentWrites(),
-                config.getMaxDependentWrites());
+        if(config.isAdaptiveWriteControl())
+            this.writeControl= new AdaptiveWriteControl(clock,
+                    config.getMaxDependentWriteThreads(),
+                    config.getMaxIndependentWriteThreads(),
+                    config.getMaxDependentWrites(),
+                    config.getMaxIndependentWrites());
+        else
+            this.writeControl= new SynchronousWriteControl(
+                    config.getMaxDependentWriteThreads(),
+                    config.getMaxIndependentWriteThreads(),
+                    config.getMaxDependentWrites(),
+                    config.getMaxIndependentWrites());
         this.pipelineWriter = new PipelineWriter(pef, writePipelineFactory,writeControl,pipelineMeter);
         channelFactory.setWriter(pipelineWriter);
         channelFactory.setPipeline(writePipelineFactory);
@@ -159,6 +167,8 @@ public class PipelineDriver{
         int getMaxDependentWriteCount();
         int getMaxIndependentWriteThreads();
         int getMaxDependentWriteThreads();
+        int getDependentWriteLimit();
+        int getIndependentWriteLimit();
         double getOverallAvgThroughput();
         double get1MThroughput();
         double get5MThroughput();
@@ -176,6 +186,8 @@ public class PipelineDriver{
         @Override public int getMaxIndependentWriteThreads(){ return writeControl.maxIndependentWriteThreads(); }
         @Override public int getMaxDependentWriteCount(){ return writeControl.maxDependentWriteCount(); }
         @Override public int getMaxIndependentWriteCount(){ return writeControl.maxIndependentWriteCount(); }
+        @Override public int getDependentWriteLimit(){ return writeControl.dependentWriteLimit(); }
+        @Override public int getIndependentWriteLimit(){ return writeControl.independentWriteLimit(); }
         @Override public double getOverallAvgThroughput(){ return pipelineMeter.throughput(); }
         @Override public double get1MThroughput(){ return pipelineMeter.oneMThroughput(); }
         @Override public double get5MThroughput(){ return pipelineMeter.fiveMThroughput(); }
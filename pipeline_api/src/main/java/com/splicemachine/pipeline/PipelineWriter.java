@@ -14,6 +14,7 @@
 
 package com.splicemachine.pipeline;
 
+import com.carrotsearch.hppc.cursors.IntObjectCursor;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.conn.Authorizer;
 import com.splicemachine.kvpair.KVPair;
@@ -113,15 +114,18 @@ public class PipelineWriter{
                 LOG.trace("Rejecting "+numBulkWrites+" rows in "+ bws.size()+"writes because the pipeline is too busy");
             rejectAll(bws,result, Code.PIPELINE_TOO_BUSY,null);
             rejectedCount.addAndGet(numBulkWrites);
-            return new BulkWritesResult(result);
+            return new BulkWritesResult(result,writeControl.writeCredits(dependent));
         }
+        long start = System.nanoTime();
+        BulkWritesResult writesResult = null;
         try {
             if (conglomId != -1) {
                 // We have to check privileges
                 int[] privileges = typesToPrivileges(bulkWrites.getTypes());
                 AclCheckerService.getService().checkPermission(bulkWrites.getToken(), conglomId, privileges);
             }
-            return performWrite(bulkWrites,bws,result,indexWriteBufferFactory);
+            writesResult = performWrite(bulkWrites,bws,result,indexWriteBufferFactory);
+            return writesResult;
         } catch (StandardException e) {
             throw new IOException(e);
         } finally {
@@ -135,6 +139,11 @@ public class PipelineWriter{
                     writeControl.finishIndependentWrite(numKVPairs);
                     break;
             }
+            if (writesResult != null) {
+                writeControl.writeComplete(status,numKVPairs,System.nanoTime()-start,isCongested(writesResult));
+                // let the client know how much more we can take right now, so that it can pace itself
+                writesResult.setWriteCredits(writeControl.writeCredits(dependent));
+            }
         }
     }
 
@@ -223,6 +232,22 @@ public class PipelineWriter{
     }
     /* ****************************************************************************************************************/
     /*private helper methods*/
+    /*
+     * A write is congested when one of its regions pushed back, which usually means its memstore is too full
+     */
+    private static boolean isCongested(BulkWritesResult writesResult){
+        for(BulkWriteResult bwr:writesResult.getBulkWriteResults()){
+            WriteResult global = bwr.getGlobalResult();
+            if(global!=null && global.getCode()==Code.REGION_TOO_BUSY)
+                return true;
+            for(IntObjectCursor<WriteResult> failed:bwr.getFailedRows()){
+                if(failed.value.getCode()==Code.REGION_TOO_BUSY)
+                    return true;
+            }
+        }
+        return false;
+    }
+
     private void rejectAll(Collection<BulkWrite> writes, Collection<BulkWriteResult> result, Code status,String msg) {
         for(BulkWrite write:writes){
             pipelineMeter.mark(0,write.getSize());
@@ -226,7 +226,9 @@ public class BulkWriteAction implements Callable<WriteStats>{
              * simply because we were told to wait a bit by the write pipeline (i.e. we were rejected).
              */
             if(ctx.shouldSleep()){
-                clock.sleep(PipelineUtils.getPauseTime(ctx.attemptCount,10),TimeUnit.MILLISECONDS);
+                long pause=pauseTime(ctx,nextWrite);
+                if(pause>0)
+                    clock.sleep(pause,TimeUnit.MILLISECONDS);
             }if(ctx.directRetry)
                 writesToPerform.add(nextWrite);
             else if(ctx.nextWriteSet!=null && !ctx.nextWriteSet.isEmpty()){
@@ -256,6 +258,7 @@ public class BulkWriteAction implements Callable<WriteStats>{
             writeTimer.startTiming();
             BulkWritesResult bulkWritesResult=writer.write(nextWrite,ctx.refreshCache);
             writeTimer.stopTiming();
+            ctx.writeCredits=bulkWritesResult.getWriteCredits();
             Iterator<BulkWrite> bws=nextWrite.getBulkWrites().iterator();
             Collection<BulkWriteResult> results=bulkWritesResult.getBulkWriteResults();
             for(BulkWriteResult bulkWriteResult : results){
@@ -403,6 +406,26 @@ public class BulkWriteAction implements Callable<WriteStats>{
         }
     }
 
+    /**
+     * How long to wait before retrying.
+     *
+     * A server which turned us down because it was busy tells us how many rows it could have taken right then.
+     * Rather than backing off exponentially, we pace ourselves by how far the retry goes over that: if the server
+     * has room for the entire retry we go right away, if it has no room at all we take the full backoff, and in
+     * between we wait in proportion. Retries which need a cache refresh (or servers which give no credits)
+     * always take the full backoff.
+     */
+    private long pauseTime(WriteAttemptContext ctx,BulkWrites nextWrite){
+        long backoff=PipelineUtils.getPauseTime(ctx.attemptCount,10);
+        if(!ctx.rejected || ctx.refreshCache || ctx.writeCredits<0)
+            return backoff;
+        long retryRows=ctx.directRetry?nextWrite.numEntries():(ctx.nextWriteSet==null?0:ctx.nextWriteSet.size());
+        if(ctx.writeCredits>=retryRows)
+            return 0L;
+        double shortfall=1d-(double)ctx.writeCredits/retryRows;
+        return (long)(backoff*shortfall);
+    }
+
     /**
      * Return an error message describing the types and number of failures in the BatchWrite.
      *
@@ -491,6 +514,10 @@ public class BulkWriteAction implements Callable<WriteStats>{
         Collection<KVPair> nextWriteSet;
         boolean directRetry;
         int attemptCount = 0;
+        /*
+         * The write credits of the server's latest answer, or -1 if we don't know them
+         */
+        int writeCredits = -1;
 
         int rejectedCount;
         int failedCount;
@@ -506,6 +533,7 @@ public class BulkWriteAction implements Callable<WriteStats>{
             nextWriteSet = null;
             directRetry = false;
             rejected=false;
+            writeCredits = -1;
         }
 
         void addBulkWrites(Collection<KVPair> writes){
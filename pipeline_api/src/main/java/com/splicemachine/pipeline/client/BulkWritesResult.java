@@ -22,18 +22,39 @@ import java.util.Collection;
  */
 public class BulkWritesResult {
 		private Collection<BulkWriteResult> bulkWriteResults;
+		/*
+		 * The number of rows the server could have taken when it answered, or -1 if it did not say
+		 */
+		private int writeCredits = -1;
 
 		public BulkWritesResult(Collection<BulkWriteResult> bulkWriteResults){
 				this.bulkWriteResults = bulkWriteResults;
 		}
 
+		public BulkWritesResult(Collection<BulkWriteResult> bulkWriteResults,int writeCredits){
+				this.bulkWriteResults = bulkWriteResults;
+				this.writeCredits = writeCredits;
+		}
+
 		public Collection<BulkWriteResult> getBulkWriteResults() {
 				return bulkWriteResults;
 		}
 
+		/**
+		 * @return the number of rows the server was ready to take when it answered this write, or -1 if unknown. Clients
+		 * use this to pace their retries instead of backing off blindly.
+		 */
+		public int getWriteCredits() {
+				return writeCredits;
+		}
+
+		public void setWriteCredits(int writeCredits) {
+				this.writeCredits = writeCredits;
+		}
+
 		@Override
 		public String toString() {
-				StringBuilder sb = new StringBuilder("BulkWritesResult{");
+				StringBuilder sb = new StringBuilder("BulkWritesResult{writeCredits=").append(writeCredits).append(",");
 				boolean first = true;
 				for (BulkWriteResult result:bulkWriteResults) {
 						if(first) first=false;
@@ -32,10 +32,24 @@ import java.util.*;
  *         Date: 1/19/15
  */
 public class PipelineEncoding {
+    /**
+     * Writes each mutation in turn as (type, row key, value).
+     */
+    public static final int VERSION_1 = 1;
+    /**
+     * Lays each BulkWrite out by column: run-length encoded types, front-coded row keys, then values.
+     */
+    public static final int VERSION_2 = 2;
+    public static final int CURRENT_VERSION = VERSION_1;
 
     public static byte[] encode(TxnOperationFactory operationFactory,BulkWrites bulkWrites){
+        return encode(operationFactory,bulkWrites,CURRENT_VERSION);
+    }
+
+    public static byte[] encode(TxnOperationFactory operationFactory,BulkWrites bulkWrites,int version){
         /*
          * The encoding for a BulkWrites is as follows:
+         * Version (1 byte, VERSION_2 only)
          * Txn (1-N bytes)
          * # of BulkWrites (1-N bytes)
          * for 1...# of BulkWrites:
@@ -50,14 +64,20 @@ public class PipelineEncoding {
          * sequence of KVPairs. This means that we can decode the necessary metadata eagerly,
          * but deserialize the KVPairs on an as-needed basis.
          *
+         * VERSION_1 has no version byte; it starts with the encoded length of the Txn, whose
+         * first byte is never below 0x80, so the version byte tells the two apart.
          */
+        if(version!=VERSION_1 && version!=VERSION_2)
+            throw new IllegalArgumentException("Unknown pipeline encoding version "+version);
         byte[] txnBytes = operationFactory.encode(bulkWrites.getTxn());
         byte[] token = bulkWrites.getToken();
         if (token == null)
             token = new byte[0];
 
         int heapSize = bulkWrites.getBufferHeapSize();
-        ExpandingEncoder buffer = new ExpandingEncoder(heapSize+txnBytes.length+token.length);
+        ExpandingEncoder buffer = new ExpandingEncoder(heapSize+txnBytes.length+token.length+1);
+        if(version==VERSION_2)
+            buffer.rawEncode((byte)VERSION_2);
         buffer.rawEncode(txnBytes);
         buffer.rawEncode(token);
 
@@ -75,11 +95,14 @@ public class PipelineEncoding {
         for(BulkWrite bw:bws){
             Collection<KVPair> mutations = bw.getMutations();
             buffer.encode(mutations.size());
-            for(KVPair kvPair:mutations){
-                //TODO -sf- use a run-length encoding for type information here?
-                buffer.rawEncode(kvPair.getType().asByte());
-                buffer.rawEncode(kvPair.rowKeySlice());
-                buffer.rawEncode(kvPair.valueSlice());
+            if(version==VERSION_2)
+                encodeColumns(buffer,mutations);
+            else{
+                for(KVPair kvPair:mutations){
+                    buffer.rawEncode(kvPair.getType().asByte());
+                    buffer.rawEncode(kvPair.rowKeySlice());
+                    buffer.rawEncode(kvPair.valueSlice());
+                }
             }
         }
         return buffer.getBuffer();
@@ -88,6 +111,12 @@ public class PipelineEncoding {
 
     public static BulkWrites decode(TxnOperationFactory operationFactory,byte[] data){
         ExpandedDecoder decoder = new ExpandedDecoder(data);
+        int version = VERSION_1;
+        if(data.length>0 && (data[0]&0xFF)<0x80){
+            version = decoder.rawByte();
+            if(version!=VERSION_2)
+                throw new IllegalArgumentException("Unknown pipeline encoding version "+version);
+        }
         byte[] txnBytes = decoder.rawBytes();
         byte[] token = decoder.rawBytes();
         TxnView txn = operationFactory.decode(txnBytes,0,txnBytes.length);
@@ -101,13 +130,78 @@ public class PipelineEncoding {
             flags[i] = decoder.decodeByte();
         }
 
-        return new BulkWrites(new BulkWriteCol(flags,data,decoder.currentOffset(),stringNames),txn,null,token);
+        return new BulkWrites(new BulkWriteCol(version,flags,data,decoder.currentOffset(),stringNames),txn,null,token);
+    }
+
+    /*
+     * The VERSION_2 body of a single BulkWrite:
+     * # of type runs
+     * for 1...# of type runs:
+     *  type (1 byte), run length
+     * for 1...# of KVPairs:
+     *  length of the prefix shared with the previous row key, rest of the row key
+     * for 1...# of KVPairs:
+     *  value
+     *
+     * Mutations keep their order, since the receiving side applies them in order.
+     */
+    private static void encodeColumns(ExpandingEncoder buffer,Collection<KVPair> mutations){
+        int runs = 0;
+        KVPair.Type lastType = null;
+        for(KVPair kvPair:mutations){
+            if(kvPair.getType()!=lastType){
+                runs++;
+                lastType = kvPair.getType();
+            }
+        }
+        buffer.encode(runs);
+        lastType = null;
+        int runLength = 0;
+        for(KVPair kvPair:mutations){
+            if(kvPair.getType()!=lastType){
+                if(lastType!=null){
+                    buffer.rawEncode(lastType.asByte());
+                    buffer.encode(runLength);
+                }
+                lastType = kvPair.getType();
+                runLength = 0;
+            }
+            runLength++;
+        }
+        if(lastType!=null){
+            buffer.rawEncode(lastType.asByte());
+            buffer.encode(runLength);
+        }
+
+        ByteSlice previous = null;
+        for(KVPair kvPair:mutations){
+            ByteSlice rowKey = kvPair.rowKeySlice();
+            int shared = previous==null?0:sharedPrefix(previous,rowKey);
+            buffer.encode(shared);
+            buffer.rawEncode(rowKey.array(),rowKey.offset()+shared,rowKey.length()-shared);
+            previous = rowKey;
+        }
+        for(KVPair kvPair:mutations){
+            buffer.rawEncode(kvPair.valueSlice());
+        }
     }
 
+    private static int sharedPrefix(ByteSlice left,ByteSlice right){
+        int max = Math.min(left.length(),right.length());
+        byte[] l = left.array();
+        byte[] r = right.array();
+        int lo = left.offset();
+        int ro = right.offset();
+        int i = 0;
+        while(i<max && l[lo+i]==r[ro+i])
+            i++;
+        return i;
+    }
 
     /***********************************************************************************************************/
     /*private helper classes*/
     private static class BulkWriteCol extends AbstractCollection<BulkWrite>{
+        private final int version;
         private final int kvOffset;
         private final List<String> encodedStringNames;
         private final byte[] flags;
@@ -121,7 +215,8 @@ public class PipelineEncoding {
         private transient ExpandedDecoder decoder;
         private transient int lastIndex = 0;
 
-        public BulkWriteCol(byte[] flags, byte[] buffer,int kvOffset, List<String> encodedStringNames) {
+        public BulkWriteCol(int version,byte[] flags, byte[] buffer,int kvOffset, List<String> encodedStringNames) {
+            this.version = version;
             this.kvOffset = kvOffset;
             this.encodedStringNames = encodedStringNames;
             this.buffer = buffer;
@@ -169,23 +264,77 @@ public class PipelineEncoding {
                 String esN = encodedStrings.next();
                 byte elementFlags = flags[index++];
                 int size = decoder.decodeInt();
-                Collection<KVPair> kvPairs = new ArrayList<>(size);
-                KVPair template = new KVPair();
-                ByteSlice rowKeySlice = template.rowKeySlice();
-                ByteSlice valueSlice = template.valueSlice();
-                for(int i=0;i<size;i++){
-                    template.setType(KVPair.Type.decode(decoder.rawByte()));
-                    decoder.sliceNext(rowKeySlice);
-                    decoder.sliceNext(valueSlice);
-                    kvPairs.add(template.shallowClone());
+                Collection<KVPair> kvPairs;
+                if(version==VERSION_2)
+                    kvPairs = decodeColumns(size);
+                else{
+                    kvPairs = new ArrayList<>(size);
+                    KVPair template = new KVPair();
+                    ByteSlice rowKeySlice = template.rowKeySlice();
+                    ByteSlice valueSlice = template.valueSlice();
+                    for(int i=0;i<size;i++){
+                        template.setType(KVPair.Type.decode(decoder.rawByte()));
+                        decoder.sliceNext(rowKeySlice);
+                        decoder.sliceNext(valueSlice);
+                        kvPairs.add(template.shallowClone());
+                    }
                 }
 
-
                 BulkWrite bulkWrite = new BulkWrite(kvPairs, esN, elementFlags);
                 cache.add(bulkWrite);
                 lastIndex=index;
                 return bulkWrite;
             }
+
+            private List<KVPair> decodeColumns(int size){
+                List<KVPair> kvPairs = new ArrayList<>(size);
+                int runs = decoder.decodeInt();
+                for(int r=0;r<runs;r++){
+                    KVPair.Type type = KVPair.Type.decode(decoder.rawByte());
+                    int runLength = decoder.decodeInt();
+                    for(int i=0;i<runLength;i++){
+                        KVPair kvPair = new KVPair();
+                        kvPair.setType(type);
+                        kvPairs.add(kvPair);
+                    }
+                }
+                /*
+                 * Row keys which don't share a prefix with the previous one, and all the values, point into the
+                 * request buffer, as with VERSION_1. The others are rebuilt into a single buffer for the whole
+                 * BulkWrite, so that a long run of front-coded keys costs one allocation.
+                 */
+                int[] shared = new int[kvPairs.size()];
+                int rebuiltLength = 0;
+                int k = 0;
+                for(KVPair kvPair:kvPairs){
+                    shared[k] = decoder.decodeInt();
+                    ByteSlice rowKey = kvPair.rowKeySlice();
+                    decoder.sliceNext(rowKey);
+                    if(shared[k]>0)
+                        rebuiltLength+=shared[k]+rowKey.length();
+                    k++;
+                }
+                byte[] rebuilt = rebuiltLength>0?new byte[rebuiltLength]:null;
+                int rebuiltOffset = 0;
+                ByteSlice previous = null;
+                k = 0;
+                for(KVPair kvPair:kvPairs){
+                    ByteSlice rowKey = kvPair.rowKeySlice();
+                    int prefix = shared[k++];
+                    if(prefix>0){
+                        int length = prefix+rowKey.length();
+                        System.arraycopy(previous.array(),previous.offset(),rebuilt,rebuiltOffset,prefix);
+                        System.arraycopy(rowKey.array(),rowKey.offset(),rebuilt,rebuiltOffset+prefix,rowKey.length());
+                        rowKey.set(rebuilt,rebuiltOffset,length);
+                        rebuiltOffset+=length;
+                    }
+                    previous = rowKey;
+                }
+                for(KVPair kvPair:kvPairs){
+                    decoder.sliceNext(kvPair.valueSlice());
+                }
+                return kvPairs;
+            }
         }
     }
 }
@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.pipeline.traffic;
+
+import com.splicemachine.concurrent.Clock;
+import org.apache.log4j.Logger;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A WriteControl whose limits on the number of rows in flight follow the load of the server.
+ *
+ * The configured write counts are the ceilings of two limits (one for dependent writes, one for independent
+ * writes) which are adjusted with an additive-increase/multiplicative-decrease scheme as writes complete:
+ *
+ * <ul>
+ *     <li>a write which met back pressure from its region (e.g. a memstore too full to take it), or which
+ *     completes while writes have been persistently slower than the best recent writes of the same size, cuts
+ *     the limit of its kind of write by a constant factor. Only writes which started after the last cut can cut the limit again, so a
+ *     single episode of congestion cuts it once rather than once per write in flight.</li>
+ *     <li>any other write grows the limit by about one write's worth of rows per round of writes, as long as
+ *     the limit is actually in use.</li>
+ * </ul>
+ *
+ * Writes are only compared with writes of a similar number of rows, since the fixed cost of each call makes the
+ * latency of a write far from proportional to its size. The best latency of each size is forgotten after a couple
+ * of minutes, so that it follows lasting changes in the cost of writes (e.g. a table gaining an index).
+ *
+ * The thread limits stay fixed. The number of rows that could be admitted right now is handed back to clients as
+ * write credits, so that they can pace their retries rather than back off blindly.
+ */
+public class AdaptiveWriteControl implements SpliceWriteControl{
+    private static final Logger LOG = Logger.getLogger(AdaptiveWriteControl.class);
+    /*
+     * The limits are multiplied by this factor when the server is congested
+     */
+    private static final double DECREASE_FACTOR = 0.75d;
+    /*
+     * A smoothed ratio of the latency of writes to their baseline latency above this counts as congestion
+     */
+    private static final double LATENCY_TOLERANCE = 2.0d;
+    /*
+     * The weight of the latest write in the smoothed latency ratio
+     */
+    private static final double SMOOTHING = 0.1d;
+    /*
+     * Writes are grouped by the power of two of their number of rows, each group with its own baseline
+     */
+    private static final int SIZE_CLASSES = 32;
+    /*
+     * The baseline latency of a group is the lowest latency seen in the current or in the previous window
+     */
+    private static final long BASELINE_WINDOW_NANOS = TimeUnit.MINUTES.toNanos(1);
+    /*
+     * The limits never fall below this fraction of their ceiling
+     */
+    private static final int MIN_LIMIT_DIVISOR = 16;
+
+    private final Clock clock;
+    private volatile WriteStatus currStatus = new WriteStatus(0,0,0,0);
+
+    private volatile int maxDependentWriteThreads;
+    private volatile int maxIndependentWriteThreads;
+    private volatile int maxDependentWriteCount;
+    private volatile int maxIndependentWriteCount;
+
+    private volatile int dependentWriteLimit;
+    private volatile int independentWriteLimit;
+
+    /*fields protected by synchronizing on this*/
+    private final double[] windowMinLatency = new double[SIZE_CLASSES];
+    private final double[] previousWindowMinLatency = new double[SIZE_CLASSES];
+    private long windowStart;
+    private double smoothedLatencyRatio = 1d;
+    private long lastDecrease = Long.MIN_VALUE;
+
+    public AdaptiveWriteControl(Clock clock,
+                                int maxDependentWriteThreads,
+                                int maxIndependentWriteThreads,int maxDependentWriteCount,int maxIndependentWriteCount) {
+        assert (maxDependentWriteThreads >= 0 &&
+                maxIndependentWriteThreads >= 0 &&
+                maxDependentWriteCount >= 0 &&
+                maxIndependentWriteCount >= 0);
+        this.clock = clock;
+        this.maxIndependentWriteThreads = maxIndependentWriteThreads;
+        this.maxDependentWriteThreads = maxDependentWriteThreads;
+        this.maxDependentWriteCount = maxDependentWriteCount;
+        this.maxIndependentWriteCount = maxIndependentWriteCount;
+        this.dependentWriteLimit = maxDependentWriteCount;
+        this.independentWriteLimit = maxIndependentWriteCount;
+        Arrays.fill(windowMinLatency,Double.NaN);
+        Arrays.fill(previousWindowMinLatency,Double.NaN);
+        this.windowStart = clock.nanoTime();
+    }
+
+    @Override
+    public Status performDependentWrite(int writes){
+        synchronized(this){
+            WriteStatus ws = currStatus;
+            if(ws.dependentWriteThreads>maxDependentWriteThreads ||
+                    ws.dependentWriteCount>dependentWriteLimit){
+                return Status.REJECTED;
+            }
+
+            currStatus = WriteStatus.incrementDependentWriteStatus(currStatus,writes);
+            return Status.DEPENDENT;
+        }
+    }
+
+    @Override
+    public boolean finishDependentWrite(int writes){
+        synchronized(this){
+            currStatus = WriteStatus.decrementDependentWriteStatus(currStatus,writes);
+            return true;
+        }
+    }
+
+    @Override
+    public Status performIndependentWrite(int writes){
+        synchronized(this){
+            WriteStatus state = currStatus;
+            if(state.independentWriteThreads>maxIndependentWriteThreads
+                    ||state.independentWriteCount>independentWriteLimit){
+                return performDependentWrite(writes);
+            }else{
+                currStatus = WriteStatus.incrementIndependentWriteStatus(currStatus,writes);
+                return Status.INDEPENDENT;
+            }
+        }
+    }
+
+    @Override
+    public boolean finishIndependentWrite(int writes){
+        synchronized(this){
+            currStatus = WriteStatus.decrementIndependentWriteStatus(currStatus,writes);
+            return true;
+        }
+    }
+
+    @Override
+    public void writeComplete(Status status,int writes,long latencyNanos,boolean congested){
+        if(status==Status.REJECTED) return;
+        boolean dependent = status==Status.DEPENDENT;
+        synchronized(this){
+            long now = clock.nanoTime();
+            if(now-windowStart>=BASELINE_WINDOW_NANOS){
+                System.arraycopy(windowMinLatency,0,previousWindowMinLatency,0,SIZE_CLASSES);
+                Arrays.fill(windowMinLatency,Double.NaN);
+                windowStart = now;
+            }
+            int sizeClass = 31-Integer.numberOfLeadingZeros(Math.max(writes,1));
+            double latency = latencyNanos;
+            if(Double.isNaN(windowMinLatency[sizeClass]) || latency<windowMinLatency[sizeClass])
+                windowMinLatency[sizeClass] = latency;
+            double baselineLatency = windowMinLatency[sizeClass];
+            if(previousWindowMinLatency[sizeClass]<baselineLatency)
+                baselineLatency = previousWindowMinLatency[sizeClass];
+            double latencyRatio = baselineLatency>0d?latency/baselineLatency:1d;
+            smoothedLatencyRatio += (latencyRatio-smoothedLatencyRatio)*SMOOTHING;
+
+            int limit = dependent?dependentWriteLimit:independentWriteLimit;
+            int ceiling = dependent?maxDependentWriteCount:maxIndependentWriteCount;
+            int newLimit = limit;
+            if(congested || smoothedLatencyRatio>LATENCY_TOLERANCE){
+                if(now-latencyNanos>=lastDecrease){
+                    lastDecrease = now;
+                    newLimit = Math.max(Math.max(1,ceiling/MIN_LIMIT_DIVISOR),(int)(limit*DECREASE_FACTOR));
+                }
+            }else{
+                WriteStatus ws = currStatus;
+                int inFlight = (dependent?ws.dependentWriteCount:ws.independentWriteCount)+writes;
+                if(2*(long)inFlight>=limit)
+                    newLimit = (int)Math.min(ceiling,limit+Math.max(1L,(long)writes*writes/Math.max(limit,1)));
+            }
+            newLimit = Math.min(newLimit,ceiling);
+            if(newLimit!=limit){
+                if(LOG.isTraceEnabled())
+                    LOG.trace(String.format("%s write limit %d -> %d: congested=%b, rows=%d, latency=%dns, baselineLatency=%.0fns, smoothedLatencyRatio=%.2f",
+                            dependent?"Dependent":"Independent",limit,newLimit,congested,writes,latencyNanos,baselineLatency,smoothedLatencyRatio));
+                if(dependent)
+                    dependentWriteLimit = newLimit;
+                else
+                    independentWriteLimit = newLimit;
+            }
+        }
+    }
+
+    @Override
+    public int writeCredits(boolean dependent){
+        WriteStatus ws = currStatus;
+        int dependentCredits = Math.max(0,dependentWriteLimit-ws.dependentWriteCount);
+        if(dependent)
+            return dependentCredits;
+        // independent writes may take the room of dependent ones
+        return Math.max(dependentCredits,Math.max(0,independentWriteLimit-ws.independentWriteCount));
+    }
+
+    @Override
+    public WriteStatus getWriteStatus(){
+        return currStatus;
+    }
+
+    @Override
+    public int maxDependendentWriteThreads(){
+        return maxDependentWriteThreads;
+    }
+
+    @Override
+    public int maxIndependentWriteThreads(){
+        return maxIndependentWriteThreads;
+    }
+
+    @Override
+    public int maxDependentWriteCount(){
+        return maxDependentWriteCount;
+    }
+
+    @Override
+    public int maxIndependentWriteCount(){
+        return maxIndependentWriteCount;
+    }
+
+    @Override
+    public int dependentWriteLimit(){
+        return dependentWriteLimit;
+    }
+
+    @Override
+    public int independentWriteLimit(){
+        return independentWriteLimit;
+    }
+
+    @Override
+    public void setMaxIndependentWriteThreads(int newMaxIndependentWriteThreads){
+        this.maxIndependentWriteThreads = newMaxIndependentWriteThreads;
+    }
+
+    @Override
+    public void setMaxDependentWriteThreads(int newMaxDependentWriteThreads){
+        this.maxDependentWriteThreads = newMaxDependentWriteThreads;
+    }
+
+    @Override
+    public void setMaxIndependentWriteCount(int newMaxIndependentWriteCount){
+        synchronized(this){
+            this.maxIndependentWriteCount = newMaxIndependentWriteCount;
+            this.independentWriteLimit = newMaxIndependentWriteCount;
+        }
+    }
+
+    @Override
+    public void setMaxDependentWriteCount(int newMaxDependentWriteCount){
+        synchronized(this){
+            this.maxDependentWriteCount = newMaxDependentWriteCount;
+            this.dependentWriteLimit = newMaxDependentWriteCount;
+        }
+    }
+}
@@ -103,6 +103,20 @@ public class AtomicSpliceWriteControl implements SpliceWriteControl{
         }
     }
 
+    @Override
+    public void writeComplete(Status status,int writes,long latencyNanos,boolean congested){
+        //the limits are fixed
+    }
+
+    @Override
+    public int writeCredits(boolean dependent){
+        WriteStatus ws = writeStatus.get();
+        int dependentCredits = Math.max(0,maxDependentWriteCount-ws.dependentWriteCount);
+        if(dependent)
+            return dependentCredits;
+        return Math.max(dependentCredits,Math.max(0,maxIndependentWriteCount-ws.independentWriteCount));
+    }
+
     @Override
     public WriteStatus getWriteStatus() {
         return writeStatus.get();
@@ -128,6 +142,16 @@ public class AtomicSpliceWriteControl implements SpliceWriteControl{
         return maxIndependentWriteCount;
     }
 
+    @Override
+    public int dependentWriteLimit(){
+        return maxDependentWriteCount;
+    }
+
+    @Override
+    public int independentWriteLimit(){
+        return maxIndependentWriteCount;
+    }
+
     @Override
     public void setMaxIndependentWriteThreads(int newMaxIndependentWriteThreads){
         this.maxIndependentWriteThreads = newMaxIndependentWriteThreads;
@@ -31,6 +31,21 @@ public interface SpliceWriteControl{
 
     boolean finishIndependentWrite(int writes);
 
+    /**
+     * Record how a write admitted by this control went, once it has finished.
+     *
+     * @param status the status the write was admitted with
+     * @param writes the number of rows written
+     * @param latencyNanos how long the write took
+     * @param congested whether the write met back pressure from a region it was written to
+     */
+    void writeComplete(Status status,int writes,long latencyNanos,boolean congested);
+
+    /**
+     * @return the number of rows this control could admit right now, for a dependent or independent write
+     */
+    int writeCredits(boolean dependent);
+
     WriteStatus getWriteStatus();
 
     int maxDependendentWriteThreads();
@@ -41,6 +56,16 @@ public interface SpliceWriteControl{
 
     int maxIndependentWriteCount();
 
+    /**
+     * @return the number of dependent rows in flight above which writes are currently rejected
+     */
+    int dependentWriteLimit();
+
+    /**
+     * @return the number of independent rows in flight above which writes are currently rejected
+     */
+    int independentWriteLimit();
+
     void setMaxIndependentWriteThreads(int newMaxIndependentWriteThreads);
 
     void setMaxDependentWriteThreads(int newMaxDependentWriteThreads);
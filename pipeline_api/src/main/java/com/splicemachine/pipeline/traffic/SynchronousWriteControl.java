@@ -85,6 +85,20 @@ public class SynchronousWriteControl implements SpliceWriteControl{
         }
     }
 
+    @Override
+    public void writeComplete(Status status,int writes,long latencyNanos,boolean congested){
+        //the limits are fixed
+    }
+
+    @Override
+    public int writeCredits(boolean dependent){
+        WriteStatus ws = currStatus;
+        int dependentCredits = Math.max(0,maxDependentWriteCount-ws.dependentWriteCount);
+        if(dependent)
+            return dependentCredits;
+        return Math.max(dependentCredits,Math.max(0,maxIndependentWriteCount-ws.independentWriteCount));
+    }
+
     @Override
     public WriteStatus getWriteStatus(){
         return currStatus;
@@ -110,6 +124,16 @@ public class SynchronousWriteControl implements SpliceWriteControl{
         return maxIndependentWriteCount;
     }
 
+    @Override
+    public int dependentWriteLimit(){
+        return maxDependentWriteCount;
+    }
+
+    @Override
+    public int independentWriteLimit(){
+        return maxIndependentWriteCount;
+    }
+
     @Override
     public void setMaxIndependentWriteThreads(int newMaxIndependentWriteThreads){
         this.maxIndependentWriteThreads = newMaxIndependentWriteThreads;
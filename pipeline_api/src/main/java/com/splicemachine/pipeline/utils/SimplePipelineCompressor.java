@@ -31,17 +31,27 @@ import java.io.IOException;
 public class SimplePipelineCompressor implements PipelineCompressor{
     private final TxnOperationFactory txnOperationFactory;
     private final KryoPool kp;
+    private final int encodingVersion;
 
     public SimplePipelineCompressor(KryoPool kp,TxnOperationFactory txnOperationFactory){
+        this(kp,txnOperationFactory,PipelineEncoding.CURRENT_VERSION);
+    }
+
+    /**
+     * @param encodingVersion the {@link PipelineEncoding} version to write BulkWrites with. BulkWrites
+     *                        of any version are read.
+     */
+    public SimplePipelineCompressor(KryoPool kp,TxnOperationFactory txnOperationFactory,int encodingVersion){
         this.txnOperationFactory = txnOperationFactory;
         this.kp = kp;
+        this.encodingVersion = encodingVersion;
     }
 
     @Override
     public byte[] compress(Object o) throws IOException{
         if(o instanceof BulkWrites){
             BulkWrites bw = (BulkWrites)o;
-            return PipelineEncoding.encode(txnOperationFactory,bw);
+            return PipelineEncoding.encode(txnOperationFactory,bw,encodingVersion);
         }else {
             Output out = new Output(128,-1);
             Kryo kryo = kp.get();
@@ -1,83 +1,148 @@
-//package com.splicemachine.pipeline.client;
-//
-//import com.splicemachine.kvpair.KVPair;
-//import com.splicemachine.primitives.Bytes;
-//import com.splicemachine.si.api.txn.TxnView;
-//import com.splicemachine.si.impl.txn.ActiveWriteTxn;
-//import org.junit.Assert;
-//import org.junit.Test;
-//
-//import java.util.ArrayList;
-//import java.util.Arrays;
-//import java.util.Collection;
-//import java.util.Iterator;
-//
-//TODO -sf- move this to hbase_pipeline
-//public class PipelineEncodingTest {
-//
-//    @Test
-//    public void testCanEncodeAndDecodeASingleBulkWrite() throws Exception {
-//        TxnView txnView = new ActiveWriteTxn(1l,1l);
-//
-//        Collection<BulkWrite> bws = generateBulkWrites(1);
-//        BulkWrites toEncode = new BulkWrites(bws,txnView);
-//
-//        byte[] bytes = PipelineEncoding.encode(toEncode);
-//        BulkWrites decoded = PipelineEncoding.decode(bytes);
-//        assertMatches("Incorrect BulkWrites",toEncode,decoded);
-//    }
-//
-//    @Test
-//    public void testCanEncodeAndDecodeMultipleBulkWrites() throws Exception {
-//        TxnView txnView = new ActiveWriteTxn(1l,1l);
-//
-//        Collection<BulkWrite> bws = generateBulkWrites(10);
-//        BulkWrites toEncode = new BulkWrites(bws,txnView);
-//
-//        byte[] bytes = PipelineEncoding.encode(toEncode);
-//        BulkWrites decoded = PipelineEncoding.decode(bytes);
-//        assertMatches("Incorrect BulkWrites",toEncode,decoded);
-//    }
-//
-//    private void assertMatches(String errorMsgPrefix, BulkWrites correct, BulkWrites actual) {
-//        Assert.assertEquals(errorMsgPrefix+": transaction ids don't match!",correct.getTxn().getTxnId(),actual.getTxn().getTxnId());
-//        Assert.assertEquals(errorMsgPrefix+": transaction write permission doesn't match!",correct.getTxn().allowsWrites(),actual.getTxn().allowsWrites());
-//        Collection<BulkWrite> correctBws = correct.getBulkWrites();
-//        Collection<BulkWrite> actualBws = actual.getBulkWrites();
-//        Assert.assertEquals(errorMsgPrefix+": bulk write size does not match!",correctBws.size(),actualBws.size());
-//        Iterator<BulkWrite> correctIter = correctBws.iterator();
-//        Iterator<BulkWrite> actualIter = actualBws.iterator();
-//        int pos =0;
-//        while(correctIter.hasNext()){
-//            BulkWrite cbw = correctIter.next();
-//            BulkWrite abw = actualIter.next();
-//            Assert.assertEquals(errorMsgPrefix+": Incorrect encodedStringName at pos "+ pos,cbw.getEncodedStringName(),abw.getEncodedStringName());
-//
-//            Collection<KVPair> cKvs = cbw.getMutations();
-//            Collection<KVPair> aKvs = abw.getMutations();
-//            Assert.assertEquals(errorMsgPrefix+": Incorrect kvPair size at pos "+ pos,cKvs.size(),aKvs.size());
-//            Iterator<KVPair> cKvIter = cKvs.iterator();
-//            Iterator<KVPair> aKvIter = aKvs.iterator();
-//            while(cKvIter.hasNext()){
-//                KVPair cKv = cKvIter.next();
-//                KVPair aKv = aKvIter.next();
-//                Assert.assertEquals(errorMsgPrefix+": KVPair row not correct",cKv.rowKeySlice(),aKv.rowKeySlice());
-//                Assert.assertEquals(errorMsgPrefix+": KVPair value not correct",cKv.valueSlice(),aKv.valueSlice());
-//                Assert.assertEquals(errorMsgPrefix+": KVPair type not correct",cKv.getType(),aKv.getType());
-//            }
-//        }
-//    }
-//
-//    private Collection<BulkWrite> generateBulkWrites(int size) {
-//        Collection<BulkWrite> bws = new ArrayList<>(size);
-//        for(int i=0;i<size;i++){
-//            Collection<KVPair> kvPairs = new ArrayList<>(Arrays.asList(
-//                new KVPair(Bytes.toBytes(i), Bytes.toBytes(i + 2),KVPair.Type.INSERT),
-//                new KVPair(Bytes.toBytes(i+1), Bytes.toBytes(Integer.toString(2*i)),KVPair.Type.DELETE),
-//                    new KVPair(Bytes.toBytes(i+2), Bytes.toBytes(i/.2f),KVPair.Type.UPDATE)
-//            ));
-//            bws.add(new BulkWrite(kvPairs,Integer.toString(i)));
-//        }
-//        return bws;
-//    }
-//}
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.pipeline.client;
+
+import com.splicemachine.kvpair.KVPair;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.api.data.TxnOperationFactory;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.impl.txn.ActiveWriteTxn;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@Category(ArchitectureIndependent.class)
+public class PipelineEncodingTest {
+    private static final byte[] TXN_BYTES = new byte[]{1,2,3};
+
+    @Test
+    public void testCanEncodeAndDecodeASingleBulkWrite() throws Exception {
+        for(int version : new int[]{PipelineEncoding.VERSION_1,PipelineEncoding.VERSION_2}){
+            assertRoundTrip("version "+version,generateBulkWrites(1),version);
+        }
+    }
+
+    @Test
+    public void testCanEncodeAndDecodeMultipleBulkWrites() throws Exception {
+        for(int version : new int[]{PipelineEncoding.VERSION_1,PipelineEncoding.VERSION_2}){
+            assertRoundTrip("version "+version,generateBulkWrites(10),version);
+        }
+    }
+
+    @Test
+    public void testCanEncodeAndDecodeEmptyBulkWrites() throws Exception {
+        List<BulkWrite> bws = new ArrayList<>();
+        bws.add(new BulkWrite(new ArrayList<KVPair>(),"empty"));
+        for(int version : new int[]{PipelineEncoding.VERSION_1,PipelineEncoding.VERSION_2}){
+            assertRoundTrip("version "+version,bws,version);
+        }
+    }
+
+    @Test
+    public void testColumnarEncodingIsSmaller() throws Exception {
+        TxnOperationFactory factory = operationFactory(new ActiveWriteTxn(1L,1L,Txn.ROOT_TRANSACTION,false,Txn.IsolationLevel.SNAPSHOT_ISOLATION));
+        BulkWrites toEncode = new BulkWrites(generateBulkWrites(4),new ActiveWriteTxn(1L,1L,Txn.ROOT_TRANSACTION,false,Txn.IsolationLevel.SNAPSHOT_ISOLATION));
+        byte[] v1 = PipelineEncoding.encode(factory,toEncode,PipelineEncoding.VERSION_1);
+        byte[] v2 = PipelineEncoding.encode(factory,toEncode,PipelineEncoding.VERSION_2);
+        Assert.assertTrue("Expected "+v2.length+" < "+v1.length,v2.length<v1.length);
+    }
+
+    private void assertRoundTrip(String errorMsgPrefix,Collection<BulkWrite> bws,int version){
+        TxnView txn = new ActiveWriteTxn(1L,1L,Txn.ROOT_TRANSACTION,false,Txn.IsolationLevel.SNAPSHOT_ISOLATION);
+        TxnOperationFactory factory = operationFactory(txn);
+        BulkWrites toEncode = new BulkWrites(bws,txn,null,Bytes.toBytes("token"));
+
+        byte[] bytes = PipelineEncoding.encode(factory,toEncode,version);
+        BulkWrites decoded = PipelineEncoding.decode(factory,bytes);
+        Assert.assertArrayEquals(errorMsgPrefix+": token doesn't match!",toEncode.getToken(),decoded.getToken());
+        Assert.assertEquals(errorMsgPrefix+": transaction ids don't match!",txn.getTxnId(),decoded.getTxn().getTxnId());
+        assertMatches(errorMsgPrefix,toEncode,decoded);
+        // a second pass must return the same writes
+        assertMatches(errorMsgPrefix+" (second pass)",toEncode,decoded);
+    }
+
+    private static TxnOperationFactory operationFactory(TxnView txn){
+        TxnOperationFactory factory = mock(TxnOperationFactory.class);
+        when(factory.encode(any(TxnView.class))).thenReturn(TXN_BYTES);
+        when(factory.decode(any(byte[].class),anyInt(),anyInt())).thenReturn(txn);
+        return factory;
+    }
+
+    private void assertMatches(String errorMsgPrefix, BulkWrites correct, BulkWrites actual) {
+        Collection<BulkWrite> correctBws = correct.getBulkWrites();
+        Collection<BulkWrite> actualBws = actual.getBulkWrites();
+        Assert.assertEquals(errorMsgPrefix+": bulk write size does not match!",correctBws.size(),actualBws.size());
+        Iterator<BulkWrite> correctIter = correctBws.iterator();
+        Iterator<BulkWrite> actualIter = actualBws.iterator();
+        int pos =0;
+        while(correctIter.hasNext()){
+            BulkWrite cbw = correctIter.next();
+            BulkWrite abw = actualIter.next();
+            Assert.assertEquals(errorMsgPrefix+": Incorrect encodedStringName at pos "+ pos,cbw.getEncodedStringName(),abw.getEncodedStringName());
+            Assert.assertEquals(errorMsgPrefix+": Incorrect flags at pos "+ pos,cbw.getFlags(),abw.getFlags());
+
+            Collection<KVPair> cKvs = cbw.getMutations();
+            Collection<KVPair> aKvs = abw.getMutations();
+            Assert.assertEquals(errorMsgPrefix+": Incorrect kvPair size at pos "+ pos,cKvs.size(),aKvs.size());
+            Iterator<KVPair> cKvIter = cKvs.iterator();
+            Iterator<KVPair> aKvIter = aKvs.iterator();
+            int kvPos = 0;
+            while(cKvIter.hasNext()){
+                KVPair cKv = cKvIter.next();
+                KVPair aKv = aKvIter.next();
+                String msg = errorMsgPrefix+": Incorrect kvPair "+kvPos+" at pos "+pos;
+                Assert.assertEquals(msg,cKv.getType(),aKv.getType());
+                Assert.assertArrayEquals(msg,cKv.getRowKey(),aKv.getRowKey());
+                Assert.assertArrayEquals(msg,cKv.getValue(),aKv.getValue());
+                kvPos++;
+            }
+            pos++;
+        }
+    }
+
+    private Collection<BulkWrite> generateBulkWrites(int size) {
+        Collection<BulkWrite> bws = new ArrayList<>(size);
+        for(int i=0;i<size;i++){
+            bws.add(new BulkWrite(addData(i,10),"region"+i,(byte)(i%3)));
+        }
+        return bws;
+    }
+
+    private Collection<KVPair> addData(int startPoint, int size) {
+        Collection<KVPair> data = new ArrayList<>(size);
+        KVPair.Type[] types = new KVPair.Type[]{KVPair.Type.INSERT,KVPair.Type.INSERT,KVPair.Type.UPSERT,KVPair.Type.DELETE};
+        for(int i=startPoint;i<startPoint+size;i++){
+            byte[] rowKey = Bytes.toBytes("row-with-a-long-common-prefix-"+i);
+            byte[] value = i%5==0?new byte[0]:Bytes.toBytes("value"+i);
+            data.add(new KVPair(rowKey,value,types[i%types.length]));
+        }
+        // keys out of order and a repeated key must survive as they are
+        data.add(new KVPair(Bytes.toBytes("a"),Bytes.toBytes("first"),KVPair.Type.UPDATE));
+        data.add(new KVPair(Bytes.toBytes("a"),Bytes.toBytes("second"),KVPair.Type.UPDATE));
+        return data;
+    }
+}
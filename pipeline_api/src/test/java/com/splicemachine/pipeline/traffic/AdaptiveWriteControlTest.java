@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.pipeline.traffic;
+
+import com.splicemachine.concurrent.IncrementingClock;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.concurrent.TimeUnit;
+
+@Category(ArchitectureIndependent.class)
+public class AdaptiveWriteControlTest{
+    private static final long LATENCY = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final IncrementingClock clock = new IncrementingClock();
+    private final AdaptiveWriteControl control = new AdaptiveWriteControl(clock,10,10,1000,1000);
+
+    @Test
+    public void congestionCutsTheLimitOncePerEpisode(){
+        long firstStart = clock.nanoTime();
+        Assert.assertEquals(SpliceWriteControl.Status.DEPENDENT,control.performDependentWrite(100));
+
+        clock.increment(LATENCY);
+        write(100,true);
+        Assert.assertEquals(750,control.dependentWriteLimit());
+
+        // a write which was already in flight when the limit was cut does not cut it again
+        complete(100,clock.nanoTime()-firstStart,true);
+        Assert.assertEquals(750,control.dependentWriteLimit());
+
+        clock.increment(LATENCY);
+        write(100,true);
+        Assert.assertEquals(562,control.dependentWriteLimit());
+        Assert.assertEquals("Independent writes are limited separately",1000,control.independentWriteLimit());
+    }
+
+    @Test
+    public void limitNeverFallsBelowItsFloor(){
+        for(int i=0;i<100;i++){
+            clock.increment(LATENCY);
+            write(100,true);
+        }
+        Assert.assertEquals(1000/16,control.dependentWriteLimit());
+    }
+
+    @Test
+    public void slowWritesCutTheLimit(){
+        write(100,false);
+        for(int i=0;i<20 && control.dependentWriteLimit()==1000;i++){
+            clock.increment(10*LATENCY);
+            Assert.assertEquals(SpliceWriteControl.Status.DEPENDENT,control.performDependentWrite(100));
+            control.finishDependentWrite(100);
+            control.writeComplete(SpliceWriteControl.Status.DEPENDENT,100,10*LATENCY,false);
+        }
+        Assert.assertTrue("Latency well above the baseline should count as congestion",control.dependentWriteLimit()<1000);
+    }
+
+    @Test
+    public void mixedWriteSizesAreNotCongestion(){
+        // small writes cost far more per row than large ones, because of the fixed cost of each call
+        for(int i=0;i<200;i++){
+            clock.increment(LATENCY);
+            write(2,LATENCY/2);
+            clock.increment(LATENCY);
+            write(500,3*LATENCY);
+        }
+        Assert.assertEquals(1000,control.dependentWriteLimit());
+    }
+
+    @Test
+    public void baselineFollowsLastingChangesInLatency(){
+        write(100,false);
+        for(int i=0;i<150;i++){
+            clock.increment(TimeUnit.SECONDS.toNanos(1));
+            write(100,10*LATENCY);
+        }
+        Assert.assertTrue("Slow writes should have cut the limit",control.dependentWriteLimit()<1000);
+
+        int previous = control.dependentWriteLimit();
+        for(int i=0;i<20;i++){
+            clock.increment(TimeUnit.SECONDS.toNanos(1));
+            write(100,10*LATENCY);
+            int limit = control.dependentWriteLimit();
+            Assert.assertTrue("Once the baseline has caught up, the same latency is no congestion",limit>=previous);
+            previous = limit;
+        }
+    }
+
+    @Test
+    public void limitGrowsBackUnderLoad(){
+        clock.increment(LATENCY);
+        write(100,true);
+        Assert.assertEquals(750,control.dependentWriteLimit());
+
+        // no growth while the limit isn't what bounds the writes
+        write(100,false);
+        Assert.assertEquals(750,control.dependentWriteLimit());
+
+        Assert.assertEquals(SpliceWriteControl.Status.DEPENDENT,control.performDependentWrite(400));
+        int previous = control.dependentWriteLimit();
+        for(int i=0;i<100;i++){
+            write(100,false);
+            int limit = control.dependentWriteLimit();
+            Assert.assertTrue("Limit should not shrink without congestion",limit>=previous);
+            Assert.assertTrue("Limit should never exceed its ceiling",limit<=1000);
+            previous = limit;
+        }
+        Assert.assertEquals(1000,control.dependentWriteLimit());
+        control.finishDependentWrite(400);
+    }
+
+    @Test
+    public void rejectsOverTheLimitAndGrantsTheRemainingCredits(){
+        clock.increment(LATENCY);
+        write(100,true);
+        clock.increment(LATENCY);
+        write(100,true);
+        Assert.assertEquals(562,control.dependentWriteLimit());
+
+        Assert.assertEquals(SpliceWriteControl.Status.DEPENDENT,control.performDependentWrite(500));
+        Assert.assertEquals(62,control.writeCredits(true));
+        Assert.assertEquals(SpliceWriteControl.Status.DEPENDENT,control.performDependentWrite(100));
+        Assert.assertEquals(0,control.writeCredits(true));
+        Assert.assertEquals(SpliceWriteControl.Status.REJECTED,control.performDependentWrite(1));
+        Assert.assertEquals("Independent writes can still take the independent room",1000,control.writeCredits(false));
+        control.finishDependentWrite(600);
+        Assert.assertEquals(562,control.writeCredits(true));
+    }
+
+    @Test
+    public void settingTheCeilingResetsTheLimit(){
+        clock.increment(LATENCY);
+        write(100,true);
+        Assert.assertEquals(750,control.dependentWriteLimit());
+        control.setMaxDependentWriteCount(2000);
+        Assert.assertEquals(2000,control.dependentWriteLimit());
+        Assert.assertEquals(2000,control.maxDependentWriteCount());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private void write(int rows,boolean congested){
+        Assert.assertEquals(SpliceWriteControl.Status.DEPENDENT,control.performDependentWrite(rows));
+        complete(rows,LATENCY,congested);
+    }
+
+    private void write(int rows,long latency){
+        Assert.assertEquals(SpliceWriteControl.Status.DEPENDENT,control.performDependentWrite(rows));
+        complete(rows,latency,false);
+    }
+
+    private void complete(int rows,long latency,boolean congested){
+        control.finishDependentWrite(rows);
+        control.writeComplete(SpliceWriteControl.Status.DEPENDENT,rows,latency,congested);
+    }
+}
@@ -341,4 +341,36 @@ public interface SConfiguration {
     String getOlapLog4jConfig();
 
     int getMaxCheckTableErrors();
+
+    long getControlExecutionSpillMemoryBudget();
+
+    String getControlExecutionSpillDirectory();
+
+    boolean getBroadcastJoinOffHeap();
+
+    int getBroadcastOffHeapFactor();
+
+    int getTimestampClientBatchSize();
+
+    int getTimestampClientMaxInFlight();
+
+    int getReadResolverBatchSize();
+
+    int getReadResolverMaxRowsPerSecond();
+
+    long getBroadcastJoinCacheBytes();
+
+    long getBroadcastJoinCacheIdleMs();
+
+    long getImportSplitSize();
+
+    int getPipelineEncodingVersion();
+
+    boolean isAdaptiveWriteControl();
+
+    boolean isCompactionVersionGC();
+
+    long getCompactionWatermarkRefreshInterval();
+
+    long getControlExecutionExternalReadLimit();
 }
@@ -30,8 +30,12 @@ public class ConfigurationBuilder {
     public int completedTxnConcurrency;
     public int readResolverQueueSize;
     public int readResolverThreads;
+    public int readResolverBatchSize;
+    public int readResolverMaxRowsPerSecond;
     public int timestampClientWaitTime;
     public int timestampServerBindPort;
+    public int timestampClientBatchSize;
+    public int timestampClientMaxInFlight;
     public int transactionKeepAliveThreads;
     public int transactionLockStripes;
     public long transactionKeepAliveInterval;
@@ -139,6 +143,11 @@ public class ConfigurationBuilder {
     public long broadcastRegionMbThreshold;
     public long broadcastRegionRowThreshold;
     public long broadcastDatasetCostThreshold;
+    public boolean broadcastJoinOffHeap;
+    public int broadcastOffHeapFactor;
+    public long broadcastJoinCacheBytes;
+    public long broadcastJoinCacheIdleMs;
+    public long importSplitSize;
     public long optimizerPlanMaximumTimeout;
     public long optimizerPlanMinimumTimeout;
     public long determineSparkRowThreshold;
@@ -152,12 +161,14 @@ public class ConfigurationBuilder {
     public int coreWriterThreads;
     public int maxBufferEntries;
     public int maxDependentWrites;
+    public boolean adaptiveWriteControl;
     public int maxIndependentWrites;
     public int maxDependentWriteThreads;
     public int maxIndependentWriteThreads;
     public int maxRetries;
     public int maxWriterThreads;
     public int pipelineKryoPoolSize;
+    public int pipelineEncodingVersion;
     public int writeMaxFlushesPerRegion;
     public long clientPause;
     public long maxBufferHeapSize;
@@ -175,11 +186,16 @@ public class ConfigurationBuilder {
     public int olapCompactionResolutionBufferSize;
     public boolean olapCompactionBlocking;
     public boolean resolutionOnFlushes;
+    public boolean compactionVersionGC;
+    public long compactionWatermarkRefreshInterval;
     public int olapClientRetries;
     public double bulkImportSampleFraction;
     public int bulkImportTasksPerRegion;
     public int regionToLoadPerTask;
     public long controlExecutionRowLimit;
+    public long controlExecutionSpillMemoryBudget;
+    public String controlExecutionSpillDirectory;
+    public long controlExecutionExternalReadLimit;
     public int olapShufflePartitions;
     public String olapLog4jConfig;
 
@@ -152,9 +152,32 @@ public class PipelineConfiguration implements ConfigurationDefault {
     public static final String MAX_DEPENDENT_WRITE_THREADS="splice.dependent.write.threads";
     public static final int DEFAULT_MAX_DEPENDENT_WRITE_THREADS = 50;
 
+    /**
+     * Whether the limits on the number of dependent and independent writes in flight on a region server adapt to
+     * the load of the server. When enabled, maxDependentWrites and maxIndependentWrites become ceilings: the actual
+     * limits shrink when write latency climbs or regions push back, and grow again once writes go through smoothly.
+     * When disabled, the limits are fixed at their configured values.
+     *
+     * Defaults to false, until the latency signal has been validated under production write mixes.
+     */
+    public static final String ADAPTIVE_WRITE_CONTROL = "splice.writer.adaptiveControl";
+    private static final boolean DEFAULT_ADAPTIVE_WRITE_CONTROL = false;
+
     public static final String PIPELINE_KRYO_POOL_SIZE= "splice.writer.kryoPoolSize";
     private static final int DEFAULT_PIPELINE_KRYO_POOL_SIZE=1024;
 
+    /**
+     * The version of the encoding used to send BulkWrites to region servers. Version 1 writes each mutation
+     * in turn; version 2 lays each BulkWrite out by column, with run-length encoded mutation types and
+     * front-coded row keys, which makes writes smaller and compresses better. Servers of this release decode
+     * both versions, but servers of earlier releases read version 1 alone, so version 2 may only be turned on
+     * once every server of a cluster has been upgraded.
+     *
+     * Defaults to 1.
+     */
+    public static final String PIPELINE_ENCODING_VERSION = "splice.client.write.encodingVersion";
+    private static final int DEFAULT_PIPELINE_ENCODING_VERSION = 1;
+
     public static final String BULK_IMPORT_SAMPLE_FRACTION = "splice.bulkImport.sample.fraction";
     private static final double DEFAULT_BULK_IMPORT_SAMPLE_FRACTION = 0.005d;
 
@@ -172,12 +195,14 @@ public class PipelineConfiguration implements ConfigurationDefault {
 
         builder.maxIndependentWrites = configurationSource.getInt(MAX_INDEPENDENT_WRITES, DEFAULT_MAX_INDEPENDENT_WRITES);
         builder.maxDependentWrites = configurationSource.getInt(MAX_DEPENDENT_WRITES, DEFAULT_MAX_DEPENDENT_WRITES);
+        builder.adaptiveWriteControl = configurationSource.getBoolean(ADAPTIVE_WRITE_CONTROL, DEFAULT_ADAPTIVE_WRITE_CONTROL);
         builder.coreWriterThreads = configurationSource.getInt(CORE_WRITER_THREADS, DEFAULT_WRITE_THREADS_CORE);
         builder.maxWriterThreads = configurationSource.getInt(MAX_WRITER_THREADS, DEFAULT_MAX_WRITER_THREADS);
         builder.writeMaxFlushesPerRegion = configurationSource.getInt(WRITE_MAX_FLUSHES_PER_REGION, WRITE_DEFAULT_MAX_FLUSHES_PER_REGION);
         builder.maxRetries = configurationSource.getInt(MAX_RETRIES, DEFAULT_HBASE_CLIENT_RETRIES_NUMBER);
         builder.maxBufferEntries = configurationSource.getInt(MAX_BUFFER_ENTRIES, DEFAULT_MAX_BUFFER_ENTRIES);
         builder.pipelineKryoPoolSize = configurationSource.getInt(PIPELINE_KRYO_POOL_SIZE, DEFAULT_PIPELINE_KRYO_POOL_SIZE);
+        builder.pipelineEncodingVersion = configurationSource.getInt(PIPELINE_ENCODING_VERSION, DEFAULT_PIPELINE_ENCODING_VERSION);
 
         builder.threadKeepaliveTime = configurationSource.getLong(THREAD_KEEPALIVE_TIME, DEFAULT_THREAD_KEEPALIVE_TIME);
         builder.clientPause = configurationSource.getLong(CLIENT_PAUSE, DEFAULT_CLIENT_PAUSE);
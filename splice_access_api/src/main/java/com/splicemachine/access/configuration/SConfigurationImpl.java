@@ -103,10 +103,12 @@ public final class SConfigurationImpl implements SConfiguration {
     private final  int maxIndependentWriteThreads;
     private final  int maxBufferEntries;
     private final  int maxDependentWrites;
+    private final  boolean adaptiveWriteControl;
     private final  int maxIndependentWrites;
     private final  int maxRetries;
     private final  int maxWriterThreads;
     private final  int pipelineKryoPoolSize;
+    private final  int pipelineEncodingVersion;
     private final  int writeMaxFlushesPerRegion;
     private final  long clientPause;
     private final  long maxBufferHeapSize;
@@ -123,6 +125,8 @@ public final class SConfigurationImpl implements SConfiguration {
     private final int olapCompactionResolutionBufferSize;
     private final boolean olapCompactionBlocking;
     private final boolean resolutionOnFlushes;
+    private final boolean compactionVersionGC;
+    private final long compactionWatermarkRefreshInterval;
     private final int reservedSlotsTimeout;
     private final double bulkImportSampleFraction;
     private final int bulkImportTasksPerRegion;
@@ -150,8 +154,12 @@ public final class SConfigurationImpl implements SConfiguration {
     private final  int completedTxnConcurrency;
     private final  int readResolverQueueSize;
     private final  int readResolverThreads;
+    private final int readResolverBatchSize;
+    private final int readResolverMaxRowsPerSecond;
     private final  int timestampClientWaitTime;
     private final  int timestampServerBindPort;
+    private final int timestampClientBatchSize;
+    private final int timestampClientMaxInFlight;
     private final  int transactionKeepAliveThreads;
     private final  int transactionLockStripes;
     private final  long transactionKeepAliveInterval;
@@ -178,6 +186,11 @@ public final class SConfigurationImpl implements SConfiguration {
     private final  long broadcastRegionMbThreshold;
     private final  long broadcastRegionRowThreshold;
     private final  long broadcastDatasetCostThreshold;
+    private final boolean broadcastJoinOffHeap;
+    private final int broadcastOffHeapFactor;
+    private final long broadcastJoinCacheBytes;
+    private final long broadcastJoinCacheIdleMs;
+    private final long importSplitSize;
     private final  long optimizerPlanMaximumTimeout;
     private final  long optimizerPlanMinimumTimeout;
     private final  long determineSparkRowThreshold;
@@ -186,6 +199,9 @@ public final class SConfigurationImpl implements SConfiguration {
     private final String storageFactoryHome;
     private final int nestedLoopJoinBatchSize;
     private final long controlExecutionRowLimit;
+    private final long controlExecutionSpillMemoryBudget;
+    private final String controlExecutionSpillDirectory;
+    private final long controlExecutionExternalReadLimit;
     private final int maxCheckTableErrors;
 
     // StatsConfiguration
@@ -771,8 +787,12 @@ public final class SConfigurationImpl implements SConfiguration {
         completedTxnConcurrency = builder.completedTxnConcurrency;
         readResolverQueueSize = builder.readResolverQueueSize;
         readResolverThreads = builder.readResolverThreads;
+        readResolverBatchSize = builder.readResolverBatchSize;
+        readResolverMaxRowsPerSecond = builder.readResolverMaxRowsPerSecond;
         timestampClientWaitTime = builder.timestampClientWaitTime;
         timestampServerBindPort = builder.timestampServerBindPort;
+        timestampClientBatchSize = builder.timestampClientBatchSize;
+        timestampClientMaxInFlight = builder.timestampClientMaxInFlight;
         transactionKeepAliveThreads = builder.transactionKeepAliveThreads;
         transactionLockStripes = builder.transactionLockStripes;
         transactionKeepAliveInterval = builder.transactionKeepAliveInterval;
@@ -850,6 +870,11 @@ public final class SConfigurationImpl implements SConfiguration {
         broadcastRegionMbThreshold = builder.broadcastRegionMbThreshold;
         broadcastRegionRowThreshold = builder.broadcastRegionRowThreshold;
         broadcastDatasetCostThreshold = builder.broadcastDatasetCostThreshold;
+        broadcastJoinOffHeap = builder.broadcastJoinOffHeap;
+        broadcastOffHeapFactor = builder.broadcastOffHeapFactor;
+        broadcastJoinCacheBytes = builder.broadcastJoinCacheBytes;
+        broadcastJoinCacheIdleMs = builder.broadcastJoinCacheIdleMs;
+        importSplitSize = builder.importSplitSize;
         optimizerPlanMaximumTimeout = builder.optimizerPlanMaximumTimeout;
         optimizerPlanMinimumTimeout = builder.optimizerPlanMinimumTimeout;
         determineSparkRowThreshold = builder.determineSparkRowThreshold;
@@ -860,10 +885,12 @@ public final class SConfigurationImpl implements SConfiguration {
         maxIndependentWriteThreads = builder.maxIndependentWriteThreads;
         maxBufferEntries = builder.maxBufferEntries;
         maxDependentWrites = builder.maxDependentWrites;
+        adaptiveWriteControl = builder.adaptiveWriteControl;
         maxIndependentWrites = builder.maxIndependentWrites;
         maxRetries = builder.maxRetries;
         maxWriterThreads = builder.maxWriterThreads;
         pipelineKryoPoolSize = builder.pipelineKryoPoolSize;
+        pipelineEncodingVersion = builder.pipelineEncodingVersion;
         writeMaxFlushesPerRegion = builder.writeMaxFlushesPerRegion;
         clientPause = builder.clientPause;
         maxBufferHeapSize = builder.maxBufferHeapSize;
@@ -896,10 +923,15 @@ public final class SConfigurationImpl implements SConfiguration {
         olapCompactionBlocking = builder.olapCompactionBlocking;
         olapLog4jConfig = builder.olapLog4jConfig;
         resolutionOnFlushes = builder.resolutionOnFlushes;
+        compactionVersionGC = builder.compactionVersionGC;
+        compactionWatermarkRefreshInterval = builder.compactionWatermarkRefreshInterval;
         reservedSlotsTimeout = builder.reservedSlotsTimeout;
         storageFactoryHome = builder.storageFactoryHome;
         nestedLoopJoinBatchSize = builder.nestedLoopJoinBatchSize;
         controlExecutionRowLimit = builder.controlExecutionRowLimit;
+        controlExecutionSpillMemoryBudget = builder.controlExecutionSpillMemoryBudget;
+        controlExecutionSpillDirectory = builder.controlExecutionSpillDirectory;
+        controlExecutionExternalReadLimit = builder.controlExecutionExternalReadLimit;
         bulkImportSampleFraction = builder.bulkImportSampleFraction;
         bulkImportTasksPerRegion = builder.bulkImportTasksPerRegion;
         regionToLoadPerTask = builder.regionToLoadPerTask;
@@ -1002,4 +1034,84 @@ public final class SConfigurationImpl implements SConfiguration {
     public int getMaxCheckTableErrors() {
         return maxCheckTableErrors;
     }
+
+    @Override
+    public long getControlExecutionSpillMemoryBudget() {
+        return controlExecutionSpillMemoryBudget;
+    }
+
+    @Override
+    public String getControlExecutionSpillDirectory() {
+        return controlExecutionSpillDirectory;
+    }
+
+    @Override
+    public boolean getBroadcastJoinOffHeap() {
+        return broadcastJoinOffHeap;
+    }
+
+    @Override
+    public int getBroadcastOffHeapFactor() {
+        return broadcastOffHeapFactor;
+    }
+
+    @Override
+    public int getTimestampClientBatchSize() {
+        return timestampClientBatchSize;
+    }
+
+    @Override
+    public int getTimestampClientMaxInFlight() {
+        return timestampClientMaxInFlight;
+    }
+
+    @Override
+    public int getReadResolverBatchSize() {
+        return readResolverBatchSize;
+    }
+
+    @Override
+    public int getReadResolverMaxRowsPerSecond() {
+        return readResolverMaxRowsPerSecond;
+    }
+
+    @Override
+    public long getBroadcastJoinCacheBytes() {
+        return broadcastJoinCacheBytes;
+    }
+
+    @Override
+    public long getBroadcastJoinCacheIdleMs() {
+        return broadcastJoinCacheIdleMs;
+    }
+
+    @Override
+    public long getImportSplitSize() {
+        return importSplitSize;
+    }
+
+    @Override
+    public int getPipelineEncodingVersion() {
+        return pipelineEncodingVersion;
+    }
+
+    @Override
+    public boolean isAdaptiveWriteControl() {
+        return adaptiveWriteControl;
+    }
+
+    @Override
+    public boolean isCompactionVersionGC() {
+        return compactionVersionGC;
+    }
+
+    @Override
+    public long getCompactionWatermarkRefreshInterval() {
+        return compactionWatermarkRefreshInterval;
+    }
+
+    @Override
+    public long getControlExecutionExternalReadLimit() {
+        return controlExecutionExternalReadLimit;
+    }
 }
@@ -47,9 +47,30 @@ public class SIConfigurations implements ConfigurationDefault {
     public static final String READ_RESOLVER_THREADS = "splice.txn.readresolver.threads";
     private static final int DEFAULT_READ_RESOLVER_THREADS = 4;
 
+    /**
+     * The number of read resolutions which can wait to be written on each server. Read resolution is
+     * disabled unless this is set to a positive value: reads then leave rows unresolved, and the
+     * batching and rate limiting settings below have no effect.
+     */
     public static final String READ_RESOLVER_QUEUE_SIZE = "splice.txn.readresolver.queueSize";
     private static final int DEFAULT_READ_RESOLVER_QUEUE_SIZE=1<<16;
 
+    /**
+     * The maximum number of rows of one region which are read-resolved with a single batched write.
+     * Pending resolutions are written whenever the queue drains, so batches only reach this size
+     * when resolutions arrive faster than they are written. Only used when read resolution is enabled
+     * with {@link #READ_RESOLVER_QUEUE_SIZE}.
+     */
+    public static final String READ_RESOLVER_BATCH_SIZE = "splice.txn.readresolver.batchSize";
+    private static final int DEFAULT_READ_RESOLVER_BATCH_SIZE=1024;
+
+    /**
+     * The maximum number of rows per second which asynchronous read resolution writes on each server,
+     * so that it does not compete with foreground writes. 0 means unlimited.
+     */
+    public static final String READ_RESOLVER_MAX_ROWS_PER_SECOND = "splice.txn.readresolver.maxRowsPerSecond";
+    private static final int DEFAULT_READ_RESOLVER_MAX_ROWS_PER_SECOND=0;
+
     public static final String IGNORE_MISSING_TXN = "splice.ignore.missing.transactions";
     private static final boolean DEFAULT_IGNORE_MISSING_TXN=false;
 
@@ -114,6 +135,22 @@ public class SIConfigurations implements ConfigurationDefault {
     public static final String TIMESTAMP_SERVER_BIND_PORT = "splice.timestamp_server.port";
     private static final int DEFAULT_TIMESTAMP_SERVER_BIND_PORT = 60012;
 
+    /**
+     * The maximum number of concurrent timestamp requests the timestamp client coalesces into a single
+     * range request to the Timestamp Server.
+     * Defaults to 1024
+     */
+    public static final String TIMESTAMP_CLIENT_BATCH_SIZE = "splice.timestamp_server.clientBatchSize";
+    private static final int DEFAULT_TIMESTAMP_CLIENT_BATCH_SIZE = 1024;
+
+    /**
+     * The maximum number of range requests the timestamp client keeps outstanding on its connection.
+     * Callers arriving while this many requests are in flight wait to be coalesced into the next one.
+     * Defaults to 2
+     */
+    public static final String TIMESTAMP_CLIENT_MAX_IN_FLIGHT = "splice.timestamp_server.clientMaxInFlight";
+    private static final int DEFAULT_TIMESTAMP_CLIENT_MAX_IN_FLIGHT = 2;
+
     public static final String ACTIVE_TRANSACTION_CACHE_SIZE="splice.txn.activeCacheSize";
     private static final int DEFAULT_ACTIVE_TRANSACTION_CACHE_SIZE = 1<<12;
 
@@ -141,6 +178,15 @@ public class SIConfigurations implements ConfigurationDefault {
     public static final String RESOLUTION_ON_FLUSHES = "splice.txn.resolution.flushes";
     public static final boolean DEFAULT_RESOLUTION_ON_FLUSHES = true;
 
+    // Whether compactions drop the versions of a row which no current or future transaction can see, i.e. versions
+    // hidden behind a newer version or tombstone committed before the oldest active transaction of the cluster began
+    public static final String COMPACTION_VERSION_GC = "splice.txn.compaction.versionGC";
+    public static final boolean DEFAULT_COMPACTION_VERSION_GC = true;
+
+    // How long (in milliseconds) a server reuses the oldest active transaction of the cluster before asking every server again
+    public static final String COMPACTION_WATERMARK_REFRESH_INTERVAL = "splice.txn.compaction.watermarkRefreshInterval";
+    public static final long DEFAULT_COMPACTION_WATERMARK_REFRESH_INTERVAL = 60000L;
+
     @Override
     public void setDefaults(ConfigurationBuilder builder, ConfigurationSource configurationSource) {
         builder.completedTxnConcurrency  = configurationSource.getInt(completedTxnConcurrency, DEFAULT_COMPLETED_TRANSACTION_CONCURRENCY);
@@ -148,9 +194,13 @@ public class SIConfigurations implements ConfigurationDefault {
         builder.transactionKeepAliveThreads  = configurationSource.getInt(TRANSACTION_KEEP_ALIVE_THREADS, DEFAULT_KEEP_ALIVE_THREADS);
         builder.readResolverThreads  = configurationSource.getInt(READ_RESOLVER_THREADS, DEFAULT_READ_RESOLVER_THREADS);
         builder.readResolverQueueSize  = configurationSource.getInt(READ_RESOLVER_QUEUE_SIZE, -1); //TODO -sf- reset to DEFAULT once ReadResolution works
+        builder.readResolverBatchSize  = configurationSource.getInt(READ_RESOLVER_BATCH_SIZE, DEFAULT_READ_RESOLVER_BATCH_SIZE);
+        builder.readResolverMaxRowsPerSecond  = configurationSource.getInt(READ_RESOLVER_MAX_ROWS_PER_SECOND, DEFAULT_READ_RESOLVER_MAX_ROWS_PER_SECOND);
 //        builder.readResolverQueueSize  = configurationSource.getInt(READ_RESOLVER_QUEUE_SIZE, DEFAULT_READ_RESOLVER_QUEUE_SIZE);
         builder.timestampClientWaitTime  = configurationSource.getInt(TIMESTAMP_CLIENT_WAIT_TIME, DEFAULT_TIMESTAMP_CLIENT_WAIT_TIME);
         builder.timestampServerBindPort  = configurationSource.getInt(TIMESTAMP_SERVER_BIND_PORT, DEFAULT_TIMESTAMP_SERVER_BIND_PORT);
+        builder.timestampClientBatchSize  = configurationSource.getInt(TIMESTAMP_CLIENT_BATCH_SIZE, DEFAULT_TIMESTAMP_CLIENT_BATCH_SIZE);
+        builder.timestampClientMaxInFlight  = configurationSource.getInt(TIMESTAMP_CLIENT_MAX_IN_FLIGHT, DEFAULT_TIMESTAMP_CLIENT_MAX_IN_FLIGHT);
         builder.activeTransactionCacheSize  = configurationSource.getInt(ACTIVE_TRANSACTION_CACHE_SIZE, DEFAULT_ACTIVE_TRANSACTION_CACHE_SIZE);
 
         builder.transactionTimeout = configurationSource.getLong(TRANSACTION_TIMEOUT, DEFAULT_TRANSACTION_TIMEOUT);
@@ -174,5 +224,7 @@ public class SIConfigurations implements ConfigurationDefault {
         builder.olapCompactionResolutionBufferSize = configurationSource.getInt(COMPACTION_RESOLUTION_BUFFER_SIZE, DEFAULT_COMPACTION_RESOLUTION_BUFFER_SIZE);
         builder.olapCompactionBlocking = configurationSource.getBoolean(COMPACTION_BLOCKING, DEFAULT_COMPACTION_BLOCKING);
         builder.resolutionOnFlushes = configurationSource.getBoolean(RESOLUTION_ON_FLUSHES, DEFAULT_RESOLUTION_ON_FLUSHES);
+        builder.compactionVersionGC = configurationSource.getBoolean(COMPACTION_VERSION_GC, DEFAULT_COMPACTION_VERSION_GC);
+        builder.compactionWatermarkRefreshInterval = configurationSource.getLong(COMPACTION_WATERMARK_REFRESH_INTERVAL, DEFAULT_COMPACTION_WATERMARK_REFRESH_INTERVAL);
     }
 }
@@ -62,6 +62,16 @@ public class SQLConfiguration implements ConfigurationDefault {
     public static final String IMPORT_MAX_QUOTED_COLUMN_LINES="splice.import.maxQuotedColumnLines";
     private static final int DEFAULT_IMPORT_MAX_QUOTED_COLUMN_LINES = 50000;
 
+    /**
+     * Size (in bytes) of the byte ranges an uncompressed UTF-8 import file is split into. Each range is
+     * tokenized and parsed in parallel; records which cross a range boundary are read by the range in
+     * which they start. Files no larger than this are read as a single stream.
+     *
+     * Defaults to 128 MB
+     */
+    public static final String IMPORT_SPLIT_SIZE = "splice.import.splitSize";
+    private static final long DEFAULT_IMPORT_SPLIT_SIZE = 128*1024*1024L;
+
     public static final String BATCH_ONCE_BATCH_SIZE = "splice.batchonce.batchsize";
     private static final int DEFAULT_BATCH_ONCE_BATCH_SIZE = 50_000;
 
@@ -117,6 +127,50 @@ public class SQLConfiguration implements ConfigurationDefault {
     public static final String BROADCAST_DATASET_COST_THRESHOLD = "splice.optimizer.broadcastDatasetCostThreshold";
     private static final int DEFAULT_BROADCAST_DATASET_COST_THRESHOLD = 10000;
 
+    /**
+     * Build broadcast join hash tables off-heap, storing the encoded inner rows in direct memory
+     * and decoding them only when they match an outer row.
+     *
+     * Defaults to true
+     */
+    public static final String BROADCAST_JOIN_OFF_HEAP = "splice.execution.broadcastJoinOffHeap";
+    private static final boolean DEFAULT_BROADCAST_JOIN_OFF_HEAP = true;
+
+    /**
+     * How many times larger (in estimated heap size and rows) a broadcast join's inner table may be
+     * when its hash table is built off-heap, relative to the on-heap thresholds above. The size estimate
+     * is the encoded row width, while an on-heap table holds every column of every row as an object:
+     * more than four times the encoded size for numeric columns once object headers and references are
+     * counted, about twice for long strings. An off-heap table keeps the encoded rows with a 20 byte
+     * header each, so an inner table four times the on-heap threshold takes about the memory of the
+     * largest on-heap table of numeric rows, none of it on the heap and with no objects per row to collect.
+     *
+     * Defaults to 4
+     */
+    public static final String BROADCAST_OFF_HEAP_FACTOR = "splice.optimizer.broadcastOffHeapFactor";
+    private static final int DEFAULT_BROADCAST_OFF_HEAP_FACTOR = 4;
+
+    /**
+     * Maximum memory (in bytes) that broadcast join hash tables may hold on a server once no running
+     * join is using them. Tables built from the same scan of a base table under the same (or an unchanged)
+     * snapshot are shared, and unused tables are kept for reuse until this budget is exhausted; the
+     * tables which are cheapest to rebuild for the memory they hold are dropped first.
+     * Set to 0 to drop every table as soon as its last join finishes.
+     *
+     * Defaults to 512 MB
+     */
+    public static final String BROADCAST_JOIN_CACHE_BYTES = "splice.execution.broadcastJoinCacheBytes";
+    private static final long DEFAULT_BROADCAST_JOIN_CACHE_BYTES = 512*1024*1024L;
+
+    /**
+     * How long (in milliseconds) a broadcast join hash table which no join is using is kept for reuse.
+     * Idle off-heap tables keep their direct memory until they are dropped, so this is kept short.
+     *
+     * Defaults to 2000 (2 seconds)
+     */
+    public static final String BROADCAST_JOIN_CACHE_IDLE_MS = "splice.execution.broadcastJoinCacheIdleMs";
+    private static final long DEFAULT_BROADCAST_JOIN_CACHE_IDLE_MS = 2000L;
+
     /**
      * Minimum fixed duration (in millisecomds) that should be allowed to lapse
      * before the optimizer can determine that it should stop trying to find
@@ -225,6 +279,33 @@ public class SQLConfiguration implements ConfigurationDefault {
     public static final String CONTROL_EXECUTION_ROWS_LIMIT = "splice.controlExecution.rowsLimit";
     private static final int DEFAULT_CONTROL_EXECUTION_ROWS_LIMIT = 1000000;
 
+    /**
+     * The amount of heap (in bytes) a single control-side hash join, grouping or sort may
+     * use before it starts spilling serialized rows to local temporary files.
+     * A value of 0 disables spilling, keeping everything in memory.
+     *
+     * Defaults to 128 MB
+     */
+    public static final String CONTROL_EXECUTION_SPILL_MEMORY_BUDGET = "splice.controlExecution.spillMemoryBudget";
+    private static final long DEFAULT_CONTROL_EXECUTION_SPILL_MEMORY_BUDGET = 128*1024*1024L;
+
+    /**
+     * The local directory where control-side operators place their spill files.
+     *
+     * Defaults to java.io.tmpdir
+     */
+    public static final String CONTROL_EXECUTION_SPILL_DIRECTORY = "splice.controlExecution.spillDirectory";
+
+    /**
+     * The largest external ORC location (in bytes, over all of its files) a control-side scan reads
+     * directly in its own JVM. Larger locations are read through a Spark job, as are all other file formats.
+     * A value of 0 always reads external tables through Spark.
+     *
+     * Defaults to 64 MB
+     */
+    public static final String CONTROL_EXECUTION_EXTERNAL_READ_LIMIT = "splice.controlExecution.externalReadLimit";
+    private static final long DEFAULT_CONTROL_EXECUTION_EXTERNAL_READ_LIMIT = 64*1024*1024L;
+
     public static final String MAX_CHECK_TABLE_ERRORS="splice.max.checktable.error";
     private static final int DEFAULT_MAX_CHECK_TABLE_ERRORS = 1000;
 
@@ -237,6 +318,7 @@ public class SQLConfiguration implements ConfigurationDefault {
         builder.indexBatchSize = configurationSource.getInt(INDEX_BATCH_SIZE, DEFAULT_INDEX_BATCH_SIZE);
         builder.indexLookupBlocks = configurationSource.getInt(INDEX_LOOKUP_BLOCKS, DEFAULT_INDEX_LOOKUP_BLOCKS);
         builder.importMaxQuotedColumnLines = configurationSource.getInt(IMPORT_MAX_QUOTED_COLUMN_LINES, DEFAULT_IMPORT_MAX_QUOTED_COLUMN_LINES);
+        builder.importSplitSize = configurationSource.getLong(IMPORT_SPLIT_SIZE, DEFAULT_IMPORT_SPLIT_SIZE);
         builder.batchOnceBatchSize = configurationSource.getInt(BATCH_ONCE_BATCH_SIZE, DEFAULT_BATCH_ONCE_BATCH_SIZE);
         builder.partitionserverJmxPort = configurationSource.getInt(PARTITIONSERVER_JMX_PORT, DEFAULT_PARTITIONSERVER_JMX_PORT);
         builder.partitionserverJmxUser = configurationSource.getString(PARTITIONSERVER_JMX_USER, DEFAULT_PARTITIONSERVER_JMX_USER);
@@ -244,6 +326,9 @@ public class SQLConfiguration implements ConfigurationDefault {
         builder.partitionserverPort = configurationSource.getInt(PARTITIONSERVER_PORT, DEFAULT_PARTITIONSERVER_PORT);
         builder.nestedLoopJoinBatchSize = configurationSource.getInt(NESTEDLOOPJOIN_BATCH_SIZE, DEFAULT_NESTEDLOOPJOIN_BATCH_SIZE);
         builder.controlExecutionRowLimit = configurationSource.getLong(CONTROL_EXECUTION_ROWS_LIMIT, DEFAULT_CONTROL_EXECUTION_ROWS_LIMIT);
+        builder.controlExecutionSpillMemoryBudget = configurationSource.getLong(CONTROL_EXECUTION_SPILL_MEMORY_BUDGET, DEFAULT_CONTROL_EXECUTION_SPILL_MEMORY_BUDGET);
+        builder.controlExecutionSpillDirectory = configurationSource.getString(CONTROL_EXECUTION_SPILL_DIRECTORY, System.getProperty("java.io.tmpdir"));
+        builder.controlExecutionExternalReadLimit = configurationSource.getLong(CONTROL_EXECUTION_EXTERNAL_READ_LIMIT, DEFAULT_CONTROL_EXECUTION_EXTERNAL_READ_LIMIT);
 
         // Where to place jar files...
         String defaultStorageFactoryHome;
@@ -258,6 +343,10 @@ public class SQLConfiguration implements ConfigurationDefault {
         builder.broadcastRegionMbThreshold = configurationSource.getLong(BROADCAST_REGION_MB_THRESHOLD, DEFAULT_BROADCAST_REGION_MB_THRESHOLD);
         builder.broadcastRegionRowThreshold = configurationSource.getLong(BROADCAST_REGION_ROW_THRESHOLD, DEFAULT_BROADCAST_REGION_ROW_THRESHOLD);
         builder.broadcastDatasetCostThreshold = configurationSource.getLong(BROADCAST_DATASET_COST_THRESHOLD, DEFAULT_BROADCAST_DATASET_COST_THRESHOLD);
+        builder.broadcastJoinOffHeap = configurationSource.getBoolean(BROADCAST_JOIN_OFF_HEAP, DEFAULT_BROADCAST_JOIN_OFF_HEAP);
+        builder.broadcastOffHeapFactor = configurationSource.getInt(BROADCAST_OFF_HEAP_FACTOR, DEFAULT_BROADCAST_OFF_HEAP_FACTOR);
+        builder.broadcastJoinCacheBytes = configurationSource.getLong(BROADCAST_JOIN_CACHE_BYTES, DEFAULT_BROADCAST_JOIN_CACHE_BYTES);
+        builder.broadcastJoinCacheIdleMs = configurationSource.getLong(BROADCAST_JOIN_CACHE_IDLE_MS, DEFAULT_BROADCAST_JOIN_CACHE_IDLE_MS);
 
         //always disable debug statements by default
         builder.debugLogStatementContext = configurationSource.getBoolean(DEBUG_LOG_STATEMENT_CONTEXT, DEFAULT_LOG_STATEMENT_CONTEXT);
@@ -14,6 +14,11 @@
 
 package com.splicemachine.storage;
 
+import com.splicemachine.utils.Pair;
+
+import java.io.IOException;
+import java.util.List;
+
 /**
  * Factory for creating different DataFilters. Each architecture is expected to provide an architecture
  * specific version of this.
@@ -34,4 +39,14 @@ public interface DataFilterFactory{
     DataFilter singleColumnEqualsValueFilter(byte[] family,byte[] qualifier,byte[] value);
 
     DataFilter allocatedFilter(byte[] localAddress);
+
+    /**
+     * Filter out the rows whose keys do not fall in any of the specified ranges. Each range includes its
+     * start key and excludes its stop key. Where the architecture supports it, the scan seeks from the end
+     * of one range to the start of the next, rather than reading the rows in between.
+     *
+     * @param ranges the (start key, stop key) pairs, sorted by start key and not overlapping
+     * @return a DataFilter which skips the rows outside of the ranges
+     */
+    DataFilter rowRangesFilter(List<Pair<byte[],byte[]>> ranges) throws IOException;
 }
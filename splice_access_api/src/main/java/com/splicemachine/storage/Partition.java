@@ -105,6 +105,20 @@ public interface Partition extends AutoCloseable{
      */
     DataResult getLatest(byte[] key,DataResult previous) throws IOException;
 
+    /**
+     * Get the latest single value for all data types of several rows, as {@link #getLatest(byte[],DataResult)}
+     * does for a single row.
+     * <p>
+     *     The keys must be sorted in ascending order, which allows implementations to read all of the rows
+     *     in a single forward pass over the underlying storage, rather than seeking to each row independently.
+     * </p>
+     * @param sortedKeys the row keys to fetch, in ascending order
+     * @return the latest value of all present cells for each key, in the order of {@code sortedKeys}. A key
+     * with no row gives an empty DataResult, as it would with {@link #getLatest(byte[],DataResult)}.
+     * @throws IOException if something goes wrong
+     */
+    DataResult[] getLatest(byte[][] sortedKeys) throws IOException;
+
     Lock getRowLock(byte[] key,int keyOff,int keyLen) throws IOException;
 
     DataResultScanner openResultScanner(DataScan scan,MetricFactory metricFactory) throws IOException;
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.benchmark;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmark jar. Takes the usual JMH command line, e.g.
+ * {@code java -jar benchmarks.jar TxnFilter -f 1}, but unless told otherwise it also
+ * runs the GC profiler, so that every result comes with its allocation rate
+ * ({@code gc.alloc.rate.norm} is the number of bytes allocated per operation), and writes
+ * the results as JSON to {@code jmh-result.json}, to compare runs between releases.
+ */
+public class BenchmarkRunner {
+
+    private BenchmarkRunner(){ }
+
+    public static void main(String...args) throws Exception{
+        CommandLineOptions cmdOptions = new CommandLineOptions(args);
+        if(cmdOptions.shouldHelp() || cmdOptions.shouldList() || cmdOptions.shouldListProfilers()
+                || cmdOptions.shouldListResultFormats() || cmdOptions.shouldListWithParams()){
+            Main.main(args);
+            return;
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cmdOptions);
+        if(cmdOptions.getProfilers().isEmpty())
+            options.addProfiler(GCProfiler.class);
+        if(!cmdOptions.getResult().hasValue()){
+            options.result("jmh-result.json");
+            if(!cmdOptions.getResultFormat().hasValue())
+                options.resultFormat(ResultFormatType.JSON);
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.benchmark;
+
+import com.carrotsearch.hppc.BitSet;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.derby.utils.marshall.DataHash;
+import com.splicemachine.derby.utils.marshall.EntryDataHash;
+import com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers;
+import com.splicemachine.encoding.Encoding;
+import com.splicemachine.storage.EntryAccumulator;
+import com.splicemachine.storage.EntryDecoder;
+import com.splicemachine.storage.EntryPredicateFilter;
+import com.splicemachine.storage.ValuePredicate;
+import com.splicemachine.utils.IntArrays;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filters a packed row through {@link EntryDecoder} and {@link EntryPredicateFilter}, the way region
+ * scans do before the row leaves the server: all the columns, a projection of some of them, and
+ * a row rejected by a predicate on its encoded bytes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntryDecoderBenchmark {
+    private byte[] packedRow;
+    private EntryDecoder entryDecoder;
+
+    private EntryPredicateFilter allColumns;
+    private EntryAccumulator allColumnsAccumulator;
+    private EntryPredicateFilter projection;
+    private EntryAccumulator projectionAccumulator;
+    private EntryPredicateFilter rejecting;
+    private EntryAccumulator rejectingAccumulator;
+
+    @Setup
+    public void setup() throws StandardException, IOException{
+        ExecRow row = SampleRows.sampleRow();
+        DataHash<ExecRow> rowHash = new EntryDataHash(IntArrays.count(row.nColumns()),null,
+                VersionedSerializers.latestVersion(true).getSerializers(row));
+        rowHash.setRow(row);
+        packedRow = rowHash.encode();
+        rowHash.close();
+        entryDecoder = new EntryDecoder();
+
+        allColumns = new EntryPredicateFilter(new BitSet());
+        allColumnsAccumulator = allColumns.newAccumulator();
+
+        BitSet someColumns = new BitSet();
+        someColumns.set(0);
+        someColumns.set(2);
+        someColumns.set(3);
+        projection = new EntryPredicateFilter(someColumns);
+        projectionAccumulator = projection.newAccumulator();
+
+        // the first column holds 42
+        rejecting = new EntryPredicateFilter(someColumns,true,new ValuePredicate[]{
+                new ValuePredicate(0,ValuePredicate.EQUALS,false,false,Encoding.encode(7L))});
+        rejectingAccumulator = rejecting.newAccumulator();
+    }
+
+    @Benchmark
+    public byte[] allColumns() throws IOException{
+        return accumulate(allColumns,allColumnsAccumulator);
+    }
+
+    @Benchmark
+    public byte[] projection() throws IOException{
+        return accumulate(projection,projectionAccumulator);
+    }
+
+    @Benchmark
+    public byte[] rejectedByPredicate() throws IOException{
+        return accumulate(rejecting,rejectingAccumulator);
+    }
+
+    private byte[] accumulate(EntryPredicateFilter filter,EntryAccumulator accumulator) throws IOException{
+        entryDecoder.set(packedRow);
+        accumulator.reset();
+        if(!filter.match(entryDecoder,accumulator))
+            return null;
+        return accumulator.finish();
+    }
+}
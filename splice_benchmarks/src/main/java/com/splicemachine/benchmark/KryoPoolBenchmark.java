@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.benchmark;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.splicemachine.SpliceKryoRegistry;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.utils.kryo.KryoPool;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes a row through the {@link KryoPool} registered with {@link SpliceKryoRegistry}, the way
+ * rows and operation state are shipped between nodes, and measures borrowing an instance from the pool.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KryoPoolBenchmark {
+    private KryoPool kryoPool;
+    private ExecRow row;
+    private Output output;
+    private Input input;
+
+    @Setup
+    public void setup() throws StandardException{
+        kryoPool = SpliceKryoRegistry.getInstance();
+        row = SampleRows.sampleRow();
+        output = new Output(4096,-1);
+        input = new Input();
+    }
+
+    @Benchmark
+    public Kryo borrowAndReturn(){
+        Kryo kryo = kryoPool.get();
+        kryoPool.returnInstance(kryo);
+        return kryo;
+    }
+
+    @Benchmark
+    public Object roundTrip(){
+        Kryo kryo = kryoPool.get();
+        try{
+            output.clear();
+            kryo.writeClassAndObject(output,row);
+            input.setBuffer(output.getBuffer(),0,output.position());
+            return kryo.readClassAndObject(input);
+        }finally{
+            kryoPool.returnInstance(kryo);
+        }
+    }
+}
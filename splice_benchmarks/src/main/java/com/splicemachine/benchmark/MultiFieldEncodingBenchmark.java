@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.benchmark;
+
+import com.splicemachine.encoding.MultiFieldDecoder;
+import com.splicemachine.encoding.MultiFieldEncoder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes and decodes a row of typical fields with {@link MultiFieldEncoder} and {@link MultiFieldDecoder},
+ * the way keys and packed rows are built.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MultiFieldEncodingBenchmark {
+    private static final String STRING_VALUE = "a reasonably sized varchar column value";
+    private static final BigDecimal DECIMAL_VALUE = new BigDecimal("12345.6789");
+
+    private MultiFieldEncoder encoder;
+    private byte[] encoded;
+
+    @Setup
+    public void setup(){
+        encoder = MultiFieldEncoder.create(5);
+        encoded = encode();
+    }
+
+    @Benchmark
+    public byte[] encode(){
+        encoder.reset();
+        return encoder.encodeNext(42L)
+                .encodeNext(1234567890123L)
+                .encodeNext(STRING_VALUE)
+                .encodeNext(DECIMAL_VALUE)
+                .encodeNext(3.14159d)
+                .build();
+    }
+
+    @Benchmark
+    public void decode(Blackhole bh){
+        MultiFieldDecoder decoder = MultiFieldDecoder.wrap(encoded);
+        bh.consume(decoder.decodeNextLong());
+        bh.consume(decoder.decodeNextLong());
+        bh.consume(decoder.decodeNextString());
+        bh.consume(decoder.decodeNextBigDecimal());
+        bh.consume(decoder.decodeNextDouble());
+    }
+
+    @Benchmark
+    public int skip(){
+        MultiFieldDecoder decoder = MultiFieldDecoder.wrap(encoded);
+        decoder.skipLong();
+        decoder.skipLong();
+        decoder.skip();
+        decoder.skip();
+        decoder.skipDouble();
+        return decoder.offset();
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.benchmark;
+
+import com.splicemachine.concurrent.IncrementingClock;
+import com.splicemachine.kvpair.KVPair;
+import com.splicemachine.pipeline.client.BulkWrite;
+import com.splicemachine.pipeline.client.BulkWrites;
+import com.splicemachine.pipeline.client.PipelineEncoding;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.api.txn.TxnOperationFactory;
+import com.splicemachine.si.impl.MOperationFactory;
+import com.splicemachine.si.impl.SimpleTxnOperationFactory;
+import com.splicemachine.si.impl.data.MExceptionFactory;
+import com.splicemachine.si.impl.txn.ActiveWriteTxn;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes and decodes the {@link BulkWrites} sent to a region server by the write pipeline, with
+ * {@code regions} bulk writes of {@code rowsPerRegion} inserts each, in every {@link PipelineEncoding}
+ * version.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelineEncodingBenchmark {
+
+    @Param({"1", "10"})
+    public int regions;
+
+    @Param({"100", "1000"})
+    public int rowsPerRegion;
+
+    @Param({"1", "2"})
+    public int version;
+
+    private TxnOperationFactory operationFactory;
+    private BulkWrites bulkWrites;
+    private byte[] encoded;
+
+    @Setup
+    public void setup(){
+        operationFactory = new SimpleTxnOperationFactory(MExceptionFactory.INSTANCE,new MOperationFactory(new IncrementingClock()));
+        TxnView txn = new ActiveWriteTxn(0x100L,0x100L,Txn.ROOT_TRANSACTION,false,Txn.IsolationLevel.SNAPSHOT_ISOLATION);
+        List<BulkWrite> writes = new ArrayList<>(regions);
+        for(int r=0;r<regions;r++){
+            Collection<KVPair> mutations = new ArrayList<>(rowsPerRegion);
+            for(int i=0;i<rowsPerRegion;i++){
+                byte[] rowKey = Bytes.toBytes("row-key-with-a-common-prefix-"+r+"-"+i);
+                byte[] value = Bytes.toBytes("packed-row-value-"+i);
+                mutations.add(new KVPair(rowKey,value,KVPair.Type.INSERT));
+            }
+            writes.add(new BulkWrite(mutations,"region"+r));
+        }
+        bulkWrites = new BulkWrites(writes,txn,null,Bytes.toBytes("token"));
+        encoded = encode();
+    }
+
+    @Benchmark
+    public byte[] encode(){
+        return PipelineEncoding.encode(operationFactory,bulkWrites,version);
+    }
+
+    @Benchmark
+    public void decode(Blackhole bh){
+        BulkWrites decoded = PipelineEncoding.decode(operationFactory,encoded);
+        // mutations are decoded lazily, so walk them as the region server does
+        for(BulkWrite write:decoded.getBulkWrites()){
+            for(KVPair mutation:write.getMutations()){
+                bh.consume(mutation);
+            }
+        }
+    }
+}
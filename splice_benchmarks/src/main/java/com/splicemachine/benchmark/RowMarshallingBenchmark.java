@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.benchmark;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.derby.utils.marshall.DataHash;
+import com.splicemachine.derby.utils.marshall.EntryDataHash;
+import com.splicemachine.derby.utils.marshall.KeyHashDecoder;
+import com.splicemachine.derby.utils.marshall.dvd.DescriptorSerializer;
+import com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers;
+import com.splicemachine.encoding.MultiFieldDecoder;
+import com.splicemachine.encoding.MultiFieldEncoder;
+import com.splicemachine.utils.IntArrays;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Marshals a row of DataValueDescriptors with the serializers of the latest encoding version
+ * ({@code V3SerializerMap}): field by field the way keys are built (dense serializers), and as a
+ * packed row through {@link EntryDataHash}, the way rows are written and read back (sparse serializers).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowMarshallingBenchmark {
+    private ExecRow row;
+    private ExecRow destination;
+
+    private DescriptorSerializer[] fieldSerializers;
+    private MultiFieldEncoder fieldEncoder;
+    private byte[] encodedFields;
+
+    private DataHash<ExecRow> rowHash;
+    private KeyHashDecoder rowDecoder;
+    private byte[] packedRow;
+
+    @Setup
+    public void setup() throws StandardException, IOException{
+        row = SampleRows.sampleRow();
+        destination = row.getNewNullRow();
+
+        fieldSerializers = VersionedSerializers.latestVersion(false).getSerializers(row);
+        fieldEncoder = MultiFieldEncoder.create(row.nColumns());
+        encodedFields = encodeFields();
+
+        rowHash = new EntryDataHash(IntArrays.count(row.nColumns()),null,
+                VersionedSerializers.latestVersion(true).getSerializers(row));
+        rowHash.setRow(row);
+        packedRow = rowHash.encode();
+        rowDecoder = rowHash.getDecoder();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException{
+        rowDecoder.close();
+        rowHash.close();
+    }
+
+    @Benchmark
+    public byte[] encodeFields() throws StandardException{
+        fieldEncoder.reset();
+        DataValueDescriptor[] fields = row.getRowArray();
+        for(int i=0;i<fields.length;i++){
+            fieldSerializers[i].encode(fieldEncoder,fields[i],false);
+        }
+        return fieldEncoder.build();
+    }
+
+    @Benchmark
+    public ExecRow decodeFields() throws StandardException{
+        MultiFieldDecoder decoder = MultiFieldDecoder.wrap(encodedFields);
+        DataValueDescriptor[] fields = destination.getRowArray();
+        for(int i=0;i<fields.length;i++){
+            fieldSerializers[i].decode(decoder,fields[i],false);
+        }
+        return destination;
+    }
+
+    @Benchmark
+    public byte[] encodeRow() throws StandardException, IOException{
+        return rowHash.encode();
+    }
+
+    @Benchmark
+    public ExecRow decodeRow() throws StandardException{
+        rowDecoder.set(packedRow,0,packedRow.length);
+        rowDecoder.decode(destination);
+        return destination;
+    }
+}
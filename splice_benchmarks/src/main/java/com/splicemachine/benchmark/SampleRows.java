@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.benchmark;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.SQLDate;
+import com.splicemachine.db.iapi.types.SQLDecimal;
+import com.splicemachine.db.iapi.types.SQLDouble;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLLongint;
+import com.splicemachine.db.iapi.types.SQLTimestamp;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+
+/**
+ * The row shared by the marshalling benchmarks: one column of each type commonly found in tables,
+ * with one NULL column.
+ */
+class SampleRows {
+
+    private SampleRows(){ }
+
+    static ExecRow sampleRow() throws StandardException{
+        return new ValueRow(new DataValueDescriptor[]{
+                new SQLInteger(42),
+                new SQLLongint(1234567890123L),
+                new SQLVarchar("a reasonably sized varchar column value"),
+                new SQLDecimal(new BigDecimal("12345.6789")),
+                new SQLDouble(3.14159d),
+                new SQLDate(Date.valueOf("2018-06-01")),
+                new SQLTimestamp(Timestamp.valueOf("2018-06-01 12:34:56.789")),
+                new SQLVarchar()
+        });
+    }
+}
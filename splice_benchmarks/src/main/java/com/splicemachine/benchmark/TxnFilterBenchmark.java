@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.benchmark;
+
+import com.splicemachine.concurrent.IncrementingClock;
+import com.splicemachine.encoding.Encoding;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.si.impl.ClientTxnLifecycleManager;
+import com.splicemachine.si.impl.ManualKeepAliveScheduler;
+import com.splicemachine.si.impl.MemTimestampSource;
+import com.splicemachine.si.impl.MemTxnStore;
+import com.splicemachine.si.impl.SimpleTxnFilter;
+import com.splicemachine.si.impl.data.MExceptionFactory;
+import com.splicemachine.si.impl.readresolve.NoOpReadResolver;
+import com.splicemachine.storage.CellType;
+import com.splicemachine.storage.DataCell;
+import com.splicemachine.storage.DataFilter;
+import com.splicemachine.storage.MCell;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks the visibility of every cell of a region with {@link SimpleTxnFilter}, against transactions
+ * kept by the in-memory transaction store. One invocation is one scan: a new filter, so a cold
+ * transaction cache, over {@code rows} rows written by {@code writers} transactions, one in ten of
+ * them rolled back. With {@code resolved}, the committed rows carry their commit timestamp cell,
+ * as they do once read-resolution went through, and no transaction needs to be looked up for them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TxnFilterBenchmark {
+    private static final byte[] TABLE = Bytes.toBytes("1184");
+
+    @Param({"1000"})
+    public int rows;
+
+    @Param({"1", "100"})
+    public int writers;
+
+    @Param({"true", "false"})
+    public boolean resolved;
+
+    private MemTxnStore txnStore;
+    private Txn reader;
+    private List<DataCell> cells;
+
+    @Setup
+    public void setup() throws IOException{
+        MemTimestampSource timestampSource = new MemTimestampSource();
+        txnStore = new MemTxnStore(new IncrementingClock(),timestampSource,MExceptionFactory.INSTANCE,Long.MAX_VALUE);
+        ClientTxnLifecycleManager lifecycleManager = new ClientTxnLifecycleManager(timestampSource,MExceptionFactory.INSTANCE);
+        lifecycleManager.setTxnStore(txnStore);
+        lifecycleManager.setKeepAliveScheduler(new ManualKeepAliveScheduler(txnStore));
+
+        Txn[] writerTxns = new Txn[writers];
+        for(int i=0;i<writers;i++){
+            writerTxns[i] = lifecycleManager.beginTransaction(TABLE);
+            if(i%10==9)
+                writerTxns[i].rollback();
+            else
+                writerTxns[i].commit();
+        }
+        reader = lifecycleManager.beginTransaction();
+
+        byte[] value = Encoding.encode("a packed row of a reasonable size, standing for a few columns");
+        cells = new ArrayList<>(2*rows);
+        for(int i=0;i<rows;i++){
+            Txn writer = writerTxns[i%writers];
+            byte[] key = Encoding.encode(i);
+            if(resolved && writer.getState()==Txn.State.COMMITTED){
+                cells.add(new MCell(key,SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.SNAPSHOT_ISOLATION_COMMIT_TIMESTAMP_COLUMN_BYTES,
+                        writer.getTxnId(),Bytes.toBytes(writer.getEffectiveCommitTimestamp()),CellType.COMMIT_TIMESTAMP));
+            }
+            cells.add(new MCell(key,SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.PACKED_COLUMN_BYTES,
+                    writer.getTxnId(),value,CellType.USER_DATA));
+        }
+    }
+
+    @Benchmark
+    public int scan() throws IOException{
+        SimpleTxnFilter filter = new SimpleTxnFilter(null,reader,NoOpReadResolver.INSTANCE,txnStore);
+        int visible = 0;
+        DataCell previous = null;
+        for(DataCell cell:cells){
+            if(previous!=null && !Bytes.equals(previous.keyArray(),cell.keyArray()))
+                filter.nextRow();
+            if(filter.filterCell(cell)==DataFilter.ReturnCode.INCLUDE)
+                visible++;
+            previous = cell;
+        }
+        return visible;
+    }
+}
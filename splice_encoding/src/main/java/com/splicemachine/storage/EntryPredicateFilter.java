@@ -16,7 +16,12 @@ package com.splicemachine.storage;
 
 import com.splicemachine.encoding.MultiFieldDecoder;
 import com.splicemachine.primitives.Bytes;
+import com.splicemachine.storage.index.BitIndex;
 import com.splicemachine.utils.Pair;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import com.carrotsearch.hppc.BitSet;
 import org.spark_project.guava.base.Supplier;
@@ -29,6 +34,8 @@ public class EntryPredicateFilter {
     public static final EntryPredicateFilter EMPTY_PREDICATE = new EntryPredicateFilter(new BitSet());
     private BitSet fieldsToReturn;
     private boolean returnIndex;
+    private ValuePredicate[] valuePredicates;
+    private int maxPredicateColumn = -1;
     public static EntryPredicateFilter emptyPredicate(){ return EMPTY_PREDICATE; }
 
     public EntryPredicateFilter(BitSet fieldsToReturn){
@@ -36,8 +43,23 @@ public class EntryPredicateFilter {
     }
 
     public EntryPredicateFilter(BitSet fieldsToReturn, boolean returnIndex){
+        this(fieldsToReturn, returnIndex, null);
+    }
+
+    /**
+     * @param valuePredicates predicates which every row must satisfy, checked against the encoded
+     *                        fields of packed rows before anything is accumulated, or {@code null} if
+     *                        there are none. Their fields must be part of {@code fieldsToReturn}
+     */
+    public EntryPredicateFilter(BitSet fieldsToReturn, boolean returnIndex, ValuePredicate[] valuePredicates){
         this.fieldsToReturn = fieldsToReturn;
         this.returnIndex=returnIndex;
+        this.valuePredicates = valuePredicates==null||valuePredicates.length==0? null: valuePredicates;
+        if(this.valuePredicates!=null){
+            for(ValuePredicate predicate:valuePredicates){
+                maxPredicateColumn = Math.max(maxPredicateColumn,predicate.getColumn());
+            }
+        }
     }
 
 		public boolean match(Indexed index,
@@ -88,8 +110,44 @@ public class EntryPredicateFilter {
 		}
 
 
+		/*
+		 * Checks the value predicates against the encoded fields, leaving the decoder where it was. Only
+		 * the fields which have not been filled in by a more recent version of the row are checked.
+		 */
+		private boolean matchValues(Indexed index,MultiFieldDecoder decoder,BitSet remainingFields){
+				int start = decoder.offset();
+				byte[] array = decoder.array();
+				try{
+						for(int encodedPos =index.nextSetBit(0);
+								encodedPos>=0&&encodedPos<=maxPredicateColumn;
+								encodedPos=index.nextSetBit(encodedPos + 1)){
+								int offset = decoder.offset();
+								if(offset>=array.length)
+										break;
+								skipField(decoder, encodedPos, index);
+								if(!remainingFields.get(encodedPos))
+										continue;
+								int limit = Math.min(decoder.offset()-1,array.length)-offset;
+								for(ValuePredicate predicate:valuePredicates){
+										if(predicate.getColumn()==encodedPos && !predicate.match(array,offset,limit))
+												return false;
+								}
+						}
+						return true;
+				}finally{
+						decoder.seek(start);
+				}
+		}
+
+		/*
+		 * The value predicates refer to the storage positions of packed rows, so they are only
+		 * checked here, and never against the fields of a row key.
+		 */
 		public boolean match(EntryDecoder entry,EntryAccumulator accumulator) throws IOException {
-				return match(entry.getCurrentIndex(),entry, accumulator);
+				BitIndex index = entry.getCurrentIndex();
+				if(valuePredicates!=null && !matchValues(index,entry.get(),accumulator.getRemainingFields()))
+						return false;
+				return match(index,entry, accumulator);
     }
 
     public void rowReturned(){
@@ -106,27 +164,50 @@ public class EntryPredicateFilter {
 
     public byte[] toBytes() {
         //if we dont have any distinguishing information, just send over an empty byte array
-        if(fieldsToReturn.isEmpty() && !returnIndex)
+        if(fieldsToReturn.isEmpty() && !returnIndex && valuePredicates==null)
             return new byte[]{};
 
         /*
          * Format is as follows:
          * BitSet bytes
          * 1-byte returnIndex
+         * value predicates, if any: 4-byte count, followed by each predicate
          */
         byte[] bitSetBytes = Bytes.toByteArray(fieldsToReturn);
         byte[] finalData = new byte[bitSetBytes.length+1];
         System.arraycopy(bitSetBytes,0,finalData,0,bitSetBytes.length);
         finalData[bitSetBytes.length] = returnIndex? (byte)0x01: 0x00;
-        return finalData;
+        if(valuePredicates==null)
+            return finalData;
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try(DataOutputStream out = new DataOutputStream(baos)){
+            out.write(finalData);
+            out.writeInt(valuePredicates.length);
+            for(ValuePredicate predicate:valuePredicates){
+                predicate.writeTo(out);
+            }
+        }catch(IOException e){
+            throw new IllegalStateException(e); //can't happen, we are writing to memory
+        }
+        return baos.toByteArray();
     }
 
     public static EntryPredicateFilter fromBytes(byte[] data) throws IOException {
         if(data==null||data.length==0) return EMPTY_PREDICATE;
 
         Pair<BitSet,Integer> fieldsToReturn = Bytes.fromByteArray(data, 0);
-        boolean returnIndex = data[fieldsToReturn.getSecond()] > 0;
-        return new EntryPredicateFilter(fieldsToReturn.getFirst(),returnIndex);
+        int returnIndexPos = fieldsToReturn.getSecond();
+        boolean returnIndex = data[returnIndexPos] > 0;
+        ValuePredicate[] valuePredicates = null;
+        if(data.length>returnIndexPos+1){
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data,returnIndexPos+1,data.length-returnIndexPos-1));
+            valuePredicates = new ValuePredicate[in.readInt()];
+            for(int i=0;i<valuePredicates.length;i++){
+                valuePredicates[i] = ValuePredicate.readFrom(in);
+            }
+        }
+        return new EntryPredicateFilter(fieldsToReturn.getFirst(),returnIndex,valuePredicates);
     }
 
     private void skipField(MultiFieldDecoder decoder, int position, Indexed index) {
@@ -154,4 +235,18 @@ public class EntryPredicateFilter {
     public boolean indexReturned() {
         return returnIndex;
     }
+
+    public boolean hasValuePredicates() {
+        return valuePredicates!=null;
+    }
+
+    /**
+     * @return a filter returning the same fields as this one, without any value predicate. It is used to
+     * decode row keys, whose fields are not laid out like the packed row the predicates refer to.
+     */
+    public EntryPredicateFilter withoutValuePredicates() {
+        if(valuePredicates==null)
+            return this;
+        return new EntryPredicateFilter(fieldsToReturn,returnIndex);
+    }
 }
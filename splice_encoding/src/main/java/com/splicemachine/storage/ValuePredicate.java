@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.storage;
+
+import com.splicemachine.primitives.Bytes;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A comparison of one encoded field of a row against one or more encoded values, evaluated
+ * without decoding the field.
+ *
+ * This only works for encodings which sort the same way as their values (e.g. scalars, decimals),
+ * or, for equality, encodings which are canonical. Strings are compared with their trailing
+ * spaces removed, so that they compare the way CHAR and VARCHAR values do.
+ *
+ * A predicate is only a pre-filter: a field which is NULL or absent from the row always passes, and
+ * is left to the scan qualifiers.
+ */
+public class ValuePredicate {
+    public static final byte EQUALS = 0x01;
+    public static final byte LESS_THAN = 0x02;
+    public static final byte LESS_OR_EQUALS = 0x03;
+    public static final byte GREATER_THAN = 0x04;
+    public static final byte GREATER_OR_EQUALS = 0x05;
+
+    /*a space, once encoded by StringEncoding*/
+    private static final byte ENCODED_SPACE = 0x22;
+    /*the empty string, once encoded by StringEncoding*/
+    private static final byte ENCODED_EMPTY_STRING = 0x01;
+
+    private final int column;
+    private final byte operator;
+    private final boolean negate;
+    private final boolean trimSpaces;
+    private final byte[][] values;
+
+    /**
+     * @param column the position of the field in the row
+     * @param operator the comparison of the field against the values
+     * @param negate whether the outcome of the comparison is negated
+     * @param trimSpaces whether trailing spaces are ignored, for string fields
+     * @param values the encoded values. With more than one value, the field must compare
+     *               with any of them (an IN list)
+     */
+    public ValuePredicate(int column, byte operator, boolean negate, boolean trimSpaces, byte[]... values) {
+        assert values.length > 0 : "No value to compare with";
+        assert values.length == 1 || operator == EQUALS : "Only equality can be checked against several values";
+        this.column = column;
+        this.operator = operator;
+        this.negate = negate;
+        this.trimSpaces = trimSpaces;
+        this.values = values;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    /**
+     * @return true if the encoded field may satisfy this predicate, false if it certainly does not
+     */
+    public boolean match(byte[] data, int offset, int length) {
+        if (length <= 0)
+            return true; //NULLs are left to the qualifiers
+        int fieldLength = trimSpaces ? trimmedLength(data, offset, length) : length;
+        boolean matches = false;
+        for (byte[] value : values) {
+            int valueLength = trimSpaces ? trimmedLength(value, 0, value.length) : value.length;
+            int compare = Bytes.BASE_COMPARATOR.compare(data, offset, fieldLength, value, 0, valueLength);
+            if (matches(compare)) {
+                matches = true;
+                break;
+            }
+        }
+        return matches != negate;
+    }
+
+    private boolean matches(int compare) {
+        switch (operator) {
+            case EQUALS:
+                return compare == 0;
+            case LESS_THAN:
+                return compare < 0;
+            case LESS_OR_EQUALS:
+                return compare <= 0;
+            case GREATER_THAN:
+                return compare > 0;
+            case GREATER_OR_EQUALS:
+                return compare >= 0;
+            default:
+                throw new IllegalStateException("Unknown operator " + operator);
+        }
+    }
+
+    private static int trimmedLength(byte[] data, int offset, int length) {
+        int end = offset + length;
+        while (end > offset && data[end - 1] == ENCODED_SPACE)
+            end--;
+        if (end == offset + 1 && data[offset] == ENCODED_EMPTY_STRING)
+            end = offset;
+        return end - offset;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(column);
+        out.writeByte(operator);
+        out.writeBoolean(negate);
+        out.writeBoolean(trimSpaces);
+        out.writeInt(values.length);
+        for (byte[] value : values) {
+            out.writeInt(value.length);
+            out.write(value);
+        }
+    }
+
+    public static ValuePredicate readFrom(DataInput in) throws IOException {
+        int column = in.readInt();
+        byte operator = in.readByte();
+        boolean negate = in.readBoolean();
+        boolean trimSpaces = in.readBoolean();
+        byte[][] values = new byte[in.readInt()][];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = new byte[in.readInt()];
+            in.readFully(values[i]);
+        }
+        return new ValuePredicate(column, operator, negate, trimSpaces, values);
+    }
+
+    @Override
+    public String toString() {
+        return "ValuePredicate{column=" + column + ", operator=" + operator + ", negate=" + negate + ", values=" + values.length + "}";
+    }
+}
@@ -15,6 +15,7 @@
 package com.splicemachine.storage;
 
 import com.carrotsearch.hppc.BitSet;
+import com.splicemachine.encoding.Encoding;
 import com.splicemachine.encoding.MultiFieldDecoder;
 import com.splicemachine.storage.index.BitIndex;
 import com.splicemachine.storage.index.BitIndexing;
@@ -139,4 +140,55 @@ public class EntryPredicateFilterTest {
         Assert.assertEquals("Incorrect string returned!",testType1,decodedField);
         Assert.assertTrue("more than one field available in field decoder!",fieldDecoder.nextIsNull());
     }
+
+    @Test
+    public void testValuePredicatesRejectRowsWithoutAccumulating() throws Exception {
+        BitSet setCols = new BitSet(3);
+        setCols.set(0, 3);
+        BitSet scalarFields = new BitSet(3);
+        scalarFields.set(1);
+        BitIndex index = BitIndexing.getBestIndex(setCols,scalarFields,new BitSet(3),new BitSet(3));
+        EntryEncoder encoder = EntryEncoder.create(defaultPool,index);
+        encoder.getEntryEncoder().encodeNext("ab  ").encodeNext(7L).encodeNext(new BigDecimal("2.50"));
+        byte[] data = encoder.encode();
+
+        Assert.assertTrue("trailing spaces should be ignored",
+                matches(data, new ValuePredicate(0, ValuePredicate.EQUALS, false, true, Encoding.encode("ab"))));
+        Assert.assertTrue("7 > 5",
+                matches(data, new ValuePredicate(1, ValuePredicate.GREATER_THAN, false, false, Encoding.encode(5L))));
+        Assert.assertFalse("7 <> 7",
+                matches(data, new ValuePredicate(1, ValuePredicate.EQUALS, true, false, Encoding.encode(7L))));
+        Assert.assertTrue("2.50 in (1, 2.5)",
+                matches(data, new ValuePredicate(2, ValuePredicate.EQUALS, false, false,
+                        Encoding.encode(BigDecimal.ONE), Encoding.encode(new BigDecimal("2.5")))));
+        Assert.assertFalse("7 < -3",
+                matches(data,
+                        new ValuePredicate(0, ValuePredicate.EQUALS, false, true, Encoding.encode("ab")),
+                        new ValuePredicate(1, ValuePredicate.LESS_THAN, false, false, Encoding.encode(-3L))));
+    }
+
+    @Test
+    public void testValuePredicatesSurviveSerialization() throws Exception {
+        BitSet fieldsToReturn = new BitSet(2);
+        fieldsToReturn.set(1);
+        EntryPredicateFilter filter = new EntryPredicateFilter(fieldsToReturn, true, new ValuePredicate[]{
+                new ValuePredicate(1, ValuePredicate.LESS_OR_EQUALS, false, false, Encoding.encode(12L))});
+        EntryPredicateFilter copy = EntryPredicateFilter.fromBytes(filter.toBytes());
+        Assert.assertTrue("predicates were lost", copy.hasValuePredicates());
+        Assert.assertTrue("index flag was lost", copy.indexReturned());
+
+        EntryPredicateFilter plain = EntryPredicateFilter.fromBytes(new EntryPredicateFilter(fieldsToReturn, true).toBytes());
+        Assert.assertFalse("no predicate was given", plain.hasValuePredicates());
+    }
+
+    private static boolean matches(byte[] data, ValuePredicate... predicates) throws Exception {
+        EntryPredicateFilter predicateFilter = new EntryPredicateFilter(new BitSet(), true, predicates);
+        EntryDecoder decoder = new EntryDecoder();
+        decoder.set(data);
+        EntryAccumulator accumulator = predicateFilter.newAccumulator();
+        boolean match = predicateFilter.match(decoder, accumulator);
+        if (match)
+            Assert.assertTrue("fields were not accumulated", accumulator.finish().length > 0);
+        return match;
+    }
 }
@@ -0,0 +1,433 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.load;
+
+import org.supercsv.exception.SuperCsvException;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tokenizes UTF-8 encoded CSV records directly from a byte buffer.
+ *
+ * Each call to {@link #next()} finds the fields of the next record and records where they lie in the buffer;
+ * nothing is copied until a field value is asked for, and integer fields can be read without building a
+ * String at all. The rules are those of {@link com.splicemachine.derby.stream.function.QuoteTrackingTokenizer}
+ * with the preferences the import uses: a quote character anywhere in a field switches quote mode on and
+ * off, a doubled quote in quote mode stands for one quote, line breaks in quote mode are kept as {@code \n},
+ * surrounding spaces are kept, and empty lines are skipped. Since the quote and delimiter characters are
+ * ASCII and never occur inside a multi-byte UTF-8 sequence, the tokenizer never has to decode the input.
+ *
+ * The tokenizer can also start in the middle of a file (see {@link #skipPartialRecord(int, boolean)}),
+ * which is how an import file is split into byte ranges which are parsed in parallel.
+ */
+@NotThreadSafe
+public class CsvByteTokenizer{
+    private static final int DEFAULT_BUFFER_SIZE=1<<16;
+    private static final int MAX_INTEGER_DIGITS=18;
+
+    private final InputStream in;
+    private final byte quote;
+    private final byte delimiter;
+    private final boolean oneLineRecords;
+    private final int maxLinesPerRow;
+
+    private byte[] buffer;
+    private int limit;
+    private boolean eof;
+    private long bufferOffset;
+    private int recordStart;
+    private int recordEnd;
+
+    private int fieldCount;
+    private int[] fieldStarts=new int[16];
+    private int[] fieldEnds=new int[16];
+    private byte[] fieldFlags=new byte[16];
+    private byte[] scratch=new byte[64];
+
+    private static final byte QUOTED=0x01;
+    private static final byte COMPLEX=0x02;
+
+    /**
+     * @param in the bytes to tokenize, starting at a record boundary unless
+     *           {@link #skipPartialRecord(int, boolean)} is called first
+     * @param streamOffset the offset of the first byte of {@code in} in the file
+     * @param quote the quote character
+     * @param delimiter the column delimiter
+     * @param oneLineRecords whether each line holds exactly one record, so line breaks end quoted fields
+     * @param maxLinesPerRow the most lines a quoted field may span, or 0 for no limit
+     */
+    public CsvByteTokenizer(InputStream in,long streamOffset,char quote,char delimiter,boolean oneLineRecords,int maxLinesPerRow){
+        this(in,streamOffset,quote,delimiter,oneLineRecords,maxLinesPerRow,DEFAULT_BUFFER_SIZE);
+    }
+
+    CsvByteTokenizer(InputStream in,long streamOffset,char quote,char delimiter,boolean oneLineRecords,int maxLinesPerRow,int bufferSize){
+        assert canTokenize(quote,delimiter):"Quote and delimiter must be distinct ASCII characters";
+        this.in=in;
+        this.bufferOffset=streamOffset;
+        this.quote=(byte)quote;
+        this.delimiter=(byte)delimiter;
+        this.oneLineRecords=oneLineRecords;
+        this.maxLinesPerRow=oneLineRecords?1:maxLinesPerRow;
+        this.buffer=new byte[bufferSize];
+    }
+
+    /**
+     * @return whether files using these characters can be tokenized byte by byte
+     */
+    public static boolean canTokenize(char quote,char delimiter){
+        return quote<0x80 && delimiter<0x80 && quote!=delimiter
+                && quote!='\n' && quote!='\r' && delimiter!='\n' && delimiter!='\r';
+    }
+
+    /**
+     * Move to the start of the first record which begins in the stream.
+     *
+     * @param previousByte the byte before the first byte of the stream
+     * @param inQuote whether the first byte of the stream is inside a quoted field
+     */
+    public void skipPartialRecord(int previousByte,boolean inQuote) throws IOException{
+        if(!inQuote && (previousByte=='\n' || previousByte=='\r')){
+            if(previousByte=='\n' || !available() || buffer[recordStart]!='\n')
+                return; //the stream starts with a record
+        }
+        while(available()){
+            byte b=buffer[recordStart++];
+            if(b==quote && !oneLineRecords)
+                inQuote=!inQuote;
+            else if(!inQuote && (b=='\n' || b=='\r')){
+                if(b=='\r' && available() && buffer[recordStart]=='\n')
+                    recordStart++;
+                break;
+            }
+        }
+        recordEnd=recordStart;
+    }
+
+    /**
+     * Tokenize the next record.
+     *
+     * @return false when there are no more records
+     * @throws SuperCsvException when the record is malformed. The tokenizer moves past the malformed
+     * part of the input, so the next record can still be read.
+     */
+    public boolean next() throws IOException{
+        recordStart=recordEnd;
+        while(true){
+            int end=tokenize();
+            if(end==NEED_MORE){
+                if(!fill())
+                    eof=true;
+                continue;
+            }
+            if(end==EMPTY_LINE){
+                continue;
+            }
+            return end!=END_OF_INPUT;
+        }
+    }
+
+    /**
+     * @return the offset in the file of the first byte of the current record
+     */
+    public long recordOffset(){
+        return bufferOffset+recordStart;
+    }
+
+    public int fieldCount(){
+        return fieldCount;
+    }
+
+    /**
+     * @return whether the field was quoted, in whole or in part
+     */
+    public boolean isQuoted(int field){
+        return (fieldFlags[field]&QUOTED)!=0;
+    }
+
+    /**
+     * @return whether the field stands for a null value: it is empty, or an unquoted {@code null}
+     */
+    public boolean isNull(int field){
+        if((fieldFlags[field]&COMPLEX)!=0)
+            return decode(field)==0;
+        int start=fieldStarts[field];
+        int length=fieldEnds[field]-start;
+        if(length==0)
+            return true;
+        return !isQuoted(field) && length==4
+                && (buffer[start]|0x20)=='n'
+                && (buffer[start+1]|0x20)=='u'
+                && (buffer[start+2]|0x20)=='l'
+                && (buffer[start+3]|0x20)=='l';
+    }
+
+    /**
+     * @return whether the field is a plain decimal integer which fits in a long: an optional minus sign
+     * followed by at most 18 digits, without surrounding spaces
+     */
+    public boolean isInteger(int field){
+        if((fieldFlags[field]&COMPLEX)!=0)
+            return false;
+        int p=fieldStarts[field];
+        int end=fieldEnds[field];
+        if(p<end && buffer[p]=='-')
+            p++;
+        int digits=end-p;
+        if(digits==0 || digits>MAX_INTEGER_DIGITS)
+            return false;
+        for(;p<end;p++){
+            byte b=buffer[p];
+            if(b<'0' || b>'9')
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the value of a field for which {@link #isInteger(int)} holds
+     */
+    public long longValue(int field){
+        int p=fieldStarts[field];
+        int end=fieldEnds[field];
+        boolean negative=buffer[p]=='-';
+        if(negative)
+            p++;
+        long value=0L;
+        for(;p<end;p++){
+            value=value*10+(buffer[p]-'0');
+        }
+        return negative?-value:value;
+    }
+
+    /**
+     * @return the value of the field, or null if it is empty
+     */
+    public String stringValue(int field){
+        if((fieldFlags[field]&COMPLEX)!=0){
+            int length=decode(field);
+            return length==0?null:new String(scratch,0,length,StandardCharsets.UTF_8);
+        }
+        int start=fieldStarts[field];
+        int length=fieldEnds[field]-start;
+        return length==0?null:new String(buffer,start,length,StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the values of the fields of the current record, for error messages
+     */
+    public List<String> values(){
+        List<String> values=new ArrayList<>(fieldCount);
+        for(int i=0;i<fieldCount;i++){
+            values.add(stringValue(i));
+        }
+        return values;
+    }
+
+    @Override
+    public String toString(){
+        return values().toString();
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private static final int NEED_MORE=-1;
+    private static final int EMPTY_LINE=-2;
+    private static final int END_OF_INPUT=-3;
+
+    /**
+     * Find the fields of the record starting at recordStart.
+     *
+     * @return the end of the record, or one of NEED_MORE, EMPTY_LINE and END_OF_INPUT
+     */
+    private int tokenize(){
+        fieldCount=0;
+        int p=recordStart;
+        int fieldStart=p;
+        int closingQuote=-1;
+        byte flags=0;
+        boolean inQuote=false;
+        int quotedLines=0;
+        while(true){
+            if(p==limit){
+                if(!eof)
+                    return NEED_MORE;
+                if(p==recordStart)
+                    return END_OF_INPUT;
+                if(inQuote){
+                    recordEnd=p;
+                    throw new SuperCsvException(String.format("partial record found [%s] while reading quoted column",
+                            new String(buffer,fieldStart,p-fieldStart,StandardCharsets.UTF_8)));
+                }
+                addField(fieldStart,p,closingQuote,flags);
+                recordEnd=p;
+                return p;
+            }
+            byte b=buffer[p];
+            if(inQuote){
+                if(b==quote){
+                    if(p+1==limit && !eof)
+                        return NEED_MORE;
+                    if(p+1<limit && buffer[p+1]==quote){
+                        flags|=COMPLEX; //an escaped quote
+                        p+=2;
+                    }else{
+                        inQuote=false;
+                        closingQuote=p;
+                        p++;
+                    }
+                }else if(b=='\n' || b=='\r'){
+                    if(maxLinesPerRow>0 && quotedLines>=maxLinesPerRow){
+                        recordEnd=p;
+                        throw new SuperCsvException(maxLinesPerRow==1?
+                                "unexpected end of line while reading quoted column":
+                                String.format("max number of lines to read exceeded while reading quoted column"+
+                                        " spanning %d lines",quotedLines));
+                    }
+                    if(b=='\r'){
+                        if(p+1==limit && !eof)
+                            return NEED_MORE;
+                        flags|=COMPLEX; //line breaks are read as \n
+                    }
+                    quotedLines++;
+                    p++;
+                }else
+                    p++;
+            }else if(b==delimiter){
+                addField(fieldStart,p,closingQuote,flags);
+                p++;
+                fieldStart=p;
+                closingQuote=-1;
+                flags=0;
+            }else if(b==quote){
+                if(p!=fieldStart || (flags&QUOTED)!=0)
+                    flags|=COMPLEX;
+                flags|=QUOTED;
+                inQuote=true;
+                quotedLines=1;
+                p++;
+            }else if(b=='\n' || b=='\r'){
+                int end=p;
+                if(b=='\r'){
+                    if(p+1==limit && !eof)
+                        return NEED_MORE;
+                    if(p+1<limit && buffer[p+1]=='\n')
+                        p++;
+                }
+                p++;
+                if(end==recordStart){
+                    recordStart=p;
+                    recordEnd=p;
+                    return EMPTY_LINE;
+                }
+                addField(fieldStart,end,closingQuote,flags);
+                recordEnd=p;
+                return end;
+            }else
+                p++;
+        }
+    }
+
+    private void addField(int start,int end,int closingQuote,byte flags){
+        if(fieldCount==fieldStarts.length){
+            int size=fieldCount*2;
+            fieldStarts=Arrays.copyOf(fieldStarts,size);
+            fieldEnds=Arrays.copyOf(fieldEnds,size);
+            fieldFlags=Arrays.copyOf(fieldFlags,size);
+        }
+        if((flags&QUOTED)!=0 && (flags&COMPLEX)==0){
+            if(closingQuote==end-1){
+                //a simply quoted field: the value lies between the quotes
+                start++;
+                end--;
+            }else
+                flags|=COMPLEX;
+        }
+        fieldStarts[fieldCount]=start;
+        fieldEnds[fieldCount]=end;
+        fieldFlags[fieldCount]=flags;
+        fieldCount++;
+    }
+
+    /**
+     * Unquote a field into the scratch buffer.
+     *
+     * @return the length of the value
+     */
+    private int decode(int field){
+        int p=fieldStarts[field];
+        int end=fieldEnds[field];
+        if(scratch.length<end-p)
+            scratch=new byte[Math.max(end-p,scratch.length*2)];
+        int length=0;
+        boolean inQuote=false;
+        while(p<end){
+            byte b=buffer[p++];
+            if(b==quote){
+                if(inQuote && p<end && buffer[p]==quote){
+                    scratch[length++]=quote;
+                    p++;
+                }else
+                    inQuote=!inQuote;
+            }else if(b=='\r' && inQuote){
+                if(p<end && buffer[p]=='\n')
+                    p++;
+                scratch[length++]='\n';
+            }else
+                scratch[length++]=b;
+        }
+        return length;
+    }
+
+    /**
+     * @return whether there is a byte at recordStart
+     */
+    private boolean available() throws IOException{
+        while(recordStart==limit){
+            if(eof)
+                return false;
+            if(!fill())
+                eof=true;
+        }
+        return true;
+    }
+
+    /**
+     * Move the current record to the front of the buffer (growing it if the record fills it) and read more.
+     *
+     * @return false at the end of the input
+     */
+    private boolean fill() throws IOException{
+        if(recordStart>0){
+            System.arraycopy(buffer,recordStart,buffer,0,limit-recordStart);
+            limit-=recordStart;
+            bufferOffset+=recordStart;
+            recordEnd-=recordStart;
+            recordStart=0;
+        }
+        if(limit==buffer.length)
+            buffer=Arrays.copyOf(buffer,buffer.length*2);
+        int n=in.read(buffer,limit,buffer.length-limit);
+        if(n<0)
+            return false;
+        limit+=n;
+        return true;
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A byte range of an uncompressed import file.
+ *
+ * A split owns the records which start inside it: the parser of a split skips the partial record at its
+ * start and reads past its end to finish its last record. Finding the first record of a split needs to know
+ * whether the split starts inside a quoted field; when records may span lines, that is found by counting
+ * the quote characters of every split in parallel, since a split starts inside quotes exactly when the
+ * splits before it hold an odd number of quote characters.
+ */
+public class ImportSplit implements Serializable{
+    private static final long serialVersionUID=1L;
+
+    private final String path;
+    private final long start;
+    private final long end;
+    private final long quoteCount;
+    private final boolean startsInQuote;
+
+    public ImportSplit(String path,long start,long end){
+        this(path,start,end,0L,false);
+    }
+
+    private ImportSplit(String path,long start,long end,long quoteCount,boolean startsInQuote){
+        this.path=path;
+        this.start=start;
+        this.end=end;
+        this.quoteCount=quoteCount;
+        this.startsInQuote=startsInQuote;
+    }
+
+    /**
+     * Split a file into ranges of (at most) {@code splitSize} bytes.
+     */
+    public static List<ImportSplit> split(String path,long fileSize,long splitSize){
+        List<ImportSplit> splits=new ArrayList<>();
+        if(splitSize<=0 || fileSize<=splitSize){
+            splits.add(new ImportSplit(path,0L,fileSize));
+            return splits;
+        }
+        for(long start=0L;start<fileSize;start+=splitSize){
+            splits.add(new ImportSplit(path,start,Math.min(start+splitSize,fileSize)));
+        }
+        return splits;
+    }
+
+    /**
+     * Work out which splits start inside a quoted field from the quote counts of the splits.
+     *
+     * @param counted the splits of a file, as returned by {@link #withQuoteCount(long)}, in any order
+     * @return the splits, in file order
+     */
+    public static List<ImportSplit> resolveQuoteState(List<ImportSplit> counted){
+        List<ImportSplit> sorted=new ArrayList<>(counted);
+        sorted.sort(Comparator.comparingLong(ImportSplit::getStart));
+        List<ImportSplit> resolved=new ArrayList<>(sorted.size());
+        boolean inQuote=false;
+        for(ImportSplit split : sorted){
+            resolved.add(new ImportSplit(split.path,split.start,split.end,split.quoteCount,inQuote));
+            if((split.quoteCount&1L)!=0)
+                inQuote=!inQuote;
+        }
+        return resolved;
+    }
+
+    /**
+     * @return this split, knowing that it holds {@code quoteCount} quote characters
+     */
+    public ImportSplit withQuoteCount(long quoteCount){
+        return new ImportSplit(path,start,end,quoteCount,startsInQuote);
+    }
+
+    /**
+     * Count the quote characters in this split.
+     *
+     * @param in the file, positioned at the start of this split
+     */
+    public long countQuotes(InputStream in,char quote) throws IOException{
+        byte q=(byte)quote;
+        byte[] buffer=new byte[1<<16];
+        long remaining=end-start;
+        long count=0L;
+        while(remaining>0){
+            int n=in.read(buffer,0,(int)Math.min(buffer.length,remaining));
+            if(n<0)
+                break;
+            for(int i=0;i<n;i++){
+                if(buffer[i]==q)
+                    count++;
+            }
+            remaining-=n;
+        }
+        return count;
+    }
+
+    /**
+     * Move a stream of the file to {@code position}.
+     */
+    public static void skipFully(InputStream in,long position) throws IOException{
+        long remaining=position;
+        while(remaining>0){
+            long skipped=in.skip(remaining);
+            if(skipped<=0){
+                if(in.read()<0)
+                    throw new IOException("Unexpected end of file "+position+" bytes in");
+                skipped=1;
+            }
+            remaining-=skipped;
+        }
+    }
+
+    public String getPath(){
+        return path;
+    }
+
+    public long getStart(){
+        return start;
+    }
+
+    public long getEnd(){
+        return end;
+    }
+
+    public boolean startsInQuote(){
+        return startsInQuote;
+    }
+
+    @Override
+    public String toString(){
+        return path+"["+start+","+end+")";
+    }
+}
@@ -25,12 +25,14 @@ import com.splicemachine.si.impl.driver.SIDriver;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Locale;
 
 /**
  * @author Scott Fines
  *         Date: 2/26/14
  */
 public class ImportUtils{
+    private static final String[] COMPRESSED_SUFFIXES={".gz",".bz2",".deflate",".snappy",".lz4",".lzo",".zst",".zip"};
 
     /**
      * Return the total space consumed by the import data files.
@@ -102,6 +104,18 @@ public class ImportUtils{
     }
 
 
+    /**
+     * @return whether the file can be read from any offset, which is not the case of compressed files
+     */
+    public static boolean isSplittable(String path){
+        String name=path.toLowerCase(Locale.ROOT);
+        for(String suffix : COMPRESSED_SUFFIXES){
+            if(name.endsWith(suffix))
+                return false;
+        }
+        return true;
+    }
+
     public static DistributedFileSystem getFileSystem(String path) throws StandardException {
         try {
            return SIDriver.driver().getSIEnvironment().fileSystem(path);
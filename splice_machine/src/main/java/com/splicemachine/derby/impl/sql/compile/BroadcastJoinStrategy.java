@@ -127,12 +127,10 @@ public class BroadcastJoinStrategy extends HashableJoinStrategy {
         double estimatedMemoryMB = innerCost.getEstimatedHeapSize()/1024d/1024d;
         double estimatedRowCount = innerCost.getEstimatedRowCount();
         SConfiguration configuration=EngineDriver.driver().getConfiguration();
-        long regionThreshold = configuration.getBroadcastRegionMbThreshold();
-        long rowCountThreshold = configuration.getBroadcastRegionRowThreshold();
         AccessPath currentAccessPath = innerTable.getCurrentAccessPath();
         boolean isHinted = currentAccessPath.isHintedJoinStrategy();
 
-        if (isHinted || estimatedMemoryMB<regionThreshold && estimatedRowCount<rowCountThreshold &&
+        if (isHinted || isUnderBroadcastLimits(configuration, estimatedMemoryMB, estimatedRowCount) &&
                 (!currentAccessPath.isMissingHashKeyOK() || (innerTable instanceof FromBaseTable &&  // non-equality broadcast join only costed if using spark
                 ((FromBaseTable)innerTable).isSpark(((FromBaseTable)innerTable).getdataSetProcessorTypeForAccessPath(currentAccessPath))))) {
             double joinSelectivity = SelectivityUtil.estimateJoinSelectivity(innerTable, cd, predList, (long) innerCost.rowCount(), (long) outerCost.rowCount(), outerCost);
@@ -167,10 +165,37 @@ public class BroadcastJoinStrategy extends HashableJoinStrategy {
     public boolean isMemoryUsageUnderLimit(double totalMemoryConsumed) {
         double totalMemoryinMB = totalMemoryConsumed/1024d/1024d;
         SConfiguration configuration=EngineDriver.driver().getConfiguration();
-        long regionThreshold = configuration.getBroadcastRegionMbThreshold();
+        long regionThreshold = getRegionMbThreshold(configuration);
 
         return (totalMemoryinMB < regionThreshold);
     }
 
+    /**
+     * @return whether an inner table of this estimated size may be broadcast
+     */
+    static boolean isUnderBroadcastLimits(SConfiguration configuration, double estimatedMemoryMB, double estimatedRowCount) {
+        return estimatedMemoryMB < getRegionMbThreshold(configuration) &&
+                estimatedRowCount < getRowCountThreshold(configuration);
+    }
+
+    /**
+     * The inner table's size estimate is for encoded rows, which an on-heap join table holds as several times
+     * larger objects; when the join table is built off-heap the rows are kept encoded, so a proportionally
+     * larger inner table fits in the same memory, none of it on the heap.
+     */
+    private static long getRegionMbThreshold(SConfiguration configuration) {
+        long regionThreshold = configuration.getBroadcastRegionMbThreshold();
+        if (configuration.getBroadcastJoinOffHeap())
+            regionThreshold *= configuration.getBroadcastOffHeapFactor();
+        return regionThreshold;
+    }
+
+    private static long getRowCountThreshold(SConfiguration configuration) {
+        long rowCountThreshold = configuration.getBroadcastRegionRowThreshold();
+        if (configuration.getBroadcastJoinOffHeap())
+            rowCountThreshold *= configuration.getBroadcastOffHeapFactor();
+        return rowCountThreshold;
+    }
+
 }
 
@@ -15,29 +15,60 @@
 package com.splicemachine.derby.impl.sql.execute.operations;
 
 import com.splicemachine.db.iapi.sql.conn.ResubmitDistributedException;
-import org.spark_project.guava.cache.Cache;
-import org.spark_project.guava.cache.CacheBuilder;
+import com.splicemachine.access.api.SConfiguration;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.store.access.Qualifier;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
 import com.splicemachine.derby.impl.sql.JoinTable;
 import com.splicemachine.pipeline.Exceptions;
+import com.splicemachine.si.api.txn.Txn;
+import com.splicemachine.si.api.txn.TxnView;
+import com.splicemachine.si.impl.driver.SIDriver;
+import com.splicemachine.storage.DataScan;
 import com.splicemachine.stream.Stream;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
 
 /**
  * Represents a Cache of records for use in a Broadcast Join.
  *
+ * Each table is built once per key, however many joins ask for it at the same time, and is shared
+ * by all of them. A table which no join is using is kept for reuse until it has been idle for
+ * {@code splice.execution.broadcastJoinCacheIdleMs}, or until the memory held by the cached tables
+ * exceeds {@code splice.execution.broadcastJoinCacheBytes}. In the latter case the idle tables which
+ * took the least time to build for the memory they hold are dropped first, so that large tables
+ * which are expensive to rebuild stay cached the longest.
+ *
+ * Tables are normally keyed by the join operation, so they are only shared between the tasks of a
+ * single execution. When the inner side is a plain scan of a base table read under a read-only
+ * transaction, the table is instead keyed by what it contains (see {@link #scanKey}). It is then shared
+ * by every query which reads the same rows under the same snapshot, and by queries under later snapshots
+ * as long as the {@link SnapshotCheck} shows that the table has not been written to in between.
+ *
  * @author Scott Fines
  *         Date: 10/27/15
  */
 public class BroadcastJoinCache{
-    private final Cache<Long,ReferenceCountingFactory> cache;
+    private final Map<Object,ReferenceCountingFactory> cache=new HashMap<>();
     private final JoinTableLoader tableLoader;
+    private final LongSupplier maxBytes;
+    private final LongSupplier idleMillis;
+    private final LongSupplier ticker;
+    private final SnapshotCheck snapshots;
+    /* conglomerate id -> {from, after, checked at}, see SnapshotCheck#quiescentPoint; guarded by this */
+    private final Map<Long,long[]> quiescentPoints=new HashMap<>();
+    private long cachedBytes;
 
     interface JoinTableLoader{
         JoinTable.Factory load(Callable<Stream<ExecRow>> streamLoader,
@@ -46,31 +77,107 @@ public class BroadcastJoinCache{
                                ExecRow outerTemplateRow) throws Exception;
     }
 
+    /**
+     * Tells whether the rows of a base table changed between two snapshots.
+     */
+    interface SnapshotCheck{
+        /**
+         * @return {@code {from, after}} such that every transaction which began before {@code from} and writes
+         * to the table had finished before {@code after}, or {@code null} if such a transaction is still running
+         */
+        long[] quiescentPoint(long conglomerateId) throws IOException;
+
+        /**
+         * @return whether a transaction which began in [from, to) wrote to the range read by the scan
+         */
+        boolean modifiedBetween(ScanKey key,long from,long to) throws IOException;
+    }
+
+    private static final SnapshotCheck NO_SHARING=new SnapshotCheck(){
+        @Override public long[] quiescentPoint(long conglomerateId){ return null; }
+        @Override public boolean modifiedBetween(ScanKey key,long from,long to){ return true; }
+    };
+
     public BroadcastJoinCache(){
-       this(ByteBufferMapTableLoader.INSTANCE);
+        /*
+         * This cache is created before the driver is available, so the limits are read when they are used.
+         * Without a driver, tables are dropped as soon as they are no longer used.
+         */
+        this(BroadcastJoinCache::loadConfiguredTable,
+                () -> {
+                    SConfiguration config=config();
+                    return config==null?0L:config.getBroadcastJoinCacheBytes();
+                },
+                () -> {
+                    SConfiguration config=config();
+                    return config==null?0L:config.getBroadcastJoinCacheIdleMs();
+                },
+                System::nanoTime,
+                BroadcastJoinSnapshots.INSTANCE);
     }
 
     public BroadcastJoinCache(JoinTableLoader tableLoader){
-        this.tableLoader = tableLoader;
-        this.cache =CacheBuilder.newBuilder()
-                .maximumSize(1000)
-                .expireAfterAccess(2,TimeUnit.SECONDS)
-                .softValues()
-                .build();
+        this(tableLoader,() -> 0L,() -> 0L,System::nanoTime);
     }
 
-    public JoinTable.Factory get(Long operationId,
+    BroadcastJoinCache(JoinTableLoader tableLoader,LongSupplier maxBytes,LongSupplier idleMillis,LongSupplier ticker){
+        this(tableLoader,maxBytes,idleMillis,ticker,NO_SHARING);
+    }
+
+    BroadcastJoinCache(JoinTableLoader tableLoader,LongSupplier maxBytes,LongSupplier idleMillis,LongSupplier ticker,SnapshotCheck snapshots){
+        this.tableLoader=tableLoader;
+        this.maxBytes=maxBytes;
+        this.idleMillis=idleMillis;
+        this.ticker=ticker;
+        this.snapshots=snapshots;
+    }
+
+    /**
+     * Get the join table for the key, building it if it is not cached. If another thread is building the
+     * table already, wait for it rather than building it a second time.
+     *
+     * The table is held for the caller until the table created from the returned factory is closed.
+     */
+    public JoinTable.Factory get(Object key,
                          Callable<Stream<ExecRow>> loader,
                          int[] rightHashKeys,
                          int[] leftHashKeys,
                          ExecRow leftTemplateRow) throws IOException, StandardException{
+        Object cacheKey=key;
+        Snapshot shared=null;
+        if(key instanceof SnapshotKey){
+            shared=sharedSnapshot((SnapshotKey)key);
+            if(shared!=null)
+                cacheKey=((SnapshotKey)key).scan;
+        }
+        ReferenceCountingFactory joinTable;
+        boolean build=false;
+        synchronized(this){
+            expireIdle();
+            joinTable=cache.get(cacheKey);
+            if(shared!=null && joinTable!=null && !joinTable.snapshot.covers(shared.beginTimestamp)){
+                // the shared table was replaced since it was checked, so only share within the snapshot
+                cacheKey=key;
+                shared=null;
+                joinTable=cache.get(cacheKey);
+            }
+            if(joinTable==null){
+                joinTable=new ReferenceCountingFactory(cacheKey,shared);
+                cache.put(cacheKey,joinTable);
+                build=true;
+                BroadcastJoinMemory.instance().cacheMiss();
+            }else
+                BroadcastJoinMemory.instance().cacheHit();
+            joinTable.refCount++;
+        }
+        if(build)
+            build(joinTable,loader,rightHashKeys,leftHashKeys,leftTemplateRow);
         try{
-            Loader callable=new Loader(operationId,tableLoader,rightHashKeys,leftHashKeys,leftTemplateRow,loader);
-            ReferenceCountingFactory joinTable=cache.get(operationId,callable);
-            joinTable.refCount.incrementAndGet();
+            joinTable.delegate.get();
             return joinTable;
         }catch(Exception e){
-            Throwable c = e.getCause();
+            release(joinTable);
+            Throwable c = e instanceof ExecutionException?e.getCause():e;
             if(c instanceof StandardException)
                 throw (StandardException)c;
             else if (c instanceof ResubmitDistributedException)
@@ -81,36 +188,377 @@ public class BroadcastJoinCache{
         }
     }
 
-    private class Loader implements Callable<ReferenceCountingFactory>{
-        private final JoinTableLoader loader;
+    /*
+     * Find the snapshot under which the table for the scan can be shared, checking that nothing was written
+     * to the table between the snapshot of the shared table and the one of the caller.
+     *
+     * @return the snapshot of the table to share or to build, or null if the table should only be
+     * shared with callers under the same snapshot
+     */
+    private Snapshot sharedSnapshot(SnapshotKey key) throws IOException{
+        long conglomerateId=key.scan.conglomerateId;
+        long beginTimestamp=key.beginTimestamp;
+        long[] point;
+        ReferenceCountingFactory current;
+        synchronized(this){
+            point=quiescentPoints.get(conglomerateId);
+            current=cache.get(key.scan);
+            if(current!=null && current.snapshot.covers(beginTimestamp))
+                return current.snapshot;
+        }
+        if(current!=null){
+            Snapshot snapshot=current.snapshot;
+            if(snapshot.stale || beginTimestamp<=snapshot.after)
+                return null;
+            long to=Math.max(beginTimestamp,snapshot.beginTimestamp);
+            boolean modified=snapshots.modifiedBetween(key.scan,snapshot.from,to);
+            synchronized(this){
+                if(modified){
+                    snapshot.stale=true;
+                    quiescentPoints.remove(conglomerateId);
+                    if(current.isIdle())
+                        remove(current);
+                    return null;
+                }
+                snapshot.verifiedUpTo=Math.max(snapshot.verifiedUpTo,to);
+            }
+            return snapshot;
+        }
+        long now=ticker.getAsLong();
+        if(point==null || (point[0]<0 && now-point[2]>=TimeUnit.MILLISECONDS.toNanos(idleMillis.getAsLong()))){
+            long[] found=snapshots.quiescentPoint(conglomerateId);
+            point=found==null?new long[]{-1L,-1L,now}:new long[]{found[0],found[1],now};
+            synchronized(this){
+                quiescentPoints.put(conglomerateId,point);
+            }
+        }
+        if(point[0]<0 || beginTimestamp<=point[1])
+            return null;
+        return new Snapshot(beginTimestamp,point[0],point[1]);
+    }
+
+    /**
+     * @return the memory (in bytes) held by the tables in the cache; estimated for tables kept on-heap
+     */
+    public synchronized long getCachedBytes(){
+        return cachedBytes;
+    }
+
+    /**
+     * @return the number of tables in the cache, whether or not they are in use
+     */
+    public synchronized int size(){
+        return cache.size();
+    }
+
+    /**
+     * Build a key identifying the inner table of a broadcast join by its contents, if they can be
+     * identified.
+     *
+     * This is the case when the inner side is a plain scan of a base table which is read under a
+     * snapshot isolation transaction that, like all its ancestors, cannot write: the rows visible to such a
+     * transaction only depend on its begin timestamp, so any join which scans the same range with the same qualifiers and
+     * columns under the same snapshot would build the same table. Whether the table can also be used under
+     * a different snapshot is decided when it is looked up.
+     *
+     * @return the key, or {@code null} if the table should only be shared within the operation
+     */
+    public static Object scanKey(SpliceOperation rightOperation,
+                                 int[] innerHashKeys,
+                                 int[] outerHashKeys,
+                                 ExecRow outerTemplateRow) throws StandardException{
+        if(rightOperation==null || rightOperation.getClass()!=TableScanOperation.class)
+            return null;
+        TableScanOperation scan=(TableScanOperation)rightOperation;
+        if(scan.storedAs!=null)
+            return null; // external tables are not versioned
+        TxnView txn=scan.getCurrentTransaction();
+        if(txn==null || !isReadOnly(txn) || txn.getIsolationLevel()!=Txn.IsolationLevel.SNAPSHOT_ISOLATION)
+            return null; // the other isolation levels also see rows committed after the transaction began
+
+        DataScan dataScan=scan.getNonSIScan();
+        int[] outerFormatIds=new int[outerHashKeys.length];
+        for(int i=0;i<outerHashKeys.length;i++){
+            outerFormatIds[i]=outerTemplateRow.getColumn(outerHashKeys[i]+1).getTypeFormatId();
+        }
+        return new SnapshotKey(new ScanKey(scan.scanInformation.getConglomerateId(),
+                scan.getTableVersion(),
+                dataScan.getStartKey(),
+                dataScan.getStopKey(),
+                String.valueOf(scan.scanInformation.getAccessedColumns()),
+                describe(scan.scanInformation.getScanQualifiers()),
+                innerHashKeys,
+                outerHashKeys,
+                outerFormatIds),txn.getBeginTimestamp());
+    }
+
+    private static boolean isReadOnly(TxnView txn){
+        for(TxnView t=txn;t!=null && t!=Txn.ROOT_TRANSACTION;t=t.getParentTxnView()){
+            if(t.allowsWrites())
+                return false;
+        }
+        return true;
+    }
+
+    private static String describe(Qualifier[][] qualifiers) throws StandardException{
+        if(qualifiers==null)
+            return "";
+        StringBuilder sb=new StringBuilder();
+        for(Qualifier[] clause : qualifiers){
+            sb.append('[');
+            for(Qualifier q : clause){
+                q.clearOrderableCache();
+                DataValueDescriptor value=q.getOrderable();
+                sb.append(q.getStoragePosition()).append(',')
+                        .append(q.getOperator()).append(',')
+                        .append(q.negateCompareResult()).append(',')
+                        .append(q.getOrderedNulls()).append(',')
+                        .append(q.getUnknownRV()).append(',');
+                if(value==null)
+                    sb.append("null;");
+                else
+                    sb.append(value.getTypeFormatId()).append(':').append(value.isNull()?"null":value.toString()).append(';');
+            }
+            sb.append(']');
+        }
+        return sb.toString();
+    }
+
+    /*
+     * Picks the join table implementation at load time, since this cache is created before the driver is available
+     */
+    private static JoinTable.Factory loadConfiguredTable(Callable<Stream<ExecRow>> streamLoader,
+                                                         int[] innerHashKeys,
+                                                         int[] outerHashKeys,
+                                                         ExecRow outerTemplateRow) throws Exception{
+        SConfiguration config=config();
+        JoinTableLoader loader=config!=null && config.getBroadcastJoinOffHeap()
+                ?OffHeapJoinTableLoader.INSTANCE
+                :ByteBufferMapTableLoader.INSTANCE;
+        return loader.load(streamLoader,innerHashKeys,outerHashKeys,outerTemplateRow);
+    }
+
+    private static SConfiguration config(){
+        SIDriver driver=SIDriver.driver();
+        return driver==null?null:driver.getConfiguration();
+    }
+
+    private void build(ReferenceCountingFactory joinTable,
+                       Callable<Stream<ExecRow>> streamLoader,
+                       int[] innerHashKeys,
+                       int[] outerHashKeys,
+                       ExecRow outerTemplateRow){
+        long[] bytes=new long[1];
+        long start=ticker.getAsLong();
+        try{
+            JoinTable.Factory table=tableLoader.load(() -> streamLoader.call().transform(row -> {
+                bytes[0]+=estimateSize(row);
+                return row;
+            }),innerHashKeys,outerHashKeys,outerTemplateRow);
+            synchronized(this){
+                joinTable.bytes=table instanceof OffHeapJoinTable.Factory
+                        ?((OffHeapJoinTable.Factory)table).getStorage().getAllocatedBytes()
+                        :bytes[0];
+                joinTable.buildNanos=ticker.getAsLong()-start;
+                if(cache.get(joinTable.key)==joinTable){
+                    cachedBytes+=joinTable.bytes;
+                    BroadcastJoinMemory.instance().cacheResized(joinTable.bytes,1);
+                    evict(maxBytes.getAsLong());
+                }
+            }
+            joinTable.delegate.complete(table);
+        }catch(Throwable t){
+            synchronized(this){
+                cache.remove(joinTable.key,joinTable);
+            }
+            joinTable.delegate.completeExceptionally(t);
+        }
+    }
+
+    private static long estimateSize(ExecRow row){
+        long size=0L;
+        DataValueDescriptor[] columns=row.getRowArray();
+        for(DataValueDescriptor dvd : columns){
+            if(dvd!=null)
+                size+=dvd.estimateMemoryUsage();
+        }
+        return size;
+    }
+
+    private synchronized void release(ReferenceCountingFactory joinTable){
+        if(--joinTable.refCount>0)
+            return;
+        joinTable.idleSince=ticker.getAsLong();
+        expireIdle();
+        evict(maxBytes.getAsLong());
+    }
+
+    /*
+     * Drop idle tables, cheapest to rebuild per byte first, until the cache fits in the budget
+     */
+    private void evict(long budget){
+        while(cachedBytes>budget){
+            ReferenceCountingFactory victim=null;
+            for(ReferenceCountingFactory candidate : cache.values()){
+                if(candidate.isIdle() && (victim==null || candidate.rebuildCostPerByte()<victim.rebuildCostPerByte()))
+                    victim=candidate;
+            }
+            if(victim==null)
+                return; // everything left is in use
+            remove(victim);
+            BroadcastJoinMemory.instance().cacheEviction();
+        }
+    }
+
+    private void expireIdle(){
+        long idle=TimeUnit.MILLISECONDS.toNanos(idleMillis.getAsLong());
+        long now=ticker.getAsLong();
+        Iterator<ReferenceCountingFactory> it=cache.values().iterator();
+        while(it.hasNext()){
+            ReferenceCountingFactory joinTable=it.next();
+            if(joinTable.isIdle() && now-joinTable.idleSince>=idle){
+                it.remove();
+                dropped(joinTable);
+            }
+        }
+    }
+
+    private void remove(ReferenceCountingFactory joinTable){
+        if(cache.remove(joinTable.key,joinTable))
+            dropped(joinTable);
+    }
+
+    /*
+     * The table is idle and no longer reachable through the cache, so nothing can use it any more
+     */
+    private void dropped(ReferenceCountingFactory joinTable){
+        cachedBytes-=joinTable.bytes;
+        BroadcastJoinMemory.instance().cacheResized(-joinTable.bytes,-1);
+        JoinTable.Factory factory=joinTable.delegate.getNow(null);
+        if(factory instanceof OffHeapJoinTable.Factory)
+            ((OffHeapJoinTable.Factory)factory).close();
+    }
+
+    /**
+     * Identifies a broadcast join table built from a scan of a base table.
+     */
+    static final class ScanKey{
+        final long conglomerateId;
+        private final String tableVersion;
+        final byte[] startKey;
+        final byte[] stopKey;
+        private final String accessedColumns;
+        private final String qualifiers;
         private final int[] innerHashKeys;
         private final int[] outerHashKeys;
-        private final ExecRow outerTemplateRow;
-        private final Callable<Stream<ExecRow>> streamLoader;
-
-        private final Long operationId;
-
-        public Loader(Long operationId,
-                      JoinTableLoader loader,
-                      int[] innerHashKeys,
-                      int[] outerHashKeys,
-                      ExecRow outerTemplateRow,
-                      Callable<Stream<ExecRow>> streamLoader){
-            this.loader=loader;
-            this.operationId=operationId;
+        private final int[] outerFormatIds;
+        private final int hashCode;
+
+        ScanKey(long conglomerateId,String tableVersion,byte[] startKey,byte[] stopKey,
+                String accessedColumns,String qualifiers,int[] innerHashKeys,int[] outerHashKeys,int[] outerFormatIds){
+            this.conglomerateId=conglomerateId;
+            this.tableVersion=tableVersion;
+            this.startKey=startKey;
+            this.stopKey=stopKey;
+            this.accessedColumns=accessedColumns;
+            this.qualifiers=qualifiers;
             this.innerHashKeys=innerHashKeys;
             this.outerHashKeys=outerHashKeys;
-            this.outerTemplateRow=outerTemplateRow;
-            this.streamLoader=streamLoader;
+            this.outerFormatIds=outerFormatIds;
+            int h=Long.hashCode(conglomerateId);
+            h=31*h+Arrays.hashCode(startKey);
+            h=31*h+Arrays.hashCode(stopKey);
+            h=31*h+qualifiers.hashCode();
+            h=31*h+Arrays.hashCode(innerHashKeys);
+            this.hashCode=h;
+        }
+
+        @Override
+        public boolean equals(Object o){
+            if(this==o) return true;
+            if(!(o instanceof ScanKey)) return false;
+            ScanKey other=(ScanKey)o;
+            return conglomerateId==other.conglomerateId
+                    && (tableVersion==null?other.tableVersion==null:tableVersion.equals(other.tableVersion))
+                    && Arrays.equals(startKey,other.startKey)
+                    && Arrays.equals(stopKey,other.stopKey)
+                    && accessedColumns.equals(other.accessedColumns)
+                    && qualifiers.equals(other.qualifiers)
+                    && Arrays.equals(innerHashKeys,other.innerHashKeys)
+                    && Arrays.equals(outerHashKeys,other.outerHashKeys)
+                    && Arrays.equals(outerFormatIds,other.outerFormatIds);
+        }
+
+        @Override
+        public int hashCode(){
+            return hashCode;
+        }
+
+        @Override
+        public String toString(){
+            return "ScanKey{conglomerate="+conglomerateId+", qualifiers="+qualifiers+"}";
+        }
+    }
+
+    /**
+     * Identifies a broadcast join table by the scan it was built from and the snapshot the scan read.
+     */
+    static final class SnapshotKey{
+        final ScanKey scan;
+        final long beginTimestamp;
+
+        SnapshotKey(ScanKey scan,long beginTimestamp){
+            this.scan=scan;
+            this.beginTimestamp=beginTimestamp;
+        }
+
+        @Override
+        public boolean equals(Object o){
+            if(this==o) return true;
+            if(!(o instanceof SnapshotKey)) return false;
+            SnapshotKey other=(SnapshotKey)o;
+            return beginTimestamp==other.beginTimestamp && scan.equals(other.scan);
+        }
+
+        @Override
+        public int hashCode(){
+            return 31*scan.hashCode()+Long.hashCode(beginTimestamp);
         }
 
         @Override
-        public ReferenceCountingFactory call() throws Exception {
-            JoinTable.Factory load=loader.load(streamLoader,innerHashKeys,outerHashKeys,outerTemplateRow);
-            return new ReferenceCountingFactory(load,operationId);
+        public String toString(){
+            return "SnapshotKey{"+scan+", beginTimestamp="+beginTimestamp+"}";
         }
     }
 
+    /*
+     * The snapshot a shared table was built under, and the snapshots it has been checked against
+     */
+    private static final class Snapshot{
+        private final long beginTimestamp;
+        private final long from;
+        private final long after;
+        /* no transaction which began in [from, verifiedUpTo) wrote to the table; guarded by the cache */
+        private long verifiedUpTo;
+        private boolean stale;
+
+        Snapshot(long beginTimestamp,long from,long after){
+            this.beginTimestamp=beginTimestamp;
+            this.from=from;
+            this.after=after;
+            this.verifiedUpTo=from;
+        }
+
+        /*
+         * A write which became visible between the two snapshots was made by a transaction which began
+         * before the later one, and at or after from
+         */
+        boolean covers(long otherBeginTimestamp){
+            if(otherBeginTimestamp==beginTimestamp)
+                return true;
+            return !stale && otherBeginTimestamp>after && Math.max(otherBeginTimestamp,beginTimestamp)<=verifiedUpTo;
+        }
+    }
 
     private static class ReferenceCountedJoinTable implements JoinTable{
         private final JoinTable delegate;
@@ -138,24 +586,35 @@ public class BroadcastJoinCache{
     }
 
     private class ReferenceCountingFactory implements JoinTable.Factory{
-        private final JoinTable.Factory delegate;
-        private final Long id;
-        private AtomicInteger refCount = new AtomicInteger(0);
+        private final CompletableFuture<JoinTable.Factory> delegate=new CompletableFuture<>();
+        private final Object key;
+        private final Snapshot snapshot;
+        /* guarded by the cache */
+        private int refCount;
+        private long idleSince;
+        private long bytes;
+        private long buildNanos;
 
-        public ReferenceCountingFactory(JoinTable.Factory delegate,Long id){
-            this.delegate=delegate;
-            this.id=id;
+        public ReferenceCountingFactory(Object key,Snapshot snapshot){
+            this.key=key;
+            this.snapshot=snapshot;
         }
 
         @Override
         public JoinTable newTable(){
-            return new ReferenceCountedJoinTable(delegate.newTable(),this);
+            return new ReferenceCountedJoinTable(delegate.join().newTable(),this);
         }
 
         public void markClosed(){
-            int refC=refCount.decrementAndGet();
-            if(refC<=0)
-                cache.invalidate(id);
+            release(this);
+        }
+
+        boolean isIdle(){
+            return refCount<=0 && delegate.isDone();
+        }
+
+        double rebuildCostPerByte(){
+            return (double)buildNanos/Math.max(bytes,1L);
         }
     }
 }
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.hbase.jmx.JMXUtils;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accounts for the direct memory held by off-heap broadcast join tables.
+ *
+ * Join tables are shared between threads through the {@link BroadcastJoinCache}, which frees a table
+ * once it drops it. Each table is also tracked with a phantom reference, so that the footprint of a table
+ * which is only released by the garbage collector is subtracted once it has been collected.
+ */
+public class BroadcastJoinMemory implements BroadcastJoinMemoryManagement{
+    private static final BroadcastJoinMemory INSTANCE = new BroadcastJoinMemory();
+
+    private final AtomicLong offHeapBytes = new AtomicLong(0L);
+    private final AtomicLong liveTables = new AtomicLong(0L);
+    private final AtomicLong totalTablesBuilt = new AtomicLong(0L);
+    private final AtomicLong totalRowsLoaded = new AtomicLong(0L);
+    private final AtomicLong cachedBytes = new AtomicLong(0L);
+    private final AtomicLong cachedTables = new AtomicLong(0L);
+    private final AtomicLong cacheHits = new AtomicLong(0L);
+    private final AtomicLong cacheMisses = new AtomicLong(0L);
+    private final AtomicLong cacheEvictions = new AtomicLong(0L);
+
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+    private final Set<TableReference> tracked = Collections.newSetFromMap(new ConcurrentHashMap<TableReference, Boolean>());
+
+    public static BroadcastJoinMemory instance(){
+        return INSTANCE;
+    }
+
+    public static void registerJMX(MBeanServer mbs) throws MalformedObjectNameException,
+            NotCompliantMBeanException,
+            InstanceAlreadyExistsException,
+            MBeanRegistrationException{
+        mbs.registerMBean(INSTANCE,new ObjectName(JMXUtils.BROADCAST_JOIN_MEMORY));
+    }
+
+    /**
+     * Start accounting for a newly built join table.
+     *
+     * @param table the object whose reachability determines the lifetime of the memory
+     * @param bytes the direct memory held by the table
+     * @param rows the number of inner rows stored in the table
+     * @return the token to pass to {@link #freed(Object)} if the memory is freed explicitly
+     */
+    Object track(Object table,long bytes,long rows){
+        expungeCollected();
+        TableReference ref=new TableReference(table,collected,bytes);
+        tracked.add(ref);
+        offHeapBytes.addAndGet(bytes);
+        liveTables.incrementAndGet();
+        totalTablesBuilt.incrementAndGet();
+        totalRowsLoaded.addAndGet(rows);
+        return ref;
+    }
+
+    /**
+     * Stop accounting for a join table whose memory has been freed.
+     *
+     * @param token the token returned by {@link #track(Object, long, long)}
+     */
+    void freed(Object token){
+        TableReference ref=(TableReference)token;
+        if(tracked.remove(ref)){
+            ref.clear();
+            offHeapBytes.addAndGet(-ref.bytes);
+            liveTables.decrementAndGet();
+        }
+    }
+
+    void cacheResized(long bytes,long tables){
+        cachedBytes.addAndGet(bytes);
+        cachedTables.addAndGet(tables);
+    }
+
+    void cacheHit(){
+        cacheHits.incrementAndGet();
+    }
+
+    void cacheMiss(){
+        cacheMisses.incrementAndGet();
+    }
+
+    void cacheEviction(){
+        cacheEvictions.incrementAndGet();
+    }
+
+    @Override
+    public long getOffHeapBytes(){
+        expungeCollected();
+        return offHeapBytes.get();
+    }
+
+    @Override
+    public long getLiveTables(){
+        expungeCollected();
+        return liveTables.get();
+    }
+
+    @Override
+    public long getTotalTablesBuilt(){
+        return totalTablesBuilt.get();
+    }
+
+    @Override
+    public long getTotalRowsLoaded(){
+        return totalRowsLoaded.get();
+    }
+
+    @Override
+    public long getCachedBytes(){
+        return cachedBytes.get();
+    }
+
+    @Override
+    public long getCachedTables(){
+        return cachedTables.get();
+    }
+
+    @Override
+    public long getCacheHits(){
+        return cacheHits.get();
+    }
+
+    @Override
+    public long getCacheMisses(){
+        return cacheMisses.get();
+    }
+
+    @Override
+    public long getCacheEvictions(){
+        return cacheEvictions.get();
+    }
+
+    private void expungeCollected(){
+        Reference<?> ref;
+        while((ref=collected.poll())!=null){
+            TableReference tableRef=(TableReference)ref;
+            if(tracked.remove(tableRef)){
+                offHeapBytes.addAndGet(-tableRef.bytes);
+                liveTables.decrementAndGet();
+            }
+        }
+    }
+
+    private static class TableReference extends PhantomReference<Object>{
+        private final long bytes;
+
+        TableReference(Object referent,ReferenceQueue<Object> queue,long bytes){
+            super(referent,queue);
+            this.bytes=bytes;
+        }
+    }
+}
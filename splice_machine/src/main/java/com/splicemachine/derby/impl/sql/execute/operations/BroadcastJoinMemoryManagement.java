@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import javax.management.MXBean;
+
+/**
+ * JMX Hook for monitoring the memory held by broadcast join hash tables, and the cache sharing them, on this server.
+ */
+@MXBean
+public interface BroadcastJoinMemoryManagement {
+
+    /**
+     * @return the direct memory (in bytes) held by off-heap join tables which are still reachable
+     */
+    long getOffHeapBytes();
+
+    /**
+     * @return the number of off-heap join tables which are still reachable
+     */
+    long getLiveTables();
+
+    /**
+     * @return the number of off-heap join tables built since the server started
+     */
+    long getTotalTablesBuilt();
+
+    /**
+     * @return the number of inner rows loaded into off-heap join tables since the server started
+     */
+    long getTotalRowsLoaded();
+
+    /**
+     * @return the estimated memory (in bytes) held by the join tables in the broadcast join cache, in use or not
+     */
+    long getCachedBytes();
+
+    /**
+     * @return the number of join tables in the broadcast join cache, in use or not
+     */
+    long getCachedTables();
+
+    /**
+     * @return the number of joins which found their table in the broadcast join cache
+     */
+    long getCacheHits();
+
+    /**
+     * @return the number of joins which had to build their table
+     */
+    long getCacheMisses();
+
+    /**
+     * @return the number of idle join tables dropped to keep the cache within its memory budget
+     */
+    long getCacheEvictions();
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.impl.driver.SIDriver;
+import com.splicemachine.storage.DataScan;
+import com.splicemachine.storage.DataScanner;
+import com.splicemachine.storage.Partition;
+import com.splicemachine.timestamp.api.TimestampSource;
+
+import java.io.IOException;
+
+/**
+ * Checks whether a base table changed between two snapshots, using the transaction store and the
+ * timestamps of the cells in the table.
+ *
+ * Every cell is written with the id (begin timestamp) of its transaction, so a transaction which began
+ * at or after {@code from} and wrote to the scanned range leaves a cell in [from, its commit timestamp).
+ * Transactions which began before {@code from} are ruled out by {@link #quiescentPoint}, which only
+ * returns once none of them is still running.
+ */
+class BroadcastJoinSnapshots implements BroadcastJoinCache.SnapshotCheck{
+    static final BroadcastJoinCache.SnapshotCheck INSTANCE = new BroadcastJoinSnapshots();
+
+    private BroadcastJoinSnapshots(){} //singleton class
+
+    @Override
+    public long[] quiescentPoint(long conglomerateId) throws IOException{
+        SIDriver driver=SIDriver.driver();
+        if(driver==null)
+            return null;
+        TimestampSource timestamps=driver.getTimestampSource();
+        long from=timestamps.nextTimestamp();
+        long[] writers=driver.getTxnStore().getActiveTransactionIds(0L,from,Bytes.toBytes(Long.toString(conglomerateId)));
+        if(writers.length>0)
+            return null;
+        // the writers which had finished by the time of the check committed before this timestamp
+        return new long[]{from,timestamps.nextTimestamp()};
+    }
+
+    @Override
+    public boolean modifiedBetween(BroadcastJoinCache.ScanKey key,long from,long to) throws IOException{
+        if(to<=from)
+            return false;
+        SIDriver driver=SIDriver.driver();
+        DataScan scan=driver.getOperationFactory().newDataScan(null)
+                .startKey(key.startKey==null?Bytes.EMPTY_BYTE_ARRAY:key.startKey)
+                .stopKey(key.stopKey==null?Bytes.EMPTY_BYTE_ARRAY:key.stopKey)
+                .cacheRows(1);
+        scan.setTimeRange(from,to);
+        scan.returnAllVersions();
+        try(Partition table=driver.getTableFactory().getTable(Long.toString(key.conglomerateId));
+            DataScanner scanner=table.openScanner(scan)){
+            return !scanner.next(1).isEmpty();
+        }
+    }
+}
@@ -0,0 +1,361 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.derby.impl.sql.JoinTable;
+import com.splicemachine.derby.utils.marshall.BareKeyHash;
+import com.splicemachine.derby.utils.marshall.EntryDataDecoder;
+import com.splicemachine.derby.utils.marshall.KeyEncoder;
+import com.splicemachine.derby.utils.marshall.NoOpPostfix;
+import com.splicemachine.derby.utils.marshall.NoOpPrefix;
+import com.splicemachine.derby.utils.marshall.dvd.DescriptorSerializer;
+import com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers;
+import com.splicemachine.hash.Hash32;
+import com.splicemachine.hash.HashFunctions;
+import sun.misc.Cleaner;
+import sun.nio.ch.DirectBuffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A broadcast join table whose inner rows live in direct memory.
+ *
+ * The inner rows are stored encoded, next to their encoded join key, in direct pages. An
+ * open-addressing table of page addresses (also in direct memory) maps each distinct key to the head of
+ * a chain of rows sharing that key. Lookups hash the encoded outer key and compare it byte-by-byte
+ * against the stored keys, and a row is only decoded into an {@link ExecRow} once it is returned.
+ *
+ * The direct memory is freed when the {@link Factory} is closed, which the {@link BroadcastJoinCache} does once
+ * no table built from it is in use any more.
+ *
+ * @see OffHeapJoinTableLoader
+ */
+class OffHeapJoinTable implements JoinTable{
+    private final Storage storage;
+    private final ByteBuffer[] pages;
+    private final KeyEncoder outerKeyEncoder;
+    private final EntryDataDecoder rowDecoder;
+    private final ExecRow innerTemplateRow;
+
+    OffHeapJoinTable(Storage storage,int[] outerHashKeys,ExecRow outerTemplateRow,ExecRow innerTemplateRow){
+        this.storage=storage;
+        this.pages=storage.duplicatePages();
+        this.innerTemplateRow=innerTemplateRow;
+        DescriptorSerializer[] outerSerializers=VersionedSerializers.latestVersion(false).getSerializers(outerTemplateRow);
+        this.outerKeyEncoder=new KeyEncoder(NoOpPrefix.INSTANCE,
+                BareKeyHash.encoder(outerHashKeys,null,outerSerializers),NoOpPostfix.INSTANCE);
+        this.rowDecoder=innerTemplateRow==null?null:
+                new EntryDataDecoder(Storage.allColumns(innerTemplateRow),null,
+                        VersionedSerializers.latestVersion(false).getSerializers(innerTemplateRow));
+    }
+
+    @Override
+    public Iterator<ExecRow> fetchInner(ExecRow outer) throws IOException, StandardException{
+        if(storage.isClosed())
+            throw new IllegalStateException("Programmer error: join table used after its memory was freed");
+        byte[] outerKey=outerKeyEncoder.getKey(outer);
+        assert outerKey!=null: "Programmer error: outer row does not have row key";
+        long address=storage.find(pages,outerKey);
+        if(address<0)
+            return Collections.emptyIterator();
+        return new ChainIterator(address);
+    }
+
+    //the direct memory is shared by every table built from the same factory, and is freed with the factory
+    @Override public void close(){}
+
+    private ExecRow decode(long address) throws StandardException{
+        ByteBuffer page=pages[Storage.page(address)];
+        int offset=Storage.offset(address);
+        int keyLength=page.getInt(offset+Storage.KEY_LENGTH);
+        int rowLength=page.getInt(offset+Storage.ROW_LENGTH);
+        byte[] rowBytes=new byte[rowLength];
+        // the page views are private to this table, so we can move their position
+        page.position(offset+Storage.HEADER_SIZE+keyLength);
+        page.get(rowBytes);
+        ExecRow row=innerTemplateRow.getNewNullRow();
+        rowDecoder.set(rowBytes,0,rowLength);
+        rowDecoder.decode(row);
+        return row;
+    }
+
+    private class ChainIterator implements Iterator<ExecRow>{
+        private long next;
+
+        ChainIterator(long head){
+            this.next=head;
+        }
+
+        @Override
+        public boolean hasNext(){
+            return next>=0;
+        }
+
+        @Override
+        public ExecRow next(){
+            if(next<0)
+                throw new NoSuchElementException();
+            long current=next;
+            next=pages[Storage.page(current)].getLong(Storage.offset(current)+Storage.NEXT);
+            try{
+                return decode(current);
+            }catch(StandardException se){
+                throw new RuntimeException(se);
+            }
+        }
+    }
+
+    /**
+     * The immutable (once built) direct memory shared by all the tables of a join.
+     *
+     * Each entry is laid out as
+     * <pre>
+     * [hash: int][key length: int][row length: int][next entry with the same key: long][key][row]
+     * </pre>
+     * and is addressed by (page index &lt;&lt; 32 | offset in page). Entries never span pages. The first page
+     * is small, and each following page is twice as large as the previous one (up to {@code MAX_PAGE_SIZE}),
+     * so that a table holding a handful of rows doesn't pin megabytes of direct memory.
+     */
+    static class Storage{
+        private static final int MIN_PAGE_SIZE=1<<12;
+        private static final int MAX_PAGE_SIZE=1<<22;
+        private static final int MIN_SLOTS=16;
+        private static final int HASH=0;
+        private static final int KEY_LENGTH=4;
+        private static final int ROW_LENGTH=8;
+        static final int NEXT=12;
+        static final int HEADER_SIZE=20;
+        private static final long EMPTY=0L; //slots store address+1
+
+        private final Hash32 hashFunction=HashFunctions.murmur3(0);
+        private final List<ByteBuffer> pages=new ArrayList<>();
+        private ByteBuffer currentPage;
+        private ByteBuffer slotBuffer;
+        private LongBuffer slots;
+        private int mask;
+        private int distinctKeys;
+        private long rowCount;
+        private long allocatedBytes;
+        private volatile boolean closed;
+        private Object memoryToken;
+
+        Storage(){
+            resizeSlots(MIN_SLOTS);
+        }
+
+        /**
+         * Add an inner row. Only called by the (single) thread building the table.
+         */
+        void add(byte[] key,byte[] row){
+            int hash=hashFunction.hash(key,0,key.length);
+            long address=append(hash,key,row);
+            int slot=hash&mask;
+            while(true){
+                long head=slots.get(slot);
+                if(head==EMPTY){
+                    slots.put(slot,address+1);
+                    distinctKeys++;
+                    if(distinctKeys>(mask+1)/2)
+                        resizeSlots((mask+1)*2);
+                    break;
+                }else if(keyEquals(entryPage(head-1),offset(head-1),hash,key)){
+                    // chain the new row in front of the previous rows with the same key
+                    entryPage(address).putLong(offset(address)+NEXT,head-1);
+                    slots.put(slot,address+1);
+                    break;
+                }
+                slot=(slot+1)&mask;
+            }
+            rowCount++;
+        }
+
+        /**
+         * @return the address of the first row stored under {@code key}, or -1 if there is none
+         */
+        long find(ByteBuffer[] pageViews,byte[] key){
+            int hash=hashFunction.hash(key,0,key.length);
+            int slot=hash&mask;
+            while(true){
+                long head=slots.get(slot);
+                if(head==EMPTY)
+                    return -1L;
+                if(keyEquals(pageViews[page(head-1)],offset(head-1),hash,key))
+                    return head-1;
+                slot=(slot+1)&mask;
+            }
+        }
+
+        long getRowCount(){
+            return rowCount;
+        }
+
+        long getAllocatedBytes(){
+            return allocatedBytes;
+        }
+
+        boolean isClosed(){
+            return closed;
+        }
+
+        void setMemoryToken(Object memoryToken){
+            this.memoryToken=memoryToken;
+        }
+
+        /**
+         * Free the direct memory. No table may be using this storage any more.
+         */
+        void free(){
+            if(closed)
+                return;
+            closed=true;
+            for(ByteBuffer page : pages){
+                freeDirect(page);
+            }
+            pages.clear();
+            currentPage=null;
+            freeDirect(slotBuffer);
+            slotBuffer=null;
+            slots=null;
+            if(memoryToken!=null)
+                BroadcastJoinMemory.instance().freed(memoryToken);
+        }
+
+        private static void freeDirect(ByteBuffer buffer){
+            if(buffer instanceof DirectBuffer){
+                Cleaner cleaner=((DirectBuffer)buffer).cleaner();
+                if(cleaner!=null)
+                    cleaner.clean();
+            }
+        }
+
+        ByteBuffer[] duplicatePages(){
+            ByteBuffer[] views=new ByteBuffer[pages.size()];
+            for(int i=0;i<views.length;i++){
+                views[i]=pages.get(i).duplicate();
+            }
+            return views;
+        }
+
+        static int[] allColumns(ExecRow row){
+            int[] columns=new int[row.nColumns()];
+            for(int i=0;i<columns.length;i++){
+                columns[i]=i;
+            }
+            return columns;
+        }
+
+        static int page(long address){
+            return (int)(address>>>32);
+        }
+
+        static int offset(long address){
+            return (int)address;
+        }
+
+        private ByteBuffer entryPage(long address){
+            return pages.get(page(address));
+        }
+
+        private long append(int hash,byte[] key,byte[] row){
+            int size=HEADER_SIZE+key.length+row.length;
+            if(currentPage==null || currentPage.remaining()<size){
+                int pageSize=currentPage==null?MIN_PAGE_SIZE:Math.min(MAX_PAGE_SIZE,currentPage.capacity()*2);
+                currentPage=ByteBuffer.allocateDirect(Math.max(pageSize,size));
+                pages.add(currentPage);
+                allocatedBytes+=currentPage.capacity();
+            }
+            int offset=currentPage.position();
+            currentPage.putInt(hash);
+            currentPage.putInt(key.length);
+            currentPage.putInt(row.length);
+            currentPage.putLong(-1L);
+            currentPage.put(key);
+            currentPage.put(row);
+            return ((long)(pages.size()-1)<<32)|offset;
+        }
+
+        private boolean keyEquals(ByteBuffer page,int offset,int hash,byte[] key){
+            if(page.getInt(offset+HASH)!=hash || page.getInt(offset+KEY_LENGTH)!=key.length)
+                return false;
+            int keyStart=offset+HEADER_SIZE;
+            for(int i=0;i<key.length;i++){
+                if(page.get(keyStart+i)!=key[i])
+                    return false;
+            }
+            return true;
+        }
+
+        private void resizeSlots(int newCapacity){
+            ByteBuffer oldSlotBuffer=slotBuffer;
+            LongBuffer oldSlots=slots;
+            int oldCapacity=oldSlots==null?0:mask+1;
+            slotBuffer=ByteBuffer.allocateDirect(newCapacity*8);
+            slots=slotBuffer.asLongBuffer();
+            mask=newCapacity-1;
+            allocatedBytes+=newCapacity*8L-oldCapacity*8L;
+            for(int i=0;i<oldCapacity;i++){
+                long head=oldSlots.get(i);
+                if(head==EMPTY) continue;
+                int hash=entryPage(head-1).getInt(offset(head-1)+HASH);
+                int slot=hash&mask;
+                while(slots.get(slot)!=EMPTY){
+                    slot=(slot+1)&mask;
+                }
+                slots.put(slot,head);
+            }
+            if(oldSlotBuffer!=null)
+                freeDirect(oldSlotBuffer);
+        }
+    }
+
+    static class Factory implements JoinTable.Factory{
+        private final Storage storage;
+        private final int[] outerHashKeys;
+        private final ExecRow outerTemplateRow;
+        private final ExecRow innerTemplateRow;
+
+        Factory(Storage storage,int[] outerHashKeys,ExecRow outerTemplateRow,ExecRow innerTemplateRow){
+            this.storage=storage;
+            this.outerHashKeys=outerHashKeys;
+            this.outerTemplateRow=outerTemplateRow;
+            this.innerTemplateRow=innerTemplateRow;
+        }
+
+        @Override
+        public JoinTable newTable(){
+            return new OffHeapJoinTable(storage,outerHashKeys,outerTemplateRow,innerTemplateRow);
+        }
+
+        Storage getStorage(){
+            return storage;
+        }
+
+        /**
+         * Free the direct memory of the tables. None of the tables built by this factory may be in use.
+         */
+        public void close(){
+            storage.free();
+        }
+    }
+}
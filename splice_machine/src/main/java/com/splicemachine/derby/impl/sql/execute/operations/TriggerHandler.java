@@ -47,7 +47,8 @@ import java.util.concurrent.Callable;
 public class TriggerHandler {
 
     /**
-     * When this many rows have been passed for firing AFTER row triggers then we actually fire.
+     * When this many rows have been passed for firing AFTER row triggers then we actually fire. This is also the
+     * size of the chunks of rows that AFTER row triggers are fired for at once.
      */
     private static final int AFTER_ROW_BUFFER_SIZE = 1000;
 
@@ -149,17 +150,23 @@ public class TriggerHandler {
             throw e;
         }
 
-        for (ExecRow flushedRow : pendingAfterRows) {
-            fireAfterRowTriggers(flushedRow);
-        }
+        fireAfterRowTriggers(pendingAfterRows);
         pendingAfterRows.clear();
     }
 
-    private void fireAfterRowTriggers(ExecRow row) throws StandardException {
-        if (row != null && hasAfterRow) {
-            SingleRowCursorResultSet triggeringResultSet = new SingleRowCursorResultSet(resultDescription, row);
-            triggerActivator.notifyRowEvent(afterEvent, triggeringResultSet, null);
+    /* The flushed rows are handed to the activator as one chunk, so that it can fire a row trigger for all of them
+     * at once when that preserves the trigger's semantics. */
+    private void fireAfterRowTriggers(List<ExecRow> rows) throws StandardException {
+        if (rows.isEmpty() || !hasAfterRow) {
+            return;
+        }
+        List<SingleRowCursorResultSet> triggeringResultSets = Lists.newArrayListWithCapacity(rows.size());
+        for (ExecRow row : rows) {
+            if (row != null) {
+                triggeringResultSets.add(new SingleRowCursorResultSet(resultDescription, row));
+            }
         }
+        triggerActivator.notifyRowEvents(afterEvent, triggeringResultSets);
     }
 
     public void fireBeforeStatementTriggers() throws StandardException {
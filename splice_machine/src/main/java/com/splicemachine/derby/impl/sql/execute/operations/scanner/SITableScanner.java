@@ -14,6 +14,7 @@
 
 package com.splicemachine.derby.impl.sql.execute.operations.scanner;
 
+import com.carrotsearch.hppc.LongHashSet;
 import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import org.spark_project.guava.base.Supplier;
 import org.spark_project.guava.base.Suppliers;
@@ -44,6 +45,8 @@ import com.splicemachine.utils.SpliceLogUtils;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.apache.log4j.Logger;
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
@@ -61,6 +64,11 @@ public class SITableScanner<Data> implements StandardIterator<ExecRow>,AutoClose
         }
     };
     private static Logger LOG = Logger.getLogger(SITableScanner.class);
+    /*
+     * When a row was written by transactions we don't know about yet, we read this many rows ahead of it,
+     * so that the transactions of all of them are looked up together instead of one at a time.
+     */
+    private static final int TXN_PREFETCH_ROWS = 128;
     private final Counter filterCounter;
     private DataScanner regionScanner;
     private final TransactionalRegion region;
@@ -71,6 +79,7 @@ public class SITableScanner<Data> implements StandardIterator<ExecRow>,AutoClose
     protected final int[] rowDecodingMap;
     private SIFilter siFilter;
     private EntryPredicateFilter predicateFilter;
+    private EntryPredicateFilter keyPredicateFilter;
     protected RowLocation currentRowLocation;
     private final boolean[] keyColumnSortOrder;
     private String indexName;
@@ -90,6 +99,9 @@ public class SITableScanner<Data> implements StandardIterator<ExecRow>,AutoClose
     private DataValueDescriptor optionalProbeValue;
     private ExecRow defaultRow;
     private FormatableBitSet defaultValueMap;
+    private TxnFilter prefetchFilter;
+    private ArrayDeque<List<DataCell>> prefetchedRows;
+    private final LongHashSet unresolvedTxns = new LongHashSet();
 
     protected SITableScanner(DataScanner scanner,
                              final TransactionalRegion region,
@@ -196,7 +208,7 @@ public class SITableScanner<Data> implements StandardIterator<ExecRow>,AutoClose
         SIFilter filter = getSIFilter();
         do{
             template.resetRowArray(); //necessary to deal with null entries--maybe make the underlying call faster?
-            List<DataCell> keyValues=regionScanner.next(-1);
+            List<DataCell> keyValues=nextRow();
             if(keyValues.size()<=0){
                 currentRowLocation = null;
                 return null;
@@ -279,6 +291,8 @@ public class SITableScanner<Data> implements StandardIterator<ExecRow>,AutoClose
 
     public void setRegionScanner(DataScanner scanner){
         this.regionScanner = scanner;
+        if(prefetchedRows!=null)
+            prefetchedRows.clear();
     }
 
     public long getBytesVisited() {
@@ -300,6 +314,7 @@ public class SITableScanner<Data> implements StandardIterator<ExecRow>,AutoClose
         SIFilterFactory siFilterFactory;
         try {
             final TxnFilter txnFilter = region.unpackedFilter(txnView);
+            prefetchFilter = txnFilter;
 
             siFilterFactory = new SIFilterFactory<Data>() {
                 @Override
@@ -354,6 +369,45 @@ public class SITableScanner<Data> implements StandardIterator<ExecRow>,AutoClose
 
         return siFilterFactory;
     }
+    /**
+     * Read the next row, looking up the transactions of the rows which follow along with its own when
+     * it was written by transactions which have to be looked up.
+     *
+     * The scanner reuses the list and cells it returns, so the rows read ahead are copied.
+     */
+    private List<DataCell> nextRow() throws IOException {
+        if(prefetchedRows!=null && !prefetchedRows.isEmpty())
+            return prefetchedRows.poll();
+        List<DataCell> row=regionScanner.next(-1);
+        if(prefetchFilter==null || row.isEmpty())
+            return row;
+        unresolvedTxns.clear();
+        prefetchFilter.collectUnresolvedTransactions(row,unresolvedTxns);
+        if(unresolvedTxns.isEmpty())
+            return row;
+
+        if(prefetchedRows==null)
+            prefetchedRows=new ArrayDeque<>(TXN_PREFETCH_ROWS);
+        prefetchedRows.add(copy(row));
+        while(prefetchedRows.size()<TXN_PREFETCH_ROWS){
+            List<DataCell> next=regionScanner.next(-1);
+            if(next.isEmpty())
+                break;
+            prefetchFilter.collectUnresolvedTransactions(next,unresolvedTxns);
+            prefetchedRows.add(copy(next));
+        }
+        prefetchFilter.prefetchTransactions(unresolvedTxns);
+        return prefetchedRows.poll();
+    }
+
+    private static List<DataCell> copy(List<DataCell> row){
+        List<DataCell> copy=new ArrayList<>(row.size());
+        for(DataCell cell:row){
+            copy.add(cell.getClone());
+        }
+        return copy;
+    }
+
     private Supplier<MultiFieldDecoder> getKeyDecoder(FormatableBitSet accessedPks,
                                                       int[] allPkColumns,
                                                       int[] keyColumnTypes,
@@ -461,12 +515,18 @@ public class SITableScanner<Data> implements StandardIterator<ExecRow>,AutoClose
     private boolean filterRowKey(DataCell data) throws IOException {
         if(!isKeyed) return true;
         keyDecoder.set(data.keyArray(), data.keyOffset(), data.keyLength());
-        if(keyAccumulator==null)
-            keyAccumulator = ExecRowAccumulator.newAccumulator(predicateFilter,false,template,
+        if(keyAccumulator==null){
+            /*
+             * The value predicates of the scan refer to fields of the packed row, so they must not be
+             * checked against the fields of the row key
+             */
+            keyPredicateFilter = predicateFilter.withoutValuePredicates();
+            keyAccumulator = ExecRowAccumulator.newAccumulator(keyPredicateFilter,false,template,
                     keyDecodingMap, keyColumnSortOrder, accessedKeys, tableVersion);
+        }
         keyAccumulator.reset();
         primaryKeyIndex.reset();
-        return predicateFilter.match(primaryKeyIndex, keyDecoderProvider, keyAccumulator);
+        return keyPredicateFilter.match(primaryKeyIndex, keyDecoderProvider, keyAccumulator);
     }
 
     private class KeyIndex implements Indexed{
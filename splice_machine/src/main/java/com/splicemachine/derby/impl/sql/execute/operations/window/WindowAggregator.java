@@ -18,7 +18,7 @@ import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.services.io.FormatableHashtable;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.db.iapi.store.access.ColumnOrdering;
-import com.splicemachine.derby.impl.sql.execute.operations.window.function.SpliceGenericWindowFunction;
+import com.splicemachine.derby.impl.sql.execute.operations.window.function.SpliceWindowFunction;
 import static com.splicemachine.db.iapi.sql.compile.AggregateDefinition.*;
 
 /**
@@ -52,7 +52,7 @@ public interface WindowAggregator {
 
     FunctionType getType();
 
-    SpliceGenericWindowFunction getCachedAggregator();
+    SpliceWindowFunction getCachedAggregator();
 
     int[] getInputColumnIds();
 
@@ -24,7 +24,7 @@ import com.splicemachine.db.iapi.types.DataTypeDescriptor;
 import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import com.splicemachine.db.iapi.types.UserDataValue;
 import com.splicemachine.db.impl.sql.execute.WindowFunctionInfo;
-import com.splicemachine.derby.impl.sql.execute.operations.window.function.SpliceGenericWindowFunction;
+import com.splicemachine.derby.impl.sql.execute.operations.window.function.SpliceWindowFunction;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import java.util.Arrays;
@@ -47,7 +47,7 @@ public class WindowAggregatorImpl implements WindowAggregator {
     private final DataTypeDescriptor resultColumnDesc;
     private final FormatableHashtable functionSpecificArgs;
 
-    private SpliceGenericWindowFunction cachedAggregator;
+    private SpliceWindowFunction cachedAggregator;
     private int[] partitionColumns;
     private int[] sortColumns;
     private int[] keyColumns;
@@ -127,7 +127,7 @@ public class WindowAggregatorImpl implements WindowAggregator {
                                 int[] inputColumnIds,
                                 int resultColumnId,
                                 FrameDefinition frameDefinition){
-        this.cachedAggregator = (SpliceGenericWindowFunction) cachedAggregator;
+        this.cachedAggregator = (SpliceWindowFunction) cachedAggregator;
         this.cf=null;
 
         this.functionColumnId = functionColumnId;
@@ -230,7 +230,7 @@ public class WindowAggregatorImpl implements WindowAggregator {
     }
 
     @Override
-    public SpliceGenericWindowFunction getCachedAggregator() {
+    public SpliceWindowFunction getCachedAggregator() {
         return this.cachedAggregator;
     }
 
@@ -243,8 +243,8 @@ public class WindowAggregatorImpl implements WindowAggregator {
         ua.accumulate(inputCols);
     }
 
-    private SpliceGenericWindowFunction findOrCreateNewWindowFunction(DataValueDescriptor resultType) throws StandardException {
-        SpliceGenericWindowFunction aggInstance = cachedAggregator;
+    private SpliceWindowFunction findOrCreateNewWindowFunction(DataValueDescriptor resultType) throws StandardException {
+        SpliceWindowFunction aggInstance = cachedAggregator;
         if (aggInstance == null){
             try{
                 Class aggClass = cf.loadApplicationClass(this.functionClassName);
@@ -255,7 +255,7 @@ public class WindowAggregatorImpl implements WindowAggregator {
                                this.functionSpecificArgs
                 );
                 function = function.newWindowFunction();
-                cachedAggregator = (SpliceGenericWindowFunction) function;
+                cachedAggregator = (SpliceWindowFunction) function;
                 cachedAggregator.setResultType(resultType);
                 aggInstance = cachedAggregator;
             } catch(Exception e){
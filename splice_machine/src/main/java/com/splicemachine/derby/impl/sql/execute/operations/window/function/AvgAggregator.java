@@ -15,73 +15,30 @@
 package com.splicemachine.derby.impl.sql.execute.operations.window.function;
 
 import com.splicemachine.db.iapi.error.StandardException;
-import com.splicemachine.db.iapi.services.io.FormatableHashtable;
-import com.splicemachine.db.iapi.services.loader.ClassFactory;
 import com.splicemachine.db.iapi.sql.execute.WindowFunction;
-import com.splicemachine.db.iapi.types.DataTypeDescriptor;
 import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import com.splicemachine.db.iapi.types.NumberDataValue;
 
 /**
+ * Divides the running sum of the frame by the number of non-null values in it.
  *
  * Created by jyuan on 7/31/14.
  */
-public class AvgAggregator extends SpliceGenericWindowFunction {
+public class AvgAggregator extends SumAggregator {
 
     @Override
-    public WindowFunction setup( ClassFactory cf, String aggregateName, DataTypeDescriptor returnType,
-                                 FormatableHashtable functionSpecificArgs) {
-        super.setup( cf, aggregateName, returnType );
-        return this;
-    }
-
-    @Override
-    public void accumulate(DataValueDescriptor[] valueDescriptors) throws StandardException {
-        this.add(valueDescriptors);
-    }
-
-    @Override
-    protected void calculateOnAdd(WindowChunk chunk, DataValueDescriptor[] dvds) throws StandardException{
-        DataValueDescriptor result = chunk.getResult();
-        if (result == null || result.isNull()) {
-            chunk.setResult(dvds[0].cloneValue(false));
-        } else {
-            NumberDataValue input = (NumberDataValue)dvds[0];
-            if (input != null && ! input.isNull()) {
-                NumberDataValue nv = (NumberDataValue) result.cloneValue(false);
-                nv.plus(input, nv, nv);
-                chunk.setResult(nv);
-            }
-        }
-    }
-
-    @Override
-    protected void calculateOnRemove(WindowChunk chunk, DataValueDescriptor[] dvds) throws StandardException {
-        DataValueDescriptor result = chunk.getResult();
-        NumberDataValue input = (NumberDataValue)dvds[0];
-        if (input != null && ! input.isNull()) {
-            NumberDataValue nv = (NumberDataValue) result.cloneValue(false);
-            nv.minus(nv, input, nv);
-            chunk.setResult(nv);
-        }
-    }
-
     public DataValueDescriptor getResult() throws StandardException {
-        // Iterate through each chunk, compute the max/min of each chunk
-        WindowChunk first = chunks.get(0);
-        long count = first.last - first.first;
-        NumberDataValue result = (NumberDataValue)first.getResult().cloneValue(false);
-        long r = result.getLong();
-        for (int i = 1; i < chunks.size(); ++i) {
-            WindowChunk chunk = chunks.get(i);
-            NumberDataValue dvd = (NumberDataValue)chunk.getResult();
-            r += dvd.getLong();
-            count += chunk.last - chunk.first;
+        if (sum == null) {
+            return nullResult();
+        }
+        NumberDataValue result = (NumberDataValue)sum.cloneValue(false);
+        if (count > 0) {
+            result.setValue(sum.getDouble()/count);
         }
-        result.setValue((r*1.0)/count);
         return result;
     }
 
+    @Override
     public WindowFunction newWindowFunction() {
         return new AvgAggregator();
     }
@@ -23,10 +23,12 @@ import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import com.splicemachine.db.iapi.types.SQLLongint;
 
 /**
+ * Counts the rows of the frame for COUNT(*), and the non-null values of the frame for COUNT(expression).
  *
  * Created by jyuan on 7/31/14.
  */
-public class CountAggregator extends SpliceGenericWindowFunction {
+public class CountAggregator extends IncrementalWindowFunction {
+    private long count;
 
     @Override
     public WindowFunction setup( ClassFactory cf, String aggregateName, DataTypeDescriptor returnType,
@@ -36,40 +38,35 @@ public class CountAggregator extends SpliceGenericWindowFunction {
     }
 
     @Override
-    public void accumulate(DataValueDescriptor[] valueDescriptors) throws StandardException {
-        this.add(valueDescriptors);
+    protected void onAdd(DataValueDescriptor[] dvds) throws StandardException{
+        if (counts(dvds)) {
+            count++;
+        }
     }
 
     @Override
-    protected void calculateOnAdd(SpliceGenericWindowFunction.WindowChunk chunk, DataValueDescriptor[] dvds) throws StandardException{
-        DataValueDescriptor result = chunk.getResult();
-        if (result == null || result.isNull()) {
-            SQLLongint r = new SQLLongint(1);
-            chunk.setResult(r);
-        } else {
-            long count = result.getLong();
-            result.setValue(count+1);
-            chunk.setResult(result);
+    protected void onRemove(DataValueDescriptor[] dvds) throws StandardException {
+        if (counts(dvds)) {
+            count--;
         }
     }
 
+    private static boolean counts(DataValueDescriptor[] dvds) {
+        // COUNT(*) has no input column
+        return dvds.length == 0 || !dvds[0].isNull();
+    }
+
     @Override
-    protected void calculateOnRemove(SpliceGenericWindowFunction.WindowChunk chunk, DataValueDescriptor[] dvds) throws StandardException {
-        DataValueDescriptor result = chunk.getResult();
-        long count = result.getLong();
-        result.setValue(count-1);
-        chunk.setResult(result);
+    protected void clear() {
+        count = 0;
     }
 
+    @Override
     public DataValueDescriptor getResult() throws StandardException {
-        // Iterate through each chunk, compute the max/min of each chunk
-        long count = 0;
-        for (WindowChunk chunk : chunks) {
-            count += chunk.getResult().getLong();
-        }
         return new SQLLongint(count);
     }
 
+    @Override
     public WindowFunction newWindowFunction() {
         return new CountAggregator();
     }
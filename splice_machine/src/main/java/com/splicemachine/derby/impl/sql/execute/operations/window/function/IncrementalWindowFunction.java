@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations.window.function;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.List;
+
+import com.splicemachine.collections.RingBuffer;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.io.FormatableHashtable;
+import com.splicemachine.db.iapi.services.loader.ClassFactory;
+import com.splicemachine.db.iapi.sql.execute.ExecAggregator;
+import com.splicemachine.db.iapi.sql.execute.WindowFunction;
+import com.splicemachine.db.iapi.types.DataTypeDescriptor;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+
+/**
+ * Base class for aggregate window functions which keep their result up to date as rows
+ * enter and leave the frame, instead of recomputing it from chunks of the frame.
+ *
+ * Rows always leave the frame in the order they entered it, so the frame values are kept in a
+ * ring buffer and {@link #getResult()} costs the same however large the frame is.
+ */
+public abstract class IncrementalWindowFunction implements SpliceWindowFunction {
+    private static final int INITIAL_CAPACITY = SpliceGenericWindowFunction.CHUNKSIZE;
+
+    protected DataValueDescriptor resultType;
+    private RingBuffer<DataValueDescriptor[]> values;
+
+    public IncrementalWindowFunction() {
+        reset();
+    }
+
+    @Override
+    public WindowFunction setup(ClassFactory classFactory, String windowFunctionName, DataTypeDescriptor
+        returnDataType, FormatableHashtable functionSpecificArgs) {
+        return this;
+    }
+
+    @Override
+    public WindowFunction setup(ClassFactory cf, String aggregateName, DataTypeDescriptor returnDataType) {
+        return this;
+    }
+
+    @Override
+    public void setResultType(DataValueDescriptor resultType) {
+        this.resultType = resultType.cloneValue(false);
+    }
+
+    @Override
+    public void accumulate(DataValueDescriptor[] valueDescriptors) throws StandardException {
+        if (values.isFull()) {
+            values.expand();
+        }
+        values.add(valueDescriptors);
+        onAdd(valueDescriptors);
+    }
+
+    @Override
+    public DataValueDescriptor[] remove() throws StandardException {
+        if (values.isEmpty()) {
+            return null;
+        }
+        DataValueDescriptor[] dvds = values.next();
+        onRemove(dvds);
+        return dvds;
+    }
+
+    @Override
+    public void reset() {
+        if (values == null) {
+            values = new RingBuffer<>(INITIAL_CAPACITY);
+        } else {
+            values.clear();
+        }
+        clear();
+    }
+
+    @Override
+    public List<DataValueDescriptor> finishFrame() throws StandardException {
+        // results are read row by row through getResult()
+        return null;
+    }
+
+    /**
+     * @return the number of rows in the frame
+     */
+    protected int frameSize() {
+        return values.size();
+    }
+
+    /**
+     * @return a NULL of the result type, for frames without any value to aggregate
+     */
+    protected DataValueDescriptor nullResult() {
+        if (resultType == null) {
+            return null;
+        }
+        DataValueDescriptor result = resultType.cloneValue(false);
+        result.setToNull();
+        return result;
+    }
+
+    /**
+     * Called when a row enters the frame.
+     */
+    protected abstract void onAdd(DataValueDescriptor[] dvds) throws StandardException;
+
+    /**
+     * Called when the oldest row of the frame leaves it.
+     */
+    protected abstract void onRemove(DataValueDescriptor[] dvds) throws StandardException;
+
+    /**
+     * Forgets the aggregated state. Called from the constructor too, before the subclass fields
+     * are initialized, so it must not dereference them.
+     */
+    protected abstract void clear();
+
+    public void writeExternal(ObjectOutput out) throws IOException {
+        // default to doing nothing
+    }
+
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        // default to doing nothing
+    }
+
+    @Override
+    public int getTypeFormatId() {
+        // unused
+        if (resultType == null) {
+            return -1;
+        } else {
+            return resultType.getTypeFormatId();
+        }
+    }
+
+    //
+    // Derby no-ops
+    //
+    @Override
+    public void accumulate(DataValueDescriptor addend, Object ga) throws StandardException {
+
+    }
+
+    @Override
+    public void add(DataValueDescriptor addend) throws StandardException {
+
+    }
+
+    @Override
+    public void merge(ExecAggregator inputAggregator) throws StandardException {
+
+    }
+
+    @Override
+    public ExecAggregator newAggregator() {
+        return null;
+    }
+
+    @Override
+    public boolean didEliminateNulls() {
+        return false;
+    }
+
+    @Override
+    public boolean isUserDefinedAggregator() {
+        return false;
+    }
+}
@@ -17,6 +17,7 @@ package com.splicemachine.derby.impl.sql.execute.operations.window.function;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.ArrayDeque;
 
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.services.io.FormatableHashtable;
@@ -26,11 +27,19 @@ import com.splicemachine.db.iapi.types.DataTypeDescriptor;
 import com.splicemachine.db.iapi.types.DataValueDescriptor;
 
 /**
+ * Keeps the candidates for the max/min of the frame in a monotonic deque: a value is dropped as soon as
+ * a later value is at least as large (as small, for MIN), since it can never be the result again before
+ * it leaves the frame. The head of the deque is the result, and every value enters and leaves the deque
+ * at most once.
  *
  * Created by jyuan on 7/22/14.
  */
-public class MaxMinAggregator extends SpliceGenericWindowFunction {
+public class MaxMinAggregator extends IncrementalWindowFunction {
     private boolean isMax;
+    private ArrayDeque<Candidate> candidates;
+    /* the position of the next row to enter the frame, and of the next row to leave it */
+    private long added;
+    private long removed;
 
     @Override
     public WindowFunction setup( ClassFactory cf, String aggregateName, DataTypeDescriptor returnType,
@@ -41,69 +50,51 @@ public class MaxMinAggregator extends SpliceGenericWindowFunction {
     }
 
     @Override
-    public void accumulate(DataValueDescriptor[] valueDescriptors) throws StandardException {
-        this.add(valueDescriptors);
-    }
-
-    @Override
-    protected void calculateOnAdd(WindowChunk chunk, DataValueDescriptor[] dvd) throws StandardException{
-        DataValueDescriptor result = chunk.getResult();
-        if (result == null || result.isNull()) {
-            chunk.setResult(dvd[0]);
+    protected void onAdd(DataValueDescriptor[] dvd) throws StandardException{
+        long position = added++;
+        DataValueDescriptor value = dvd[0];
+        if (value.isNull()) {
+            return;
         }
-        else if(isMax && dvd[0].compare(result) > 0) {
-            chunk.setResult(dvd[0]);
+        if (candidates == null) {
+            candidates = new ArrayDeque<>();
         }
-        else if (!isMax && dvd[0].compare(result) < 0) {
-            chunk.setResult(dvd[0]);
+        while (!candidates.isEmpty() && !precedes(candidates.peekLast().value, value)) {
+            candidates.pollLast();
         }
+        candidates.addLast(new Candidate(position, value));
     }
 
     @Override
-    protected void calculateOnRemove(WindowChunk chunk, DataValueDescriptor[] dvds) throws StandardException {
-        DataValueDescriptor result = chunk.getResult();
-        if (dvds[0].compare(result) == 0) {
-            recalculate(chunk);
+    protected void onRemove(DataValueDescriptor[] dvds) throws StandardException {
+        long position = removed++;
+        if (candidates != null && !candidates.isEmpty() && candidates.peekFirst().position == position) {
+            candidates.pollFirst();
         }
     }
 
-    private void recalculate(WindowChunk chunk) throws StandardException{
-        DataValueDescriptor result = chunk.get(chunk.first)[0];
+    /**
+     * @return true if {@code left} remains a candidate once {@code right} enters the frame after it
+     */
+    private boolean precedes(DataValueDescriptor left, DataValueDescriptor right) throws StandardException {
+        int comparison = left.compare(right);
+        return isMax ? comparison > 0 : comparison < 0;
+    }
 
-        for (int i = chunk.first+1; i < chunk.last; ++i) {
-            DataValueDescriptor dvd = chunk.get(i)[0];
-            if (isMax) {
-                if (dvd.compare(result) > 0) {
-                    result = dvd;
-                }
-            }
-            else {
-                if (dvd.compare(result) < 0) {
-                    result = dvd;
-                }
-            }
+    @Override
+    protected void clear() {
+        if (candidates != null) {
+            candidates.clear();
         }
-        chunk.setResult(result);
+        added = removed = 0;
     }
 
+    @Override
     public DataValueDescriptor getResult() throws StandardException {
-        // Iterate through each chunk, compute the max/min of each chunk
-        WindowChunk first = chunks.get(0);
-        DataValueDescriptor result = first.getResult();
-        for (int i = 1; i < chunks.size(); ++i) {
-            DataValueDescriptor dvd = chunks.get(i).getResult();
-            if (isMax) {
-                if (dvd.compare(result) > 0) {
-                    result = dvd;
-                }
-            }
-            else {
-                if (dvd.compare(result) < 0) {
-                    result = dvd;
-                }
-            }
+        if (candidates == null || candidates.isEmpty()) {
+            return nullResult();
         }
-        return result;
+        return candidates.peekFirst().value;
     }
 
     @Override
@@ -122,4 +113,14 @@ public class MaxMinAggregator extends SpliceGenericWindowFunction {
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
         isMax = in.readBoolean();
     }
+
+    private static class Candidate {
+        private final long position;
+        private final DataValueDescriptor value;
+
+        Candidate(long position, DataValueDescriptor value) {
+            this.position = position;
+            this.value = value;
+        }
+    }
 }
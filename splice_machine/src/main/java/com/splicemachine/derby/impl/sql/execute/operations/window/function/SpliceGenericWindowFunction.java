@@ -35,7 +35,7 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
  *
  * Created by jyuan on 7/28/14.
  */
-public abstract class SpliceGenericWindowFunction implements WindowFunction {
+public abstract class SpliceGenericWindowFunction implements SpliceWindowFunction {
 
     public static final int CHUNKSIZE = 100;
     protected DataValueDescriptor resultType;
@@ -57,6 +57,7 @@ public abstract class SpliceGenericWindowFunction implements WindowFunction {
         return this;
     }
 
+    @Override
     public void setResultType(DataValueDescriptor resultType) {
         this.resultType = resultType.cloneValue(false);
     }
@@ -74,6 +75,7 @@ public abstract class SpliceGenericWindowFunction implements WindowFunction {
         calculateOnAdd(last, addends);
     }
 
+    @Override
     public DataValueDescriptor[] remove() throws StandardException{
 
         DataValueDescriptor[] dvd = first.remove();
@@ -244,6 +246,7 @@ public abstract class SpliceGenericWindowFunction implements WindowFunction {
         return false;
     }
 
+    @Override
     public List<DataValueDescriptor> finishFrame() throws StandardException {
         // override/implement if function needs the entire frame
         return null;
@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations.window.function;
+
+import java.util.List;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.WindowFunction;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+
+/**
+ * A window function evaluated over a sliding frame: rows enter the frame through
+ * {@link #accumulate(DataValueDescriptor[])} and leave it, oldest first, through {@link #remove()}.
+ */
+public interface SpliceWindowFunction extends WindowFunction {
+
+    /**
+     * @param resultType a value of the type returned by {@link #getResult()}
+     */
+    void setResultType(DataValueDescriptor resultType);
+
+    /**
+     * Drops the oldest row of the frame.
+     *
+     * @return the values of the dropped row, or null if the frame is empty
+     */
+    DataValueDescriptor[] remove() throws StandardException;
+
+    /**
+     * Called once every row of the partition went through the frame.
+     *
+     * @return the results of the partition rows, for functions which need the entire frame,
+     * or null if the results were already read through {@link #getResult()}
+     */
+    List<DataValueDescriptor> finishFrame() throws StandardException;
+}
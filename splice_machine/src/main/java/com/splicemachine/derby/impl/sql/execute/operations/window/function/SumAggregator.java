@@ -23,10 +23,13 @@ import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import com.splicemachine.db.iapi.types.NumberDataValue;
 
 /**
+ * Keeps a running sum of the frame, adding values as they enter it and subtracting them as they leave.
  *
  * Created by jyuan on 7/31/14.
  */
-public class SumAggregator extends SpliceGenericWindowFunction {
+public class SumAggregator extends IncrementalWindowFunction {
+    protected NumberDataValue sum;
+    protected long count;
 
     @Override
     public WindowFunction setup( ClassFactory cf, String aggregateName, DataTypeDescriptor returnType,
@@ -36,46 +39,46 @@ public class SumAggregator extends SpliceGenericWindowFunction {
     }
 
     @Override
-    public void accumulate(DataValueDescriptor[] valueDescriptors) throws StandardException {
-        this.add(valueDescriptors);
+    protected void onAdd(DataValueDescriptor[] dvds) throws StandardException{
+        NumberDataValue input = (NumberDataValue)dvds[0];
+        if (sum == null) {
+            sum = (NumberDataValue) input.cloneValue(false);
+            sum.setToNull();
+        }
+        if (input.isNull()) {
+            return;
+        }
+        if (count == 0) {
+            sum.setValue(input);
+        } else {
+            sum.plus(sum, input, sum);
+        }
+        count++;
     }
 
     @Override
-    protected void calculateOnAdd(WindowChunk chunk, DataValueDescriptor[] dvds) throws StandardException{
-        DataValueDescriptor result = chunk.getResult();
-        if (result == null || result.isNull()) {
-            chunk.setResult(dvds[0].cloneValue(false));
+    protected void onRemove(DataValueDescriptor[] dvds) throws StandardException {
+        NumberDataValue input = (NumberDataValue)dvds[0];
+        if (input.isNull()) {
+            return;
+        }
+        if (--count == 0) {
+            // start over from NULL rather than from an exact or rounded zero
+            sum.setToNull();
         } else {
-            NumberDataValue input = (NumberDataValue)dvds[0];
-            if (input != null && ! input.isNull()) {
-                NumberDataValue nv = (NumberDataValue) result.cloneValue(false);
-                nv.plus(input, nv, nv);
-                chunk.setResult(nv);
-            }
+            sum.minus(sum, input, sum);
         }
     }
 
     @Override
-    protected void calculateOnRemove(WindowChunk chunk, DataValueDescriptor[] dvds) throws StandardException {
-        DataValueDescriptor result = chunk.getResult();
-        NumberDataValue input = (NumberDataValue)dvds[0];
-        if (input != null && ! input.isNull()) {
-            NumberDataValue nv = (NumberDataValue) result.cloneValue(false);
-            nv.minus(nv, input, nv);
-            chunk.setResult(nv);
-        }
+    protected void clear() {
+        sum = null;
+        count = 0;
     }
 
     @Override
     public DataValueDescriptor getResult() throws StandardException {
-        // Iterate through each chunk, compute the max/min of each chunk
-        WindowChunk first = chunks.get(0);
-        NumberDataValue result = (NumberDataValue)first.getResult();
-        for (int i = 1; i < chunks.size(); ++i) {
-            NumberDataValue dvd = (NumberDataValue)chunks.get(i).getResult();
-            result.plus(result, dvd, result);
-        }
-        return result;
+        return sum == null ? nullResult() : sum;
     }
 
     @Override
@@ -28,6 +28,7 @@ import com.splicemachine.access.api.DatabaseVersion;
 import com.splicemachine.access.api.SConfiguration;
 import com.splicemachine.db.iapi.reference.Property;
 import com.splicemachine.db.impl.jdbc.EmbedConnection;
+import com.splicemachine.db.impl.sql.execute.TemporaryRowSpill;
 import com.splicemachine.derby.ddl.DDLDriver;
 import com.splicemachine.derby.ddl.DDLEnvironmentLoader;
 import com.splicemachine.derby.impl.db.SpliceDatabase;
@@ -135,6 +136,7 @@ public class EngineLifecycleService implements DatabaseLifecycleService{
             mbs.registerMBean(logging,on);
             mbs.registerMBean(SIDriver.driver().getRejectingExecutorService(),execServ);
             db.getDataDictionary().getDataDictionaryCache().registerJMX(mbs);
+            TemporaryRowSpill.registerJMX(mbs);
 
 
         }catch(InstanceAlreadyExistsException ignored){
@@ -15,11 +15,16 @@
 package com.splicemachine.derby.lifecycle;
 
 import com.splicemachine.access.api.SConfiguration;
+import com.splicemachine.derby.impl.sql.execute.operations.BroadcastJoinMemory;
 import com.splicemachine.derby.utils.DatabasePropertyManagementImpl;
+import com.splicemachine.hbase.jmx.JMXUtils;
+import com.splicemachine.si.api.readresolve.ReadResolverStatus;
+import com.splicemachine.si.impl.driver.SIDriver;
 import com.yammer.metrics.core.MetricsRegistry;
 import com.yammer.metrics.reporting.JmxReporter;
 
 import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 /**
  * @author Scott Fines
@@ -43,6 +48,10 @@ public class MonitoredLifecycleService extends EngineLifecycleService{
         metricsReporter.start();
 
         DatabasePropertyManagementImpl.registerJMX(mbs);
+        BroadcastJoinMemory.registerJMX(mbs);
+        ReadResolverStatus readResolverStatus = SIDriver.driver().getReadResolverStatus();
+        if(readResolverStatus!=null)
+            mbs.registerMBean(readResolverStatus,new ObjectName(JMXUtils.READ_RESOLVER_STATUS));
     }
 
 
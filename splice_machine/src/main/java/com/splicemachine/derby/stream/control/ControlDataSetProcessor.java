@@ -16,16 +16,21 @@ package com.splicemachine.derby.stream.control;
 
 import com.splicemachine.EngineDriver;
 import com.splicemachine.access.api.DistributedFileSystem;
+import com.splicemachine.access.api.FileInfo;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.Activation;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.db.iapi.store.access.Qualifier;
 import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.impl.load.ImportUtils;
+import com.splicemachine.derby.impl.sql.execute.operations.ScanOperation;
 import com.splicemachine.derby.impl.sql.execute.operations.scanner.TableScannerBuilder;
 import com.splicemachine.derby.stream.function.Partitioner;
+import com.splicemachine.derby.stream.function.TableScanPredicateFunction;
 import com.splicemachine.derby.stream.iapi.*;
 import com.splicemachine.derby.stream.iterator.TableScannerIterator;
+import com.splicemachine.derby.stream.utils.ExternalTableUtils;
 import com.splicemachine.derby.utils.marshall.KeyHashDecoder;
 import com.splicemachine.pipeline.Exceptions;
 import com.splicemachine.si.api.data.TxnOperationFactory;
@@ -110,6 +115,8 @@ public class ControlDataSetProcessor implements DataSetProcessor{
         return new TableScannerBuilder<V>(){
             @Override
             public DataSet<V> buildDataSet() throws StandardException{
+                if(storedAs!=null)
+                    return readExternalTable();
                 Partition p;
                 try{
                     p =SIDriver.driver().getTableFactory().getTable(tableName);
@@ -127,6 +134,33 @@ public class ControlDataSetProcessor implements DataSetProcessor{
                     throw Exceptions.parseException(e);
                 }
             }
+
+            @SuppressWarnings("unchecked")
+            private DataSet<V> readExternalTable() throws StandardException{
+                ScanOperation operation=(ScanOperation)spliceOperation;
+                OperationContext operationContext=operation==null?createOperationContext(activation):createOperationContext(operation);
+                ExecRow execRow=operation==null?template:operation.getExecRowDefinition();
+                Qualifier[][] qualifiers=operation==null?null:operation.getScanInformation().getScanQualifiers();
+                DataSet<V> locatedRows;
+                switch(storedAs){
+                    case "T":
+                        locatedRows=(DataSet<V>)readTextFile(operation,location,escaped,delimited,baseColumnMap,operationContext,qualifiers,null,execRow,useSample,sampleFraction);
+                        break;
+                    case "P":
+                        locatedRows=readParquetFile(ExternalTableUtils.getSchema(activation,Long.parseLong(tableName)),baseColumnMap,partitionByColumns,location,operationContext,qualifiers,null,execRow,useSample,sampleFraction);
+                        break;
+                    case "A":
+                        ExternalTableUtils.supportAvroDateTypeColumns(execRow);
+                        locatedRows=readAvroFile(ExternalTableUtils.getSchema(activation,Long.parseLong(tableName)),baseColumnMap,partitionByColumns,location,operationContext,qualifiers,null,execRow,useSample,sampleFraction);
+                        break;
+                    case "O":
+                        locatedRows=readORCFile(baseColumnMap,partitionByColumns,location,operationContext,qualifiers,null,execRow,useSample,sampleFraction,false);
+                        break;
+                    default:
+                        throw new UnsupportedOperationException("storedAs Type not supported -> "+storedAs);
+                }
+                return qualifiers==null?locatedRows:locatedRows.filter(new TableScanPredicateFunction(operationContext));
+            }
         };
     }
 
@@ -335,9 +369,30 @@ public class ControlDataSetProcessor implements DataSetProcessor{
     public <V> DataSet<V> readORCFile(int[] baseColumnMap,int[] partitionColumnMap, String location, OperationContext context,Qualifier[][] qualifiers,DataValueDescriptor probeValue, ExecRow execRow,
                                       boolean useSample, double sampleFraction, boolean statsjob) throws StandardException {
         DistributedDataSetProcessor proc = EngineDriver.driver().processorFactory().distributedProcessor();
+        if (!useSample && !statsjob && isLocallyReadable(location))
+            return proc.readORCFileLocally(baseColumnMap,partitionColumnMap,location,context,qualifiers,probeValue,execRow);
         return new ControlDataSet(proc.readORCFile(baseColumnMap,partitionColumnMap,location,context,qualifiers,probeValue,execRow, useSample, sampleFraction, statsjob).toLocalIterator());
     }
 
+    /**
+     * @return true if the files at the location are small enough to be read here rather than by a distributed job,
+     * see {@code splice.controlExecution.externalReadLimit}
+     */
+    private static boolean isLocallyReadable(String location) throws StandardException {
+        long limit = EngineDriver.driver().getConfiguration().getControlExecutionExternalReadLimit();
+        if (limit <= 0)
+            return false;
+        try {
+            FileInfo fileInfo = ImportUtils.getImportFileInfo(location);
+            boolean local = fileInfo.exists() && fileInfo.size() <= limit;
+            if (LOG.isDebugEnabled())
+                LOG.debug(String.format("External location %s holds %d bytes, reading it %s", location, fileInfo.size(), local ? "locally" : "through Spark"));
+            return local;
+        } catch (IOException e) {
+            throw Exceptions.parseException(e);
+        }
+    }
+
     @Override
     public <V> DataSet<ExecRow> readTextFile(SpliceOperation op, String location, String characterDelimiter, String columnDelimiter, int[] baseColumnMap,
                                                 OperationContext context, Qualifier[][] qualifiers, DataValueDescriptor probeValue, ExecRow execRow,
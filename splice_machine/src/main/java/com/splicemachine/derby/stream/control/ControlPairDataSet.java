@@ -19,6 +19,10 @@ import org.spark_project.guava.base.Function;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.stream.control.spill.ExternalSorter;
+import com.splicemachine.derby.stream.control.spill.GraceHashJoin;
+import com.splicemachine.derby.stream.control.spill.HybridHashAggregator;
+import com.splicemachine.derby.stream.control.spill.SpillBudget;
 import com.splicemachine.derby.stream.function.*;
 import com.splicemachine.derby.stream.iapi.DataSet;
 import com.splicemachine.derby.stream.iapi.OperationContext;
@@ -34,6 +38,8 @@ import org.spark_project.guava.base.Predicate;
 import org.spark_project.guava.collect.*;
 import scala.Tuple2;
 import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 import java.util.function.Consumer;
 
@@ -92,21 +98,18 @@ public class ControlPairDataSet<K,V> implements PairDataSet<K,V> {
     public <Op extends SpliceOperation> PairDataSet<K, V> reduceByKey(final SpliceFunction2<Op,V, V, V> function2) {
         final Iterator<Tuple2<K,V>> limitIterator = limit(checkCancellation(source,function2), function2.operationContext);
         return new ControlPairDataSet(new Iterator<Tuple2<K,V>>(){
-            private Iterator<Map.Entry<K,V>> set;
+            private Iterator<Tuple2<K,V>> set;
             @Override
             public boolean hasNext() {
                 if (set == null) {
                     try {
-                        HashMap<K, V> map = Maps.newHashMap();
-                        while (limitIterator.hasNext()) {
-                            Tuple2<K, V> t = limitIterator.next();
-                            if (map.containsKey(t._1())) {
-                                function2.call( map.get(t._1()),t._2());
-                            } else {
-                                map.put((K)((ExecRow)t._1).getClone(), function2.call(null,t._2()));
+                        HybridHashAggregator<K, V> aggregator = new HybridHashAggregator<>(spillBudget(function2.operationContext));
+                        set = aggregator.reduce(limitIterator, new Function<K, K>() {
+                            @Override
+                            public K apply(K key) {
+                                return (K)((ExecRow)key).getClone();
                             }
-                        }
-                        set = map.entrySet().iterator();
+                        }, function2);
                     } catch (Exception e) {
                         throw new RuntimeException(e);
                     }
@@ -116,8 +119,7 @@ public class ControlPairDataSet<K,V> implements PairDataSet<K,V> {
 
             @Override
             public Tuple2<K,V> next() {
-                Map.Entry<K,V> entry = set.next();
-                return Tuple2.apply(entry.getKey(),entry.getValue());
+                return set.next();
             }
 
             @Override
@@ -144,18 +146,12 @@ public class ControlPairDataSet<K,V> implements PairDataSet<K,V> {
 
     @Override
     public PairDataSet<K, V> sortByKey(final Comparator<K> comparator, OperationContext operationContext) {
-        /*
-         * -sf- this is done a bit goofily, so that we can support multiple versions of guava.
-         *
-         * This is essentially copying out FluentIterable.from(source).toSortedList(comparator) logic
-         * directly into the method, so that we can support the same code line from 12.0.1 on.
-         */
-        return new ControlPairDataSet<>(Ordering.from(new Comparator<Tuple2<K, V>>() {
-            @Override
-            public int compare(Tuple2<K, V> o1, Tuple2<K, V> o2) {
-                return comparator.compare(o1._1(), o2._1());
-            }
-        }).immutableSortedCopy(() -> limit(ControlUtils.checkCancellation(source,operationContext), operationContext)).iterator());
+        ExternalSorter<K, V> sorter = new ExternalSorter<>(comparator, spillBudget(operationContext));
+        try {
+            return new ControlPairDataSet<>(sorter.sort(limit(ControlUtils.checkCancellation(source, operationContext), operationContext)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     @Override
@@ -172,15 +168,12 @@ public class ControlPairDataSet<K,V> implements PairDataSet<K,V> {
 
     @Override
     public PairDataSet<K, Iterable<V>> groupByKey(OperationContext context) {
-        Multimap<K,V> newMap = multimapFromIterator(limit(ControlUtils.checkCancellation(source,context), context));
-        return new ControlPairDataSet<>(FluentIterable.from(newMap.asMap().entrySet()).transform(new Function<Map.Entry<K, Collection<V>>, Tuple2<K, Iterable<V>>>() {
-            @Nullable
-            @Override
-            public Tuple2<K, Iterable<V>> apply(@Nullable Map.Entry<K, Collection<V>> e) {
-                assert e!=null: "E cannot be null";
-                return new Tuple2<K, Iterable<V>>(e.getKey(), e.getValue());
-            }
-        }).iterator());
+        HybridHashAggregator<K, V> aggregator = new HybridHashAggregator<>(spillBudget(context));
+        try {
+            return new ControlPairDataSet<>(aggregator.group(limit(ControlUtils.checkCancellation(source, context), context)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     @Override
@@ -190,22 +183,14 @@ public class ControlPairDataSet<K,V> implements PairDataSet<K,V> {
 
     @Override
     public <W> PairDataSet< K, Tuple2<V, W>> hashJoin(PairDataSet<K, W> rightDataSet, OperationContext operationContext) {
-        // Materializes the right side
-        final Multimap<K,W> rightSide = multimapFromIterator(limit(ControlUtils.checkCancellation(((ControlPairDataSet<K,W>) rightDataSet).source,operationContext), operationContext));
-        return new ControlPairDataSet(Iterators.concat(Iterators.transform(ControlUtils.checkCancellation(source,operationContext),new Function<Tuple2<K, V>, Iterator<Tuple2<K, Tuple2<V, W>>>>() {
-            @Nullable
-            @Override
-            public Iterator<Tuple2<K, Tuple2<V, W>>> apply(@Nullable Tuple2<K, V> t) {
-                assert t!=null: "Tuple cannot be null";
-                List<Tuple2<K,Tuple2<V,W>>> result = new ArrayList<>();
-                K key = t._1();
-                V value = t._2();
-                for (W rightValue : rightSide.get(key)) {
-                    result.add(new Tuple2<>(key,new Tuple2<>(value,rightValue)));
-                }
-                return result.iterator();
-            }
-        })));
+        // Materializes the right side, spilling both sides to disk if it doesn't fit in memory
+        GraceHashJoin<K, V, W> join = new GraceHashJoin<>(spillBudget(operationContext));
+        try {
+            return new ControlPairDataSet<>(join.join(ControlUtils.checkCancellation(source, operationContext),
+                    limit(ControlUtils.checkCancellation(((ControlPairDataSet<K, W>) rightDataSet).source, operationContext), operationContext)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     @Override
@@ -216,15 +201,14 @@ public class ControlPairDataSet<K,V> implements PairDataSet<K,V> {
     
     @Override
     public <W> PairDataSet< K, V> subtractByKey(PairDataSet<K, W> rightDataSet, OperationContext operationContext) {
-        // Materializes the right side
-        final Multimap<K,W> rightSide = multimapFromIterator(limit(ControlUtils.checkCancellation(((ControlPairDataSet<K,W>) rightDataSet).source,operationContext), operationContext));
-        return new ControlPairDataSet<>(Iterators.filter(ControlUtils.checkCancellation(source,operationContext), new Predicate<Tuple2<K, V>>() {
-            @Override
-            public boolean apply(@Nullable Tuple2<K, V> t) {
-                assert t!=null: "T cannot be null";
-                return rightSide.get(t._1()).isEmpty();
-            }
-        }));
+        // Materializes the keys of the right side, spilling both sides to disk if they don't fit in memory
+        GraceHashJoin<K, V, W> join = new GraceHashJoin<>(spillBudget(operationContext));
+        try {
+            return new ControlPairDataSet<>(join.subtract(ControlUtils.checkCancellation(source, operationContext),
+                    limit(ControlUtils.checkCancellation(((ControlPairDataSet<K, W>) rightDataSet).source, operationContext), operationContext)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     @Override
@@ -233,6 +217,22 @@ public class ControlPairDataSet<K,V> implements PairDataSet<K,V> {
         return subtractByKey(rightDataSet, operationContext);
     }
 
+    /*
+     * The budget is closed along with the operation, so that the spill files are removed even when the
+     * output is not read to the end
+     */
+    private static SpillBudget spillBudget(OperationContext context) {
+        SpillBudget budget = SpillBudget.fromConfiguration();
+        if (budget.isSpillEnabled() && context != null && context.getOperation() != null) {
+            try {
+                context.getOperation().registerCloseable(budget);
+            } catch (StandardException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return budget;
+    }
+
     @Override
     public String toString() {
         // We can't consume the iterator since it's a streaming iterator
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.control.spill;
+
+import scala.Tuple2;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * External merge sort of key/value pairs.
+ *
+ * Rows are buffered in memory until the {@link SpillBudget} is exceeded, at which point the buffer is
+ * sorted and written out as a run. The sorted output is then produced by a k-way merge of the spilled runs
+ * and whatever is still in memory. Like the in-memory sort, the merge is stable: ties are broken by run order.
+ *
+ * At most {@code MAX_FAN_IN} runs are merged at once, to bound the open files and read buffers. When there
+ * are more runs than that, consecutive runs are first merged into longer runs, as many passes as needed.
+ */
+public class ExternalSorter<K, V> {
+    static final int MAX_FAN_IN = 64;
+
+    private final Comparator<Tuple2<K, V>> comparator;
+    private final SpillBudget budget;
+    private final int maxFanIn;
+
+    public ExternalSorter(final Comparator<K> keyComparator, SpillBudget budget) {
+        this(keyComparator, budget, MAX_FAN_IN);
+    }
+
+    ExternalSorter(final Comparator<K> keyComparator, SpillBudget budget, int maxFanIn) {
+        assert maxFanIn > 1 : "Cannot merge fewer than 2 runs at a time";
+        this.comparator = new Comparator<Tuple2<K, V>>() {
+            @Override
+            public int compare(Tuple2<K, V> o1, Tuple2<K, V> o2) {
+                return keyComparator.compare(o1._1(), o2._1());
+            }
+        };
+        this.budget = budget;
+        this.maxFanIn = maxFanIn;
+    }
+
+    public Iterator<Tuple2<K, V>> sort(Iterator<Tuple2<K, V>> source) throws IOException {
+        try {
+            return doSort(source);
+        } catch (IOException | RuntimeException e) {
+            budget.close();
+            throw e;
+        }
+    }
+
+    private Iterator<Tuple2<K, V>> doSort(Iterator<Tuple2<K, V>> source) throws IOException {
+        List<SpillFile<K, V>> runs = new ArrayList<>();
+        List<Tuple2<K, V>> buffer = new ArrayList<>();
+        while (source.hasNext()) {
+            Tuple2<K, V> next = source.next();
+            buffer.add(next);
+            if (budget.reserve(next)) {
+                runs.add(spillRun(buffer));
+                buffer = new ArrayList<>();
+                budget.reset();
+            }
+        }
+        Collections.sort(buffer, comparator);
+        if (runs.isEmpty())
+            return buffer.iterator();
+
+        // leave room for the in-memory buffer in the final merge
+        while (runs.size() >= maxFanIn) {
+            runs = mergePass(runs);
+        }
+        List<Iterator<Tuple2<K, V>>> iterators = read(runs);
+        iterators.add(buffer.iterator());
+        return new MergingIterator(iterators, true);
+    }
+
+    /*
+     * Merges groups of consecutive runs, so that the merged runs keep the order of the runs they replace
+     */
+    private List<SpillFile<K, V>> mergePass(List<SpillFile<K, V>> runs) throws IOException {
+        List<SpillFile<K, V>> merged = new ArrayList<>(runs.size() / maxFanIn + 1);
+        for (int start = 0; start < runs.size(); start += maxFanIn) {
+            List<SpillFile<K, V>> group = runs.subList(start, Math.min(start + maxFanIn, runs.size()));
+            if (group.size() == 1) {
+                merged.add(group.get(0));
+                continue;
+            }
+            SpillFile<K, V> run = budget.newSpillFile();
+            Iterator<Tuple2<K, V>> entries = new MergingIterator(read(group), false);
+            while (entries.hasNext()) {
+                run.append(entries.next());
+            }
+            run.finishWriting();
+            merged.add(run);
+        }
+        return merged;
+    }
+
+    private List<Iterator<Tuple2<K, V>>> read(List<SpillFile<K, V>> runs) throws IOException {
+        List<Iterator<Tuple2<K, V>>> iterators = new ArrayList<>(runs.size() + 1);
+        for (SpillFile<K, V> run : runs) {
+            iterators.add(run.read());
+        }
+        return iterators;
+    }
+
+    private SpillFile<K, V> spillRun(List<Tuple2<K, V>> buffer) throws IOException {
+        Collections.sort(buffer, comparator);
+        SpillFile<K, V> run = budget.newSpillFile();
+        for (Tuple2<K, V> t : buffer) {
+            run.append(t);
+        }
+        run.finishWriting();
+        return run;
+    }
+
+    private static class RunHead<K, V> {
+        private final int run;
+        private final Iterator<Tuple2<K, V>> iterator;
+        private Tuple2<K, V> head;
+
+        RunHead(int run, Iterator<Tuple2<K, V>> iterator) {
+            this.run = run;
+            this.iterator = iterator;
+        }
+
+        boolean advance() {
+            if (!iterator.hasNext())
+                return false;
+            head = iterator.next();
+            return true;
+        }
+    }
+
+    private class MergingIterator implements Iterator<Tuple2<K, V>> {
+        private final PriorityQueue<RunHead<K, V>> heads;
+        private final boolean last;
+
+        MergingIterator(List<Iterator<Tuple2<K, V>>> runs, boolean last) {
+            this.last = last;
+            this.heads = new PriorityQueue<>(runs.size(), new Comparator<RunHead<K, V>>() {
+                @Override
+                public int compare(RunHead<K, V> o1, RunHead<K, V> o2) {
+                    int c = comparator.compare(o1.head, o2.head);
+                    return c != 0 ? c : Integer.compare(o1.run, o2.run);
+                }
+            });
+            for (int i = 0; i < runs.size(); i++) {
+                RunHead<K, V> head = new RunHead<>(i, runs.get(i));
+                if (head.advance())
+                    heads.add(head);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (heads.isEmpty()) {
+                if (last)
+                    budget.close();
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public Tuple2<K, V> next() {
+            RunHead<K, V> smallest = heads.poll();
+            if (smallest == null)
+                throw new NoSuchElementException();
+            Tuple2<K, V> next = smallest.head;
+            if (smallest.advance())
+                heads.add(smallest);
+            return next;
+        }
+    }
+}
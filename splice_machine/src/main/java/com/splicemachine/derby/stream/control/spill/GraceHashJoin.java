@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.control.spill;
+
+import org.spark_project.guava.base.Predicate;
+import org.spark_project.guava.collect.AbstractIterator;
+import org.spark_project.guava.collect.ArrayListMultimap;
+import org.spark_project.guava.collect.Iterators;
+import org.spark_project.guava.collect.Multimap;
+import scala.Tuple2;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Grace hash join of two key/value streams.
+ *
+ * The right (build) side is loaded into an in-memory multimap. If it does not fit in the
+ * {@link SpillBudget}, both sides are hash partitioned to disk and each pair of partitions is then
+ * joined independently, repartitioning with a new hash seed whenever a build partition is still too big.
+ * The left (probe) side is only ever streamed.
+ */
+public class GraceHashJoin<K, V, W> {
+    private final SpillBudget budget;
+
+    public GraceHashJoin(SpillBudget budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * @return every (key, (left, right)) combination of entries sharing the same key
+     */
+    public Iterator<Tuple2<K, Tuple2<V, W>>> join(Iterator<Tuple2<K, V>> left, Iterator<Tuple2<K, W>> right) throws IOException {
+        try {
+            return join(left, right, 0);
+        } catch (IOException | RuntimeException e) {
+            budget.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the left entries whose key does not appear on the right side
+     */
+    public Iterator<Tuple2<K, V>> subtract(Iterator<Tuple2<K, V>> left, Iterator<Tuple2<K, W>> right) throws IOException {
+        try {
+            return subtract(left, right, 0);
+        } catch (IOException | RuntimeException e) {
+            budget.close();
+            throw e;
+        }
+    }
+
+    private Iterator<Tuple2<K, Tuple2<V, W>>> join(Iterator<Tuple2<K, V>> left, Iterator<Tuple2<K, W>> right, final int level) throws IOException {
+        final Multimap<K, W> buildSide = ArrayListMultimap.create();
+        budget.reset();
+        while (right.hasNext()) {
+            Tuple2<K, W> t = right.next();
+            buildSide.put(t._1(), t._2());
+            if (budget.reserve(t) && SpillPartitions.canRepartition(level)) {
+                final SpillPartitions<K, V> leftPartitions = new SpillPartitions<>(budget, level);
+                final SpillPartitions<K, W> rightPartitions = partition(left, right, buildSide, leftPartitions, level);
+                return Iterators.concat(new AbstractIterator<Iterator<Tuple2<K, Tuple2<V, W>>>>() {
+                    private int partition = 0;
+
+                    @Override
+                    protected Iterator<Tuple2<K, Tuple2<V, W>>> computeNext() {
+                        try {
+                            while (partition < SpillPartitions.NUM_PARTITIONS) {
+                                int p = partition++;
+                                if (rightPartitions.size(p) == 0 || leftPartitions.size(p) == 0) {
+                                    // nothing can match in this partition
+                                    rightPartitions.delete(p);
+                                    leftPartitions.delete(p);
+                                    continue;
+                                }
+                                return join(leftPartitions.read(p), rightPartitions.read(p), level + 1);
+                            }
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        if (level == 0)
+                            budget.close();
+                        return endOfData();
+                    }
+                });
+            }
+        }
+        return probe(left, buildSide);
+    }
+
+    private Iterator<Tuple2<K, V>> subtract(Iterator<Tuple2<K, V>> left, Iterator<Tuple2<K, W>> right, final int level) throws IOException {
+        final Multimap<K, W> buildSide = ArrayListMultimap.create();
+        budget.reset();
+        while (right.hasNext()) {
+            Tuple2<K, W> t = right.next();
+            // only the keys are needed to subtract
+            if (!buildSide.containsKey(t._1())) {
+                buildSide.put(t._1(), null);
+                if (budget.reserve(t) && SpillPartitions.canRepartition(level)) {
+                    final SpillPartitions<K, V> leftPartitions = new SpillPartitions<>(budget, level);
+                    final SpillPartitions<K, W> rightPartitions = partition(left, right, buildSide, leftPartitions, level);
+                    return Iterators.concat(new AbstractIterator<Iterator<Tuple2<K, V>>>() {
+                        private int partition = 0;
+
+                        @Override
+                        protected Iterator<Tuple2<K, V>> computeNext() {
+                            try {
+                                while (partition < SpillPartitions.NUM_PARTITIONS) {
+                                    int p = partition++;
+                                    if (leftPartitions.size(p) == 0) {
+                                        rightPartitions.delete(p);
+                                        leftPartitions.delete(p);
+                                        continue;
+                                    }
+                                    if (rightPartitions.size(p) == 0) {
+                                        // nothing to subtract
+                                        rightPartitions.delete(p);
+                                        return leftPartitions.read(p);
+                                    }
+                                    return subtract(leftPartitions.read(p), rightPartitions.read(p), level + 1);
+                                }
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                            if (level == 0)
+                                budget.close();
+                            return endOfData();
+                        }
+                    });
+                }
+            }
+        }
+        return Iterators.filter(left, new Predicate<Tuple2<K, V>>() {
+            @Override
+            public boolean apply(@Nullable Tuple2<K, V> t) {
+                assert t != null : "T cannot be null";
+                return !buildSide.containsKey(t._1());
+            }
+        });
+    }
+
+    /*
+     * Moves the partially built hash table and the rest of both inputs to disk
+     */
+    private SpillPartitions<K, W> partition(Iterator<Tuple2<K, V>> left,
+                                           Iterator<Tuple2<K, W>> right,
+                                           Multimap<K, W> buildSide,
+                                           SpillPartitions<K, V> leftPartitions,
+                                           int level) throws IOException {
+        SpillPartitions<K, W> rightPartitions = new SpillPartitions<>(budget, level);
+        for (Map.Entry<K, W> e : buildSide.entries()) {
+            rightPartitions.add(e.getKey(), e.getValue());
+        }
+        buildSide.clear();
+        budget.reset();
+        while (right.hasNext()) {
+            rightPartitions.add(right.next());
+        }
+        while (left.hasNext()) {
+            leftPartitions.add(left.next());
+        }
+        rightPartitions.finishWriting();
+        leftPartitions.finishWriting();
+        return rightPartitions;
+    }
+
+    private Iterator<Tuple2<K, Tuple2<V, W>>> probe(Iterator<Tuple2<K, V>> left, final Multimap<K, W> buildSide) {
+        return new AbstractIterator<Tuple2<K, Tuple2<V, W>>>() {
+            private K key;
+            private V value;
+            private Iterator<W> matches = Collections.emptyIterator();
+
+            @Override
+            protected Tuple2<K, Tuple2<V, W>> computeNext() {
+                while (!matches.hasNext()) {
+                    if (!left.hasNext()) {
+                        return endOfData();
+                    }
+                    Tuple2<K, V> t = left.next();
+                    key = t._1();
+                    value = t._2();
+                    Collection<W> rightValues = buildSide.get(key);
+                    matches = rightValues.iterator();
+                }
+                return new Tuple2<>(key, new Tuple2<>(value, matches.next()));
+            }
+        };
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.control.spill;
+
+import com.splicemachine.derby.stream.function.ZipperFunction;
+import org.spark_project.guava.base.Function;
+import org.spark_project.guava.collect.AbstractIterator;
+import org.spark_project.guava.collect.ArrayListMultimap;
+import org.spark_project.guava.collect.Iterators;
+import org.spark_project.guava.collect.Multimap;
+import scala.Tuple2;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Hash-based grouping and reduction of key/value streams which degrades gracefully to disk.
+ *
+ * For reductions, groups which are already in memory keep being aggregated in place once the
+ * {@link SpillBudget} is exceeded, while entries for new groups are hash partitioned to disk and
+ * reduced partition by partition afterwards (hybrid hash aggregation).
+ *
+ * Grouping must keep every value of a group, so once the budget is exceeded everything is
+ * partitioned to disk and each partition is grouped on its own.
+ */
+public class HybridHashAggregator<K, V> {
+    private final SpillBudget budget;
+
+    public HybridHashAggregator(SpillBudget budget) {
+        this.budget = budget;
+    }
+
+    /**
+     * @param keyCopier makes a private copy of a key before it is retained in memory
+     * @param combiner merges a value into the accumulated value for its group; the accumulated value is
+     *                 null for the first entry of a group
+     */
+    public Iterator<Tuple2<K, V>> reduce(Iterator<Tuple2<K, V>> source,
+                                         Function<K, K> keyCopier,
+                                         ZipperFunction<V, V, V> combiner) throws Exception {
+        try {
+            return reduce(source, keyCopier, combiner, 0);
+        } catch (Exception e) {
+            budget.close();
+            throw e;
+        }
+    }
+
+    public Iterator<Tuple2<K, Iterable<V>>> group(Iterator<Tuple2<K, V>> source) throws IOException {
+        try {
+            return group(source, 0);
+        } catch (IOException | RuntimeException e) {
+            budget.close();
+            throw e;
+        }
+    }
+
+    private Iterator<Tuple2<K, V>> reduce(Iterator<Tuple2<K, V>> source,
+                                          final Function<K, K> keyCopier,
+                                          final ZipperFunction<V, V, V> combiner,
+                                          final int level) throws Exception {
+        Map<K, V> groups = new HashMap<>();
+        SpillPartitions<K, V> partitions = null;
+        budget.reset();
+        while (source.hasNext()) {
+            Tuple2<K, V> t = source.next();
+            V accumulated = groups.get(t._1());
+            if (accumulated != null) {
+                groups.put(t._1(), combiner.call(accumulated, t._2()));
+            } else if (partitions != null) {
+                partitions.add(t);
+            } else {
+                groups.put(keyCopier.apply(t._1()), combiner.call(null, t._2()));
+                if (budget.reserve(t) && SpillPartitions.canRepartition(level))
+                    partitions = new SpillPartitions<>(budget, level);
+            }
+        }
+        Iterator<Tuple2<K, V>> inMemory = Iterators.transform(groups.entrySet().iterator(), new Function<Map.Entry<K, V>, Tuple2<K, V>>() {
+            @Override
+            public Tuple2<K, V> apply(Map.Entry<K, V> entry) {
+                return new Tuple2<>(entry.getKey(), entry.getValue());
+            }
+        });
+        if (partitions == null)
+            return inMemory;
+
+        partitions.finishWriting();
+        final SpillPartitions<K, V> spilled = partitions;
+        return Iterators.concat(inMemory, Iterators.concat(new AbstractIterator<Iterator<Tuple2<K, V>>>() {
+            private int partition = 0;
+
+            @Override
+            protected Iterator<Tuple2<K, V>> computeNext() {
+                while (partition < SpillPartitions.NUM_PARTITIONS) {
+                    int p = partition++;
+                    if (spilled.size(p) == 0) {
+                        spilled.delete(p);
+                        continue;
+                    }
+                    try {
+                        return reduce(spilled.read(p), keyCopier, combiner, level + 1);
+                    } catch (RuntimeException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+                if (level == 0)
+                    budget.close();
+                return endOfData();
+            }
+        }));
+    }
+
+    private Iterator<Tuple2<K, Iterable<V>>> group(Iterator<Tuple2<K, V>> source, final int level) throws IOException {
+        Multimap<K, V> groups = ArrayListMultimap.create();
+        budget.reset();
+        while (source.hasNext()) {
+            Tuple2<K, V> t = source.next();
+            groups.put(t._1(), t._2());
+            if (budget.reserve(t) && SpillPartitions.canRepartition(level)) {
+                final SpillPartitions<K, V> partitions = new SpillPartitions<>(budget, level);
+                for (Map.Entry<K, V> e : groups.entries()) {
+                    partitions.add(e.getKey(), e.getValue());
+                }
+                groups.clear();
+                budget.reset();
+                while (source.hasNext()) {
+                    partitions.add(source.next());
+                }
+                partitions.finishWriting();
+                return Iterators.concat(new AbstractIterator<Iterator<Tuple2<K, Iterable<V>>>>() {
+                    private int partition = 0;
+
+                    @Override
+                    protected Iterator<Tuple2<K, Iterable<V>>> computeNext() {
+                        while (partition < SpillPartitions.NUM_PARTITIONS) {
+                            int p = partition++;
+                            if (partitions.size(p) == 0) {
+                                partitions.delete(p);
+                                continue;
+                            }
+                            try {
+                                return group(partitions.read(p), level + 1);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        }
+                        if (level == 0)
+                            budget.close();
+                        return endOfData();
+                    }
+                });
+            }
+        }
+        return Iterators.transform(groups.asMap().entrySet().iterator(), new Function<Map.Entry<K, Collection<V>>, Tuple2<K, Iterable<V>>>() {
+            @Override
+            public Tuple2<K, Iterable<V>> apply(Map.Entry<K, Collection<V>> e) {
+                return new Tuple2<K, Iterable<V>>(e.getKey(), e.getValue());
+            }
+        });
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.control.spill;
+
+import com.splicemachine.SpliceKryoRegistry;
+import com.splicemachine.access.api.SConfiguration;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.si.impl.driver.SIDriver;
+import com.splicemachine.utils.kryo.KryoPool;
+import org.apache.log4j.Logger;
+import scala.Tuple2;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tracks the (estimated) heap used by a single control-side operator, and hands out
+ * spill files once the configured budget has been exceeded.
+ *
+ * A budget is not thread safe; it is owned by the thread iterating the operator. It is also registered
+ * with the operation the operator runs for, so that closing the operation removes whatever has been
+ * spilled when the output is not fully consumed (a LIMIT, an early close or an error).
+ *
+ * @see com.splicemachine.access.configuration.SQLConfiguration#CONTROL_EXECUTION_SPILL_MEMORY_BUDGET
+ */
+public class SpillBudget implements AutoCloseable {
+    private static final Logger LOG = Logger.getLogger(SpillBudget.class);
+    /*
+     * Rough per-entry overhead for the tuple, the collection entry and the row object headers
+     */
+    private static final long ENTRY_OVERHEAD = 64L;
+    private static final long DEFAULT_OBJECT_SIZE = 128L;
+
+    public static final SpillBudget UNLIMITED = new SpillBudget(0L, null, null);
+
+    private final long maxBytes;
+    private final File parentDirectory;
+    private final KryoPool kryoPool;
+    private long usedBytes;
+    private File spillDirectory;
+    private final List<SpillFile<?, ?>> files = new ArrayList<>();
+    private int fileCount;
+
+    public SpillBudget(long maxBytes, File parentDirectory, KryoPool kryoPool) {
+        this.maxBytes = parentDirectory == null ? 0L : maxBytes;
+        this.parentDirectory = parentDirectory;
+        this.kryoPool = kryoPool;
+    }
+
+    public static SpillBudget fromConfiguration() {
+        SIDriver driver = SIDriver.driver();
+        if (driver == null)
+            return UNLIMITED;
+        SConfiguration config = driver.getConfiguration();
+        String dir = config.getControlExecutionSpillDirectory();
+        long budget = config.getControlExecutionSpillMemoryBudget();
+        if (dir == null || budget <= 0)
+            return UNLIMITED;
+        return new SpillBudget(budget, new File(dir), SpliceKryoRegistry.getInstance());
+    }
+
+    public boolean isSpillEnabled() {
+        return maxBytes > 0;
+    }
+
+    /**
+     * Account for an entry which has been materialized in memory.
+     *
+     * @return true if the budget has been exceeded and the caller should start spilling
+     */
+    public boolean reserve(Tuple2<?, ?> entry) {
+        if (!isSpillEnabled())
+            return false;
+        usedBytes += estimateSize(entry._1()) + estimateSize(entry._2()) + ENTRY_OVERHEAD;
+        return usedBytes > maxBytes;
+    }
+
+    public boolean isExceeded() {
+        return isSpillEnabled() && usedBytes > maxBytes;
+    }
+
+    /**
+     * Release everything reserved so far, once the in-memory structure has been spilled or discarded.
+     */
+    public void reset() {
+        usedBytes = 0L;
+    }
+
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+
+    public <K, V> SpillFile<K, V> newSpillFile() throws IOException {
+        assert isSpillEnabled() : "Spilling is disabled";
+        if (spillDirectory == null) {
+            Files.createDirectories(parentDirectory.toPath());
+            spillDirectory = Files.createTempDirectory(parentDirectory.toPath(), "splice-spill-").toFile();
+            if (LOG.isDebugEnabled())
+                LOG.debug("Spilling control-side operator to " + spillDirectory);
+        }
+        SpillFile<K, V> file = new SpillFile<>(new File(spillDirectory, "spill-" + (fileCount++)), kryoPool);
+        files.add(file);
+        return file;
+    }
+
+    /**
+     * Removes any spill file which has not been consumed yet, closing its reader or writer, along with
+     * the spill directory.
+     */
+    @Override
+    public void close() {
+        if (spillDirectory == null)
+            return;
+        for (SpillFile<?, ?> file : files) {
+            file.delete();
+        }
+        files.clear();
+        if (!spillDirectory.delete())
+            LOG.warn("Unable to delete spill directory " + spillDirectory);
+        spillDirectory = null;
+    }
+
+    private static long estimateSize(Object o) {
+        if (o instanceof ExecRow) {
+            try {
+                return ((ExecRow) o).getRowSize();
+            } catch (StandardException se) {
+                return DEFAULT_OBJECT_SIZE;
+            }
+        }
+        return DEFAULT_OBJECT_SIZE;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.control.spill;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.splicemachine.utils.kryo.KryoPool;
+import org.apache.log4j.Logger;
+import scala.Tuple2;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An append-only file of Kryo-serialized key/value pairs, read back exactly once.
+ *
+ * The file is removed as soon as it has been fully read, or when it is explicitly deleted, which also
+ * closes a reader which has not finished yet.
+ */
+public class SpillFile<K, V> {
+    private static final Logger LOG = Logger.getLogger(SpillFile.class);
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final File file;
+    private final KryoPool kryoPool;
+    private Output output;
+    private Input input;
+    private long count;
+
+    SpillFile(File file, KryoPool kryoPool) {
+        this.file = file;
+        this.kryoPool = kryoPool;
+    }
+
+    public void append(Tuple2<K, V> entry) throws IOException {
+        append(entry._1(), entry._2());
+    }
+
+    public void append(K key, V value) throws IOException {
+        if (output == null)
+            output = new Output(new FileOutputStream(file), BUFFER_SIZE);
+        Kryo kryo = kryoPool.get();
+        try {
+            kryo.writeClassAndObject(output, key);
+            kryo.writeClassAndObject(output, value);
+        } finally {
+            kryoPool.returnInstance(kryo);
+        }
+        count++;
+    }
+
+    /**
+     * @return the number of entries written to this file
+     */
+    public long size() {
+        return count;
+    }
+
+    public void finishWriting() {
+        if (output != null) {
+            output.close();
+            output = null;
+        }
+    }
+
+    /**
+     * Stream the entries back in the order they were written. The file is deleted once the
+     * returned iterator has been exhausted.
+     */
+    public Iterator<Tuple2<K, V>> read() throws IOException {
+        finishWriting();
+        if (count == 0) {
+            delete();
+            return Collections.emptyIterator();
+        }
+        input = new Input(new FileInputStream(file), BUFFER_SIZE);
+        return new SpillIterator(input);
+    }
+
+    public void delete() {
+        finishWriting();
+        if (input != null) {
+            input.close();
+            input = null;
+        }
+        if (file.exists() && !file.delete())
+            LOG.warn("Unable to delete spill file " + file);
+    }
+
+    private class SpillIterator implements Iterator<Tuple2<K, V>> {
+        private final Input input;
+        private long remaining = count;
+
+        SpillIterator(Input input) {
+            this.input = input;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Tuple2<K, V> next() {
+            if (remaining <= 0)
+                throw new NoSuchElementException();
+            Kryo kryo = kryoPool.get();
+            Tuple2<K, V> next;
+            try {
+                K key = (K) kryo.readClassAndObject(input);
+                V value = (V) kryo.readClassAndObject(input);
+                next = new Tuple2<>(key, value);
+            } finally {
+                kryoPool.returnInstance(kryo);
+            }
+            if (--remaining == 0)
+                delete();
+            return next;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.control.spill;
+
+import com.splicemachine.hash.Hash32;
+import com.splicemachine.hash.HashFunctions;
+import scala.Tuple2;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * A fixed set of spill files, where each entry lands in the file selected by the hash of its key.
+ *
+ * Every recursion level uses a different hash seed, so that a partition which is still too large
+ * to fit in memory is split evenly when it is partitioned again.
+ */
+class SpillPartitions<K, V> {
+    static final int NUM_PARTITIONS = 32;
+    /*
+     * Past this depth we assume the data is skewed on a single key and stop repartitioning
+     */
+    static final int MAX_DEPTH = 3;
+
+    private final SpillFile<K, V>[] files;
+    private final Hash32 hashFunction;
+
+    @SuppressWarnings("unchecked")
+    SpillPartitions(SpillBudget budget, int level) throws IOException {
+        this.files = new SpillFile[NUM_PARTITIONS];
+        for (int i = 0; i < NUM_PARTITIONS; i++) {
+            files[i] = budget.newSpillFile();
+        }
+        this.hashFunction = HashFunctions.murmur3(level);
+    }
+
+    static boolean canRepartition(int level) {
+        return level < MAX_DEPTH;
+    }
+
+    void add(Tuple2<K, V> entry) throws IOException {
+        add(entry._1(), entry._2());
+    }
+
+    void add(K key, V value) throws IOException {
+        int hash = hashFunction.hash(key == null ? 0 : key.hashCode());
+        files[(hash & Integer.MAX_VALUE) % NUM_PARTITIONS].append(key, value);
+    }
+
+    void finishWriting() {
+        for (SpillFile<K, V> file : files) {
+            file.finishWriting();
+        }
+    }
+
+    long size(int partition) {
+        return files[partition].size();
+    }
+
+    Iterator<Tuple2<K, V>> read(int partition) throws IOException {
+        return files[partition].read();
+    }
+
+    void delete(int partition) {
+        files[partition].delete();
+    }
+}
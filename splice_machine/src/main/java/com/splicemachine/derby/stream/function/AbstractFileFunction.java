@@ -25,6 +25,7 @@ import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import com.splicemachine.db.iapi.types.DateTimeDataValue;
 import com.splicemachine.db.iapi.types.SQLTimestamp;
 import com.splicemachine.db.shared.common.reference.SQLState;
+import com.splicemachine.derby.impl.load.CsvByteTokenizer;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
 import com.splicemachine.derby.impl.sql.execute.operations.InsertOperation;
 import com.splicemachine.derby.impl.sql.execute.operations.VTIOperation;
@@ -131,6 +132,13 @@ public abstract class AbstractFileFunction<I> extends SpliceFlatMapFunction<Spli
                 dateTimeFormat, timestampFormat);
     }
 
+    public ExecRow call(CsvByteTokenizer record) throws Exception {
+        if (calendar == null)
+            calendar = new GregorianCalendar();
+        return getRow(record, operationContext, execRow, calendar, timeFormat,
+                dateTimeFormat, timestampFormat);
+    }
+
 
     public static ExecRow getRow(List<String> values,BooleanList quotedColumns,
                                  OperationContext operationContext, ExecRow execRow,
@@ -141,7 +149,6 @@ public abstract class AbstractFileFunction<I> extends SpliceFlatMapFunction<Spli
         int numofColumnsinTable = 0;
         int numofColumnsinFile = 0;
         boolean columnnumbermistmatch = false;
-        boolean convertTimestamps = false;
 
         if (operationContext != null)
             operationContext.recordRead();
@@ -157,98 +164,219 @@ public abstract class AbstractFileFunction<I> extends SpliceFlatMapFunction<Spli
                 throw StandardException.newException(SQLState.COLUMN_NUMBER_MISMATCH, returnRow.nColumns(), values.size());
             }
 
-            DataTypeDescriptor[] dataTypeDescriptors = null;
-            if (operationContext != null && operationContext.getOperation() instanceof VTIOperation) {
-                VTIOperation op = (VTIOperation) operationContext.getOperation();
-                dataTypeDescriptors = op.getResultColumnTypes();
-
-                if (op.isConvertTimestampsEnabled() &&
-                    op.getActivation().getResultSet() != null &&
-                    op.getActivation().getResultSet() instanceof InsertOperation) {
-
-                    InsertOperation insOp = (InsertOperation)op.getActivation().getResultSet();
-                    String tableVersion = insOp.getTableVersion();
-                    if (tableVersion.equals("2.0"))
-                        convertTimestamps = true;
-                }
-            }
+            DataTypeDescriptor[] dataTypeDescriptors = getResultColumnTypes(operationContext);
+            boolean convertTimestamps = isConvertTimestamps(operationContext);
 
             numofColumnsinTable = returnRow.nColumns();
             numofColumnsinFile = values.size();
             for (int i = 1; i <= returnRow.nColumns(); i++) {
                 DataValueDescriptor dvd = returnRow.getColumn(i);
                 columnID = i;
-                int type = dvd.getTypeFormatId();
 
                 String value = values.get(i - 1);
                 if (shouldBeNull(value,quotedColumns.valueAt(i-1)))
                     value = null;
                 columnValue = value;
-                switch(type){
-                    case StoredFormatIds.SQL_TIME_ID:
-                        if(calendar==null)
-                            calendar = new GregorianCalendar();
-                        if (timeFormat == null || value==null){
-                            ((DateTimeDataValue)dvd).setValue(value,calendar);
-                        }else
-                            dvd.setValue(SpliceDateFunctions.TO_TIME(value, timeFormat),calendar);
-                        break;
-                    case StoredFormatIds.SQL_DATE_ID:
-                        if(calendar==null)
-                            calendar = new GregorianCalendar();
-                        if (dateTimeFormat == null || value == null)
-                            ((DateTimeDataValue)dvd).setValue(value,calendar);
-                        else
-                            dvd.setValue(SpliceDateFunctions.TO_DATE(value, dateTimeFormat),calendar);
-                        break;
-                    case StoredFormatIds.SQL_TIMESTAMP_ID:
-                        if(calendar==null)
-                            calendar = new GregorianCalendar();
-                        if (timestampFormat == null || value==null)
-                            ((DateTimeDataValue)dvd).setValue(value,calendar);
-                        else {
-                            Timestamp ts = SpliceDateFunctions.TO_TIMESTAMP(value, timestampFormat);
-                            if (convertTimestamps)
-                                ts = SQLTimestamp.convertTimeStamp(ts);
-                            dvd.setValue(ts, calendar);
-                        }
-                        break;
-                    case StoredFormatIds.SQL_CHAR_ID:
-                    case StoredFormatIds.SQL_VARCHAR_ID:
-                    case StoredFormatIds.SQL_CLOB_ID:
-                        dvd.setValue(value);
-                        //normalize the char type
-                        if(dataTypeDescriptors != null && !dvd.isNull()){
-                            dvd.normalize(dataTypeDescriptors[i-1], dvd);
-                        }
-                        break;
-                    default:
-                        dvd.setValue(value);
+                if (calendar == null && isDateTime(dvd.getTypeFormatId()))
+                    calendar = new GregorianCalendar();
+                setColumn(dvd, value, dataTypeDescriptors == null ? null : dataTypeDescriptors[i - 1], calendar,
+                        timeFormat, dateTimeFormat, timestampFormat, convertTimestamps);
+            }
+            return returnRow;
+        } catch (Exception e) {
+            if (operationContext != null && operationContext.isPermissive()) {
+                recordBadRecord(operationContext, e, columnnumbermistmatch, values, numofColumnsinTable,
+                        numofColumnsinFile, columnID, columnValue);
+                return null;
+            }
+            throw e; // Not Permissive of errors
+        }
+    }
+
+    /**
+     * Build a row from the record the tokenizer is positioned on. This is the same conversion as
+     * {@link #getRow(List, BooleanList, OperationContext, ExecRow, Calendar, String, String, String)},
+     * except that integer columns are read straight from the tokenizer's buffer.
+     */
+    public static ExecRow getRow(CsvByteTokenizer record,
+                                 OperationContext operationContext, ExecRow execRow,
+                                 Calendar calendar, String timeFormat,
+                                 String dateTimeFormat, String timestampFormat)  throws Exception {
+        int columnID = 0;
+        String columnValue = null;
+        int numofColumnsinTable = 0;
+        int numofColumnsinFile = 0;
+        boolean columnnumbermistmatch = false;
+
+        if (operationContext != null)
+            operationContext.recordRead();
+
+        try {
+            ExecRow returnRow = execRow.getClone();
+            if (record.fieldCount() < returnRow.nColumns()) {
+                columnnumbermistmatch = true;
+                throw StandardException.newException(SQLState.COLUMN_NUMBER_MISMATCH, returnRow.nColumns(), record.fieldCount());
+            }
+
+            DataTypeDescriptor[] dataTypeDescriptors = getResultColumnTypes(operationContext);
+            boolean convertTimestamps = isConvertTimestamps(operationContext);
+
+            numofColumnsinTable = returnRow.nColumns();
+            numofColumnsinFile = record.fieldCount();
+            for (int i = 1; i <= returnRow.nColumns(); i++) {
+                DataValueDescriptor dvd = returnRow.getColumn(i);
+                columnID = i;
+                int field = i - 1;
+                if (record.isNull(field)) {
+                    columnValue = null;
+                    dvd.setToNull();
+                    continue;
                 }
+                int type = dvd.getTypeFormatId();
+                if (record.isInteger(field) && setInteger(dvd, type, record.longValue(field)))
+                    continue;
+
+                String value = record.stringValue(field);
+                columnValue = value;
+                if (calendar == null && isDateTime(type))
+                    calendar = new GregorianCalendar();
+                setColumn(dvd, value, dataTypeDescriptors == null ? null : dataTypeDescriptors[i - 1], calendar,
+                        timeFormat, dateTimeFormat, timestampFormat, convertTimestamps);
             }
             return returnRow;
         } catch (Exception e) {
             if (operationContext != null && operationContext.isPermissive()) {
-                String extendedMessage;
-                if (columnnumbermistmatch)
-                    extendedMessage = " row Data: " + values;
-                else
-                    extendedMessage = " [Columns in Table: " + numofColumnsinTable + "] [Columns in File: " + numofColumnsinFile + "] [Bad Column ID: " + columnID + "] "+ "[Bad Column Value: " + columnValue + "]" + " row Data: " + values;
-                operationContext.recordBadRecord(e.getLocalizedMessage() + extendedMessage, e);
+                recordBadRecord(operationContext, e, columnnumbermistmatch, record.values(), numofColumnsinTable,
+                        numofColumnsinFile, columnID, columnValue);
                 return null;
             }
             throw e; // Not Permissive of errors
         }
     }
 
+    private static DataTypeDescriptor[] getResultColumnTypes(OperationContext operationContext) {
+        if (operationContext != null && operationContext.getOperation() instanceof VTIOperation)
+            return ((VTIOperation) operationContext.getOperation()).getResultColumnTypes();
+        return null;
+    }
+
+    private static boolean isConvertTimestamps(OperationContext operationContext) {
+        if (operationContext == null || !(operationContext.getOperation() instanceof VTIOperation))
+            return false;
+        VTIOperation op = (VTIOperation) operationContext.getOperation();
+        if (op.isConvertTimestampsEnabled() &&
+            op.getActivation().getResultSet() != null &&
+            op.getActivation().getResultSet() instanceof InsertOperation) {
+
+            InsertOperation insOp = (InsertOperation)op.getActivation().getResultSet();
+            String tableVersion = insOp.getTableVersion();
+            if (tableVersion.equals("2.0"))
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean isDateTime(int type) {
+        return type == StoredFormatIds.SQL_TIME_ID
+                || type == StoredFormatIds.SQL_DATE_ID
+                || type == StoredFormatIds.SQL_TIMESTAMP_ID;
+    }
+
+    /**
+     * Set an integer column without going through a String.
+     *
+     * @return false if the column is not an integer column, or the value is out of its range; the caller
+     * then sets the column from the String value, which reports the error
+     */
+    private static boolean setInteger(DataValueDescriptor dvd, int type, long value) throws StandardException {
+        switch(type){
+            case StoredFormatIds.SQL_LONGINT_ID:
+                dvd.setValue(value);
+                return true;
+            case StoredFormatIds.SQL_INTEGER_ID:
+                if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)
+                    return false;
+                dvd.setValue((int) value);
+                return true;
+            case StoredFormatIds.SQL_SMALLINT_ID:
+                if (value < Short.MIN_VALUE || value > Short.MAX_VALUE)
+                    return false;
+                dvd.setValue((short) value);
+                return true;
+            case StoredFormatIds.SQL_TINYINT_ID:
+                if (value < Byte.MIN_VALUE || value > Byte.MAX_VALUE)
+                    return false;
+                dvd.setValue((byte) value);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static void setColumn(DataValueDescriptor dvd, String value, DataTypeDescriptor dataTypeDescriptor,
+                                  Calendar calendar, String timeFormat, String dateTimeFormat,
+                                  String timestampFormat, boolean convertTimestamps) throws StandardException {
+        switch(dvd.getTypeFormatId()){
+            case StoredFormatIds.SQL_TIME_ID:
+                if (timeFormat == null || value==null){
+                    ((DateTimeDataValue)dvd).setValue(value,calendar);
+                }else
+                    dvd.setValue(SpliceDateFunctions.TO_TIME(value, timeFormat),calendar);
+                break;
+            case StoredFormatIds.SQL_DATE_ID:
+                if (dateTimeFormat == null || value == null)
+                    ((DateTimeDataValue)dvd).setValue(value,calendar);
+                else
+                    dvd.setValue(SpliceDateFunctions.TO_DATE(value, dateTimeFormat),calendar);
+                break;
+            case StoredFormatIds.SQL_TIMESTAMP_ID:
+                if (timestampFormat == null || value==null)
+                    ((DateTimeDataValue)dvd).setValue(value,calendar);
+                else {
+                    Timestamp ts = SpliceDateFunctions.TO_TIMESTAMP(value, timestampFormat);
+                    if (convertTimestamps)
+                        ts = SQLTimestamp.convertTimeStamp(ts);
+                    dvd.setValue(ts, calendar);
+                }
+                break;
+            case StoredFormatIds.SQL_CHAR_ID:
+            case StoredFormatIds.SQL_VARCHAR_ID:
+            case StoredFormatIds.SQL_CLOB_ID:
+                dvd.setValue(value);
+                //normalize the char type
+                if(dataTypeDescriptor != null && !dvd.isNull()){
+                    dvd.normalize(dataTypeDescriptor, dvd);
+                }
+                break;
+            default:
+                dvd.setValue(value);
+        }
+    }
+
+    private static void recordBadRecord(OperationContext operationContext, Exception e, boolean columnnumbermistmatch,
+                                        List<String> values, int numofColumnsinTable, int numofColumnsinFile,
+                                        int columnID, String columnValue) {
+        String extendedMessage;
+        if (columnnumbermistmatch)
+            extendedMessage = " row Data: " + values;
+        else
+            extendedMessage = " [Columns in Table: " + numofColumnsinTable + "] [Columns in File: " + numofColumnsinFile + "] [Bad Column ID: " + columnID + "] "+ "[Bad Column Value: " + columnValue + "]" + " row Data: " + values;
+        operationContext.recordBadRecord(e.getLocalizedMessage() + extendedMessage, e);
+    }
+
+    public char quoteCharacter() {
+        return characterDelimiter!=null && !characterDelimiter.isEmpty() ?characterDelimiter.charAt(0):DEFAULT_STRIP_STRING;
+    }
+
+    public char columnDelimiterCharacter() {
+        return columnDelimiter!=null && !columnDelimiter.isEmpty() ?columnDelimiter.charAt(0):DEFAULT_COLUMN_DELIMITTER;
+    }
+
     void checkPreference() {
         if (preference==null){
             SConfiguration config =EngineDriver.driver().getConfiguration();
             int maxQuotedLines = config.getImportMaxQuotedColumnLines();
-            preference=new CsvPreference.Builder(
-                    characterDelimiter!=null && !characterDelimiter.isEmpty() ?characterDelimiter.charAt(0):DEFAULT_STRIP_STRING,
-                    columnDelimiter!=null && !columnDelimiter.isEmpty() ?columnDelimiter.charAt(0):DEFAULT_COLUMN_DELIMITTER,
-                    "\n").maxLinesPerRow(maxQuotedLines).build();
+            preference=new CsvPreference.Builder(quoteCharacter(),columnDelimiterCharacter(),"\n").maxLinesPerRow(maxQuotedLines).build();
         }
     }
 
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.impl.load.ImportSplit;
+import com.splicemachine.derby.impl.load.ImportUtils;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Counts the quote characters in a split of an import file, so that the splits which start inside a
+ * quoted field can be found (see {@link ImportSplit#resolveQuoteState}).
+ */
+public class CountQuotesFunction extends SpliceFunction<SpliceOperation, ImportSplit, ImportSplit> {
+    private char quote;
+
+    public CountQuotesFunction() {
+        super();
+    }
+
+    public CountQuotesFunction(char quote, OperationContext operationContext) {
+        super(operationContext);
+        this.quote = quote;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        super.writeExternal(out);
+        out.writeChar(quote);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        super.readExternal(in);
+        quote = in.readChar();
+    }
+
+    @Override
+    public ImportSplit call(ImportSplit split) throws Exception {
+        try (InputStream in = ImportUtils.getFileSystem(split.getPath()).newInputStream(split.getPath(), StandardOpenOption.READ)) {
+            ImportSplit.skipFully(in, split.getStart());
+            return split.withQuoteCount(split.countQuotes(in, quote));
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.function;
+
+import com.splicemachine.EngineDriver;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.derby.impl.load.CsvByteTokenizer;
+import com.splicemachine.derby.impl.load.ImportSplit;
+import com.splicemachine.derby.impl.load.ImportUtils;
+import com.splicemachine.derby.stream.iapi.OperationContext;
+
+import javax.annotation.concurrent.NotThreadSafe;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Function for parsing the records of one {@link ImportSplit} of an uncompressed UTF-8 file.
+ *
+ * The split is tokenized straight from the bytes of the file with a {@link CsvByteTokenizer}; rows are built
+ * from the tokenizer's buffer, so no String is created for integer and null columns. The function reads the
+ * records which start inside the split, which means it skips the partial record at the start of the split and
+ * reads past its end to finish its last record.
+ */
+@NotThreadSafe
+public class SplitFileFunction extends AbstractFileFunction<ImportSplit> {
+    private boolean oneLineRecords;
+
+    public SplitFileFunction() {
+        super();
+    }
+
+    public SplitFileFunction(String characterDelimiter, String columnDelimiter, ExecRow execRow, int[] columnIndex, String timeFormat,
+                             String dateTimeFormat, String timestampFormat, boolean oneLineRecords, OperationContext operationContext) {
+        super(characterDelimiter, columnDelimiter, execRow, columnIndex, timeFormat,
+                dateTimeFormat, timestampFormat, operationContext);
+        this.oneLineRecords = oneLineRecords;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        super.writeExternal(out);
+        out.writeBoolean(oneLineRecords);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        super.readExternal(in);
+        oneLineRecords = in.readBoolean();
+    }
+
+    /**
+     * @return whether the file's quote and delimiter characters can be tokenized byte by byte
+     */
+    public boolean canTokenize() {
+        return CsvByteTokenizer.canTokenize(quoteCharacter(), columnDelimiterCharacter());
+    }
+
+    @Override
+    public Iterator<ExecRow> call(final ImportSplit split) throws Exception {
+        if (operationContext.isFailed())
+            return Collections.<ExecRow>emptyList().iterator();
+
+        return new Iterator<ExecRow>() {
+            private ExecRow nextRow;
+            private InputStream in;
+            private CsvByteTokenizer tokenizer;
+            private boolean hasNext = true;
+            private boolean stale = false;
+
+            @Override
+            public boolean hasNext() {
+                if (!hasNext || stale)
+                    return hasNext;
+                try {
+                    if (tokenizer == null)
+                        open();
+                    while (true) {
+                        try {
+                            if (!tokenizer.next() || tokenizer.recordOffset() >= split.getEnd()) {
+                                in.close();
+                                hasNext = false;
+                                return false;
+                            }
+                            nextRow = call(tokenizer);
+                            if (nextRow != null) {
+                                stale = true;
+                                return true;
+                            }
+                        } catch (Exception e) {
+                            if (tokenizer.recordOffset() >= split.getEnd()) {
+                                // a malformed record of the next split
+                                in.close();
+                                hasNext = false;
+                                return false;
+                            }
+                            if (operationContext.isPermissive()) {
+                                operationContext.recordBadRecord(e.getLocalizedMessage(), e);
+                            } else
+                                throw StandardException.plainWrapException(e);
+                        }
+                    }
+                } catch (Exception ioe) {
+                    throw new RuntimeException("Terminal, should have been caught", ioe);
+                }
+            }
+
+            @Override
+            public ExecRow next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                stale = false;
+                return nextRow;
+            }
+
+            @Override
+            public void remove() {
+                throw new RuntimeException("not supported");
+            }
+
+            private void open() throws StandardException, IOException {
+                int maxQuotedLines = EngineDriver.driver().getConfiguration().getImportMaxQuotedColumnLines();
+                in = ImportUtils.getFileSystem(split.getPath()).newInputStream(split.getPath(), StandardOpenOption.READ);
+                int previousByte = -1;
+                if (split.getStart() > 0) {
+                    ImportSplit.skipFully(in, split.getStart() - 1);
+                    previousByte = in.read();
+                }
+                tokenizer = new CsvByteTokenizer(in, split.getStart(), quoteCharacter(), columnDelimiterCharacter(),
+                        oneLineRecords, maxQuotedLines);
+                if (split.getStart() > 0)
+                    tokenizer.skipPartialRecord(previousByte, split.startsInQuote());
+            }
+        };
+    }
+}
@@ -132,7 +132,10 @@ public abstract class AbstractBroadcastJoinFlatMapFunction<In, Out> extends Spli
                 }));
             };
             ExecRow leftTemplate = operation.getLeftOperation().getExecRowDefinition();
-            return broadcastJoinCache.get(operation.getSequenceId(), rhsLoader, operation.getRightHashKeys(), operation.getLeftHashKeys(), leftTemplate).newTable();
+            Object cacheKey = BroadcastJoinCache.scanKey(operation.getRightOperation(), operation.getRightHashKeys(), operation.getLeftHashKeys(), leftTemplate);
+            if (cacheKey == null)
+                cacheKey = operation.getSequenceId();
+            return broadcastJoinCache.get(cacheKey, rhsLoader, operation.getRightHashKeys(), operation.getLeftHashKeys(), leftTemplate).newTable();
         });
     }
 }
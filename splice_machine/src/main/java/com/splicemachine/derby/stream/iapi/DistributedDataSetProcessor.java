@@ -16,6 +16,9 @@ package com.splicemachine.derby.stream.iapi;
 
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.Activation;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.store.access.Qualifier;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
 
 /**
  * @author Scott Fines
@@ -24,4 +27,14 @@ import com.splicemachine.db.iapi.sql.Activation;
 public interface DistributedDataSetProcessor extends DataSetProcessor{
 
     void setup(Activation activation,String description, String schedulerPool) throws StandardException;
+
+    /**
+     * Read an ORC file in the calling JVM, without scheduling any distributed work. The rows are pruned
+     * the same way as by {@link #readORCFile}, and streamed as they are read.
+     *
+     * Only meant for files small enough to be read by a single thread.
+     */
+    <V> DataSet<V> readORCFileLocally(int[] baseColumnMap, int[] partitionColumnMap, String location,
+                                      OperationContext context, Qualifier[][] qualifiers, DataValueDescriptor probeValue,
+                                      ExecRow execRow) throws StandardException;
 }
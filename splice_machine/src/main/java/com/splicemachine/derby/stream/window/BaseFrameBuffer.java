@@ -14,12 +14,13 @@
 
 package com.splicemachine.derby.stream.window;
 
+import com.splicemachine.collections.RingBuffer;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import com.splicemachine.derby.impl.sql.execute.operations.window.FrameDefinition;
 import com.splicemachine.derby.impl.sql.execute.operations.window.WindowAggregator;
-import com.splicemachine.derby.impl.sql.execute.operations.window.function.SpliceGenericWindowFunction;
+import com.splicemachine.derby.impl.sql.execute.operations.window.function.SpliceWindowFunction;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.spark_project.guava.collect.Iterators;
 import org.spark_project.guava.collect.PeekingIterator;
@@ -33,6 +34,8 @@ import java.util.List;
  * Created by jyuan on 9/15/14.
  */
 abstract public class BaseFrameBuffer implements WindowFrameBuffer{
+    private static final int INITIAL_BUFFER_SIZE = 16;
+
     protected final long frameStart;
     protected final long frameEnd;
     private final WindowAggregator[] aggregators;
@@ -42,7 +45,7 @@ abstract public class BaseFrameBuffer implements WindowFrameBuffer{
     protected int start;
     protected int end;
     protected int current;
-    protected ArrayList<ExecRow> rows;
+    protected RingBuffer<ExecRow> rows;
     protected PeekingIterator<ExecRow> source;
     protected byte[] partition;
     protected int[] sortColumns;
@@ -87,7 +90,7 @@ abstract public class BaseFrameBuffer implements WindowFrameBuffer{
         // The frame definition will not change over the life of this frame buffer
         this.frameStart = frameDefinition.getFrameStart().getValue();
         this.frameEnd = frameDefinition.getFrameEnd().getValue();
-        this.rows = new ArrayList<ExecRow>();
+        this.rows = new RingBuffer<>(INITIAL_BUFFER_SIZE);
         this.resultBuffer = new ResultBuffer();
     }
 
@@ -105,7 +108,7 @@ abstract public class BaseFrameBuffer implements WindowFrameBuffer{
             // For current row  and window, evaluate the window function
             int aggregatorColumnId = aggregator.getFunctionColumnId();
             int resultColumnId = aggregator.getResultColumnId();
-            SpliceGenericWindowFunction function = (SpliceGenericWindowFunction) templateRow.getColumn(aggregatorColumnId).getObject();
+            SpliceWindowFunction function = (SpliceWindowFunction) templateRow.getColumn(aggregatorColumnId).getObject();
             row.setColumn(resultColumnId, function.getResult().cloneValue(false));
         }
         this.resultBuffer.bufferResult(row);
@@ -114,7 +117,7 @@ abstract public class BaseFrameBuffer implements WindowFrameBuffer{
 
     private void finishFrame() throws StandardException {
         for (WindowAggregator aggregator : aggregators) {
-            SpliceGenericWindowFunction cachedAggregator = aggregator.getCachedAggregator();
+            SpliceWindowFunction cachedAggregator = aggregator.getCachedAggregator();
             if (cachedAggregator != null) {
                 List<DataValueDescriptor> results = cachedAggregator.finishFrame();
                 if (results != null) {
@@ -154,23 +157,44 @@ abstract public class BaseFrameBuffer implements WindowFrameBuffer{
         }
     }
 
+    /**
+     * Appends a row to the end of the buffer.
+     */
+    protected void addRow(ExecRow row) {
+        if (rows.isFull()) {
+            rows.expand();
+        }
+        rows.add(row);
+    }
+
+    /**
+     * Drops the first row of the buffer. Rows leave the buffer in the order they entered it,
+     * so this is a constant time operation however large the frame is.
+     */
+    protected void removeFirstRow() {
+        rows.readAdvance();
+        start--;
+        current--;
+        end--;
+    }
+
     protected void removeInternal() throws StandardException {
         for(WindowAggregator aggregator : aggregators) {
             int aggregatorColumnId = aggregator.getFunctionColumnId();
-            SpliceGenericWindowFunction windowFunction =
-                    (SpliceGenericWindowFunction) templateRow.getColumn(aggregatorColumnId).getObject();
+            SpliceWindowFunction windowFunction =
+                    (SpliceWindowFunction) templateRow.getColumn(aggregatorColumnId).getObject();
             windowFunction.remove();
         }
     }
 
     protected void reset() throws StandardException, IOException {
-        rows = new ArrayList<ExecRow>();
+        rows.clear();
 
         // Initialize window functions
         for (WindowAggregator aggregator : this.aggregators) {
             int aggregatorColumnId = aggregator.getFunctionColumnId();
-            SpliceGenericWindowFunction windowFunction =
-                    (SpliceGenericWindowFunction) templateRow.getColumn(aggregatorColumnId).getObject();
+            SpliceWindowFunction windowFunction =
+                    (SpliceWindowFunction) templateRow.getColumn(aggregatorColumnId).getObject();
             windowFunction.reset();
             aggregator.initialize(templateRow);
         }
@@ -56,7 +56,7 @@ public class LogicalGroupFrameBuffer extends BaseFrameBuffer {
                 if (v.compare(currentValue)==0) {
                     // if the value falls into the window frame, aggregate it
                     add(clonedRow);
-                    rows.add(clonedRow);
+                    addRow(clonedRow);
                 }
                 else {
                     endOfFrame = true;
@@ -65,7 +65,7 @@ public class LogicalGroupFrameBuffer extends BaseFrameBuffer {
             }
             else {
                 // Otherwise, always aggregate it
-                rows.add(clonedRow);
+                addRow(clonedRow);
                 add(clonedRow);
             }
             // advance iterator
@@ -90,7 +90,7 @@ public class LogicalGroupFrameBuffer extends BaseFrameBuffer {
             if (source.hasNext()) {
                 ExecRow row = source.next();
                 ExecRow clonedRow = row.getClone();
-                rows.add(clonedRow);
+                addRow(clonedRow);
                 // One more row is added into the frame buffer, include one more row into the window frame
                 end++;
                 add(rows.get(end));
@@ -122,11 +122,7 @@ public class LogicalGroupFrameBuffer extends BaseFrameBuffer {
         // Remove rows from buffer if they are no longer needed
         int minIndex = current < start ? current : start;
         for (int i = 0; i < minIndex; ++i) {
-            rows.remove(0);
-            start--;
-            current--;
-            end--;
-
+            removeFirstRow();
         }
 
         // Add rows to the end of window frame
@@ -138,7 +134,7 @@ public class LogicalGroupFrameBuffer extends BaseFrameBuffer {
                 if (newKey != null && newKey.compare(v) == 0) {
                     //advance iterator
                     source.next();
-                    rows.add(clonedRow);
+                    addRow(clonedRow);
                     add(clonedRow);
                     end++;
                 } else {
@@ -48,7 +48,7 @@ public class PhysicalGroupFrameBuffer extends BaseFrameBuffer {
             }
             ExecRow row = source.next();
             ExecRow clonedRow = row.getClone();
-            rows.add(clonedRow);
+            addRow(clonedRow);
 
             // if the next row belongs to the same partition and falls
             // into the window range
@@ -80,10 +80,7 @@ public class PhysicalGroupFrameBuffer extends BaseFrameBuffer {
             // 2. the row was just moved out of th window frame
             // 3. window start frame is after the current row
 
-            rows.remove(0);
-            start--;
-            current--;
-            end--;
+            removeFirstRow();
         }
 
         // Add a row to the window frame
@@ -93,7 +90,7 @@ public class PhysicalGroupFrameBuffer extends BaseFrameBuffer {
                 if (source.hasNext()) {
                     ExecRow row = source.next();
                     ExecRow clonedRow = row.getClone();
-                    rows.add(clonedRow);
+                    addRow(clonedRow);
                     // One more row is added into the frame buffer, include one more row into the window frame
                     end++;
                     add(rows.get(end));
@@ -17,12 +17,17 @@ package com.splicemachine.derby.utils;
 import com.carrotsearch.hppc.BitSet;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.services.io.FormatableBitSet;
+import com.splicemachine.db.iapi.services.io.StoredFormatIds;
 import com.splicemachine.db.iapi.store.access.Qualifier;
 import com.splicemachine.db.iapi.types.DataType;
 import com.splicemachine.db.iapi.types.DataValueDescriptor;
 import com.splicemachine.db.iapi.types.DataValueFactory;
 import com.splicemachine.db.iapi.types.HBaseRowLocation;
+import com.splicemachine.db.iapi.types.Orderable;
+import com.splicemachine.db.iapi.types.SQLChar;
+import com.splicemachine.db.iapi.types.SQLVarchar;
 import com.splicemachine.derby.impl.sql.execute.operations.QualifierUtils;
+import com.splicemachine.encoding.Encoding;
 import com.splicemachine.pipeline.Exceptions;
 import com.splicemachine.primitives.Bytes;
 import com.splicemachine.si.api.txn.TxnView;
@@ -30,9 +35,13 @@ import com.splicemachine.si.constants.SIConstants;
 import com.splicemachine.si.impl.driver.SIDriver;
 import com.splicemachine.storage.DataScan;
 import com.splicemachine.storage.EntryPredicateFilter;
+import com.splicemachine.storage.ValuePredicate;
 import org.apache.log4j.Logger;
 
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Utility methods and classes related to building HBase Scans
@@ -111,7 +120,8 @@ public class Scans extends SpliceUtils {
                     sortOrder, formatIds, keyTablePositionMap, keyDecodingMap, dataValueFactory, tableVersion, rowIdKey);
 
             if (!rowIdKey) {
-                buildPredicateFilter(qualifiers, scanColumnList, scan, keyDecodingMap);
+                EntryPredicateFilter pqf = getEntryPredicateFilter(qualifiers, scanColumnList, keyDecodingMap, formatIds);
+                scan.addAttribute(SIConstants.ENTRY_PREDICATE_LABEL, pqf.toBytes());
             }
 
 
@@ -145,7 +155,9 @@ public class Scans extends SpliceUtils {
                                             int[] columnTypes,
                                             DataScan scan,
                                             String tableVersion) throws StandardException, IOException {
-        buildPredicateFilter(qualifiers, scanColumnList, scan, keyColumnEncodingMap);
+        EntryPredicateFilter pqf = getEntryPredicateFilter(qualifiers,
+                scanColumnList, keyColumnEncodingMap, columnTypes);
+        scan.addAttribute(SIConstants.ENTRY_PREDICATE_LABEL, pqf.toBytes());
     }
 
     public static void buildPredicateFilter(Qualifier[][] qualifiers,
@@ -160,6 +172,18 @@ public class Scans extends SpliceUtils {
     public static EntryPredicateFilter getEntryPredicateFilter(Qualifier[][] qualifiers,
                                                      FormatableBitSet scanColumnList,
                                                      int[] keyColumnEncodingOrder) throws StandardException {
+        return getEntryPredicateFilter(qualifiers, scanColumnList, keyColumnEncodingOrder, null);
+    }
+
+    /**
+     * @param formatIds the type of each column of the conglomerate, by storage position. If not null,
+     *                  the qualifiers which can be checked against the encoded row are compiled into
+     *                  {@link ValuePredicate}s, so that rows they reject are never decoded.
+     */
+    public static EntryPredicateFilter getEntryPredicateFilter(Qualifier[][] qualifiers,
+                                                     FormatableBitSet scanColumnList,
+                                                     int[] keyColumnEncodingOrder,
+                                                     int[] formatIds) throws StandardException {
         BitSet colsToReturn = new BitSet();
         if (qualifiers != null) {
             for (Qualifier[] qualifierList : qualifiers) {
@@ -183,7 +207,124 @@ public class Scans extends SpliceUtils {
                     colsToReturn.clear(col);
             }
         }
-        return new EntryPredicateFilter(colsToReturn, true);
+        ValuePredicate[] valuePredicates = null;
+        if (qualifiers != null && qualifiers.length > 0 && formatIds != null) {
+            valuePredicates = getValuePredicates(qualifiers, keyColumnEncodingOrder, formatIds);
+        }
+        return new EntryPredicateFilter(colsToReturn, true, valuePredicates);
+    }
+
+    /*
+     * Compiles the qualifiers which compare a row column with a value known for the whole scan into
+     * predicates on the encoded row. Only types whose encoding sorts like their values are considered:
+     * integers and decimals, and strings for equality, as long as they are compared without a collation.
+     * Predicates are a pre-filter, the qualifiers are still applied to the rows which pass them.
+     */
+    private static ValuePredicate[] getValuePredicates(Qualifier[][] qualifiers,
+                                                       int[] keyColumnEncodingOrder,
+                                                       int[] formatIds) throws StandardException {
+        List<ValuePredicate> predicates = new ArrayList<>();
+        for (Qualifier qualifier : qualifiers[0]) {
+            byte[] value = encodeForPredicate(qualifier, keyColumnEncodingOrder, formatIds);
+            if (value == null)
+                continue;
+            byte operator;
+            switch (qualifier.getOperator()) {
+                case Orderable.ORDER_OP_EQUALS:
+                    operator = ValuePredicate.EQUALS;
+                    break;
+                case Orderable.ORDER_OP_LESSTHAN:
+                    operator = ValuePredicate.LESS_THAN;
+                    break;
+                case Orderable.ORDER_OP_LESSOREQUALS:
+                    operator = ValuePredicate.LESS_OR_EQUALS;
+                    break;
+                case Orderable.ORDER_OP_GREATERTHAN:
+                    operator = ValuePredicate.GREATER_THAN;
+                    break;
+                case Orderable.ORDER_OP_GREATEROREQUALS:
+                    operator = ValuePredicate.GREATER_OR_EQUALS;
+                    break;
+                default:
+                    continue;
+            }
+            boolean string = isString(formatIds[qualifier.getStoragePosition()]);
+            if (string && operator != ValuePredicate.EQUALS)
+                continue; // padding makes the order of strings differ from the order of their bytes
+            predicates.add(new ValuePredicate(qualifier.getStoragePosition(), operator,
+                    qualifier.negateCompareResult(), string, value));
+        }
+
+        // an OR list of equalities on one column, as IN lists are
+        orLists:
+        for (int i = 1; i < qualifiers.length; i++) {
+            Qualifier[] orList = qualifiers[i];
+            if (orList.length == 0)
+                continue;
+            int column = orList[0].getStoragePosition();
+            byte[][] values = new byte[orList.length][];
+            for (int j = 0; j < orList.length; j++) {
+                Qualifier qualifier = orList[j];
+                if (qualifier.getStoragePosition() != column
+                        || qualifier.getOperator() != Orderable.ORDER_OP_EQUALS
+                        || qualifier.negateCompareResult())
+                    continue orLists;
+                values[j] = encodeForPredicate(qualifier, keyColumnEncodingOrder, formatIds);
+                if (values[j] == null)
+                    continue orLists;
+            }
+            predicates.add(new ValuePredicate(column, ValuePredicate.EQUALS, false,
+                    isString(formatIds[column]), values));
+        }
+        return predicates.toArray(new ValuePredicate[predicates.size()]);
+    }
+
+    /*
+     * @return the encoded value the column of the qualifier is compared with, or null if the qualifier
+     * cannot be checked against the encoded row
+     */
+    private static byte[] encodeForPredicate(Qualifier qualifier,
+                                             int[] keyColumnEncodingOrder,
+                                             int[] formatIds) throws StandardException {
+        int column = qualifier.getStoragePosition();
+        if (qualifier.getVariantType() < Qualifier.QUERY_INVARIANT
+                || column < 0 || column >= formatIds.length)
+            return null;
+        if (keyColumnEncodingOrder != null) {
+            for (int keyColumn : keyColumnEncodingOrder) {
+                if (keyColumn == column)
+                    return null; // key columns are not in the row
+            }
+        }
+        DataValueDescriptor orderable = qualifier.getOrderable();
+        if (orderable == null || orderable.isNull())
+            return null;
+        int columnType = formatIds[column];
+        if (isScalar(columnType) && isScalar(orderable.getTypeFormatId())) {
+            return Encoding.encode(orderable.getLong()); // scalars are encoded the same whatever their width
+        } else if (columnType == StoredFormatIds.SQL_DECIMAL_ID && orderable.getTypeFormatId() == columnType) {
+            return Encoding.encode((BigDecimal) orderable.getObject());
+        } else if (isString(columnType)
+                && (orderable.getClass() == SQLChar.class || orderable.getClass() == SQLVarchar.class)) {
+            return Encoding.encode(orderable.getString());
+        }
+        return null;
+    }
+
+    private static boolean isScalar(int formatId) {
+        switch (formatId) {
+            case StoredFormatIds.SQL_TINYINT_ID:
+            case StoredFormatIds.SQL_SMALLINT_ID:
+            case StoredFormatIds.SQL_INTEGER_ID:
+            case StoredFormatIds.SQL_LONGINT_ID:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isString(int formatId) {
+        return formatId == StoredFormatIds.SQL_CHAR_ID || formatId == StoredFormatIds.SQL_VARCHAR_ID;
     }
 
     private static void attachScanKeys(DataScan scan,
@@ -14,6 +14,7 @@
 
 package com.splicemachine.derby.vti;
 
+import com.splicemachine.EngineDriver;
 import com.splicemachine.access.api.FileInfo;
 import com.splicemachine.db.iapi.error.StandardException;
 import com.splicemachine.db.iapi.reference.SQLState;
@@ -22,8 +23,11 @@ import com.splicemachine.db.iapi.sql.execute.ExecRow;
 import com.splicemachine.db.vti.VTICosting;
 import com.splicemachine.db.vti.VTIEnvironment;
 import com.splicemachine.derby.iapi.sql.execute.SpliceOperation;
+import com.splicemachine.derby.impl.load.ImportSplit;
 import com.splicemachine.derby.impl.load.ImportUtils;
+import com.splicemachine.derby.stream.function.CountQuotesFunction;
 import com.splicemachine.derby.stream.function.FileFunction;
+import com.splicemachine.derby.stream.function.SplitFileFunction;
 import com.splicemachine.derby.stream.function.StreamFileFunction;
 import com.splicemachine.derby.stream.iapi.DataSet;
 import com.splicemachine.derby.stream.iapi.DataSetProcessor;
@@ -38,6 +42,7 @@ import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.List;
 
 /**
  *
@@ -124,7 +129,10 @@ public class SpliceFileVTI implements DatasetProvider, VTICosting {
             operationContext = dsp.createOperationContext((Activation)null);
         try {
             ImportUtils.validateReadable(fileName, false);
-            if (oneLineRecords && (charset==null || charset.toLowerCase().equals("utf-8"))) {
+            DataSet<ExecRow> splitSet = getSplitDataSet(dsp, execRow);
+            if (splitSet != null) {
+                return splitSet;
+            } else if (oneLineRecords && (charset==null || charset.toLowerCase().equals("utf-8"))) {
                 DataSet<String> textSet = dsp.readTextFile(fileName, op);
                 operationContext.pushScopeForOp("Parse File");
                 return textSet.flatMap(new FileFunction(characterDelimiter, columnDelimiter, execRow, columnIndex, timeFormat, dateTimeFormat, timestampFormat, operationContext), true);
@@ -138,6 +146,42 @@ public class SpliceFileVTI implements DatasetProvider, VTICosting {
         }
     }
 
+    /**
+     * Parse a single uncompressed UTF-8 file as byte ranges, which are tokenized in parallel.
+     *
+     * @return the rows of the file, or null if it cannot be split
+     */
+    private DataSet<ExecRow> getSplitDataSet(DataSetProcessor dsp, ExecRow execRow) throws StandardException {
+        if (charset != null && !charset.toLowerCase().equals("utf-8") || !ImportUtils.isSplittable(fileName))
+            return null;
+        SplitFileFunction splitFunction = new SplitFileFunction(characterDelimiter, columnDelimiter, execRow, columnIndex,
+                timeFormat, dateTimeFormat, timestampFormat, oneLineRecords, operationContext);
+        if (!splitFunction.canTokenize())
+            return null;
+        try {
+            FileInfo info = getFileInfo();
+            if (info == null || info.isDirectory())
+                return null;
+            long splitSize = EngineDriver.driver().getConfiguration().getImportSplitSize();
+            List<ImportSplit> splits = ImportSplit.split(fileName, info.size(), splitSize);
+            if (!oneLineRecords && splits.size() > 1) {
+                // Records may span lines, so each split has to know whether it starts inside quotes
+                operationContext.pushScopeForOp("Find Records");
+                try {
+                    List<ImportSplit> counted = dsp.createDataSet(splits.iterator())
+                            .map(new CountQuotesFunction(splitFunction.quoteCharacter(), operationContext)).collect();
+                    splits = ImportSplit.resolveQuoteState(counted);
+                } finally {
+                    operationContext.popScope();
+                }
+            }
+            operationContext.pushScopeForOp("Parse File");
+            return dsp.createDataSet(splits.iterator()).flatMap(splitFunction, true);
+        } catch (IOException ioe) {
+            throw StandardException.plainWrapException(ioe);
+        }
+    }
+
     private static final int defaultBytesPerRow = 100;
     public static int getBytesPerRow() {
         // Imprecise assumption of a fixed number of bytes per row,
@@ -24,6 +24,7 @@ import com.splicemachine.si.api.data.TxnOperationFactory;
 import com.splicemachine.si.impl.SimpleTxnFilter;
 import com.splicemachine.si.impl.readresolve.NoOpReadResolver;
 import com.splicemachine.si.impl.txn.ActiveWriteTxn;
+import com.splicemachine.si.api.txn.TxnView;
 import com.splicemachine.si.impl.txn.WritableTxn;
 import com.splicemachine.storage.*;
 import com.splicemachine.kvpair.KVPair;
@@ -31,8 +32,11 @@ import com.splicemachine.pipeline.api.PipelineExceptionFactory;
 import com.splicemachine.pipeline.context.WriteContext;
 import com.splicemachine.pipeline.writehandler.WriteHandler;
 import com.splicemachine.si.impl.driver.SIDriver;
+import com.splicemachine.utils.Pair;
 import javax.annotation.concurrent.NotThreadSafe;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 
@@ -83,29 +87,33 @@ public class ForeignKeyParentInterceptWriteHandler implements WriteHandler{
 
     @Override
     public void flush(WriteContext ctx) throws IOException {
+        if (mutations.isEmpty())
+            return;
         try {
-            // TODO Buffer with skip scan
-            for (int k = 0; k<mutations.size();k++) {
-                KVPair mutation = mutations.get(k);
-                for (int i = 0; i < referencingIndexConglomerateIds.size(); i++) {
-                    long indexConglomerateId = referencingIndexConglomerateIds.get(i);
-                    Partition table = null;
-                    if (childPartitions.containsKey(indexConglomerateId))
-                        table = childPartitions.get(indexConglomerateId);
-                    else {
-                        table = SIDriver.driver().getTableFactory().getTable(Long.toString((indexConglomerateId)));
-                        childPartitions.put(indexConglomerateId, table);
-                    }
-                    if (hasReferences(indexConglomerateId, table, mutation, ctx))
-                        failRow(mutation, ctx, constraintInfos.get(i));
-                    else
-                        ctx.success(mutation);
+            ParentKeys parentKeys = new ParentKeys(mutations);
+            int[] violations = new int[mutations.size()];
+            Arrays.fill(violations, -1);
+            for (int i = 0; i < referencingIndexConglomerateIds.size(); i++) {
+                long indexConglomerateId = referencingIndexConglomerateIds.get(i);
+                Partition table = childPartitions.get(indexConglomerateId);
+                if (table == null) {
+                    table = SIDriver.driver().getTableFactory().getTable(Long.toString((indexConglomerateId)));
+                    childPartitions.put(indexConglomerateId, table);
                 }
+                findReferences(indexConglomerateId, table, parentKeys, violations, i, ctx);
+            }
+            for (int k = 0; k < mutations.size(); k++) {
+                KVPair mutation = mutations.get(k);
+                if (violations[k] >= 0)
+                    failRow(mutation, ctx, constraintInfos.get(violations[k]));
+                else
+                    ctx.success(mutation);
             }
         } catch (Exception e) {
             violationProcessor.failWrite(e, ctx);
+        } finally {
+            mutations.clear();
         }
-
     }
 
     @Override
@@ -122,59 +130,90 @@ public class ForeignKeyParentInterceptWriteHandler implements WriteHandler{
         return getClass().getSimpleName();
     }
 
-            /*
-         * The way prefix keys work is that longer keys sort after shorter keys. We
-         * are already starting exactly where we want to be, and we want to end as soon
-         * as we hit a record which is not this key.
-         *
-         * Historically, we did this by using an HBase PrefixFilter. We can do that again,
-         * but it's a bit of a pain to make that work in an architecture-independent
-         * way (we would need to implement a version of that for other architectures,
-         * for example. It's much easier for us to just make use of row key sorting
-         * to do the job for us.
-         *
-         * We start where we want, and we need to end as soon as we run off that. The
-         * first key which is higher than the start key is the start key as a prefix followed
-         * by 0x00 (in unsigned sort order). Therefore, we make the end key
-         * [startKey | 0x00].
-         */
-
-
-        private boolean hasReferences(Long indexConglomerateId, Partition table, KVPair kvPair, WriteContext ctx) throws IOException {
-        byte[] startKey = kvPair.getRowKey();
-        //make sure this is a transactional scan
-        DataScan scan = txnOperationFactory.newDataScan(null); // Non-Transactional, will resolve on this side
-        scan =scan.startKey(startKey);
-        byte[] endKey = Bytes.unsignedCopyAndIncrement(startKey);//new byte[startKey.length+1];
-        scan = scan.stopKey(endKey);
+    /*
+     * The way prefix keys work is that longer keys sort after shorter keys. The rows of a child index which
+     * reference a parent key all start with that key, so they lie between the key and the key with its last
+     * byte incremented.
+     *
+     * Historically, we opened a scanner over that range for every deleted parent row and every child index.
+     * Instead, the deleted keys are sorted, keys whose ranges overlap (because one key is a prefix of another)
+     * are grouped, and each child index is read with a single scan over all of the groups, which seeks from
+     * one group to the next where the architecture supports it. A row found in a group is checked against the
+     * keys of its group only, and the scan stops as soon as every key is known to be referenced. Once a key is
+     * known to be referenced the rest of its child rows are of no interest, so when the scan reaches one of
+     * them it is reopened over the ranges of the keys which are still unresolved.
+     */
+    private void findReferences(long indexConglomerateId, Partition table, ParentKeys parentKeys,
+                                int[] violations, int constraintIndex, WriteContext ctx) throws IOException {
+        int unresolved = 0;
+        for (int violation : violations) {
+            if (violation < 0)
+                unresolved++;
+        }
+        if (unresolved == 0)
+            return;
 
-            SimpleTxnFilter readUncommittedFilter;
-            SimpleTxnFilter readCommittedFilter;
-            if (ctx.getTxn() instanceof ActiveWriteTxn) {
-                readCommittedFilter = new SimpleTxnFilter(Long.toString(indexConglomerateId), ((ActiveWriteTxn) ctx.getTxn()).getReadCommittedActiveTxn(), NoOpReadResolver.INSTANCE, SIDriver.driver().getTxnStore());
-                readUncommittedFilter = new SimpleTxnFilter(Long.toString(indexConglomerateId), ((ActiveWriteTxn) ctx.getTxn()).getReadUncommittedActiveTxn(), NoOpReadResolver.INSTANCE, SIDriver.driver().getTxnStore());
+        TxnView readCommittedTxn;
+        TxnView readUncommittedTxn;
+        if (ctx.getTxn() instanceof ActiveWriteTxn) {
+            readCommittedTxn = ((ActiveWriteTxn) ctx.getTxn()).getReadCommittedActiveTxn();
+            readUncommittedTxn = ((ActiveWriteTxn) ctx.getTxn()).getReadUncommittedActiveTxn();
+        }
+        else if (ctx.getTxn() instanceof WritableTxn) {
+            readCommittedTxn = ((WritableTxn) ctx.getTxn()).getReadCommittedActiveTxn();
+            readUncommittedTxn = ((WritableTxn) ctx.getTxn()).getReadUncommittedActiveTxn();
+        }
+        else
+            throw new IOException("invalidTxn");
+        // the same visibility filters serve every row of the scan
+        SimpleTxnFilter readCommittedFilter = new SimpleTxnFilter(Long.toString(indexConglomerateId), readCommittedTxn, NoOpReadResolver.INSTANCE, SIDriver.driver().getTxnStore());
+        SimpleTxnFilter readUncommittedFilter = new SimpleTxnFilter(Long.toString(indexConglomerateId), readUncommittedTxn, NoOpReadResolver.INSTANCE, SIDriver.driver().getTxnStore());
 
-            }
-            else if (ctx.getTxn() instanceof WritableTxn) {
-                readCommittedFilter = new SimpleTxnFilter(Long.toString(indexConglomerateId), ((WritableTxn) ctx.getTxn()).getReadCommittedActiveTxn(), NoOpReadResolver.INSTANCE, SIDriver.driver().getTxnStore());
-                readUncommittedFilter = new SimpleTxnFilter(Long.toString(indexConglomerateId), ((WritableTxn) ctx.getTxn()).getReadUncommittedActiveTxn(), NoOpReadResolver.INSTANCE, SIDriver.driver().getTxnStore());
-            }
-            else
-                throw new IOException("invalidTxn");
-        try(DataScanner scanner = table.openScanner(scan)) {
+        DataScanner scanner = table.openScanner(rangesScan(parentKeys.groupRanges()));
+        try {
             List<DataCell> next;
+            int group = 0;
             while ((next = scanner.next(-1)) != null && !next.isEmpty()) {
+                DataCell first = next.get(0);
+                while (group < parentKeys.groupCount() && parentKeys.compareToGroupStop(group, first) >= 0)
+                    group++;
+                if (group == parentKeys.groupCount())
+                    break;
+                if (!parentKeys.hasUnresolvedKey(group, first, violations)) {
+                    // seek past the child rows of the keys which are already known to be referenced
+                    List<Pair<byte[], byte[]>> ranges = parentKeys.unresolvedRangesAfter(group, first, violations);
+                    if (ranges.isEmpty())
+                        return;
+                    scanner.close();
+                    scanner = null;
+                    scanner = table.openScanner(rangesScan(ranges));
+                    continue;
+                }
                 readCommittedFilter.reset();
                 readUncommittedFilter.reset();
-                if (hasData(next, readCommittedFilter) || hasData(next, readUncommittedFilter))
-                    return true;
+                if (hasData(next, readCommittedFilter) || hasData(next, readUncommittedFilter)) {
+                    unresolved -= parentKeys.markReferenced(group, first, violations, constraintIndex);
+                    if (unresolved == 0)
+                        return;
+                }
             }
-            return false;
         }catch (Exception e) {
             throw new IOException(e);
+        } finally {
+            if (scanner != null)
+                scanner.close();
         }
     }
 
+    private DataScan rangesScan(List<Pair<byte[], byte[]>> ranges) throws IOException {
+        //make sure this is a transactional scan
+        DataScan scan = txnOperationFactory.newDataScan(null); // Non-Transactional, will resolve on this side
+        scan = scan.startKey(ranges.get(0).getFirst()).stopKey(ranges.get(ranges.size() - 1).getSecond());
+        if (ranges.size() > 1)
+            scan = scan.filter(SIDriver.driver().filterFactory().rowRangesFilter(ranges));
+        return scan;
+    }
+
     private boolean hasData(List<DataCell> next, SimpleTxnFilter txnFilter) throws IOException {
         int cellCount = next.size();
         for(DataCell dc:next){
@@ -211,4 +250,135 @@ public class ForeignKeyParentInterceptWriteHandler implements WriteHandler{
         WriteResult foreignKeyConstraint = new WriteResult(Code.FOREIGN_KEY_VIOLATION, context.withMessage(1, parentTableName));
         ctx.failed(mutation, foreignKeyConstraint);
     }
+
+    /**
+     * The deleted parent keys of a flush, sorted, and grouped into non-overlapping key ranges.
+     */
+    static class ParentKeys {
+        private final ObjectArrayList<KVPair> mutations;
+        private final Integer[] order;
+        private final byte[][] stopKeys;
+        private final int[] groupStarts;
+        private final byte[][] groupStops;
+        private final int groupCount;
+
+        ParentKeys(ObjectArrayList<KVPair> mutations) {
+            this.mutations = mutations;
+            int size = mutations.size();
+            order = new Integer[size];
+            for (int k = 0; k < size; k++)
+                order[k] = k;
+            Arrays.sort(order, (a, b) -> Bytes.BASE_COMPARATOR.compare(mutations.get(a).getRowKey(), mutations.get(b).getRowKey()));
+
+            stopKeys = new byte[size][];
+            groupStarts = new int[size + 1];
+            groupStops = new byte[size][];
+            int groups = 0;
+            for (int n = 0; n < size; n++) {
+                byte[] key = key(n);
+                stopKeys[n] = Bytes.unsignedCopyAndIncrement(key);
+                if (groups > 0 && Bytes.BASE_COMPARATOR.compare(key, groupStops[groups - 1]) < 0) {
+                    // the key lies within the range of an earlier key
+                    if (Bytes.BASE_COMPARATOR.compare(stopKeys[n], groupStops[groups - 1]) > 0)
+                        groupStops[groups - 1] = stopKeys[n];
+                } else {
+                    groupStarts[groups] = n;
+                    groupStops[groups] = stopKeys[n];
+                    groups++;
+                }
+            }
+            groupStarts[groups] = size;
+            groupCount = groups;
+        }
+
+        int groupCount() {
+            return groupCount;
+        }
+
+        byte[] groupStartKey(int group) {
+            return key(groupStarts[group]);
+        }
+
+        byte[] groupStopKey(int group) {
+            return groupStops[group];
+        }
+
+        List<Pair<byte[], byte[]>> groupRanges() {
+            List<Pair<byte[], byte[]>> ranges = new ArrayList<>(groupCount);
+            for (int g = 0; g < groupCount; g++)
+                ranges.add(Pair.newPair(groupStartKey(g), groupStopKey(g)));
+            return ranges;
+        }
+
+        int compareToGroupStop(int group, DataCell cell) {
+            byte[] stop = groupStops[group];
+            return Bytes.BASE_COMPARATOR.compare(cell.keyArray(), cell.keyOffset(), cell.keyLength(), stop, 0, stop.length);
+        }
+
+        /**
+         * @return whether a key of the group whose range holds the row has not been found referenced yet
+         */
+        boolean hasUnresolvedKey(int group, DataCell cell, int[] violations) {
+            for (int n = groupStarts[group]; n < groupStarts[group + 1]; n++) {
+                if (violations[order[n]] < 0 && inRange(n, cell))
+                    return true;
+            }
+            return false;
+        }
+
+        /**
+         * @return the ranges, in order and not overlapping, of the keys which have not been found referenced
+         * yet, from the row after the given one (of the given group) on
+         */
+        List<Pair<byte[], byte[]>> unresolvedRangesAfter(int group, DataCell cell, int[] violations) {
+            // the smallest key which sorts after the row
+            byte[] after = new byte[cell.keyLength() + 1];
+            System.arraycopy(cell.keyArray(), cell.keyOffset(), after, 0, cell.keyLength());
+            List<Pair<byte[], byte[]>> ranges = new ArrayList<>();
+            for (int n = groupStarts[group]; n < order.length; n++) {
+                if (violations[order[n]] >= 0)
+                    continue;
+                byte[] start = key(n);
+                byte[] stop = stopKeys[n];
+                if (Bytes.BASE_COMPARATOR.compare(stop, after) <= 0)
+                    continue; // the range ends before the row
+                if (Bytes.BASE_COMPARATOR.compare(start, after) < 0)
+                    start = after;
+                Pair<byte[], byte[]> last = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+                if (last != null && Bytes.BASE_COMPARATOR.compare(start, last.getSecond()) <= 0) {
+                    if (Bytes.BASE_COMPARATOR.compare(stop, last.getSecond()) > 0)
+                        last.setSecond(stop);
+                } else
+                    ranges.add(Pair.newPair(start, stop));
+            }
+            return ranges;
+        }
+
+        /**
+         * Record that the keys of the group whose range holds the row are referenced.
+         *
+         * @return the number of keys which were not known to be referenced before
+         */
+        int markReferenced(int group, DataCell cell, int[] violations, int constraintIndex) {
+            int marked = 0;
+            for (int n = groupStarts[group]; n < groupStarts[group + 1]; n++) {
+                if (violations[order[n]] < 0 && inRange(n, cell)) {
+                    violations[order[n]] = constraintIndex;
+                    marked++;
+                }
+            }
+            return marked;
+        }
+
+        private boolean inRange(int n, DataCell cell) {
+            byte[] start = key(n);
+            byte[] stop = stopKeys[n];
+            return Bytes.BASE_COMPARATOR.compare(cell.keyArray(), cell.keyOffset(), cell.keyLength(), start, 0, start.length) >= 0
+                    && Bytes.BASE_COMPARATOR.compare(cell.keyArray(), cell.keyOffset(), cell.keyLength(), stop, 0, stop.length) < 0;
+        }
+
+        private byte[] key(int n) {
+            return mutations.get(order[n]).getRowKey();
+        }
+    }
 }
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.load;
+
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.supercsv.exception.SuperCsvException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+@Category(ArchitectureIndependent.class)
+public class CsvByteTokenizerTest {
+    private static final String ERROR = "<error>";
+
+    @Test
+    public void tokenizesFieldsInPlace() throws Exception {
+        CsvByteTokenizer tokenizer = tokenizer("12,-34,plain,\"quoted, with comma\",,\"\",NuLL,\"null\", spaced \n", false, 8);
+        Assert.assertTrue(tokenizer.next());
+        Assert.assertEquals(9, tokenizer.fieldCount());
+        Assert.assertTrue(tokenizer.isInteger(0));
+        Assert.assertEquals(12L, tokenizer.longValue(0));
+        Assert.assertEquals(-34L, tokenizer.longValue(1));
+        Assert.assertFalse(tokenizer.isInteger(2));
+        Assert.assertEquals("plain", tokenizer.stringValue(2));
+        Assert.assertEquals("quoted, with comma", tokenizer.stringValue(3));
+        Assert.assertTrue(tokenizer.isQuoted(3));
+        Assert.assertTrue(tokenizer.isNull(4));
+        Assert.assertTrue(tokenizer.isNull(5));
+        Assert.assertTrue(tokenizer.isNull(6));
+        Assert.assertFalse("A quoted null is a string", tokenizer.isNull(7));
+        Assert.assertEquals("null", tokenizer.stringValue(7));
+        Assert.assertEquals(" spaced ", tokenizer.stringValue(8));
+        Assert.assertFalse(tokenizer.next());
+    }
+
+    @Test
+    public void unquotesLikeTheImportTokenizer() throws Exception {
+        CsvByteTokenizer tokenizer = tokenizer("\"say \"\"hi\"\"\",ab\"c,d\"e,\"two\r\nlines\"\r\n\n\nlast", false, 4);
+        Assert.assertTrue(tokenizer.next());
+        Assert.assertEquals(Arrays.asList("say \"hi\"", "abc,de", "two\nlines"), tokenizer.values());
+        Assert.assertTrue(tokenizer.next());
+        Assert.assertEquals(Collections.singletonList("last"), tokenizer.values());
+        Assert.assertFalse(tokenizer.next());
+    }
+
+    @Test
+    public void oneLineRecordsCannotSpanLines() throws Exception {
+        CsvByteTokenizer tokenizer = tokenizer("1,\"open\n2,closed\n", true, 16);
+        try {
+            tokenizer.next();
+            Assert.fail("Expected an unterminated quoted column");
+        } catch (SuperCsvException expected) {
+        }
+        Assert.assertTrue(tokenizer.next());
+        Assert.assertEquals(Arrays.asList("2", "closed"), tokenizer.values());
+    }
+
+    @Test
+    public void splitsReadEveryRecordOnce() throws Exception {
+        StringBuilder file = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            file.append(i).append(',');
+            switch (i % 4) {
+                case 0: file.append("\"spans\nlines, with \"\"quotes\"\"\""); break;
+                case 1: file.append("\"a\",b"); break;
+                case 2: file.append("\"\""); break;
+                default: file.append("plain");
+            }
+            file.append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        byte[] data = file.toString().getBytes(StandardCharsets.UTF_8);
+        List<List<String>> expected = read(data, false, 0L);
+        Assert.assertEquals(500, expected.size());
+        for (long splitSize : new long[]{1L, 7L, 64L, 1000L}) {
+            Assert.assertEquals("split size " + splitSize, expected, read(data, false, splitSize));
+        }
+    }
+
+    @Test
+    public void oneLineSplitsReadEveryRecordOnce() throws Exception {
+        StringBuilder file = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            file.append(i).append(",\"x\"\"y\"");
+            if (i % 7 == 0)
+                file.append(",\"unterminated");
+            file.append(i % 2 == 0 ? "\r\n" : "\n");
+        }
+        byte[] data = file.toString().getBytes(StandardCharsets.UTF_8);
+        List<List<String>> expected = read(data, true, 0L);
+        Assert.assertEquals(300, expected.size());
+        for (long splitSize : new long[]{5L, 31L, 333L}) {
+            Assert.assertEquals("split size " + splitSize, expected, read(data, true, splitSize));
+        }
+    }
+
+    private static CsvByteTokenizer tokenizer(String data, boolean oneLineRecords, int bufferSize) {
+        InputStream in = new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8));
+        return new CsvByteTokenizer(in, 0L, '"', ',', oneLineRecords, 50000, bufferSize);
+    }
+
+    private static List<List<String>> read(byte[] data, boolean oneLineRecords, long splitSize) throws IOException {
+        List<ImportSplit> splits = ImportSplit.split("file", data.length, splitSize);
+        if (!oneLineRecords) {
+            List<ImportSplit> counted = new ArrayList<>();
+            for (ImportSplit split : splits) {
+                InputStream in = new ByteArrayInputStream(data);
+                ImportSplit.skipFully(in, split.getStart());
+                counted.add(split.withQuoteCount(split.countQuotes(in, '"')));
+            }
+            splits = ImportSplit.resolveQuoteState(counted);
+        }
+        List<List<String>> records = new ArrayList<>();
+        for (ImportSplit split : splits) {
+            InputStream in = new ByteArrayInputStream(data);
+            int previousByte = -1;
+            if (split.getStart() > 0) {
+                ImportSplit.skipFully(in, split.getStart() - 1);
+                previousByte = in.read();
+            }
+            CsvByteTokenizer tokenizer = new CsvByteTokenizer(in, split.getStart(), '"', ',', oneLineRecords, 50000, 8);
+            if (split.getStart() > 0)
+                tokenizer.skipPartialRecord(previousByte, split.startsInQuote());
+            while (true) {
+                try {
+                    if (!tokenizer.next() || tokenizer.recordOffset() >= split.getEnd())
+                        break;
+                    records.add(tokenizer.values());
+                } catch (SuperCsvException e) {
+                    if (tokenizer.recordOffset() >= split.getEnd())
+                        break;
+                    records.add(Collections.singletonList(ERROR));
+                }
+            }
+        }
+        return records;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.compile;
+
+import com.splicemachine.access.api.SConfiguration;
+import com.splicemachine.access.configuration.ConfigurationBuilder;
+import com.splicemachine.access.configuration.SQLConfiguration;
+import com.splicemachine.access.util.ReflectingConfigurationSource;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import com.splicemachine.util.EmptyConfigurationDefaultsList;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@Category(ArchitectureIndependent.class)
+public class BroadcastJoinStrategyTest {
+
+    @Test
+    public void offHeapTableAboveOnHeapLimitIsBroadcast() {
+        SConfiguration onHeap = defaultConfiguration(false);
+        SConfiguration offHeap = defaultConfiguration(true);
+        double memoryMB = onHeap.getBroadcastRegionMbThreshold() * 2;
+        double rowCount = onHeap.getBroadcastRegionRowThreshold() * 2;
+
+        assertFalse(BroadcastJoinStrategy.isUnderBroadcastLimits(onHeap, memoryMB, rowCount));
+        assertTrue(BroadcastJoinStrategy.isUnderBroadcastLimits(offHeap, memoryMB, rowCount));
+    }
+
+    @Test
+    public void offHeapTablesAreStillLimited() {
+        SConfiguration offHeap = defaultConfiguration(true);
+        long factor = offHeap.getBroadcastOffHeapFactor();
+        double memoryMB = offHeap.getBroadcastRegionMbThreshold();
+        double rowCount = offHeap.getBroadcastRegionRowThreshold();
+
+        assertTrue(factor > 1);
+        assertFalse(BroadcastJoinStrategy.isUnderBroadcastLimits(offHeap, memoryMB * factor, rowCount));
+        assertFalse(BroadcastJoinStrategy.isUnderBroadcastLimits(offHeap, memoryMB, rowCount * factor));
+    }
+
+    private static SConfiguration defaultConfiguration(final boolean offHeap) {
+        return new ConfigurationBuilder().build(new EmptyConfigurationDefaultsList().addConfig(new SQLConfiguration()),
+                new ReflectingConfigurationSource() {
+                    @Override
+                    public boolean getBoolean(String key, boolean deflt) {
+                        return SQLConfiguration.BROADCAST_JOIN_OFF_HEAP.equals(key) ? offHeap : deflt;
+                    }
+                });
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.impl.sql.JoinTable;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import com.splicemachine.stream.Stream;
+import com.splicemachine.stream.Streams;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Category(ArchitectureIndependent.class)
+public class BroadcastJoinCacheTest {
+    private static final int[] HASH_KEYS = new int[]{0};
+
+    private final AtomicLong ticker = new AtomicLong(0L);
+    private final AtomicLong budget = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong idleMillis = new AtomicLong(TimeUnit.MINUTES.toMillis(1));
+    private final AtomicLong buildNanosPerRow = new AtomicLong(1L);
+    private final AtomicInteger loads = new AtomicInteger(0);
+
+    @Test
+    public void concurrentJoinsShareOneBuild() throws Exception {
+        CountDownLatch building = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        BroadcastJoinCache cache = new BroadcastJoinCache((streamLoader, inner, outer, template) -> {
+            building.countDown();
+            finish.await();
+            return load(streamLoader);
+        }, budget::get, idleMillis::get, ticker::get);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<JoinTable> first = executor.submit(() -> get(cache, "key").newTable());
+            building.await();
+            Future<JoinTable> second = executor.submit(() -> get(cache, "key").newTable());
+            finish.countDown();
+            first.get().close();
+            second.get().close();
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(1, loads.get());
+        Assert.assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void idleTablesAreReusedUntilTheyExpire() throws Exception {
+        BroadcastJoinCache cache = cache(1);
+        get(cache, "key").newTable().close();
+        get(cache, "key").newTable().close();
+        Assert.assertEquals(1, loads.get());
+
+        ticker.addAndGet(TimeUnit.MILLISECONDS.toNanos(idleMillis.get()));
+        get(cache, "key").newTable().close();
+        Assert.assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void overBudgetDropsTheCheapestIdleTableFirst() throws Exception {
+        BroadcastJoinCache cache = cache(1000);
+        get(cache, "expensive").newTable().close();
+        long tableBytes = cache.getCachedBytes();
+        Assert.assertTrue(tableBytes > 0);
+        budget.set(2 * tableBytes);
+
+        buildNanosPerRow.set(1);
+        get(cache, "cheap").newTable().close();
+        buildNanosPerRow.set(1000);
+        get(cache, "third").newTable().close();
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertTrue(cache.getCachedBytes() <= budget.get());
+        get(cache, "expensive").newTable().close();
+        Assert.assertEquals("The expensive table should still be cached", 3, loads.get());
+        get(cache, "cheap").newTable().close();
+        Assert.assertEquals("The cheap table should have been dropped", 4, loads.get());
+    }
+
+    @Test
+    public void tablesInUseAreNeverDropped() throws Exception {
+        budget.set(0L);
+        BroadcastJoinCache cache = cache(1);
+        JoinTable table = get(cache, "key").newTable();
+        get(cache, "other").newTable().close();
+        Assert.assertEquals(1, cache.size());
+        get(cache, "key").newTable().close();
+        Assert.assertEquals(2, loads.get());
+        table.close();
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(0L, cache.getCachedBytes());
+    }
+
+    @Test
+    public void failedBuildsAreNotCached() throws Exception {
+        AtomicInteger attempts = new AtomicInteger(0);
+        BroadcastJoinCache cache = new BroadcastJoinCache((streamLoader, inner, outer, template) -> {
+            if (attempts.incrementAndGet() == 1)
+                throw StandardException.plainWrapException(new IllegalStateException("build failed"));
+            return load(streamLoader);
+        }, budget::get, idleMillis::get, ticker::get);
+        try {
+            get(cache, "key");
+            Assert.fail("Expected the build to fail");
+        } catch (StandardException expected) {
+        }
+        Assert.assertEquals(0, cache.size());
+        get(cache, "key").newTable().close();
+        Assert.assertEquals(2, attempts.get());
+    }
+
+    @Test
+    public void snapshotsOfAnUnmodifiedTableShareOneBuild() throws Exception {
+        List<String> probes = new ArrayList<>();
+        BroadcastJoinCache cache = snapshotCache(new long[]{10, 20}, false, probes);
+        JoinTable first = get(cache, snapshotKey(30)).newTable();
+        get(cache, snapshotKey(40)).newTable().close();
+        get(cache, snapshotKey(35)).newTable().close();
+        first.close();
+
+        Assert.assertEquals(1, loads.get());
+        Assert.assertEquals("Later snapshots should only be checked once", Arrays.asList("10-40"), probes);
+    }
+
+    @Test
+    public void modifiedTablesAreOnlySharedWithinTheirSnapshot() throws Exception {
+        List<String> probes = new ArrayList<>();
+        BroadcastJoinCache cache = snapshotCache(new long[]{10, 20}, true, probes);
+        JoinTable first = get(cache, snapshotKey(30)).newTable();
+        JoinTable second = get(cache, snapshotKey(40)).newTable();
+        get(cache, snapshotKey(40)).newTable().close();
+        get(cache, snapshotKey(30)).newTable().close();
+        first.close();
+        second.close();
+
+        Assert.assertEquals(2, loads.get());
+        Assert.assertEquals(Arrays.asList("10-40"), probes);
+    }
+
+    @Test
+    public void snapshotsBeforeTheQuiescentPointAreNotShared() throws Exception {
+        List<String> probes = new ArrayList<>();
+        BroadcastJoinCache cache = snapshotCache(new long[]{10, 20}, false, probes);
+        JoinTable first = get(cache, snapshotKey(15)).newTable();
+        get(cache, snapshotKey(30)).newTable().close();
+        get(cache, snapshotKey(15)).newTable().close();
+        first.close();
+
+        Assert.assertEquals(2, loads.get());
+        Assert.assertTrue(probes.isEmpty());
+    }
+
+    @Test
+    public void tablesWithRunningWritersAreNotShared() throws Exception {
+        List<String> probes = new ArrayList<>();
+        BroadcastJoinCache cache = snapshotCache(null, false, probes);
+        get(cache, snapshotKey(30)).newTable().close();
+        get(cache, snapshotKey(40)).newTable().close();
+        get(cache, snapshotKey(40)).newTable().close();
+
+        Assert.assertEquals(2, loads.get());
+        Assert.assertTrue(probes.isEmpty());
+    }
+
+    private BroadcastJoinCache snapshotCache(long[] quiescentPoint, boolean modified, List<String> probes) {
+        return new BroadcastJoinCache((streamLoader, inner, outer, template) -> load(streamLoader),
+                budget::get, idleMillis::get, ticker::get, new BroadcastJoinCache.SnapshotCheck() {
+            @Override
+            public long[] quiescentPoint(long conglomerateId) {
+                return quiescentPoint;
+            }
+
+            @Override
+            public boolean modifiedBetween(BroadcastJoinCache.ScanKey key, long from, long to) {
+                probes.add(from + "-" + to);
+                return modified;
+            }
+        });
+    }
+
+    private static BroadcastJoinCache.SnapshotKey snapshotKey(long beginTimestamp) {
+        BroadcastJoinCache.ScanKey scan = new BroadcastJoinCache.ScanKey(1L, "3.0", new byte[0], new byte[0],
+                "{0}", "", HASH_KEYS, HASH_KEYS, new int[]{0});
+        return new BroadcastJoinCache.SnapshotKey(scan, beginTimestamp);
+    }
+
+    private BroadcastJoinCache cache(long nanosPerRow) {
+        buildNanosPerRow.set(nanosPerRow);
+        return new BroadcastJoinCache((streamLoader, inner, outer, template) -> load(streamLoader),
+                budget::get, idleMillis::get, ticker::get);
+    }
+
+    private JoinTable.Factory load(Callable<Stream<ExecRow>> streamLoader) throws Exception {
+        loads.incrementAndGet();
+        try (Stream<ExecRow> rows = streamLoader.call()) {
+            while (rows.next() != null) {
+                ticker.addAndGet(buildNanosPerRow.get());
+            }
+        }
+        return () -> new JoinTable() {
+            @Override
+            public Iterator<ExecRow> fetchInner(ExecRow outer) {
+                return Collections.emptyIterator();
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    private static JoinTable.Factory get(BroadcastJoinCache cache, Object key) throws Exception {
+        return cache.get(key, BroadcastJoinCacheTest::rows, HASH_KEYS, HASH_KEYS, row(0));
+    }
+
+    private static Stream<ExecRow> rows() {
+        return Streams.of(row(1), row(2), row(3));
+    }
+
+    private static ExecRow row(int value) {
+        ValueRow row = new ValueRow(1);
+        row.setColumn(1, new SQLInteger(value));
+        return row;
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.db.iapi.types.SQLVarchar;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.impl.sql.JoinTable;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import com.splicemachine.stream.Stream;
+import com.splicemachine.stream.Streams;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Category(ArchitectureIndependent.class)
+public class OffHeapJoinTableTest {
+    private static final int[] HASH_KEYS = new int[]{0};
+
+    @Test
+    public void findsEveryRowOfEveryKeyAcrossResizes() throws Exception {
+        OffHeapJoinTable.Storage storage = new OffHeapJoinTable.Storage();
+        int keys = 5000;
+        int rowsPerKey = 3;
+        for (int r = 0; r < rowsPerKey; r++) {
+            for (int k = 0; k < keys; k++) {
+                storage.add(Bytes.toBytes(k), Bytes.toBytes(k * rowsPerKey + r));
+            }
+        }
+        Assert.assertEquals(keys * rowsPerKey, storage.getRowCount());
+
+        ByteBuffer[] pages = storage.duplicatePages();
+        for (int k = 0; k < keys; k++) {
+            long address = storage.find(pages, Bytes.toBytes(k));
+            int[] found = new int[rowsPerKey];
+            int count = 0;
+            while (address >= 0) {
+                ByteBuffer page = pages[OffHeapJoinTable.Storage.page(address)];
+                int offset = OffHeapJoinTable.Storage.offset(address);
+                found[count++] = page.getInt(offset + OffHeapJoinTable.Storage.HEADER_SIZE + 4);
+                address = page.getLong(offset + OffHeapJoinTable.Storage.NEXT);
+            }
+            Assert.assertEquals("Wrong number of rows for key " + k, rowsPerKey, count);
+            Arrays.sort(found);
+            for (int r = 0; r < rowsPerKey; r++) {
+                Assert.assertEquals(k * rowsPerKey + r, found[r]);
+            }
+        }
+    }
+
+    @Test
+    public void missingKeyIsNotFound() throws Exception {
+        OffHeapJoinTable.Storage storage = new OffHeapJoinTable.Storage();
+        storage.add(Bytes.toBytes(1), Bytes.toBytes(1));
+        Assert.assertTrue(storage.find(storage.duplicatePages(), Bytes.toBytes(2)) < 0);
+        Assert.assertTrue(storage.find(storage.duplicatePages(), new byte[]{0, 0, 1}) < 0);
+    }
+
+    @Test
+    public void joinReturnsEveryMatchingInnerRow() throws Exception {
+        OffHeapJoinTable.Factory factory = load(innerRows(100, 2));
+        JoinTable table = factory.newTable();
+        for (int k = 0; k < 100; k++) {
+            List<String> matches = values(table.fetchInner(outerRow(k)));
+            Assert.assertEquals("Wrong matches for key " + k, Arrays.asList("row-" + k + "-0", "row-" + k + "-1"), matches);
+        }
+        Assert.assertFalse(table.fetchInner(outerRow(100)).hasNext());
+        table.close();
+        factory.close();
+    }
+
+    @Test
+    public void smallTablesOnlyAllocateWhatTheyNeed() throws Exception {
+        OffHeapJoinTable.Factory factory = load(innerRows(3, 1));
+        long allocated = factory.getStorage().getAllocatedBytes();
+        Assert.assertTrue("Allocated " + allocated + " bytes for 3 rows", allocated < 8 * 1024);
+        factory.close();
+
+        factory = load(innerRows(20000, 1));
+        allocated = factory.getStorage().getAllocatedBytes();
+        Assert.assertTrue("Allocated " + allocated + " bytes for 20000 rows", allocated < 4 * 1024 * 1024);
+        factory.close();
+    }
+
+    @Test
+    public void droppingTheTableFromTheCacheFreesItsMemory() throws Exception {
+        AtomicReference<JoinTable.Factory> loaded = new AtomicReference<>();
+        BroadcastJoinCache cache = new BroadcastJoinCache((streamLoader, inner, outer, template) -> {
+            loaded.set(OffHeapJoinTableLoader.INSTANCE.load(streamLoader, inner, outer, template));
+            return loaded.get();
+        }, () -> 0L, () -> 0L, System::nanoTime);
+
+        JoinTable table = cache.get("key", () -> innerRows(10, 1), HASH_KEYS, HASH_KEYS, outerRow(0)).newTable();
+        OffHeapJoinTable.Storage storage = ((OffHeapJoinTable.Factory) loaded.get()).getStorage();
+        Assert.assertEquals(Arrays.asList("row-3-0"), values(table.fetchInner(outerRow(3))));
+        Assert.assertFalse("Memory freed while the table is in use", storage.isClosed());
+
+        table.close();
+        Assert.assertEquals(0, cache.size());
+        Assert.assertTrue("Memory should be freed once the table is dropped", storage.isClosed());
+        try {
+            loaded.get().newTable().fetchInner(outerRow(3));
+            Assert.fail("A freed table should not be readable");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    private static OffHeapJoinTable.Factory load(Stream<ExecRow> rows) throws Exception {
+        return (OffHeapJoinTable.Factory) OffHeapJoinTableLoader.INSTANCE.load(() -> rows, HASH_KEYS, HASH_KEYS, outerRow(0));
+    }
+
+    private static Stream<ExecRow> innerRows(int keys, int rowsPerKey) {
+        List<ExecRow> rows = new ArrayList<>();
+        for (int r = 0; r < rowsPerKey; r++) {
+            for (int k = 0; k < keys; k++) {
+                ValueRow row = new ValueRow(2);
+                row.setColumn(1, new SQLInteger(k));
+                row.setColumn(2, new SQLVarchar("row-" + k + "-" + r));
+                rows.add(row);
+            }
+        }
+        return Streams.wrap(rows);
+    }
+
+    private static ExecRow outerRow(int key) {
+        ValueRow row = new ValueRow(1);
+        row.setColumn(1, new SQLInteger(key));
+        return row;
+    }
+
+    private static List<String> values(Iterator<ExecRow> rows) throws Exception {
+        List<String> values = new ArrayList<>();
+        while (rows.hasNext()) {
+            values.add(rows.next().getColumn(2).getString());
+        }
+        values.sort(null);
+        return values;
+    }
+}
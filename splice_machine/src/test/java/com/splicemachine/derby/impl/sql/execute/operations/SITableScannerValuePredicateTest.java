@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations;
+
+import com.carrotsearch.hppc.BitSet;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.io.FormatableBitSet;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.*;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.impl.sql.execute.operations.scanner.SIFilterFactory;
+import com.splicemachine.derby.impl.sql.execute.operations.scanner.SITableScanner;
+import com.splicemachine.derby.impl.sql.execute.operations.scanner.TableScannerBuilder;
+import com.splicemachine.derby.stream.iapi.DataSet;
+import com.splicemachine.derby.stream.iapi.ScanSetBuilder;
+import com.splicemachine.derby.utils.marshall.*;
+import com.splicemachine.derby.utils.marshall.dvd.DescriptorSerializer;
+import com.splicemachine.derby.utils.marshall.dvd.VersionedSerializers;
+import com.splicemachine.encoding.Encoding;
+import com.splicemachine.si.api.data.OperationFactory;
+import com.splicemachine.si.api.filter.RowAccumulator;
+import com.splicemachine.si.api.filter.SIFilter;
+import com.splicemachine.si.constants.SIConstants;
+import com.splicemachine.si.impl.filter.HRowAccumulator;
+import com.splicemachine.si.testenv.ArchitectureSpecific;
+import com.splicemachine.si.testenv.SITestDataEnv;
+import com.splicemachine.si.testenv.SITestEnvironment;
+import com.splicemachine.storage.*;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Scans a row of a table with a primary key through a scan which carries value predicates on
+ * non-key columns. The predicates must only be checked against the packed row, and must not
+ * prevent the primary key columns from being decoded.
+ */
+@Category(ArchitectureSpecific.class)
+public class SITableScannerValuePredicateTest{
+    /*
+     * The primary key is the last column; the other columns are stored in the packed row
+     */
+    private static final int[] KEY_DECODING_MAP=new int[]{3};
+    private static final int[] KEY_COLUMN_ORDER=new int[]{0};
+    private static final int[] ROW_ENCODING_MAP=new int[]{0,1,2,-1};
+
+    private OperationFactory opFactory;
+
+    @Before
+    public void setUp() throws Exception{
+        SITestDataEnv testDataEnv =SITestEnvironment.loadTestDataEnvironment();
+        opFactory = testDataEnv.getBaseOperationFactory();
+    }
+
+    @Test
+    public void testMatchingPredicateReturnsTheWholeRow() throws Exception{
+        ExecRow row=row();
+        ExecRow next=scan(row,new ValuePredicate(0,ValuePredicate.EQUALS,false,false,Encoding.encode(1L)));
+        Assert.assertNotNull("Row was filtered out",next);
+        Assert.assertArrayEquals("Incorrect scan decoding!",row.getRowArray(),next.getRowArray());
+    }
+
+    @Test
+    public void testPredicateOnLaterColumnReturnsTheWholeRow() throws Exception{
+        ExecRow row=row();
+        ExecRow next=scan(row,new ValuePredicate(1,ValuePredicate.GREATER_THAN,false,false,Encoding.encode(2L)));
+        Assert.assertNotNull("Row was filtered out",next);
+        Assert.assertArrayEquals("Incorrect scan decoding!",row.getRowArray(),next.getRowArray());
+    }
+
+    @Test
+    public void testFailingPredicateFiltersTheRow() throws Exception{
+        ExecRow next=scan(row(),new ValuePredicate(0,ValuePredicate.EQUALS,false,false,Encoding.encode(2L)));
+        Assert.assertNull("Row should have been filtered out",next);
+    }
+
+    private static ExecRow row(){
+        DataValueDescriptor[] data=new DataValueDescriptor[]{
+                new SQLInteger(1),
+                new SQLLongint(3L),
+                new SQLVarchar("Hello"),
+                new SQLVarchar("key")
+        };
+        ExecRow row=new ValueRow(data.length);
+        row.setRowArray(data);
+        return row;
+    }
+
+    private ExecRow scan(ExecRow row,ValuePredicate predicate) throws StandardException, IOException{
+        DataValueDescriptor[] data=row.getRowArray();
+        DescriptorSerializer[] serializers=VersionedSerializers.latestVersion(true).getSerializers(data);
+        int[] keyEncodingMap=new int[]{KEY_DECODING_MAP[KEY_COLUMN_ORDER[0]]};
+        int[] keyColumnTypes=new int[]{data[keyEncodingMap[0]].getTypeFormatId()};
+        KeyEncoder encoder=new KeyEncoder(NoOpPrefix.INSTANCE,BareKeyHash.encoder(keyEncodingMap,null,serializers),NoOpPostfix.INSTANCE);
+        byte[] key=encoder.getKey(row);
+
+        EntryDataHash hash=new EntryDataHash(ROW_ENCODING_MAP,null,serializers);
+        hash.setRow(row);
+        byte[] value=hash.encode();
+        final DataCell dataKv=opFactory.newCell(key,SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.PACKED_COLUMN_BYTES,1l,value);
+        final DataCell siKv=opFactory.newCell(key,SIConstants.DEFAULT_FAMILY_BYTES,
+                SIConstants.SNAPSHOT_ISOLATION_COMMIT_TIMESTAMP_COLUMN_BYTES,1l,SIConstants.EMPTY_BYTE_ARRAY);
+        final boolean[] returned=new boolean[]{false};
+
+        DataScanner scanner=mock(DataScanner.class);
+        //noinspection unchecked
+        when(scanner.next(anyInt())).thenAnswer(new Answer<List<DataCell>>(){
+            @Override
+            public List<DataCell> answer(InvocationOnMock invocation) throws Throwable{
+                if(returned[0])
+                    return Collections.emptyList();
+                returned[0]=true;
+                return Arrays.asList(siKv,dataKv);
+            }
+        });
+
+        BitSet fieldsToReturn=new BitSet();
+        for(int i=0;i<ROW_ENCODING_MAP.length;i++){
+            if(ROW_ENCODING_MAP[i]>=0)
+                fieldsToReturn.set(ROW_ENCODING_MAP[i]);
+        }
+        EntryPredicateFilter predicateFilter=new EntryPredicateFilter(fieldsToReturn,false,new ValuePredicate[]{predicate});
+        DataScan scan=opFactory.newScan();
+        scan.addAttribute(SIConstants.ENTRY_PREDICATE_LABEL,predicateFilter.toBytes());
+
+        FormatableBitSet accessedKeyCols=new FormatableBitSet(1);
+        accessedKeyCols.set(0);
+        ScanSetBuilder builder=new TableScannerBuilder(){
+            @Override
+            public DataSet buildDataSet() throws StandardException{
+                throw new UnsupportedOperationException("improper access path for test");
+            }
+        }
+                .scan(scan)
+                .scanner(scanner)
+                .tableVersion("3.0")
+                .rowDecodingMap(ROW_ENCODING_MAP)
+                .template(row.getNewNullRow())
+                .keyColumnEncodingOrder(KEY_COLUMN_ORDER)
+                .keyColumnTypes(keyColumnTypes)
+                .keyColumnSortOrder(null)
+                .keyDecodingMap(KEY_DECODING_MAP)
+                .accessedKeyColumns(accessedKeyCols);
+        builder=((TableScannerBuilder)builder)
+                .filterFactory(new SIFilterFactory(){
+                    @Override
+                    public SIFilter newFilter(EntryPredicateFilter predicateFilter,
+                                              EntryDecoder rowEntryDecoder,
+                                              EntryAccumulator accumulator,
+                                              boolean isCountStar) throws IOException{
+                        return new MockFilter(accumulator,rowEntryDecoder,predicateFilter,isCountStar);
+                    }
+                });
+        SITableScanner tableScanner=((TableScannerBuilder)builder).build();
+        return tableScanner.next();
+    }
+
+    private static class MockFilter implements SIFilter{
+        private RowAccumulator accumulator;
+
+        private MockFilter(EntryAccumulator accumulator,
+                           EntryDecoder decoder,
+                           EntryPredicateFilter predicateFilter,
+                           boolean isCountStar){
+            this.accumulator=new HRowAccumulator(predicateFilter,decoder,accumulator,isCountStar);
+        }
+
+        @Override
+        public void nextRow(){
+        }
+
+        @Override
+        public RowAccumulator getAccumulator(){
+            return accumulator;
+        }
+
+        @Override
+        public DataFilter.ReturnCode filterCell(DataCell kv) throws IOException{
+            if(kv.dataType()!=CellType.USER_DATA)
+                return DataFilter.ReturnCode.SKIP;
+            if(!accumulator.isFinished() && accumulator.isInteresting(kv)){
+                if(!accumulator.accumulateCell(kv))
+                    return DataFilter.ReturnCode.NEXT_ROW;
+                return DataFilter.ReturnCode.INCLUDE;
+            }else return DataFilter.ReturnCode.INCLUDE;
+        }
+
+    }
+}
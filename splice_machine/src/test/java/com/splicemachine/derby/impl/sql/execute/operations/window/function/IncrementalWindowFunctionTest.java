@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.impl.sql.execute.operations.window.function;
+
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.iapi.types.SQLInteger;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+
+/**
+ * Slides a frame over random values, some of them NULL, and checks each incremental
+ * window function against the same aggregate computed from scratch over the frame.
+ */
+@Category(ArchitectureIndependent.class)
+public class IncrementalWindowFunctionTest {
+    private static final int ROWS = 1000;
+
+    @Test
+    public void sumMatchesRecomputedSum() throws Exception {
+        for (int frameSize : new int[]{1, 3, 150}) {
+            slide(new SumAggregator(), frameSize, "SUM");
+        }
+    }
+
+    @Test
+    public void avgMatchesRecomputedAvg() throws Exception {
+        for (int frameSize : new int[]{1, 3, 150}) {
+            slide(new AvgAggregator(), frameSize, "AVG");
+        }
+    }
+
+    @Test
+    public void countMatchesRecomputedCount() throws Exception {
+        for (int frameSize : new int[]{1, 3, 150}) {
+            slide(new CountAggregator(), frameSize, "COUNT");
+        }
+    }
+
+    @Test
+    public void maxMatchesRecomputedMax() throws Exception {
+        for (int frameSize : new int[]{1, 3, 150}) {
+            slide((IncrementalWindowFunction) new MaxMinAggregator().setup(null, "MAX", null, null), frameSize, "MAX");
+        }
+    }
+
+    @Test
+    public void minMatchesRecomputedMin() throws Exception {
+        for (int frameSize : new int[]{1, 3, 150}) {
+            slide((IncrementalWindowFunction) new MaxMinAggregator().setup(null, "MIN", null, null), frameSize, "MIN");
+        }
+    }
+
+    @Test
+    public void countStarCountsEveryRow() throws Exception {
+        CountAggregator count = new CountAggregator();
+        for (int i = 0; i < 5; i++) {
+            count.accumulate(new DataValueDescriptor[0]);
+        }
+        count.remove();
+        Assert.assertEquals(4, count.getResult().getLong());
+    }
+
+    @Test
+    public void emptyFrameIsNull() throws Exception {
+        SumAggregator sum = new SumAggregator();
+        sum.setResultType(new SQLInteger());
+        sum.accumulate(new DataValueDescriptor[]{new SQLInteger(3)});
+        Assert.assertEquals(3, sum.getResult().getInt());
+        sum.remove();
+        Assert.assertTrue(sum.getResult().isNull());
+        Assert.assertNull(sum.remove());
+
+        sum.reset();
+        Assert.assertTrue(sum.getResult().isNull());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+    private void slide(IncrementalWindowFunction function, int frameSize, String aggregate) throws Exception {
+        function.setResultType(new SQLInteger());
+        Random random = new Random(frameSize);
+        ArrayDeque<SQLInteger> frame = new ArrayDeque<>();
+        for (int i = 0; i < ROWS; i++) {
+            SQLInteger value = random.nextInt(10) == 0 ? new SQLInteger() : new SQLInteger(random.nextInt(100) - 50);
+            function.accumulate(new DataValueDescriptor[]{value});
+            frame.addLast(value);
+            if (frame.size() > frameSize) {
+                function.remove();
+                frame.removeFirst();
+            }
+            Integer expected = recompute(frame, aggregate);
+            DataValueDescriptor actual = function.getResult();
+            String message = aggregate + " over " + frame + " with a frame of " + frameSize;
+            if (expected == null) {
+                Assert.assertTrue(message, actual.isNull());
+            } else {
+                Assert.assertEquals(message, expected.intValue(), actual.getInt());
+            }
+        }
+        function.reset();
+        Assert.assertTrue(aggregate + " after a reset", aggregate.equals("COUNT") ? function.getResult().getInt() == 0 : function.getResult().isNull());
+    }
+
+    private static Integer recompute(ArrayDeque<SQLInteger> frame, String aggregate) throws Exception {
+        int sum = 0, count = 0;
+        Integer max = null, min = null;
+        for (SQLInteger value : frame) {
+            if (value.isNull())
+                continue;
+            int v = value.getInt();
+            sum += v;
+            count++;
+            max = max == null ? v : Math.max(max, v);
+            min = min == null ? v : Math.min(min, v);
+        }
+        switch (aggregate) {
+            case "SUM":
+                return count == 0 ? null : sum;
+            case "AVG":
+                return count == 0 ? null : (int) ((sum * 1.0) / count);
+            case "COUNT":
+                return count;
+            case "MAX":
+                return max;
+            default:
+                return min;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.lifecycle;
+
+import com.splicemachine.db.drda.NetworkServerControl;
+import com.splicemachine.db.iapi.reference.Property;
+import com.splicemachine.derby.test.framework.SpliceNetConnection;
+import com.splicemachine.test.SerialTest;
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.net.InetAddress;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * ITs for a network server which parks idle sessions (derby.drda.multiplexIdleSessions),
+ * with many more open connections than connection threads.
+ */
+@Category(SerialTest.class)
+public class IdleSessionMultiplexingIT {
+
+    private static final int MAX_THREADS = 2;
+    // the server keeps the threads it already started, so open well above the thread limit
+    private static final int CONNECTIONS = 16;
+
+    @Test
+    public void testEveryConnectionRunsStatementsAfterGoingIdle() throws Exception {
+        NetworkServerControl control = new NetworkServerControl(InetAddress.getByName("localhost"), 1527);
+        Properties properties = control.getCurrentProperties();
+        Assume.assumeTrue("Idle sessions are not multiplexed by this server",
+                Boolean.parseBoolean(properties.getProperty(Property.DRDA_PROP_MULTIPLEX_IDLE_SESSIONS)));
+        long idleTime = 10L * Integer.parseInt(properties.getProperty(Property.DRDA_PROP_IDLE_SESSION_TIMEOUT));
+
+        int maxThreads = control.getMaxThreads();
+        control.setMaxThreads(MAX_THREADS);
+        List<Connection> connections = new ArrayList<>();
+        try {
+            for (int i = 0; i < CONNECTIONS; i++) {
+                Connection connection = SpliceNetConnection.getConnection();
+                connections.add(connection);
+                assertValue(connection, i);
+            }
+
+            for (int round = 0; round < 3; round++) {
+                Thread.sleep(idleTime);
+                // the sessions are resumed in the opposite order they were parked in
+                for (int i = CONNECTIONS - 1; i >= 0; i--) {
+                    assertValue(connections.get(i), i);
+                }
+            }
+        } finally {
+            for (Connection connection : connections) {
+                connection.close();
+            }
+            control.setMaxThreads(maxThreads);
+        }
+    }
+
+    @Test
+    public void testTransactionSurvivesGoingIdle() throws Exception {
+        NetworkServerControl control = new NetworkServerControl(InetAddress.getByName("localhost"), 1527);
+        Properties properties = control.getCurrentProperties();
+        Assume.assumeTrue("Idle sessions are not multiplexed by this server",
+                Boolean.parseBoolean(properties.getProperty(Property.DRDA_PROP_MULTIPLEX_IDLE_SESSIONS)));
+        long idleTime = 10L * Integer.parseInt(properties.getProperty(Property.DRDA_PROP_IDLE_SESSION_TIMEOUT));
+
+        try (Connection connection = SpliceNetConnection.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement("values ?")) {
+                ps.setInt(1, 1);
+                try (ResultSet rs = ps.executeQuery()) {
+                    assertTrue(rs.next());
+                    // the session goes idle with an open cursor and transaction
+                    Thread.sleep(idleTime);
+                    assertEquals(1, rs.getInt(1));
+                }
+                ps.setInt(1, 2);
+                try (ResultSet rs = ps.executeQuery()) {
+                    assertTrue(rs.next());
+                    assertEquals(2, rs.getInt(1));
+                }
+            }
+            connection.commit();
+        }
+    }
+
+    private static void assertValue(Connection connection, int value) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("values ?")) {
+            ps.setInt(1, value);
+            try (ResultSet rs = ps.executeQuery()) {
+                assertTrue(rs.next());
+                assertEquals(value, rs.getInt(1));
+            }
+        }
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.derby.stream.control.spill;
+
+import com.splicemachine.SpliceKryoRegistry;
+import com.splicemachine.db.iapi.error.StandardException;
+import com.splicemachine.db.iapi.services.cache.ClassSize;
+import com.splicemachine.db.iapi.sql.execute.ExecRow;
+import com.splicemachine.db.iapi.types.DataValueDescriptor;
+import com.splicemachine.db.impl.sql.execute.ValueRow;
+import com.splicemachine.derby.stream.function.ZipperFunction;
+import com.splicemachine.derby.utils.test.TestingDataType;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import com.splicemachine.utils.kryo.KryoPool;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import org.spark_project.guava.base.Function;
+import scala.Tuple2;
+
+import java.io.File;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the spilling operators with a tiny memory budget, so that every one of them goes to disk.
+ */
+@Category(ArchitectureIndependent.class)
+public class SpillingOperatorsTest {
+    private static final int ROWS = 2000;
+    private static final int KEYS = 100;
+
+    static {
+        ClassSize.setDummyCatalog();
+    }
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File spillDirectory;
+    private SpillBudget budget;
+
+    @Before
+    public void setUp() throws Exception {
+        KryoPool kryoPool = new KryoPool(1);
+        kryoPool.setKryoRegistry(new SpliceKryoRegistry());
+        spillDirectory = temporaryFolder.newFolder();
+        budget = new SpillBudget(1024, spillDirectory, kryoPool);
+    }
+
+    @Test
+    public void sortSpillsAndMerges() throws Exception {
+        Iterator<Tuple2<ExecRow, ExecRow>> sorted = new ExternalSorter<ExecRow, ExecRow>(new Comparator<ExecRow>() {
+            @Override
+            public int compare(ExecRow o1, ExecRow o2) {
+                try {
+                    return Integer.compare(o1.getColumn(1).getInt(), o2.getColumn(1).getInt());
+                } catch (StandardException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }, budget).sort(rows(ROWS, KEYS).iterator());
+
+        int count = 0;
+        int previous = Integer.MIN_VALUE;
+        while (sorted.hasNext()) {
+            int key = sorted.next()._1().getColumn(1).getInt();
+            Assert.assertTrue("Out of order", previous <= key);
+            previous = key;
+            count++;
+        }
+        Assert.assertEquals(ROWS, count);
+        assertCleanedUp();
+    }
+
+    @Test
+    public void sortMergesInSeveralPassesAndStaysStable() throws Exception {
+        List<Tuple2<ExecRow, ExecRow>> input = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            input.add(new Tuple2<>(row(i % KEYS), row(i)));
+        }
+        Iterator<Tuple2<ExecRow, ExecRow>> sorted = new ExternalSorter<ExecRow, ExecRow>(new KeyComparator(), budget, 3)
+                .sort(input.iterator());
+
+        int count = 0;
+        int previousKey = Integer.MIN_VALUE;
+        int previousValue = Integer.MIN_VALUE;
+        while (sorted.hasNext()) {
+            Tuple2<ExecRow, ExecRow> t = sorted.next();
+            int key = t._1().getColumn(1).getInt();
+            int value = t._2().getColumn(1).getInt();
+            Assert.assertTrue("Out of order", previousKey <= key);
+            if (key == previousKey)
+                Assert.assertTrue("Ties must keep the input order", previousValue < value);
+            previousKey = key;
+            previousValue = value;
+            count++;
+        }
+        Assert.assertEquals(ROWS, count);
+        assertCleanedUp();
+    }
+
+    @Test
+    public void closingTheBudgetRemovesUnreadSpillFiles() throws Exception {
+        Iterator<Tuple2<ExecRow, ExecRow>> sorted = new ExternalSorter<ExecRow, ExecRow>(new KeyComparator(), budget)
+                .sort(rows(ROWS, KEYS).iterator());
+        sorted.next();
+        Iterator<Tuple2<ExecRow, Tuple2<ExecRow, ExecRow>>> joined = new GraceHashJoin<ExecRow, ExecRow, ExecRow>(budget)
+                .join(rows(ROWS, KEYS).iterator(), rows(ROWS, KEYS).iterator());
+        joined.next();
+        Assert.assertTrue("Expected the operators to spill", spillDirectory.list().length > 0);
+
+        // what the operation does when it is closed before its output has been read
+        budget.close();
+        assertCleanedUp();
+    }
+
+    @Test
+    public void hashJoinSpillsBothSides() throws Exception {
+        GraceHashJoin<ExecRow, ExecRow, ExecRow> join = new GraceHashJoin<>(budget);
+        // every key appears ROWS/KEYS times on each side
+        Iterator<Tuple2<ExecRow, Tuple2<ExecRow, ExecRow>>> joined = join.join(rows(ROWS, KEYS).iterator(), rows(ROWS, KEYS).iterator());
+        int count = 0;
+        while (joined.hasNext()) {
+            Tuple2<ExecRow, Tuple2<ExecRow, ExecRow>> t = joined.next();
+            Assert.assertEquals(t._2()._1().getColumn(1).getInt(), t._2()._2().getColumn(1).getInt());
+            count++;
+        }
+        Assert.assertEquals(KEYS * (ROWS / KEYS) * (ROWS / KEYS), count);
+        assertCleanedUp();
+    }
+
+    @Test
+    public void subtractSpillsBothSides() throws Exception {
+        GraceHashJoin<ExecRow, ExecRow, ExecRow> join = new GraceHashJoin<>(budget);
+        List<Tuple2<ExecRow, ExecRow>> right = new ArrayList<>();
+        for (Tuple2<ExecRow, ExecRow> t : rows(ROWS, KEYS)) {
+            if (t._1().getColumn(1).getInt() % 2 == 0)
+                right.add(t);
+        }
+        Iterator<Tuple2<ExecRow, ExecRow>> remaining = join.subtract(rows(ROWS, KEYS).iterator(), right.iterator());
+        int count = 0;
+        while (remaining.hasNext()) {
+            Assert.assertEquals(1, remaining.next()._1().getColumn(1).getInt() % 2);
+            count++;
+        }
+        Assert.assertEquals(ROWS / 2, count);
+        assertCleanedUp();
+    }
+
+    @Test
+    public void groupSpillsAndKeepsGroupsTogether() throws Exception {
+        Iterator<Tuple2<ExecRow, Iterable<ExecRow>>> groups = new HybridHashAggregator<ExecRow, ExecRow>(budget).group(rows(ROWS, KEYS).iterator());
+        int count = 0;
+        while (groups.hasNext()) {
+            Tuple2<ExecRow, Iterable<ExecRow>> group = groups.next();
+            int size = 0;
+            for (ExecRow row : group._2()) {
+                Assert.assertEquals(group._1().getColumn(1).getInt(), row.getColumn(1).getInt());
+                size++;
+            }
+            Assert.assertEquals(ROWS / KEYS, size);
+            count++;
+        }
+        Assert.assertEquals(KEYS, count);
+        assertCleanedUp();
+    }
+
+    @Test
+    public void reduceSpillsNewGroups() throws Exception {
+        Iterator<Tuple2<ExecRow, ExecRow>> reduced = new HybridHashAggregator<ExecRow, ExecRow>(budget).reduce(rows(ROWS, KEYS).iterator(),
+                new Function<ExecRow, ExecRow>() {
+                    @Override
+                    public ExecRow apply(ExecRow input) {
+                        return input.getClone();
+                    }
+                }, new Sum());
+        Map<Integer, Integer> sums = new HashMap<>();
+        while (reduced.hasNext()) {
+            Tuple2<ExecRow, ExecRow> t = reduced.next();
+            Assert.assertNull("Group returned twice", sums.put(t._1().getColumn(1).getInt(), t._2().getColumn(2).getInt()));
+        }
+        Assert.assertEquals(KEYS, sums.size());
+        for (Map.Entry<Integer, Integer> e : sums.entrySet()) {
+            Assert.assertEquals(ROWS / KEYS, e.getValue().intValue());
+        }
+        assertCleanedUp();
+    }
+
+    private void assertCleanedUp() {
+        String[] remaining = spillDirectory.list();
+        Assert.assertTrue("Spill files left behind", remaining == null || remaining.length == 0);
+    }
+
+    private static List<Tuple2<ExecRow, ExecRow>> rows(int rows, int keys) throws StandardException {
+        List<Tuple2<ExecRow, ExecRow>> list = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            list.add(new Tuple2<>(row(i % keys), row(i % keys, 1)));
+        }
+        return list;
+    }
+
+    private static ExecRow row(int... values) throws StandardException {
+        ValueRow vr = new ValueRow(values.length);
+        for (int i = 0; i < values.length; i++) {
+            DataValueDescriptor dvd = TestingDataType.INTEGER.getDataValueDescriptor();
+            dvd.setValue(values[i]);
+            vr.setColumn(i + 1, dvd);
+        }
+        return vr;
+    }
+
+    private static class KeyComparator implements Comparator<ExecRow> {
+        @Override
+        public int compare(ExecRow o1, ExecRow o2) {
+            try {
+                return Integer.compare(o1.getColumn(1).getInt(), o2.getColumn(1).getInt());
+            } catch (StandardException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    private static class Sum implements ZipperFunction<ExecRow, ExecRow, ExecRow> {
+        @Override
+        public ExecRow call(ExecRow accumulated, ExecRow value) throws Exception {
+            if (accumulated == null)
+                return value.getClone();
+            accumulated.getColumn(2).setValue(accumulated.getColumn(2).getInt() + value.getColumn(2).getInt());
+            return accumulated;
+        }
+
+        @Override
+        public void writeExternal(ObjectOutput out) {
+        }
+
+        @Override
+        public void readExternal(ObjectInput in) {
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.pipeline.foreignkey;
+
+import com.carrotsearch.hppc.ObjectArrayList;
+import com.splicemachine.kvpair.KVPair;
+import com.splicemachine.primitives.Bytes;
+import com.splicemachine.si.testenv.ArchitectureIndependent;
+import com.splicemachine.storage.DataCell;
+import com.splicemachine.utils.Pair;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the grouping of the deleted parent keys checked by {@link ForeignKeyParentInterceptWriteHandler}.
+ */
+@Category(ArchitectureIndependent.class)
+public class ForeignKeyParentKeysTest{
+
+    @Test
+    public void keysAreSortedAndPrefixKeysGrouped() throws Exception{
+        ForeignKeyParentInterceptWriteHandler.ParentKeys keys=parentKeys("c","a","ab","b","abc");
+
+        Assert.assertEquals(3,keys.groupCount());
+        assertRange("a","b",keys.groupStartKey(0),keys.groupStopKey(0));
+        assertRange("b","c",keys.groupStartKey(1),keys.groupStopKey(1));
+        assertRange("c","d",keys.groupStartKey(2),keys.groupStopKey(2));
+
+        List<Pair<byte[],byte[]>> ranges=keys.groupRanges();
+        Assert.assertEquals(3,ranges.size());
+        assertRange("a","b",ranges.get(0).getFirst(),ranges.get(0).getSecond());
+        assertRange("b","c",ranges.get(1).getFirst(),ranges.get(1).getSecond());
+        assertRange("c","d",ranges.get(2).getFirst(),ranges.get(2).getSecond());
+    }
+
+    @Test
+    public void separateKeysFormSeparateGroups() throws Exception{
+        ForeignKeyParentInterceptWriteHandler.ParentKeys keys=parentKeys("b","d","f");
+
+        Assert.assertEquals(3,keys.groupCount());
+        Assert.assertTrue(keys.compareToGroupStop(0,cell("bz"))<0);
+        Assert.assertEquals(0,keys.compareToGroupStop(0,cell("c")));
+        Assert.assertTrue(keys.compareToGroupStop(0,cell("d"))>0);
+    }
+
+    @Test
+    public void rowsOnlyResolveTheKeysWhichArePrefixesOfThem() throws Exception{
+        // sorted: a(0) ab(1) abc(2)
+        ForeignKeyParentInterceptWriteHandler.ParentKeys keys=parentKeys("abc","a","ab");
+        int[] violations=noViolations(3);
+
+        Assert.assertTrue(keys.hasUnresolvedKey(0,cell("abz"),violations));
+        Assert.assertEquals(2,keys.markReferenced(0,cell("abz"),violations,5));
+        Assert.assertArrayEquals(new int[]{-1,5,5},violations);
+
+        Assert.assertFalse("The keys of the row are already resolved",keys.hasUnresolvedKey(0,cell("abz"),violations));
+        Assert.assertTrue(keys.hasUnresolvedKey(0,cell("abcq"),violations));
+        Assert.assertEquals(1,keys.markReferenced(0,cell("abcq"),violations,7));
+        Assert.assertArrayEquals(new int[]{7,5,5},violations);
+    }
+
+    @Test
+    public void unresolvedRangesSkipResolvedKeys() throws Exception{
+        // sorted: a ab abc b c
+        ForeignKeyParentInterceptWriteHandler.ParentKeys keys=parentKeys("a","ab","abc","b","c");
+        int[] violations=noViolations(5);
+        keys.markReferenced(0,cell("abz"),violations,0);
+
+        // abc ends before the row, and the ranges of b and c touch
+        List<Pair<byte[],byte[]>> ranges=keys.unresolvedRangesAfter(0,cell("abz"),violations);
+        Assert.assertEquals(1,ranges.size());
+        assertRange("b","d",ranges.get(0).getFirst(),ranges.get(0).getSecond());
+    }
+
+    @Test
+    public void unresolvedRangesStartAfterTheRow() throws Exception{
+        // sorted: a ab d
+        ForeignKeyParentInterceptWriteHandler.ParentKeys keys=parentKeys("a","ab","d");
+        int[] violations=noViolations(3);
+        keys.markReferenced(0,cell("aa"),violations,0);
+
+        List<Pair<byte[],byte[]>> ranges=keys.unresolvedRangesAfter(0,cell("aa"),violations);
+        Assert.assertEquals(2,ranges.size());
+        assertRange("ab","ac",ranges.get(0).getFirst(),ranges.get(0).getSecond());
+        assertRange("d","e",ranges.get(1).getFirst(),ranges.get(1).getSecond());
+
+        // only the part of a range after the row is kept
+        keys=parentKeys("a","ab");
+        violations=noViolations(2);
+        ranges=keys.unresolvedRangesAfter(0,cell("ab1"),violations);
+        Assert.assertEquals(1,ranges.size());
+        Assert.assertArrayEquals(new byte[]{'a','b','1',0},ranges.get(0).getFirst());
+        Assert.assertArrayEquals(Bytes.toBytes("b"),ranges.get(0).getSecond());
+    }
+
+    @Test
+    public void noUnresolvedRangesOnceEveryKeyIsReferenced() throws Exception{
+        ForeignKeyParentInterceptWriteHandler.ParentKeys keys=parentKeys("a","b");
+        int[] violations=noViolations(2);
+        keys.markReferenced(0,cell("a1"),violations,0);
+        keys.markReferenced(1,cell("b1"),violations,0);
+
+        Assert.assertTrue(keys.unresolvedRangesAfter(0,cell("a1"),violations).isEmpty());
+    }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private static ForeignKeyParentInterceptWriteHandler.ParentKeys parentKeys(String... rowKeys){
+        ObjectArrayList<KVPair> mutations=new ObjectArrayList<>();
+        for(String rowKey:rowKeys){
+            mutations.add(new KVPair(Bytes.toBytes(rowKey),new byte[]{},KVPair.Type.DELETE));
+        }
+        return new ForeignKeyParentInterceptWriteHandler.ParentKeys(mutations);
+    }
+
+    private static DataCell cell(String rowKey){
+        byte[] key=Bytes.toBytes(rowKey);
+        DataCell cell=mock(DataCell.class);
+        when(cell.keyArray()).thenReturn(key);
+        when(cell.keyOffset()).thenReturn(0);
+        when(cell.keyLength()).thenReturn(key.length);
+        return cell;
+    }
+
+    private static int[] noViolations(int size){
+        int[] violations=new int[size];
+        Arrays.fill(violations,-1);
+        return violations;
+    }
+
+    private static void assertRange(String start,String stop,byte[] actualStart,byte[] actualStop){
+        Assert.assertArrayEquals("Incorrect start key",Bytes.toBytes(start),actualStart);
+        Assert.assertArrayEquals("Incorrect stop key",Bytes.toBytes(stop),actualStop);
+    }
+}
@@ -191,6 +191,42 @@ public class Trigger_Row_IT {
         }
     }
 
+    /* AFTER row triggers are fired a chunk of rows at a time; every row of every chunk must fire */
+    @Test
+    public void afterInsertSpanningSeveralChunks() throws Exception {
+        try(Statement s = conn.createStatement()){
+            // 6 * 2^8 = 1536 rows, more than a single chunk
+            for(int i=0;i<8;i++){
+                s.executeUpdate("insert into T select * from T");
+            }
+            createTrigger(tb.after().insert().on("T").referencing("NEW AS N").row()
+                    .then("INSERT INTO RECORD VALUES('chunk-' || TRIM(CHAR(N.a)))"));
+
+            long insertCount=s.executeUpdate("insert into T select * from T");
+            assertEquals(1536,insertCount);
+            // each row's action must see that row's own values
+            for(int a=1;a<=6;a++){
+                assertRecordCount(s,"chunk-"+a,insertCount/6);
+            }
+        }
+    }
+
+    /* Several row triggers on the same event are still fired one row at a time */
+    @Test
+    public void afterInsertSeveralTriggersSpanningSeveralChunks() throws Exception {
+        try(Statement s = conn.createStatement()){
+            for(int i=0;i<8;i++){
+                s.executeUpdate("insert into T select * from T");
+            }
+            createTrigger(tb.named("first_trig").after().insert().on("T").row().then("INSERT INTO RECORD VALUES('first')"));
+            createTrigger(tb.named("second_trig").after().insert().on("T").row().then("INSERT INTO RECORD VALUES('second')"));
+
+            long insertCount=s.executeUpdate("insert into T select * from T");
+            assertRecordCount(s,"first",insertCount);
+            assertRecordCount(s,"second",insertCount);
+        }
+    }
+
     //- - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
     //
     // AFTER row triggers with a sinking action -- at the time I'm writing this the insert over values trigger actions
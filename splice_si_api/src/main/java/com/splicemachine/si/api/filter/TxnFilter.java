@@ -14,9 +14,13 @@
 
 package com.splicemachine.si.api.filter;
 
+import com.carrotsearch.hppc.LongHashSet;
 import com.splicemachine.storage.DataCell;
 import com.splicemachine.storage.DataFilter;
 
+import java.io.IOException;
+import java.util.List;
+
 public interface TxnFilter extends DataFilter{
     void nextRow();
 
@@ -24,4 +28,16 @@ public interface TxnFilter extends DataFilter{
     boolean getExcludeRow();
 
     RowAccumulator getAccumulator();
+
+    /**
+     * Add to {@code txnIds} the transactions which wrote the cells of {@code row}, and which this
+     * filter would have to look up to check their visibility.
+     */
+    void collectUnresolvedTransactions(List<DataCell> row,LongHashSet txnIds);
+
+    /**
+     * Look up the transactions {@code txnIds} together, ahead of filtering the cells they wrote, so
+     * that filtering them doesn't have to look them up one at a time.
+     */
+    void prefetchTransactions(LongHashSet txnIds) throws IOException;
 }
@@ -18,29 +18,50 @@ import com.lmax.disruptor.*;
 import com.lmax.disruptor.dsl.Disruptor;
 import com.lmax.disruptor.dsl.ProducerType;
 import com.splicemachine.annotations.ThreadSafe;
+import com.splicemachine.primitives.Bytes;
 import com.splicemachine.si.api.txn.TxnSupplier;
 import com.splicemachine.si.impl.rollforward.RollForwardStatus;
 import com.splicemachine.storage.Partition;
 import com.splicemachine.utils.ByteSlice;
 import com.splicemachine.utils.TrafficControl;
 import org.apache.log4j.Logger;
+import org.spark_project.guava.util.concurrent.RateLimiter;
 import org.spark_project.guava.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Read-Resolver which asynchronously submits regions for execution, discarding
  * any entries which exceed the size of the processing queue.
  * <p/>
  * This implementation uses an LMAX disruptor to asynchronously pass Read-resolve events
- * to a background thread, which in turn uses a SynchronousReadResolver to actually perform the resolution.
+ * to a background thread. The background thread buffers the events of each region, dropping
+ * duplicate (row, transaction) pairs, and whenever the queue drains (or a region has accumulated
+ * {@code batchSize} rows) writes each region's rows, sorted by row key, with a single batched
+ * write through the {@link KeyedReadResolver}. Writes can be rate limited to a maximum
+ * number of rows per second.
+ * <p/>
+ * This is the only resolver which batches, and it is only created when
+ * {@code splice.txn.readresolver.queueSize} is positive; otherwise reads use the
+ * {@link NoOpReadResolver} and leave rows unresolved.
  *
  * @author Scott Fines
  *         Date: 7/1/14
  */
 @ThreadSafe
-public class AsyncReadResolver{
+public class AsyncReadResolver implements ReadResolverStatus{
     private static final Logger LOG=Logger.getLogger(AsyncReadResolver.class);
     private final RingBuffer<ResolveEvent> ringBuffer;
     private final Disruptor<ResolveEvent> disruptor;
@@ -51,8 +72,21 @@ public class AsyncReadResolver{
     private final RollForwardStatus status;
     private final TrafficControl trafficControl;
     private final KeyedReadResolver synchronousResolver;
+    private final int batchSize;
+    private final int maxRowsPerSecond;
+    private final RateLimiter rateLimiter;
+
+    private final AtomicLong submitted=new AtomicLong();
+    private final AtomicLong dropped=new AtomicLong();
+    private final AtomicLong duplicates=new AtomicLong();
+    private final AtomicLong buffered=new AtomicLong();
+    private final AtomicLong resolvedRows=new AtomicLong();
+    private final AtomicLong batchesWritten=new AtomicLong();
+    private final AtomicLong rowsWritten=new AtomicLong();
 
     public AsyncReadResolver(int maxThreads,int bufferSize,
+                             int batchSize,
+                             int maxRowsPerSecond,
                              TxnSupplier txnSupplier,
                              RollForwardStatus status,
                              TrafficControl trafficControl,
@@ -61,6 +95,9 @@ public class AsyncReadResolver{
         this.trafficControl=trafficControl;
         this.status=status;
         this.synchronousResolver = synchronousResolver;
+        this.batchSize=Math.max(1,batchSize);
+        this.maxRowsPerSecond=maxRowsPerSecond;
+        this.rateLimiter=maxRowsPerSecond>0?RateLimiter.create(maxRowsPerSecond):null;
         consumerThreads=new ThreadPoolExecutor(maxThreads,maxThreads,
                 60,TimeUnit.SECONDS,
                 new LinkedBlockingQueue<Runnable>(),
@@ -91,6 +128,48 @@ public class AsyncReadResolver{
         return new PartitionReadResolver(region,rollForward);
     }
 
+    @Override
+    public long getQueueDepth(){
+        return ringBuffer.getBufferSize()-ringBuffer.remainingCapacity()+buffered.get();
+    }
+
+    @Override
+    public long getSubmittedResolutions(){
+        return submitted.get();
+    }
+
+    @Override
+    public long getDroppedResolutions(){
+        return dropped.get();
+    }
+
+    @Override
+    public long getDuplicateResolutions(){
+        return duplicates.get();
+    }
+
+    @Override
+    public long getResolvedRows(){
+        return resolvedRows.get();
+    }
+
+    @Override
+    public long getBatchesWritten(){
+        return batchesWritten.get();
+    }
+
+    @Override
+    public double getCoalescingRatio(){
+        long batches=batchesWritten.get();
+        if(batches==0) return 0d;
+        return (double)(rowsWritten.get()+duplicates.get())/batches;
+    }
+
+    @Override
+    public int getMaxRowsPerSecond(){
+        return maxRowsPerSecond;
+    }
+
     private static class ResolveEvent{
         Partition region;
         long txnId;
@@ -106,23 +185,120 @@ public class AsyncReadResolver{
         }
     }
 
+    /**
+     * A version of a row waiting to be resolved.
+     */
+    private static class PendingRow{
+        private static final Comparator<PendingRow> ROW_ORDER=new Comparator<PendingRow>(){
+            @Override
+            public int compare(PendingRow o1,PendingRow o2){
+                int c=Bytes.BASE_COMPARATOR.compare(o1.rowKey,o2.rowKey);
+                if(c!=0) return c;
+                return Long.compare(o1.txnId,o2.txnId);
+            }
+        };
+
+        private final byte[] rowKey;
+        private final long txnId;
+
+        PendingRow(byte[] rowKey,long txnId){
+            this.rowKey=rowKey;
+            this.txnId=txnId;
+        }
+
+        @Override
+        public boolean equals(Object o){
+            if(this==o) return true;
+            if(!(o instanceof PendingRow)) return false;
+            PendingRow that=(PendingRow)o;
+            return txnId==that.txnId && Arrays.equals(rowKey,that.rowKey);
+        }
+
+        @Override
+        public int hashCode(){
+            return 31*Arrays.hashCode(rowKey)+(int)(txnId^(txnId>>>32));
+        }
+    }
+
+    /**
+     * The rows of one region waiting to be resolved.
+     */
+    private static class RegionBatch{
+        private final Partition region;
+        private final RollForward rollForward;
+        private final Set<PendingRow> rows=new HashSet<>();
+
+        RegionBatch(Partition region,RollForward rollForward){
+            this.region=region;
+            this.rollForward=rollForward;
+        }
+    }
+
     private class ResolveEventHandler implements EventHandler<ResolveEvent>{
+        private final Map<Partition,RegionBatch> pending=new HashMap<>();
 
         @Override
         public void onEvent(ResolveEvent event,long sequence,boolean endOfBatch) throws Exception{
+            RegionBatch batch=pending.get(event.region);
+            if(batch==null){
+                batch=new RegionBatch(event.region,event.rollForward);
+                pending.put(event.region,batch);
+            }
+            //the row key is a private copy made on submission, so it can be kept after the event is reused
+            if(batch.rows.add(new PendingRow(event.rowKey.array(),event.txnId)))
+                buffered.incrementAndGet();
+            else
+                duplicates.incrementAndGet();
+            event.region=null;
+            event.rollForward=null;
+
+            if(batch.rows.size()>=batchSize){
+                pending.remove(batch.region);
+                write(batch);
+            }
+            if(endOfBatch){
+                Iterator<RegionBatch> regions=pending.values().iterator();
+                while(regions.hasNext()){
+                    RegionBatch next=regions.next();
+                    regions.remove();
+                    write(next);
+                }
+            }
+        }
+
+        private void write(RegionBatch batch){
+            List<PendingRow> rows=new ArrayList<>(batch.rows);
+            buffered.addAndGet(-rows.size());
+            if(stopped) return;
+            Collections.sort(rows,PendingRow.ROW_ORDER);
+            ByteSlice[] rowKeys=new ByteSlice[rows.size()];
+            long[] txnIds=new long[rows.size()];
+            for(int i=0;i<rowKeys.length;i++){
+                PendingRow row=rows.get(i);
+                rowKeys[i]=ByteSlice.wrap(row.rowKey);
+                txnIds[i]=row.txnId;
+            }
+            if(rateLimiter!=null)
+                rateLimiter.acquire(rowKeys.length);
             try{
-                if(synchronousResolver.resolve(event.region,
-                        event.rowKey,
-                        event.txnId,
+                boolean[] resolved=synchronousResolver.resolveBatch(batch.region,
+                        rowKeys,
+                        txnIds,
                         txnSupplier,
                         status,
                         false,
-                        trafficControl)){
-                    event.rollForward.recordResolved(event.rowKey,event.txnId);
+                        trafficControl);
+                batchesWritten.incrementAndGet();
+                rowsWritten.addAndGet(rowKeys.length);
+                for(int i=0;i<resolved.length;i++){
+                    if(resolved[i]){
+                        resolvedRows.incrementAndGet();
+                        batch.rollForward.recordResolved(rowKeys[i],txnIds[i]);
+                    }
                 }
             }catch(Exception e){
+                //keep the handler alive; these rows will be resolved by a later read
                 LOG.info("Error during read resolution",e);
-                throw e;
             }
         }
     }
@@ -143,6 +319,7 @@ public class AsyncReadResolver{
             try{
                 sequence=ringBuffer.tryNext();
             }catch(InsufficientCapacityException e){
+                dropped.incrementAndGet();
                 if(LOG.isTraceEnabled())
                     LOG.trace("Unable to submit for read resolution");
                 return;
@@ -157,6 +334,7 @@ public class AsyncReadResolver{
             }finally{
                 ringBuffer.publish(sequence);
             }
+            submitted.incrementAndGet();
         }
 
         @Override
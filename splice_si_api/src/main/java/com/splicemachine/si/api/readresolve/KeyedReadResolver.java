@@ -32,4 +32,19 @@ public interface KeyedReadResolver{
                     RollForwardStatus status,
                     boolean failOnError,
                     TrafficControl trafficControl);
+
+    /**
+     * Resolve several rows of the same region with a single write.
+     *
+     * @param rowKeys the rows to resolve, sorted by row key
+     * @param txnIds the transaction which wrote the version of each row to resolve
+     * @return whether each row was resolved
+     */
+    boolean[] resolveBatch(Partition region,
+                           ByteSlice[] rowKeys,
+                           long[] txnIds,
+                           TxnSupplier txnSupplier,
+                           RollForwardStatus status,
+                           boolean failOnError,
+                           TrafficControl trafficControl);
 }
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.si.api.readresolve;
+
+import javax.management.MXBean;
+
+/**
+ * JMX Hook for monitoring asynchronous read resolution on this server.
+ */
+@MXBean
+public interface ReadResolverStatus{
+
+    /**
+     * @return the number of resolutions waiting to be written, either queued or buffered into a batch
+     */
+    long getQueueDepth();
+
+    /**
+     * @return the number of resolutions which were submitted
+     */
+    long getSubmittedResolutions();
+
+    /**
+     * @return the number of resolutions which were dropped because the queue was full
+     */
+    long getDroppedResolutions();
+
+    /**
+     * @return the number of resolutions which were discarded because the same version of the same row
+     * was already waiting to be resolved
+     */
+    long getDuplicateResolutions();
+
+    /**
+     * @return the number of rows written by read resolution
+     */
+    long getResolvedRows();
+
+    /**
+     * @return the number of batched writes performed by read resolution
+     */
+    long getBatchesWritten();
+
+    /**
+     * @return the average number of resolutions accepted per batched write; higher is better
+     */
+    double getCoalescingRatio();
+
+    /**
+     * @return the maximum number of rows written per second, or 0 if read resolution is not rate limited
+     */
+    int getMaxRowsPerSecond();
+}
@@ -47,6 +47,20 @@ public interface TxnStore extends TxnSupplier{
 
     boolean keepAlive(long txnId) throws IOException;
 
+    /**
+     * Keep several transactions alive at once.
+     *
+     * Functionally equivalent to calling {@link #keepAlive(long)} for each id, but
+     * stores which keep transactions alive remotely refresh as many of them as possible
+     * in each call.
+     *
+     * @param txnIds the transactions to keep alive
+     * @param timedOut filled with the transactions which had already timed out
+     * @return the transactions which are still active, and should continue to be kept alive
+     * @throws IOException if something goes wrong trying to keep the transactions alive
+     */
+    long[] keepAlive(long[] txnIds,LongHashSet timedOut) throws IOException;
+
     void elevateTransaction(Txn txn,byte[] newDestinationTable) throws IOException;
 
     /**
@@ -42,6 +42,19 @@ public interface TxnSupplier {
 		 */
 		TxnView getTransaction(long txnId,boolean getDestinationTables) throws IOException;
 
+		/**
+		 * Get the transactions associated with {@code txnIds}.
+		 *
+		 * Functionally equivalent to calling {@link #getTransaction(long)} for each id, but
+		 * stores which have to look transactions up remotely fetch as many of them as possible
+		 * in each call. This is intended for callers which know about several transactions before
+		 * they need any of them (e.g. the versions found in a block of scanned rows).
+		 *
+		 * @param txnIds the transaction ids to fetch.
+		 * @return the transactions, in the order of {@code txnIds}
+		 */
+		TxnView[] getTransactions(long[] txnIds) throws IOException;
+
 		/**
 		 * Determines whether this Store has the transaction in its local cache
 		 * or not.
@@ -30,6 +30,7 @@ import com.splicemachine.storage.DataFilter;
 import com.splicemachine.utils.ByteSlice;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * Transaction filter which performs basic transactional filtering (i.e. row visibility, tombstones,
@@ -44,6 +45,7 @@ public class SimpleTxnFilter implements TxnFilter{
     private final ReadResolver readResolver;
     //per row fields
     private final LongHashSet visitedTxnIds=new LongHashSet();
+    private final LongHashSet resolvedVersions=new LongHashSet();
     private Long tombstonedTxnRow = null;
     private Long antiTombstonedTxnRow = null;
     private final ByteSlice rowKey=new ByteSlice();
@@ -110,6 +112,41 @@ public class SimpleTxnFilter implements TxnFilter{
         }
     }
 
+    @Override
+    public void collectUnresolvedTransactions(List<DataCell> row,LongHashSet txnIds){
+        /*
+         * The commit timestamp cells of a row sort before its data, and are all we need to know
+         * about the versions they belong to
+         */
+        resolvedVersions.clear();
+        for(int i=0;i<row.size();i++){
+            DataCell cell=row.get(i);
+            long version=cell.version();
+            switch(cell.dataType()){
+                case COMMIT_TIMESTAMP:
+                    resolvedVersions.add(version);
+                    break;
+                case USER_DATA:
+                case TOMBSTONE:
+                case ANTI_TOMBSTONE:
+                    if(!resolvedVersions.contains(version)
+                            && (currentTxn==null || currentTxn.getTxnId()!=version)
+                            && !transactionStore.transactionCached(version))
+                        txnIds.add(version);
+                    break;
+                default:
+                    //foreign key counters are never checked
+            }
+        }
+    }
+
+    @Override
+    public void prefetchTransactions(LongHashSet txnIds) throws IOException{
+        if(txnIds.isEmpty()) return;
+        //the transactions land in our cache (or in the global one, if they are already done)
+        transactionStore.getTransactions(txnIds.toArray());
+    }
+
     @Override
     public DataCell produceAccumulatedResult(){
         return null;
@@ -29,6 +29,7 @@ import com.splicemachine.si.api.filter.TransactionReadController;
 import com.splicemachine.si.api.readresolve.AsyncReadResolver;
 import com.splicemachine.si.api.readresolve.KeyedReadResolver;
 import com.splicemachine.si.api.readresolve.ReadResolver;
+import com.splicemachine.si.api.readresolve.ReadResolverStatus;
 import com.splicemachine.si.api.readresolve.RollForward;
 import com.splicemachine.si.api.server.ClusterHealth;
 import com.splicemachine.si.api.server.TransactionalRegion;
@@ -218,6 +219,13 @@ public class SIDriver {
         return readResolver.getResolver(basePartition,getRollForward());
     }
 
+    /**
+     * @return the status of asynchronous read resolution, or null if it is disabled
+     */
+    public ReadResolverStatus getReadResolverStatus(){
+        return readResolver;
+    }
+
     public TxnLifecycleManager lifecycleManager(){
         return lifecycleManager;
     }
@@ -281,6 +289,8 @@ public class SIDriver {
         if(bufferSize<=0) return null;
         final AsyncReadResolver asyncReadResolver=new AsyncReadResolver(maxThreads,
                 bufferSize,
+                config.getReadResolverBatchSize(),
+                config.getReadResolverMaxRowsPerSecond(),
                 txnSupplier,
                 new RollForwardStatus(),
                 GreenLight.INSTANCE,keyedResolver);
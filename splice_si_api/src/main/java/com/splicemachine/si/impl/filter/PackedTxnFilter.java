@@ -14,6 +14,7 @@
 
 package com.splicemachine.si.impl.filter;
 
+import com.carrotsearch.hppc.LongHashSet;
 import com.splicemachine.si.api.filter.RowAccumulator;
 import com.splicemachine.si.api.filter.SIFilter;
 import com.splicemachine.si.api.filter.TxnFilter;
@@ -22,6 +23,7 @@ import com.splicemachine.storage.DataCell;
 import com.splicemachine.storage.DataFilter;
 
 import java.io.IOException;
+import java.util.List;
 
 public class PackedTxnFilter implements TxnFilter, SIFilter{
     private final TxnFilter simpleFilter;
@@ -109,6 +111,16 @@ public class PackedTxnFilter implements TxnFilter, SIFilter{
             return DataFilter.ReturnCode.SKIP;
     }
 
+    @Override
+    public void collectUnresolvedTransactions(List<DataCell> row,LongHashSet txnIds){
+        simpleFilter.collectUnresolvedTransactions(row,txnIds);
+    }
+
+    @Override
+    public void prefetchTransactions(LongHashSet txnIds) throws IOException{
+        simpleFilter.prefetchTransactions(txnIds);
+    }
+
     @Override
     public boolean getExcludeRow(){
         return excludeRow || lastValidCell==null;
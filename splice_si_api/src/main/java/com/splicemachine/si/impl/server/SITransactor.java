@@ -48,6 +48,7 @@ import org.spark_project.guava.collect.Maps;
 import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 
 /**
@@ -189,8 +190,12 @@ public class SITransactor implements Transactor{
              * 1 of 2 paths (bulk write pipeline and SIObserver). Since both of those will externally ensure that
              * the region can't close until after this method is complete, we don't need the calls.
              */
+            long start=System.nanoTime();
             IntObjectHashMap<DataPut> writes=checkConflictsForKvBatch(table,rollForwardQueue,lockPairs,
                     conflictingChildren,txn,family,qualifier,constraintChecker,constraintState,finalStatus,skipConflictDetection,skipWAL);
+            if(LOG.isTraceEnabled())
+                SpliceLogUtils.trace(LOG,"Checked %d rows of table %s for conflicts in %d us",
+                        mutations.size(),table.getTableName(),TimeUnit.NANOSECONDS.toMicros(System.nanoTime()-start));
 
             //TODO -sf- this can probably be made more efficient
             //convert into array for usefulness
@@ -241,8 +246,9 @@ public class SITransactor implements Transactor{
                                                                    MutationStatus[] finalStatus, boolean skipConflictDetection,
                                                                    boolean skipWAL) throws IOException {
         IntObjectHashMap<DataPut> finalMutationsToWrite = new IntObjectHashMap(dataAndLocks.length, 0.9f);
-        DataResult possibleConflicts = null;
+        DataResult possibleConflicts;
         BitSet bloomInMemoryCheck  = skipConflictDetection ? null : table.getBloomInMemoryCheck(constraintChecker!=null,dataAndLocks);
+        DataResult[] latestRows = skipConflictDetection ? null : getLatestForKvBatch(table,dataAndLocks,constraintChecker,bloomInMemoryCheck);
         for(int i=0;i<dataAndLocks.length;i++){
             Pair<KVPair, Lock> baseDataAndLock=dataAndLocks[i];
             if(baseDataAndLock==null) continue;
@@ -260,8 +266,7 @@ public class SITransactor implements Transactor{
                  * We know that this is the case because there is no constraint checker (constraint checkers are only
                  * applied on key elements.
                  */
-                //todo -sf remove the Row key copy here
-                possibleConflicts=bloomInMemoryCheck==null||bloomInMemoryCheck.get(i)?table.getLatest(kvPair.getRowKey(),possibleConflicts):null;
+                possibleConflicts=latestRows[i];
                 if(possibleConflicts!=null){
                     //we need to check for write conflicts
                     try {
@@ -296,6 +301,48 @@ public class SITransactor implements Transactor{
         return finalMutationsToWrite;
     }
 
+    /**
+     * Read the latest version of every row of the batch which needs a conflict (or constraint) check.
+     *
+     * Rather than reading each row on its own, the rows are sorted by key and read together, so that
+     * the partition can fetch them all in a single forward pass over its data.
+     *
+     * @return the latest version of each row, in the order of {@code dataAndLocks}. Rows which don't need
+     * to be checked have a {@code null} entry.
+     */
+    private DataResult[] getLatestForKvBatch(Partition table,
+                                             final Pair<KVPair, Lock>[] dataAndLocks,
+                                             ConstraintChecker constraintChecker,
+                                             BitSet bloomInMemoryCheck) throws IOException{
+        DataResult[] latestRows=new DataResult[dataAndLocks.length];
+        List<Integer> toRead=new ArrayList<>(dataAndLocks.length);
+        for(int i=0;i<dataAndLocks.length;i++){
+            Pair<KVPair, Lock> baseDataAndLock=dataAndLocks[i];
+            if(baseDataAndLock==null) continue;
+            //inserts into keyless tables are never checked, see checkConflictsForKvBatch
+            if(constraintChecker==null && KVPair.Type.INSERT.equals(baseDataAndLock.getFirst().getType())) continue;
+            if(bloomInMemoryCheck!=null && !bloomInMemoryCheck.get(i)) continue;
+            toRead.add(i);
+        }
+        if(toRead.isEmpty()) return latestRows;
+
+        Collections.sort(toRead,new Comparator<Integer>(){
+            @Override
+            public int compare(Integer o1,Integer o2){
+                return Bytes.BASE_COMPARATOR.compare(dataAndLocks[o1].getFirst().getRowKey(),dataAndLocks[o2].getFirst().getRowKey());
+            }
+        });
+        byte[][] sortedKeys=new byte[toRead.size()][];
+        for(int i=0;i<sortedKeys.length;i++){
+            sortedKeys[i]=dataAndLocks[toRead.get(i)].getFirst().getRowKey();
+        }
+        DataResult[] latest=table.getLatest(sortedKeys);
+        for(int i=0;i<latest.length;i++){
+            latestRows[toRead.get(i)]=latest[i];
+        }
+        return latestRows;
+    }
+
     private boolean applyConstraint(ConstraintChecker constraintChecker,
                                     TxnFilter constraintStateFilter,
                                     int rowPosition,
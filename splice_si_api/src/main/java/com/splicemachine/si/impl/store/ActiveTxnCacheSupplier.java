@@ -14,6 +14,7 @@
 
 package com.splicemachine.si.impl.store;
 
+import com.carrotsearch.hppc.LongArrayList;
 import com.splicemachine.collections.LongKeyedCache;
 import com.splicemachine.hash.HashFunctions;
 import com.splicemachine.si.api.txn.TaskId;
@@ -64,6 +65,31 @@ public class ActiveTxnCacheSupplier implements TxnSupplier {
         return txn;
     }
 
+    @Override
+    public TxnView[] getTransactions(long[] txnIds) throws IOException {
+        TxnView[] txns = new TxnView[txnIds.length];
+        LongArrayList missing = null;
+        for (int i = 0; i < txnIds.length; i++) {
+            txns[i] = cache.get(txnIds[i]);
+            if (txns[i] == null) {
+                if (missing == null) missing = new LongArrayList(txnIds.length - i);
+                missing.add(txnIds[i]);
+            }
+        }
+        if (missing == null) return txns;
+
+        //fetch everything we don't have in one go from the delegate
+        TxnView[] fetched = delegate.getTransactions(missing.toArray());
+        for (int i = 0, next = 0; i < txns.length; i++) {
+            if (txns[i] != null) continue;
+            TxnView txn = fetched[next++];
+            if (txn != null && txn.getEffectiveState() == Txn.State.ACTIVE)
+                this.cache.put(txnIds[i], txn);
+            txns[i] = txn;
+        }
+        return txns;
+    }
+
     @Override
     public boolean transactionCached(long txnId) {
         return cache.get(txnId) != null ? true : delegate.transactionCached(txnId);
@@ -14,7 +14,7 @@
 
 package com.splicemachine.si.impl.store;
 
-import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+import com.carrotsearch.hppc.LongArrayList;
 import com.splicemachine.si.api.txn.TaskId;
 import com.splicemachine.si.api.txn.Txn;
 import com.splicemachine.si.api.txn.TxnSupplier;
@@ -22,33 +22,66 @@ import com.splicemachine.si.api.txn.TxnView;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import java.io.IOException;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
 
 /**
  * TxnSupplier which caches transaction which have "Completed"--i.e. which have entered the COMMITTED or ROLLEDBACK
  * state.
  * <p/>
  * This class is thread-safe, and safe to be shared between many threads.
+ * <p/>
+ * The cache is split into a power-of-two number of segments, each of which is an open-addressing table keyed
+ * directly by the primitive transaction id (so lookups neither box the id nor allocate map entries). Lookups
+ * are optimistic reads which only take the segment lock if they race with a writer, and a full segment evicts
+ * with the CLOCK (second chance) algorithm, so that frequently read transactions stay cached.
  *
  * @author Scott Fines
  *         Date: 6/18/14
  */
 public class CompletedTxnCacheSupplier implements TxnSupplier{
-    private ConcurrentLinkedHashMap<Long, TxnView> cache; // autobox for now
+    private final Segment[] segments;
+    private final int segmentShift;
+    private final int maxSize;
     private final TxnSupplier delegate;
-    private final AtomicLong hits=new AtomicLong();
-    private final AtomicLong requests=new AtomicLong();
+    private final LongAdder hits=new LongAdder();
+    private final LongAdder requests=new LongAdder();
 
     public CompletedTxnCacheSupplier(TxnSupplier delegate,int maxSize,int concurrencyLevel){
-        cache=new ConcurrentLinkedHashMap.Builder<Long, TxnView>()
-                .maximumWeightedCapacity(maxSize)
-                .concurrencyLevel(concurrencyLevel)
-                .build();
+        int numSegments=1;
+        int shift=0;
+        while(numSegments<concurrencyLevel && numSegments<(1<<16)){
+            numSegments<<=1;
+            shift++;
+        }
+        int segmentCapacity=Math.max(1,(maxSize+numSegments-1)/numSegments);
+        this.segments=new Segment[numSegments];
+        for(int i=0;i<numSegments;i++){
+            segments[i]=new Segment(segmentCapacity);
+        }
+        this.segmentShift=32-shift;
+        this.maxSize=segmentCapacity*numSegments;
         this.delegate=delegate;
     }
 
     public int getMaxSize(){
-        return cache.size();
+        return maxSize;
+    }
+
+    public int size(){
+        int size=0;
+        for(Segment segment:segments){
+            size+=segment.size();
+        }
+        return size;
+    }
+
+    public long getHitCount(){
+        return hits.sum();
+    }
+
+    public long getRequestCount(){
+        return requests.sum();
     }
 
     @Override
@@ -63,10 +96,10 @@ public class CompletedTxnCacheSupplier implements TxnSupplier{
     public TxnView getTransaction(long txnId,boolean getDestinationTables) throws IOException{
         if(txnId==-1)
             return Txn.ROOT_TRANSACTION;
-        requests.incrementAndGet();
-        TxnView txn=cache.get(txnId); // autobox until Cliff C merge
+        requests.increment();
+        TxnView txn=segmentFor(txnId).get(txnId);
         if(txn!=null){
-            hits.incrementAndGet();
+            hits.increment();
             return txn;
         }
         //bummer, we aren't in the cache, need to check the delegate
@@ -77,28 +110,66 @@ public class CompletedTxnCacheSupplier implements TxnSupplier{
         switch(transaction.getEffectiveState()){
             case COMMITTED:
             case ROLLEDBACK:
-                cache.put(transaction.getTxnId(),transaction); // Cache for Future Use
+                put(transaction); // Cache for Future Use
         }
         return transaction;
     }
 
+    @Override
+    @SuppressFBWarnings("SF_SWITCH_NO_DEFAULT") //intentional
+    public TxnView[] getTransactions(long[] txnIds) throws IOException{
+        TxnView[] txns=new TxnView[txnIds.length];
+        LongArrayList missing=null;
+        for(int i=0;i<txnIds.length;i++){
+            long txnId=txnIds[i];
+            if(txnId==-1){
+                txns[i]=Txn.ROOT_TRANSACTION;
+                continue;
+            }
+            requests.increment();
+            txns[i]=segmentFor(txnId).get(txnId);
+            if(txns[i]!=null)
+                hits.increment();
+            else{
+                if(missing==null) missing=new LongArrayList(txnIds.length-i);
+                missing.add(txnId);
+            }
+        }
+        if(missing==null) return txns;
+
+        //look up everything which isn't cached in a single call to the delegate
+        TxnView[] fetched=delegate.getTransactions(missing.toArray());
+        for(int i=0,next=0;i<txns.length;i++){
+            if(txns[i]!=null) continue;
+            TxnView transaction=fetched[next++];
+            txns[i]=transaction;
+            if(transaction==null) continue;
+            switch(transaction.getEffectiveState()){
+                case COMMITTED:
+                case ROLLEDBACK:
+                    put(transaction);
+            }
+        }
+        return txns;
+    }
+
     @Override
     public boolean transactionCached(long txnId){
-        return cache.get(txnId)!=null;
+        return segmentFor(txnId).get(txnId)!=null;
     }
 
     @Override
     public void cache(TxnView toCache){
         if(toCache.getState()==Txn.State.ACTIVE) return; //cannot cache incomplete transactions
-        cache.put(toCache.getTxnId(),toCache);
+        put(toCache);
     }
 
     @Override
     public TxnView getTransactionFromCache(long txnId){
-        requests.incrementAndGet();
-        TxnView txn=cache.get(txnId);
+        requests.increment();
+        TxnView txn=segmentFor(txnId).get(txnId);
         if(txn!=null)
-            hits.incrementAndGet();
+            hits.increment();
         return txn;
     }
 
@@ -106,4 +177,149 @@ public class CompletedTxnCacheSupplier implements TxnSupplier{
     public TaskId getTaskId(long txnId) throws IOException {
         return delegate.getTaskId(txnId);
     }
+
+    /* ****************************************************************************************************************/
+    /*private helper methods*/
+
+    private void put(TxnView txn){
+        long txnId=txn.getTxnId();
+        segmentFor(txnId).put(txnId,txn);
+    }
+
+    private Segment segmentFor(long txnId){
+        return segments[segmentShift==32?0:hash(txnId)>>>segmentShift];
+    }
+
+    private static int hash(long txnId){
+        //transaction ids are spaced by a fixed increment, so spread the bits before picking a segment or slot
+        long h=txnId*0x9E3779B97F4A7C15L;
+        return (int)(h^(h>>>32));
+    }
+
+    /**
+     * One stripe of the cache: a linear-probing table of primitive keys with a parallel array of views
+     * (a null view marks an empty slot) and a reference bit per slot for CLOCK eviction.
+     *
+     * The table is kept at most half full, and entries are removed by shifting the following entries
+     * of the probe sequence back, so there are no tombstones.
+     */
+    private static class Segment{
+        private final StampedLock lock=new StampedLock();
+        private final int capacity;
+        private final int mask;
+        private final long[] keys;
+        private final TxnView[] values;
+        private final boolean[] referenced;
+        private int size;
+        private int clockHand;
+
+        Segment(int capacity){
+            this.capacity=capacity;
+            int tableSize=Integer.highestOneBit(Math.max(2,capacity*2-1))<<1;
+            this.mask=tableSize-1;
+            this.keys=new long[tableSize];
+            this.values=new TxnView[tableSize];
+            this.referenced=new boolean[tableSize];
+        }
+
+        TxnView get(long txnId){
+            long stamp=lock.tryOptimisticRead();
+            TxnView found=find(txnId);
+            if(!lock.validate(stamp)){
+                stamp=lock.readLock();
+                try{
+                    found=find(txnId);
+                }finally{
+                    lock.unlockRead(stamp);
+                }
+            }
+            return found;
+        }
+
+        int size(){
+            long stamp=lock.readLock();
+            try{
+                return size;
+            }finally{
+                lock.unlockRead(stamp);
+            }
+        }
+
+        void put(long txnId,TxnView txn){
+            long stamp=lock.writeLock();
+            try{
+                int slot=hash(txnId)&mask;
+                while(values[slot]!=null){
+                    if(keys[slot]==txnId){
+                        values[slot]=txn;
+                        return;
+                    }
+                    slot=(slot+1)&mask;
+                }
+                if(size==capacity){
+                    evict();
+                    // eviction may have shifted entries into the probe sequence, so look for the free slot again
+                    slot=hash(txnId)&mask;
+                    while(values[slot]!=null)
+                        slot=(slot+1)&mask;
+                }
+                keys[slot]=txnId;
+                values[slot]=txn;
+                referenced[slot]=false;
+                size++;
+            }finally{
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private TxnView find(long txnId){
+            int slot=hash(txnId)&mask;
+            //bound the probe, in case an optimistic read sees the table mid-update
+            for(int i=0;i<=mask;i++){
+                TxnView value=values[slot];
+                if(value==null)
+                    return null;
+                if(keys[slot]==txnId){
+                    referenced[slot]=true; //racy, but a lost update only costs the entry its second chance
+                    return value;
+                }
+                slot=(slot+1)&mask;
+            }
+            return null;
+        }
+
+        private void evict(){
+            while(true){
+                int slot=clockHand;
+                clockHand=(clockHand+1)&mask;
+                if(values[slot]==null)
+                    continue;
+                if(referenced[slot]){
+                    referenced[slot]=false;
+                    continue;
+                }
+                remove(slot);
+                return;
+            }
+        }
+
+        private void remove(int slot){
+            values[slot]=null;
+            size--;
+            int empty=slot;
+            int next=(slot+1)&mask;
+            while(values[next]!=null){
+                int home=hash(keys[next])&mask;
+                //move the entry back if the empty slot lies between its home slot and its current slot
+                if(((next-home)&mask)>=((next-empty)&mask)){
+                    keys[empty]=keys[next];
+                    values[empty]=values[next];
+                    referenced[empty]=referenced[next];
+                    values[next]=null;
+                    empty=next;
+                }
+                next=(next+1)&mask;
+            }
+        }
+    }
 }
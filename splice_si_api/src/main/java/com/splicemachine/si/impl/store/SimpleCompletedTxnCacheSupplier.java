@@ -14,6 +14,7 @@
 
 package com.splicemachine.si.impl.store;
 
+import com.carrotsearch.hppc.LongArrayList;
 import com.splicemachine.si.api.txn.TaskId;
 import com.splicemachine.si.api.txn.TxnSupplier;
 import com.splicemachine.si.api.txn.TxnView;
@@ -58,6 +59,29 @@ public class SimpleCompletedTxnCacheSupplier implements TxnSupplier{
         }
     }
 
+    @Override
+    public TxnView[] getTransactions(long[] txnIds) throws IOException {
+        TxnView[] txns = new TxnView[txnIds.length];
+        LongArrayList missing = null;
+        for (int i = 0; i < txnIds.length; i++) {
+            txns[i] = cache.getIfPresent(txnIds[i]);
+            if (txns[i] == null) {
+                if (missing == null) missing = new LongArrayList(txnIds.length - i);
+                missing.add(txnIds[i]);
+            }
+        }
+        if (missing == null) return txns;
+
+        TxnView[] fetched = delegate.getTransactions(missing.toArray());
+        for (int i = 0, next = 0; i < txns.length; i++) {
+            if (txns[i] != null) continue;
+            txns[i] = fetched[next++];
+            if (txns[i] != null)
+                cache.put(txnIds[i], txns[i]);
+        }
+        return txns;
+    }
+
     @Override
     public boolean transactionCached(long txnId) {
         return getTransactionFromCache(txnId)!=null;
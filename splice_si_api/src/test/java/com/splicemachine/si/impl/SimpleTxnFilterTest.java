@@ -14,6 +14,7 @@
 
 package com.splicemachine.si.impl;
 
+import com.carrotsearch.hppc.LongHashSet;
 import com.splicemachine.access.api.PartitionFactory;
 import com.splicemachine.concurrent.IncrementingClock;
 import com.splicemachine.encoding.Encoding;
@@ -48,6 +49,8 @@ import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyLong;
@@ -132,6 +135,62 @@ public class SimpleTxnFilterTest{
     }
 
 
+    @Test
+    public void testPrefetchLooksUpUnknownTransactionsTogether() throws Exception{
+        final boolean[] prefetched=new boolean[]{false};
+        final int[] batches=new int[]{0};
+        TimestampSource tss=new TestingTimestampSource();
+        TxnStore store=new TestingTxnStore(new IncrementingClock(),tss,exceptionFactory,Long.MAX_VALUE){
+            @Override
+            public Txn getTransaction(long txnId,boolean getDestinationTables) throws IOException{
+                Assert.assertFalse("Transaction "+txnId+" should have been prefetched!",prefetched[0]);
+                return super.getTransaction(txnId,getDestinationTables);
+            }
+
+            @Override
+            public TxnView[] getTransactions(long[] txnIds) throws IOException{
+                batches[0]++;
+                return super.getTransactions(txnIds);
+            }
+        };
+        ClientTxnLifecycleManager lifecycleManager=new ClientTxnLifecycleManager(tss,exceptionFactory);
+        lifecycleManager.setTxnStore(store);
+        lifecycleManager.setKeepAliveScheduler(new ManualKeepAliveScheduler(store));
+
+        Txn resolved=lifecycleManager.beginTransaction(Bytes.toBytes("hello"));
+        resolved.commit();
+        Txn committed=lifecycleManager.beginTransaction(Bytes.toBytes("hello"));
+        committed.commit();
+        Txn rolledBack=lifecycleManager.beginTransaction(Bytes.toBytes("hello"));
+        rolledBack.rollback();
+        Txn active=lifecycleManager.beginTransaction(Bytes.toBytes("hello"));
+        Txn myTxn=lifecycleManager.beginTransaction();
+
+        SimpleTxnFilter filter=new SimpleTxnFilter(null,myTxn,NoOpReadResolver.INSTANCE,new CompletedTxnCacheSupplier(store,1024,4));
+
+        DataPut resolvedPut=operationFactory.newDataPut(resolved,Encoding.encode("1"));
+        resolvedPut.addCell(SIConstants.DEFAULT_FAMILY_BYTES,SIConstants.SNAPSHOT_ISOLATION_COMMIT_TIMESTAMP_COLUMN_BYTES,
+                resolved.getBeginTimestamp(),Bytes.toBytes(resolved.getCommitTimestamp()));
+        DataCell commitCell=resolvedPut.cells().iterator().next();
+
+        LongHashSet unresolved=new LongHashSet();
+        filter.collectUnresolvedTransactions(Arrays.asList(commitCell,getUserCell(resolved)),unresolved);
+        filter.collectUnresolvedTransactions(Collections.singletonList(getUserCell(committed)),unresolved);
+        filter.collectUnresolvedTransactions(Arrays.asList(getUserCell(rolledBack),getUserCell(active)),unresolved);
+        Assert.assertEquals("Incorrect number of unresolved transactions!",3,unresolved.size());
+        Assert.assertFalse("Transaction with a commit timestamp should not be looked up!",unresolved.contains(resolved.getTxnId()));
+
+        filter.prefetchTransactions(unresolved);
+        prefetched[0]=true;
+        Assert.assertEquals("Transactions were not looked up together!",1,batches[0]);
+
+        Assert.assertEquals("Incorrect return code for committed data!",DataFilter.ReturnCode.INCLUDE,filter.filterCell(getUserCell(committed)));
+        filter.nextRow();
+        Assert.assertEquals("Incorrect return code for rolled back data!",DataFilter.ReturnCode.SKIP,filter.filterCell(getUserCell(rolledBack)));
+        filter.nextRow();
+        Assert.assertEquals("Incorrect return code for active data!",DataFilter.ReturnCode.SKIP,filter.filterCell(getUserCell(active)));
+    }
+
 	/*Tests that Read-Resolution doesn't happen with active transactions*/
 
     @Test
@@ -16,6 +16,7 @@ package com.splicemachine.si.impl.store;
 
 import com.splicemachine.concurrent.IncrementingClock;
 import com.splicemachine.si.api.txn.*;
+import com.splicemachine.si.impl.txn.CommittedTxn;
 import com.splicemachine.si.impl.txn.WritableTxn;
 import com.splicemachine.si.testenv.ArchitectureIndependent;
 import org.junit.Assert;
@@ -159,4 +160,41 @@ public class CompletedTxnCacheSupplierTest{
         TxnView fromCache=store.getTransaction(txn.getTxnId());
         assertTxnsMatch("Transaction from store is not correct!",txn,fromCache);
     }
+
+    @Test
+    public void testEvictionKeepsRecentlyReadTransactions() throws Exception{
+        CompletedTxnCacheSupplier store=new CompletedTxnCacheSupplier(null,4,1);
+        for(long i=1;i<=4;i++){
+            store.cache(new CommittedTxn(i*0x100l,i*0x100l+1));
+        }
+        Assert.assertNotNull("Transaction not cached!",store.getTransactionFromCache(0x100l));
+
+        store.cache(new CommittedTxn(0x500l,0x501l));
+        Assert.assertEquals("Cache grew beyond its capacity!",4,store.size());
+        Assert.assertTrue("Recently read transaction was evicted!",store.transactionCached(0x100l));
+        Assert.assertTrue("New transaction was not cached!",store.transactionCached(0x500l));
+        int remaining=0;
+        for(long i=2;i<=4;i++){
+            if(store.transactionCached(i*0x100l))
+                remaining++;
+        }
+        Assert.assertEquals("Wrong number of transactions evicted!",2,remaining);
+        Assert.assertEquals(1,store.getHitCount());
+        Assert.assertEquals(1,store.getRequestCount());
+    }
+
+    @Test
+    public void testStaysWithinCapacityAcrossSegments() throws Exception{
+        CompletedTxnCacheSupplier store=new CompletedTxnCacheSupplier(null,100,16);
+        for(long i=1;i<=10000;i++){
+            store.cache(new CommittedTxn(i*0x100l,i*0x100l+1));
+            Assert.assertTrue("Transaction was not cached!",store.transactionCached(i*0x100l));
+        }
+        Assert.assertTrue("Cache grew beyond its capacity!",store.size()<=store.getMaxSize());
+        for(long i=1;i<=10000;i++){
+            TxnView txn=store.getTransactionFromCache(i*0x100l);
+            if(txn!=null)
+                Assert.assertEquals("Wrong transaction returned!",i*0x100l,txn.getTxnId());
+        }
+    }
 }
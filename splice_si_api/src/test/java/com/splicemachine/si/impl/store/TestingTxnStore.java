@@ -78,6 +78,15 @@ public class TestingTxnStore implements TxnStore{
         return getTransaction(txnId);
     }
 
+    @Override
+    public TxnView[] getTransactions(long[] txnIds) throws IOException{
+        TxnView[] txns=new TxnView[txnIds.length];
+        for(int i=0;i<txnIds.length;i++){
+            txns[i]=getTransaction(txnIds[i]);
+        }
+        return txns;
+    }
+
 
     @Override
     public boolean transactionCached(long txnId){
@@ -256,6 +265,20 @@ public class TestingTxnStore implements TxnStore{
         return true;
     }
 
+    @Override
+    public long[] keepAlive(long[] txnIds,LongHashSet timedOut) throws IOException{
+        LongArrayList active=new LongArrayList(txnIds.length);
+        for(long txnId:txnIds){
+            try{
+                if(keepAlive(txnId))
+                    active.add(txnId);
+            }catch(IOException timeout){
+                timedOut.add(txnId);
+            }
+        }
+        return active.toArray();
+    }
+
     //		@Override
     public void timeout(long txnId) throws IOException{
         rollback(txnId);
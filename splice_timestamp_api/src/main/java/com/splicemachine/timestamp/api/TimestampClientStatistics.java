@@ -29,5 +29,17 @@ public interface TimestampClientStatistics{
 	long getNumberTimestampRequests();
 	
  	double getAvgTimestampRequestDuration();
+
+	/**
+	 * Returns the number of range requests sent to the timestamp server,
+	 * each of which serves one or more timestamp requests.
+	 */
+	long getNumberTimestampBatches();
+
+	/**
+	 * Returns the average number of timestamp requests served by a single
+	 * request to the timestamp server.
+	 */
+	double getAvgTimestampBatchSize();
 	
 }
@@ -16,6 +16,10 @@ package com.splicemachine.timestamp.impl;
 
 import java.lang.management.ManagementFactory;
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -48,6 +52,18 @@ import org.apache.log4j.Logger;
  * For the caller, the invocation of {@link #getNextTimestamp()}
  * is synchronous.
  * <p>
+ * Callers which arrive while the maximum number of requests is already in
+ * flight are queued, and the queue is sent to the server as a single request
+ * for a contiguous range of timestamps, one for each queued caller. The range
+ * is allocated by the server after every caller in it has asked for a timestamp
+ * and before any of them is answered, so coalescing does not weaken the
+ * ordering guarantees of individual requests. Ranges are never kept around for
+ * later callers.
+ * <p>
+ * Range requests are only sent once the server acknowledged the handshake which starts
+ * every connection (see {@link TimestampRequestDecoder}). Servers of earlier releases
+ * answer the handshake with plain timestamps, and only ever get single requests.
+ * <p>
  * This class should generally not be constructed directly.
  *
  * @author Walt Koetke
@@ -59,6 +75,11 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
 
     private static final short CLIENT_COUNTER_INIT = 100; // actual value doesn't matter
 
+    private static final int DEFAULT_MAX_BATCH_SIZE = 1024;
+    private static final int DEFAULT_MAX_IN_FLIGHT = 2;
+    private static final int MAX_BATCH_SIZE = 0xFFFF; // the count is sent as an unsigned short
+    private static final int HELLO_LENGTH = 2 * TimestampServer.FIXED_MSG_RECEIVED_LENGTH;
+
     /**
      * Fixed number of bytes in the message we expect to receive back from the server.
      */
@@ -69,15 +90,30 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
     }
 
     /**
-     * A map representing all currently active callers to this TimestampClient
+     * A map representing all currently active requests to the server
      * waiting for their response.
      */
     private ConcurrentMap<Short, Callback> clientCallbacks = null;
 
+    /**
+     * Callers waiting to be included in the next request to the server.
+     */
+    private final Queue<ClientCallback> pendingCallers = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Number of requests which have been sent (or are being sent) but not answered yet.
+     */
+    private final AtomicInteger requestsInFlight = new AtomicInteger(0);
+
     private final AtomicReference<State> state = new AtomicReference<>(State.DISCONNECTED);
 
     private ClientBootstrap bootstrap;
     private volatile Channel channel;
+
+    /**
+     * Whether the server of the current connection acknowledged that it accepts range requests.
+     */
+    private volatile boolean batchRequestsAccepted;
     private NioClientSocketChannelFactory factory;
 
     /**
@@ -91,18 +127,33 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
     // but use a short just in case.
     private AtomicInteger clientCallCounter = new AtomicInteger(CLIENT_COUNTER_INIT);
 
+    /**
+     * Identifies callers in log messages only.
+     */
+    private AtomicInteger callerCounter = new AtomicInteger(CLIENT_COUNTER_INIT);
+
     int timeoutMillis;
+    private final int maxBatchSize;
+    private final int maxInFlight;
 
     // Metrics to expose via JMX. See TimestampClientStatistics
     // for solid definitions of each metric.
     private AtomicLong numRequests = new AtomicLong(0);
     private AtomicLong totalRequestDuration = new AtomicLong(0);
+    private AtomicLong numBatches = new AtomicLong(0);
+    private AtomicLong numBatchedTimestamps = new AtomicLong(0);
     private TimestampHostProvider timestampHostProvider;
 
 
     public TimestampClient(int timeoutMillis,TimestampHostProvider timestampHostProvider) {
+        this(timeoutMillis,timestampHostProvider,DEFAULT_MAX_BATCH_SIZE,DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    public TimestampClient(int timeoutMillis,TimestampHostProvider timestampHostProvider,int maxBatchSize,int maxInFlight) {
         this.timeoutMillis = timeoutMillis;
         this.timestampHostProvider = timestampHostProvider;
+        this.maxBatchSize = Math.max(1, Math.min(maxBatchSize, MAX_BATCH_SIZE));
+        this.maxInFlight = Math.max(1, maxInFlight);
         clientCallbacks = new ConcurrentHashMap<>();
 
         ExecutorService workerExecutor = Executors.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat("timestampClient-worker-%d").setDaemon(true).build());
@@ -186,6 +237,9 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
             futureConnect.addListener(new ChannelFutureListener() {
                                           public void operationComplete(ChannelFuture cf) throws Exception {
                                               if (cf.isSuccess()) {
+                                                  // greet the server before any request can be written
+                                                  batchRequestsAccepted = false;
+                                                  writeHello(cf.getChannel());
                                                   channel = cf.getChannel();
                                                   latchConnect.countDown();
                                               } else {
@@ -219,57 +273,36 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
 
         connectIfNeeded();
 
-        short clientCallId = (short) clientCallCounter.getAndIncrement();
-        final ClientCallback callback = new ClientCallback(clientCallId);
-        SpliceLogUtils.debug(LOG, "Starting new client call with id %s", clientCallId);
+        final ClientCallback callback = new ClientCallback((short) callerCounter.getAndIncrement());
+        SpliceLogUtils.debug(LOG, "Starting new client call with id %s", callback.getCallerId());
 
-        // Add this caller (id and callback) to the map of current clients.
-        // If an entry was already present for this caller id, that is a bug,
-        // so throw an exception.
-        if (clientCallbacks.putIfAbsent(clientCallId, callback) != null) {
-            doClientErrorThrow(LOG, "Found existing client callback with caller id %s, so unable to handle new call.", null, clientCallId);
-        }
+        pendingCallers.add(callback);
+        sendPendingCallers();
 
-        try {
-            ChannelBuffer buffer = ChannelBuffers.buffer(2);
-            buffer.writeShort(clientCallId);
-            SpliceLogUtils.trace(LOG, "Writing request message to server for client: %s", callback);
-            if(channel == null) {
-                throw new TimestampIOException("Unable to connect to TimestampServer");
-            }
-            ChannelFuture futureWrite = channel.write(buffer);
-            futureWrite.addListener(new ChannelFutureListener() {
-                @Override
-                public void operationComplete(ChannelFuture future) throws Exception {
-                    if (!future.isSuccess()) {
-                        doClientErrorThrow(LOG, "Error writing message from timestamp client to server", future.getCause());
-                    } else {
-                        SpliceLogUtils.trace(LOG, "Request sent. Waiting for response for client: %s", callback);
-                    }
-                }
-            });
-        } catch (Exception e) { // Correct to catch all Exceptions in this case so we can remove client call
-            clientCallbacks.remove(clientCallId);
-            callback.error(e);
-            doClientErrorThrow(LOG, "Exception writing message to timestamp server for client: %s", e, callback);
-        }
-
-        // If we get here, request was successfully sent without exception.
-        // However, we might not have received response yet, so we need to
-        // wait for that now.
+        // We might not have received response yet (or even sent the request, if other
+        // requests are in flight), so we need to wait for that now.
 
         try {
             boolean success = callback.await(timeoutMillis);
             if (!success) {
-                // We timed out, close the channel so that the next request recreates the connection
-                channel.close();
-                
+                if (!pendingCallers.remove(callback)) {
+                    // We timed out waiting for the server, close the channel so that the next request recreates the connection
+                    Channel c = channel;
+                    if (c != null)
+                        c.close();
+                }
+
                 doClientErrorThrow(LOG, "Client timed out after %s ms waiting for new timestamp: %s", null, timeoutMillis, callback);
             }
         } catch (InterruptedException e) {
+            pendingCallers.remove(callback);
             doClientErrorThrow(LOG, "Interrupted waiting for timestamp client: %s", e, callback);
         }
 
+        if (callback.getException() != null) {
+            doClientErrorThrow(LOG, "Exception requesting timestamp for client: %s", callback.getException(), callback);
+        }
+
         // If we get here, it should mean the client received the response with the timestamp,
         // which we can fetch now from the callback and send it back to the caller.
 
@@ -287,6 +320,105 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
         return timestamp;
     }
 
+    /**
+     * Send the queued callers to the server, as long as fewer than {@code maxInFlight} requests are outstanding.
+     * Whoever frees up a request slot (a caller or a server response) calls this again, so queued callers
+     * are never left behind.
+     */
+    private void sendPendingCallers() {
+        while (!pendingCallers.isEmpty()) {
+            int inFlight = requestsInFlight.get();
+            if (inFlight >= maxInFlight)
+                return;
+            if (!requestsInFlight.compareAndSet(inFlight, inFlight + 1))
+                continue;
+
+            int batchSize = batchRequestsAccepted ? maxBatchSize : 1;
+            List<ClientCallback> callers = new ArrayList<>(Math.min(batchSize, 16));
+            ClientCallback caller;
+            while (callers.size() < batchSize && (caller = pendingCallers.poll()) != null) {
+                callers.add(caller);
+            }
+            if (callers.isEmpty()) {
+                // someone else took them, give back the slot and check again
+                requestsInFlight.decrementAndGet();
+                continue;
+            }
+            sendRequest(new BatchCallback(nextClientCallId(), callers));
+        }
+    }
+
+    private short nextClientCallId() {
+        short clientCallId;
+        do {
+            clientCallId = (short) clientCallCounter.getAndIncrement();
+        } while (TimestampServer.isReservedCallerId(clientCallId));
+        return clientCallId;
+    }
+
+    private void writeHello(Channel c) {
+        ChannelBuffer buffer = ChannelBuffers.buffer(HELLO_LENGTH);
+        buffer.writeShort(TimestampServer.HELLO_CALLER_ID);
+        buffer.writeShort(TimestampServer.BATCH_HELLO_CALLER_ID);
+        SpliceLogUtils.trace(LOG, "Writing hello message to server");
+        c.write(buffer);
+    }
+
+    private void sendRequest(final BatchCallback batch) {
+        final short clientCallId = batch.getCallerId();
+
+        // Add this request (id and callback) to the map of current requests.
+        // If an entry was already present for this id, we have wrapped around
+        // while the old request is still outstanding, so fail the new one.
+        if (clientCallbacks.putIfAbsent(clientCallId, batch) != null) {
+            requestsInFlight.decrementAndGet();
+            batch.error(new TimestampIOException(String.format(
+                    "Found existing client callback with caller id %s, so unable to handle new call.", clientCallId)));
+            return;
+        }
+
+        try {
+            ChannelBuffer buffer;
+            if (batch.size() == 1) {
+                buffer = ChannelBuffers.buffer(TimestampServer.FIXED_MSG_RECEIVED_LENGTH);
+                buffer.writeShort(clientCallId);
+            } else {
+                buffer = ChannelBuffers.buffer(TimestampServer.BATCH_MSG_RECEIVED_LENGTH);
+                buffer.writeShort(TimestampServer.BATCH_REQUEST_MARKER);
+                buffer.writeShort(clientCallId);
+                buffer.writeShort(batch.size());
+            }
+            SpliceLogUtils.trace(LOG, "Writing request message to server for client: %s", batch);
+            Channel c = channel;
+            if (c == null) {
+                throw new TimestampIOException("Unable to connect to TimestampServer");
+            }
+            ChannelFuture futureWrite = c.write(buffer);
+            futureWrite.addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) throws Exception {
+                    if (!future.isSuccess()) {
+                        failRequest(clientCallId, batch, new TimestampIOException(
+                                "Error writing message from timestamp client to server", future.getCause()));
+                    } else {
+                        SpliceLogUtils.trace(LOG, "Request sent. Waiting for response for client: %s", batch);
+                    }
+                }
+            });
+        } catch (Exception e) { // Correct to catch all Exceptions in this case so we can remove client call
+            SpliceLogUtils.error(LOG, "Exception writing message to timestamp server for client: %s", e, batch);
+            failRequest(clientCallId, batch, e);
+        }
+    }
+
+    private void failRequest(short clientCallId, Callback callback, Exception e) {
+        if (clientCallbacks.remove(clientCallId, callback)) {
+            callback.error(e);
+            requestsInFlight.decrementAndGet();
+            sendPendingCallers();
+        }
+    }
+
     @Override
     public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
         ChannelBuffer buf = (ChannelBuffer) e.getMessage();
@@ -297,20 +429,38 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
         ensureReadableBytes(buf, 8);
 
         long timestamp = buf.readLong();
-        assert (timestamp > 0);
         ensureReadableBytes(buf, 0);
 
+        if (clientCallerId == TimestampServer.HELLO_CALLER_ID) {
+            SpliceLogUtils.trace(LOG, "Hello answered by server");
+            super.messageReceived(ctx, e);
+            return;
+        }
+        if (clientCallerId == TimestampServer.BATCH_HELLO_CALLER_ID) {
+            batchRequestsAccepted = timestamp == TimestampServer.BATCH_ACKNOWLEDGEMENT;
+            SpliceLogUtils.info(LOG, "Server %s range requests", batchRequestsAccepted ? "accepts" : "does not accept");
+            // callers may have queued up behind the single requests
+            sendPendingCallers();
+            super.messageReceived(ctx, e);
+            return;
+        }
+        assert (timestamp > 0);
+
         SpliceLogUtils.debug(LOG, "Response from server: clientCallerId = %s, timestamp = %s", clientCallerId, timestamp);
         Callback cb = clientCallbacks.remove(clientCallerId);
         if (cb == null) {
             doClientErrorThrow(LOG, "Client callback with id %s not found, so unable to deliver timestamp %s", null, clientCallerId, timestamp);
         }
 
-        // This releases the latch the original client thread is waiting for
-        // (to provide the synchronous behavior for that caller) and also
-        // provides the timestamp.
+        // This releases the latches the original client threads are waiting for
+        // (to provide the synchronous behavior for those callers) and also
+        // provides the timestamps.
         cb.complete(timestamp);
 
+        // The response freed up a request slot, so send whoever queued up in the meantime
+        requestsInFlight.decrementAndGet();
+        sendPendingCallers();
+
         super.messageReceived(ctx, e);
     }
 
@@ -319,6 +469,7 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
         SpliceLogUtils.info(LOG, "Successfully connected to server");
         channel = e.getChannel();
         state.set(State.CONNECTED);
+        sendPendingCallers();
         super.channelConnected(ctx, e);
     }
 
@@ -330,8 +481,14 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
             State s = state.get();
             if(s==State.SHUTDOWN) return; //ignore shut down errors
             channel=null;
+            batchRequestsAccepted=false;
             shouldContinue = !state.compareAndSet(s,State.DISCONNECTED);
         }while(shouldContinue);
+        // Responses to outstanding requests will never arrive, fail them instead of waiting for the timeout
+        for(Map.Entry<Short, Callback> outstanding : clientCallbacks.entrySet()){
+            failRequest(outstanding.getKey(), outstanding.getValue(),
+                    new TimestampIOException("TimestampClient was disconnected from the server"));
+        }
         connectIfNeeded();
     }
 
@@ -363,6 +520,18 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
         return a / b;
     }
 
+    @Override
+    public long getNumberTimestampBatches() {
+        return numBatches.get();
+    }
+
+    @Override
+    public double getAvgTimestampBatchSize() {
+        double a = (double) numBatchedTimestamps.get();
+        double b = (double) numBatches.get();
+        return a / b;
+    }
+
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, ExceptionEvent e) throws Exception {
         if(state.get() != State.SHUTDOWN) {
@@ -370,6 +539,50 @@ public class TimestampClient extends TimestampBaseHandler implements TimestampCl
         }
     }
 
+    /**
+     * The callback for a single request to the server, which hands out the range of timestamps
+     * in the response to the callers that were coalesced into the request.
+     */
+    private class BatchCallback implements Callback {
+        private final short callerId;
+        private final List<ClientCallback> callers;
+
+        BatchCallback(short callerId, List<ClientCallback> callers) {
+            this.callerId = callerId;
+            this.callers = callers;
+        }
+
+        short getCallerId() {
+            return callerId;
+        }
+
+        int size() {
+            return callers.size();
+        }
+
+        @Override
+        public void error(Exception e) {
+            for (ClientCallback caller : callers) {
+                caller.error(e);
+            }
+        }
+
+        @Override
+        public void complete(long timestamp) {
+            numBatches.incrementAndGet();
+            numBatchedTimestamps.addAndGet(callers.size());
+            for (ClientCallback caller : callers) {
+                caller.complete(timestamp);
+                timestamp += TimestampOracle.TIMESTAMP_INCREMENT;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Request (callerId = " + callerId + ", callers = " + callers.size() + ")";
+        }
+    }
+
     public static void doClientErrorThrow(Logger logger, String message, Throwable t, Object... args) throws TimestampIOException {
         if (message == null) message = "";
         TimestampIOException t1 = t != null ? new TimestampIOException(message, t) : new TimestampIOException(message);
@@ -29,7 +29,7 @@ import javax.management.NotCompliantMBeanException;
 import javax.management.ObjectName;
 
 public class TimestampOracle implements TimestampOracleStatistics{
-	private static final long TIMESTAMP_INCREMENT = 0x100l;
+	static final long TIMESTAMP_INCREMENT = 0x100l;
 
     private static final Logger LOG = Logger.getLogger(TimestampOracle.class);
 
@@ -88,13 +88,28 @@ public class TimestampOracle implements TimestampOracleStatistics{
     }
 
 	public long getNextTimestamp() throws TimestampIOException {
-		long nextTS = _timestampCounter.addAndGet(TIMESTAMP_INCREMENT);
+		return getNextTimestamps(1);
+	}
+
+    /**
+     * Allocates a contiguous range of timestamps with a single update of the counter.
+     *
+     * @param count the number of timestamps to allocate
+     * @return the first timestamp of the range; the others follow it at intervals of
+     * {@link #TIMESTAMP_INCREMENT}
+     * @throws TimestampIOException if a new block could not be reserved
+     */
+	public long getNextTimestamps(int count) throws TimestampIOException {
+		assert count > 0 : "Invalid timestamp count " + count;
+		long lastTS = _timestampCounter.addAndGet(TIMESTAMP_INCREMENT * count);
 		long maxTS = _maxReservedTimestamp; // avoid the double volatile read
-		if (nextTS > maxTS) {
+		// a large range may run through more than one block
+		while (lastTS > maxTS) {
 			reserveNextBlock(maxTS);
+			maxTS = _maxReservedTimestamp;
 		}
-		_numTimestampsCreated.incrementAndGet(); // JMX metric
-		return nextTS;
+		_numTimestampsCreated.addAndGet(count); // JMX metric
+		return lastTS - TIMESTAMP_INCREMENT * (count - 1);
 	}
 
     private void reserveNextBlock(long priorMaxReservedTimestamp) throws TimestampIOException {
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.timestamp.impl;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.handler.codec.frame.FrameDecoder;
+
+/**
+ * Splits the bytes received on one connection into timestamp requests.
+ * <p>
+ * A request for a single timestamp is the 2 byte caller id, which is all that clients
+ * of earlier releases ever send. Clients which can ask for ranges of timestamps start the
+ * connection with the caller ids {@link TimestampServer#HELLO_CALLER_ID} and
+ * {@link TimestampServer#BATCH_HELLO_CALLER_ID}. The first one is answered like any other
+ * request, the second one with {@link TimestampServer#BATCH_ACKNOWLEDGEMENT}, and from then on
+ * {@link TimestampServer#BATCH_REQUEST_MARKER} followed by a caller id and an unsigned short count
+ * asks for a range. Any other connection is read as single requests only, so an old client
+ * gets exactly one timestamp for every caller id it sends, whatever its value.
+ * <p>
+ * An old client is mistaken for a new one only if the first two caller ids it sends on a
+ * connection are the two hello ids. Its ids come from one counter, and the hello ids are tens of
+ * thousands apart, so that would take as many concurrent requests. A decoder keeps the state of
+ * its connection, so every pipeline needs its own.
+ */
+class TimestampRequestDecoder extends FrameDecoder {
+
+    private enum State {
+        /** nothing received yet */
+        STARTED,
+        /** the first hello id was received */
+        GREETED,
+        /** a client of an earlier release, which only sends single requests */
+        SINGLE,
+        /** a client which can send range requests */
+        BATCH
+    }
+
+    private State state = State.STARTED;
+
+    @Override
+    protected Object decode(ChannelHandlerContext ctx, Channel channel, ChannelBuffer buffer) throws Exception {
+        if (buffer.readableBytes() < TimestampServer.FIXED_MSG_RECEIVED_LENGTH) {
+            return null;
+        }
+        short callerId = buffer.getShort(buffer.readerIndex());
+        switch (state) {
+            case STARTED:
+                state = callerId == TimestampServer.HELLO_CALLER_ID ? State.GREETED : State.SINGLE;
+                break;
+            case GREETED:
+                if (callerId == TimestampServer.BATCH_HELLO_CALLER_ID) {
+                    buffer.skipBytes(TimestampServer.FIXED_MSG_RECEIVED_LENGTH);
+                    state = State.BATCH;
+                    return Request.acknowledgement(callerId);
+                }
+                state = State.SINGLE;
+                break;
+            case BATCH:
+                if (callerId == TimestampServer.BATCH_REQUEST_MARKER) {
+                    if (buffer.readableBytes() < TimestampServer.BATCH_MSG_RECEIVED_LENGTH) {
+                        return null;
+                    }
+                    buffer.skipBytes(TimestampServer.FIXED_MSG_RECEIVED_LENGTH);
+                    short batchCallerId = buffer.readShort();
+                    return new Request(batchCallerId, buffer.readUnsignedShort());
+                }
+                break;
+            default:
+                break;
+        }
+        buffer.skipBytes(TimestampServer.FIXED_MSG_RECEIVED_LENGTH);
+        return new Request(callerId, 1);
+    }
+
+    /**
+     * A request for {@code count} timestamps, or the acknowledgement of a batch hello.
+     */
+    static class Request {
+        private final short callerId;
+        private final int count;
+
+        Request(short callerId, int count) {
+            this.callerId = callerId;
+            this.count = count;
+        }
+
+        static Request acknowledgement(short callerId) {
+            return new Request(callerId, -1);
+        }
+
+        short getCallerId() {
+            return callerId;
+        }
+
+        int getCount() {
+            return count;
+        }
+
+        boolean isAcknowledgement() {
+            return count < 0;
+        }
+    }
+}
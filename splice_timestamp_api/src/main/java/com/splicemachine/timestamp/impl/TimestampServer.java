@@ -35,10 +35,37 @@ public class TimestampServer {
      */
     static final int FIXED_MSG_RECEIVED_LENGTH = 2; // 2 byte client id
 
+    /**
+     * Number of bytes in a request for a range of timestamps, see {@link TimestampRequestDecoder}.
+     */
+    static final int BATCH_MSG_RECEIVED_LENGTH = 6; // 2 byte marker + 2 byte client id + 2 byte (unsigned) timestamp count
+
+    /**
+     * Caller ids with which a client announces that it can send range requests. Such a client
+     * never uses them, nor {@link #BATCH_REQUEST_MARKER}, for its requests.
+     */
+    static final short HELLO_CALLER_ID = 0x5453;
+    static final short BATCH_HELLO_CALLER_ID = (short) 0xB47C;
+
+    /**
+     * First two bytes of a range request.
+     */
+    static final short BATCH_REQUEST_MARKER = (short) 0xFFFE;
+
+    /**
+     * Sent instead of a timestamp in the answer to {@link #BATCH_HELLO_CALLER_ID}. Servers of
+     * earlier releases answer it with a (positive) timestamp.
+     */
+    static final long BATCH_ACKNOWLEDGEMENT = -1L;
+
     /**
      * Fixed number of bytes in the message we expect to send back to the client.
      */
-    static final int FIXED_MSG_SENT_LENGTH = 10; // 2 byte client id + 8 byte timestamp
+    static final int FIXED_MSG_SENT_LENGTH = 10; // 2 byte client id + 8 byte (first) timestamp
+
+    static boolean isReservedCallerId(short callerId) {
+        return callerId == HELLO_CALLER_ID || callerId == BATCH_HELLO_CALLER_ID || callerId == BATCH_REQUEST_MARKER;
+    }
 
     private int port;
     private ChannelFactory factory;
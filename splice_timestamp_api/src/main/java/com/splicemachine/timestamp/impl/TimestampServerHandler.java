@@ -54,16 +54,24 @@ public class TimestampServerHandler extends TimestampBaseHandler {
     public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
         assert oracle != null;
 
-        ChannelBuffer buf = (ChannelBuffer) e.getMessage();
-        assert buf != null;
-        ensureReadableBytes(buf, TimestampServer.FIXED_MSG_RECEIVED_LENGTH);
-
-        final short callerId = buf.readShort();
-        ensureReadableBytes(buf, 0);
-
-        SpliceLogUtils.trace(LOG, "Received timestamp request from client. Caller id = %s", callerId);
-        long nextTimestamp = oracle.getNextTimestamp();
-        assert nextTimestamp > 0;
+        TimestampRequestDecoder.Request request = (TimestampRequestDecoder.Request) e.getMessage();
+        assert request != null;
+
+        final short callerId = request.getCallerId();
+        long nextTimestamp;
+        if (request.isAcknowledgement()) {
+            SpliceLogUtils.debug(LOG, "Client can send range requests. Caller id = %s", callerId);
+            nextTimestamp = TimestampServer.BATCH_ACKNOWLEDGEMENT;
+        } else {
+            int count = request.getCount();
+            if (count == 0) {
+                throw new TimestampIOException("Invalid timestamp count 0 requested by caller id " + callerId);
+            }
+            SpliceLogUtils.trace(LOG, "Received request for %s timestamps from client. Caller id = %s", count, callerId);
+            nextTimestamp = count == 1 ? oracle.getNextTimestamp() : oracle.getNextTimestamps(count);
+            assert nextTimestamp > 0;
+            SpliceLogUtils.debug(LOG, "Responding to caller %s with %s timestamps starting at %s", callerId, count, nextTimestamp);
+        }
 
 
         //
@@ -73,7 +81,6 @@ public class TimestampServerHandler extends TimestampBaseHandler {
         ChannelBuffer writeBuf = ChannelBuffers.buffer(TimestampServer.FIXED_MSG_SENT_LENGTH);
         writeBuf.writeShort(callerId);
         writeBuf.writeLong(nextTimestamp);
-        SpliceLogUtils.debug(LOG, "Responding to caller %s with timestamp %s", callerId, nextTimestamp);
         ChannelFuture futureResponse = e.getChannel().write(writeBuf); // Could also use Channels.write
         futureResponse.addListener(new ChannelFutureListener() {
                                        @Override
@@ -22,6 +22,17 @@ import com.splicemachine.timestamp.api.TimestampIOException;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.when;
 
@@ -55,4 +66,48 @@ public class TimestampClientTest {
         // We make sure the connection is active
         tc.getNextTimestamp();
     }
+
+    @Test
+    public void testConcurrentCallersAreCoalesced() throws Exception {
+        TimestampServer ts = new TimestampServer(0, Mockito.mock(TimestampBlockManager.class, Mockito.RETURNS_DEEP_STUBS), 10);
+        ts.startServer();
+
+        TimestampHostProvider hostProvider = Mockito.mock(TimestampHostProvider.class, Mockito.RETURNS_DEEP_STUBS);
+        when(hostProvider.getHost()).thenReturn("localhost");
+        when(hostProvider.getPort()).thenReturn(ts.getBoundPort());
+        // a single request in flight forces every concurrent caller into the next batch
+        final TimestampClient tc = new TimestampClient(10000, hostProvider, 1024, 1);
+
+        int threads = 16;
+        final int perThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<long[]>> futures = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(new Callable<long[]>() {
+                @Override
+                public long[] call() throws Exception {
+                    long[] timestamps = new long[perThread];
+                    for (int j = 0; j < perThread; j++) {
+                        timestamps[j] = tc.getNextTimestamp();
+                        if (j > 0)
+                            assertTrue("Timestamps went backwards", timestamps[j] > timestamps[j - 1]);
+                    }
+                    return timestamps;
+                }
+            }));
+        }
+
+        Set<Long> unique = new HashSet<>();
+        for (Future<long[]> future : futures) {
+            for (long timestamp : future.get()) {
+                assertTrue("Duplicate timestamp " + timestamp, unique.add(timestamp));
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(threads * perThread, tc.getNumberTimestampRequests());
+        assertTrue("Expected concurrent requests to be coalesced", tc.getNumberTimestampBatches() < threads * perThread);
+        tc.shutdown();
+        ts.stopServer();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2012 - 2018 Splice Machine, Inc.
+ *
+ * This file is part of Splice Machine.
+ * Splice Machine is free software: you can redistribute it and/or modify it under the terms of the
+ * GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3, or (at your option) any later version.
+ * Splice Machine is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details.
+ * You should have received a copy of the GNU Affero General Public License along with Splice Machine.
+ * If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.splicemachine.timestamp.impl;
+
+import com.splicemachine.timestamp.api.TimestampBlockManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Talks to the server through a plain socket, the way clients of earlier releases
+ * (which send 2 byte single requests only) and clients sending range requests do.
+ */
+public class TimestampServerTest {
+
+    private TimestampServer server;
+    private Socket socket;
+    private DataOutputStream out;
+    private DataInputStream in;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new TimestampServer(0, Mockito.mock(TimestampBlockManager.class, Mockito.RETURNS_DEEP_STUBS), 10);
+        server.startServer();
+        socket = new Socket("localhost", server.getBoundPort());
+        socket.setSoTimeout(10000);
+        out = new DataOutputStream(socket.getOutputStream());
+        in = new DataInputStream(socket.getInputStream());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        socket.close();
+        server.stopServer();
+    }
+
+    @Test
+    public void testOldFormatRequestGetsExactlyOneTimestamp() throws Exception {
+        long first = request((short) 100);
+        long second = request((short) 101);
+        assertEquals("No timestamp should be allocated between two single requests",
+                first + TimestampOracle.TIMESTAMP_INCREMENT, second);
+
+        // two requests in the same packet are still two requests
+        out.writeShort(102);
+        out.writeShort(103);
+        out.flush();
+        assertEquals(second + TimestampOracle.TIMESTAMP_INCREMENT, response((short) 102));
+        assertEquals(second + 2 * TimestampOracle.TIMESTAMP_INCREMENT, response((short) 103));
+    }
+
+    @Test
+    public void testOldFormatRequestsWithReservedIdsGetOneTimestampEach() throws Exception {
+        // an old client may use any caller id, including the ones new clients reserve
+        long first = request(TimestampServer.HELLO_CALLER_ID);
+        long second = request((short) 7);
+        long third = request(TimestampServer.BATCH_REQUEST_MARKER);
+        long fourth = request(TimestampServer.BATCH_HELLO_CALLER_ID);
+        assertEquals(first + TimestampOracle.TIMESTAMP_INCREMENT, second);
+        assertEquals(second + TimestampOracle.TIMESTAMP_INCREMENT, third);
+        assertEquals(third + TimestampOracle.TIMESTAMP_INCREMENT, fourth);
+    }
+
+    @Test
+    public void testRangeRequestAfterHandshake() throws Exception {
+        long hello = request(TimestampServer.HELLO_CALLER_ID);
+        assertTrue(hello > 0);
+        assertEquals(TimestampServer.BATCH_ACKNOWLEDGEMENT, request(TimestampServer.BATCH_HELLO_CALLER_ID));
+
+        out.writeShort(TimestampServer.BATCH_REQUEST_MARKER);
+        out.writeShort(5);
+        out.writeShort(3);
+        out.flush();
+        long range = response((short) 5);
+        assertEquals(hello + TimestampOracle.TIMESTAMP_INCREMENT, range);
+
+        // single requests are still accepted on the same connection
+        assertEquals(range + 3 * TimestampOracle.TIMESTAMP_INCREMENT, request((short) 6));
+    }
+
+    private long request(short callerId) throws IOException {
+        out.writeShort(callerId);
+        out.flush();
+        return response(callerId);
+    }
+
+    private long response(short callerId) throws IOException {
+        assertEquals("Unexpected caller id", callerId, in.readShort());
+        return in.readLong();
+    }
+}
@@ -14,8 +14,6 @@
 
 package com.splicemachine.collections;
 
-import java.util.Arrays;
-
 /**
  * Simple non-thread-safe ring buffer.
  *
@@ -66,6 +64,18 @@ public class RingBuffer<T> {
         return buffer.length;
     }
 
+    /**
+     * @param index the position of the item, relative to the next item to be read
+     * @return the {@code index}-th unread item in the buffer
+     * @throws IndexOutOfBoundsException if there are not more than {@code index} unread items
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        if (index < 0 || index >= size())
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        return (T) buffer[(readPosition + index) & mask];
+    }
+
     @SuppressWarnings("unchecked")
     public T peek() {
         if(readPosition>=writePosition) return null; //buffer has already been fully read
@@ -81,8 +91,15 @@ public class RingBuffer<T> {
     }
 
     public void expand() {
-        buffer = Arrays.copyOf(buffer, 2 * buffer.length);
-        mask = buffer.length - 1;
+        Object[] expanded = new Object[2 * buffer.length];
+        int expandedMask = expanded.length - 1;
+        // positions keep counting up, so items have to move to where the larger mask will look for them
+        int from = Math.max(offsetReadPosition, writePosition - buffer.length);
+        for (int position = from; position < writePosition; position++) {
+            expanded[position & expandedMask] = buffer[position & mask];
+        }
+        buffer = expanded;
+        mask = expandedMask;
     }
 
     public void readReset() {
@@ -145,6 +145,48 @@ public class RingBufferTest {
 
     }
 
+    @Test
+    public void expandAfterWrapping() {
+        RingBuffer<Integer> buffer = new RingBuffer<Integer>(4);
+        for (int i = 0; i < 4; i++) {
+            buffer.add(i);
+        }
+        assertEquals(0, buffer.next().intValue());
+        assertEquals(1, buffer.next().intValue());
+        buffer.add(4);
+        buffer.add(5);
+        assertTrue(buffer.isFull());
+
+        buffer.expand();
+        buffer.add(6);
+
+        assertEquals(5, buffer.size());
+        for (int i = 2; i <= 6; i++) {
+            assertEquals(i, buffer.next().intValue());
+        }
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    public void get() {
+        RingBuffer<Integer> buffer = new RingBuffer<Integer>(4);
+        for (int i = 0; i < 6; i++) {
+            if (buffer.isFull())
+                buffer.next();
+            buffer.add(i);
+        }
+        assertEquals(4, buffer.size());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i + 2, buffer.get(i).intValue());
+        }
+        try {
+            buffer.get(4);
+            fail("Expected an IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException expected) {
+            // expected
+        }
+    }
+
     @Test
     public void mark_readReset() {
         RingBuffer<Integer> buffer = new RingBuffer<Integer>(8);